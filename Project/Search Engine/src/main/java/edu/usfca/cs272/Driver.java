@@ -2,26 +2,47 @@ package edu.usfca.cs272;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import edu.usfca.cs272.cli.ArgumentParser;
+import edu.usfca.cs272.crawler.CrawlJournal;
 import edu.usfca.cs272.crawler.WebCrawler;
 import edu.usfca.cs272.functional.IOThrowingConsumer;
+import edu.usfca.cs272.index.ConcurrentInvertedIndex;
+import edu.usfca.cs272.index.ConcurrentJsonIndexLoader;
 import edu.usfca.cs272.index.ConcurrentTextFileIndexer;
+import edu.usfca.cs272.index.FrozenInvertedIndex;
+import edu.usfca.cs272.index.IncrementalTextFileIndexer;
+import edu.usfca.cs272.index.IndexMerger;
 import edu.usfca.cs272.index.InvertedIndex;
+import edu.usfca.cs272.index.InvertedIndex.SearchResult;
+import edu.usfca.cs272.index.JdbcIndexStore;
+import edu.usfca.cs272.index.JsonIndexLoader;
+import edu.usfca.cs272.index.ReducingIndexMerger;
+import edu.usfca.cs272.index.SegmentedInvertedIndex;
+import edu.usfca.cs272.index.ShardedInvertedIndex;
 import edu.usfca.cs272.index.TextFileIndexer;
+import edu.usfca.cs272.index.TextFileWatcher;
 import edu.usfca.cs272.index.ThreadSafeInvertedIndex;
 import edu.usfca.cs272.query.ConcurrentQueryProcessor;
 import edu.usfca.cs272.query.QueryProcessor;
 import edu.usfca.cs272.query.SerialQueryProcessor;
 import edu.usfca.cs272.servlet.SearchEngine;
 import edu.usfca.cs272.threads.WorkQueue;
+import edu.usfca.cs272.util.DatabaseConnector;
+import edu.usfca.cs272.util.JsonWriter;
 
 /**
  * Class responsible for running this project based on the provided command-line
@@ -88,6 +109,102 @@ public class Driver {
 	 */
 	private static final String SERVER_FLAG = "-server";
 
+	/**
+	 * Command-line flag to specify to build the index with the lock-free
+	 * concurrent inverted index instead of the lock-based thread-safe index.
+	 */
+	private static final String CONCURRENT_FLAG = "-concurrent";
+
+	/**
+	 * Command-line flag to specify to build the index with a term-sharded inverted
+	 * index with the given number of shards, each with its own lock.
+	 */
+	private static final String SHARDS_FLAG = "-shards";
+
+	/**
+	 * Command-line flag to specify to merge the local indexes of worker tasks in
+	 * pairs before merging them into the shared index.
+	 */
+	private static final String REDUCE_FLAG = "-reduce";
+
+	/**
+	 * Command-line flag to specify to build the index from immutable segments
+	 * merged in the background. Combined with the server flag, the web server
+	 * starts right away and searches the segments while the crawl continues.
+	 */
+	private static final String SEGMENTED_FLAG = "-segmented";
+
+	/**
+	 * Command-line flag to specify the output path for a binary copy of the built
+	 * index, which can be loaded back with the load flag.
+	 */
+	private static final String SAVE_FLAG = "-save";
+
+	/**
+	 * Command-line flag to specify the path of a binary index to search instead of
+	 * building the index from text files or web pages.
+	 */
+	private static final String LOAD_FLAG = "-load";
+
+	/**
+	 * Command-line flag to specify to map the loaded binary index into memory and
+	 * search it in place instead of reading it onto the heap.
+	 */
+	private static final String MMAP_FLAG = "-mmap";
+
+	/**
+	 * Command-line flag to specify to compress the JSON output files with gzip,
+	 * adding the gzip extension to output paths that do not already have it.
+	 * Output paths with the gzip extension are compressed even without this flag.
+	 */
+	private static final String GZIP_FLAG = "-gzip";
+
+	/**
+	 * Command-line flag to specify the path of an index JSON file written by the
+	 * index flag to rebuild the index from, instead of indexing text files.
+	 */
+	private static final String LOAD_JSON_FLAG = "-loadjson";
+
+	/**
+	 * Command-line flag to specify the path of a counts JSON file written by the
+	 * counts flag to load the word counts from, along with the load JSON flag.
+	 */
+	private static final String LOAD_COUNTS_FLAG = "-loadcounts";
+
+	/**
+	 * Command-line flag to specify the path of the journal recording the progress
+	 * of the crawl. If the journal records an earlier crawl that stopped part way,
+	 * the crawl resumes from its last checkpoint instead of starting over.
+	 */
+	private static final String JOURNAL_FLAG = "-journal";
+
+	/**
+	 * Command-line flag to specify the number of pages crawled between checkpoints
+	 * of the index saved next to the journal.
+	 */
+	private static final String CHECKPOINT_FLAG = "-checkpoint";
+
+	/**
+	 * Command-line flag to specify the path of the manifest of indexed text files,
+	 * so only new or changed files are indexed again by the text flag. Works with
+	 * every kind of index, single-threaded or multithreaded.
+	 */
+	private static final String INCREMENTAL_FLAG = "-incremental";
+
+	/**
+	 * Command-line flag to keep the index of the text directory up to date while
+	 * the web server is running, by watching the directory for changed files.
+	 * Implies the incremental flag.
+	 */
+	private static final String WATCH_FLAG = "-watch";
+
+	/**
+	 * Command-line flag to specify the path of the properties file of a database.
+	 * A built or loaded index is stored in the database, and otherwise exact
+	 * queries are answered by the index stored in the database.
+	 */
+	private static final String DATABASE_FLAG = "-database";
+
 	/**
 	 * Default filename used when no custom output file is provided for word counts.
 	 */
@@ -105,6 +222,29 @@ public class Driver {
 	 */
 	private static final String DEFAULT_RESULTS_FILENAME = "results.json";
 
+	/**
+	 * Default filename used when no custom output file is provided for the binary
+	 * index.
+	 */
+	private static final String DEFAULT_SAVE_FILENAME = "index.bin";
+
+	/**
+	 * Default filename used when no custom path is provided for the crawl journal.
+	 */
+	private static final String DEFAULT_JOURNAL_FILENAME = "crawl.journal";
+
+	/**
+	 * Default filename used when no custom path is provided for the manifest of
+	 * indexed text files.
+	 */
+	private static final String DEFAULT_MANIFEST_FILENAME = "index.manifest";
+
+	/**
+	 * Default filename used when no custom path is provided for the database
+	 * properties.
+	 */
+	private static final String DEFAULT_DATABASE_FILENAME = "database.properties";
+
 	/**
 	 * Default number of threads used for multi-threading.
 	 */
@@ -120,6 +260,16 @@ public class Driver {
 	 */
 	private static final Integer DEFAULT_PORT = 8080;
 
+	/**
+	 * Default number of shards used when the shards flag is used without a value.
+	 */
+	private static final Integer DEFAULT_SHARDS = 8;
+
+	/**
+	 * Default number of pages crawled between checkpoints of a journaled crawl.
+	 */
+	private static final Integer DEFAULT_CHECKPOINT_PAGES = 100;
+
 	/**
 	 * Initializes the classes necessary based on the provided command-line
 	 * arguments. This includes (but is not limited to) how to build or search an
@@ -180,7 +330,12 @@ public class Driver {
 	/**
 	 * Initializes a work queue, thread-safe inverted index, text file indexer, and
 	 * concurrent query processor. Executes text indexing, query processing, and
-	 * JSON output generation concurrently.
+	 * JSON output generation concurrently. Once building is done, searches and
+	 * output use a frozen copy of the index when there is anything to search, and
+	 * the index JSON is rendered in parallel. A live crawl or a watched text
+	 * directory keeps updating the index the server searches instead, and a live
+	 * crawl is stopped and its queued work finished once the server stops. If an
+	 * index is loaded, nothing is built and the loaded index is searched instead.
 	 *
 	 * @param argParser the argument parser containing command-line options
 	 * @param threads the number of threads used for multi-threading
@@ -188,52 +343,293 @@ public class Driver {
 	private static void runMultiThreaded(ArgumentParser argParser, int threads) {
 		logger.info("Starting multi-threaded processing...");
 		WorkQueue tasks = new WorkQueue(threads);
-		ThreadSafeInvertedIndex invertedIndex = new ThreadSafeInvertedIndex();
-		ConcurrentTextFileIndexer textFileIndexer = new ConcurrentTextFileIndexer(invertedIndex, tasks);
-		WebCrawler webCrawler = new WebCrawler(invertedIndex, tasks,
-				argParser.getPositiveInteger(CRAWL_FLAG, DEFAULT_TOTAL_URIS));
-		ConcurrentQueryProcessor queryProcessor = new ConcurrentQueryProcessor(argParser.hasFlag(PARTIAL_FLAG),
-				invertedIndex, tasks);
+		FrozenInvertedIndex loaded = processLoadFlag(argParser);
+		InvertedIndex invertedIndex = loaded != null ? loaded : createThreadSafeIndex(argParser, tasks);
+		boolean liveCrawl = isLiveCrawl(argParser);
+		boolean watching = loaded == null && isWatching(argParser);
+		IndexMerger merger = argParser.hasFlag(REDUCE_FLAG) && !liveCrawl && !watching
+				? new ReducingIndexMerger(invertedIndex)
+				: new IndexMerger(invertedIndex);
+		TextFileIndexer textFileIndexer = processIncrementalFlag(argParser, merger, tasks);
+		CrawlJournal journal = loaded == null && argParser.hasFlag(HTML_FLAG) ? processJournalFlag(argParser) : null;
+		WebCrawler webCrawler = new WebCrawler(merger, tasks, argParser.getPositiveInteger(CRAWL_FLAG, DEFAULT_TOTAL_URIS),
+				journal);
+		ConcurrentJsonIndexLoader jsonLoader = new ConcurrentJsonIndexLoader(merger, tasks);
+
+		if (loaded == null) {
+			processHtmlFlag(argParser, webCrawler, liveCrawl);
+			processPathFlag(argParser, TEXT_FLAG, null, textFileIndexer::indexPath);
+			processLoadJsonFlags(argParser, jsonLoader);
+		}
 
-		processHtmlFlag(argParser, webCrawler);
-		processPathInputFlags(argParser, textFileIndexer, queryProcessor);
-		processServerFlag(argParser, invertedIndex);
+		TextFileWatcher watcher = watching && textFileIndexer instanceof IncrementalTextFileIndexer incremental
+				? processWatchFlag(argParser, incremental)
+				: null;
+		InvertedIndex searchIndex = liveCrawl || watcher != null ? invertedIndex
+				: processFreeze(argParser, invertedIndex);
+		JdbcIndexStore store = processDatabaseFlag(argParser);
+		boolean searchDatabase = store != null && !hasIndexInput(argParser);
+		ConcurrentQueryProcessor queryProcessor = searchDatabase
+				? new ConcurrentQueryProcessor(createDatabaseSearch(argParser, store), tasks)
+				: new ConcurrentQueryProcessor(argParser.hasFlag(PARTIAL_FLAG), searchIndex, tasks);
+
+		if (store != null && !searchDatabase) {
+			saveToDatabase(store, searchIndex);
+		}
 
-		tasks.shutdown();
+		processPathFlag(argParser, QUERY_FLAG, null, queryProcessor::processPath);
+		processServerFlag(argParser, searchIndex);
+		closeWatcher(watcher);
+
+		if (liveCrawl) {
+			webCrawler.stop();
+			tasks.finish();
+			merger.finish();
+		}
 
-		processOutputFlags(argParser, invertedIndex, queryProcessor);
+		processOutputFlags(argParser, searchIndex, queryProcessor, tasks);
 
 		tasks.join();
+		closeJournal(journal);
 
 		logger.info("Finished multi-threaded processing.");
 	}
 
+	/**
+	 * Creates the thread-safe inverted index to build, which is the segmented
+	 * index if the segmented flag is present, the lock-free concurrent index if the
+	 * concurrent flag is present, the term-sharded index if the shards flag is
+	 * present, and the lock-based thread-safe index otherwise.
+	 *
+	 * @param argParser the argument parser containing command-line options
+	 * @param tasks the work queue for background work of the index
+	 * @return the thread-safe inverted index
+	 */
+	private static InvertedIndex createThreadSafeIndex(ArgumentParser argParser, WorkQueue tasks) {
+		if (argParser.hasFlag(SEGMENTED_FLAG)) {
+			logger.info("Using segmented inverted index");
+			return new SegmentedInvertedIndex(tasks);
+		}
+		if (argParser.hasFlag(CONCURRENT_FLAG)) {
+			logger.info("Using lock-free concurrent inverted index");
+			return new ConcurrentInvertedIndex();
+		}
+		if (argParser.hasFlag(SHARDS_FLAG)) {
+			int shards = argParser.getPositiveInteger(SHARDS_FLAG, DEFAULT_SHARDS);
+			logger.info("Using sharded inverted index with {} shards", shards);
+			return new ShardedInvertedIndex(shards);
+		}
+		return new ThreadSafeInvertedIndex();
+	}
+
 	/**
 	 * Initializes a standard inverted index, text file indexer, and query
 	 * processor. Executes text indexing, query processing, and JSON output
-	 * generation in a single thread.
+	 * generation in a single thread. If an index is loaded, nothing is indexed and
+	 * the loaded index is searched instead.
 	 *
 	 * @param argParser the argument parser containing command-line options
 	 */
 	private static void runSingleThreaded(ArgumentParser argParser) {
 		logger.info("Starting single-threaded processing...");
-		InvertedIndex invertedIndex = new InvertedIndex();
-		TextFileIndexer textFileIndexer = new TextFileIndexer(invertedIndex);
-		SerialQueryProcessor queryProcessor = new SerialQueryProcessor(argParser.hasFlag(PARTIAL_FLAG), invertedIndex);
-
-		processPathInputFlags(argParser, textFileIndexer, queryProcessor);
-		processOutputFlags(argParser, invertedIndex, queryProcessor);
+		FrozenInvertedIndex loaded = processLoadFlag(argParser);
+		InvertedIndex invertedIndex = loaded != null ? loaded : new InvertedIndex();
+		TextFileIndexer textFileIndexer = processIncrementalFlag(argParser, new IndexMerger(invertedIndex), null);
+		JsonIndexLoader jsonLoader = new JsonIndexLoader(invertedIndex);
+		JdbcIndexStore store = processDatabaseFlag(argParser);
+		boolean searchDatabase = store != null && !hasIndexInput(argParser);
+		SerialQueryProcessor queryProcessor = searchDatabase
+				? new SerialQueryProcessor(createDatabaseSearch(argParser, store))
+				: new SerialQueryProcessor(argParser.hasFlag(PARTIAL_FLAG), invertedIndex);
+
+		processPathInputFlags(argParser, loaded == null ? textFileIndexer : null, loaded == null ? jsonLoader : null,
+				queryProcessor);
+		if (store != null && !searchDatabase) {
+			saveToDatabase(store, invertedIndex);
+		}
+		processOutputFlags(argParser, invertedIndex, queryProcessor, null);
 
 		logger.info("Finished single-threaded processing.");
 	}
 
+	/**
+	 * Processes the incremental flag and creates the indexer of text files, which
+	 * only indexes new or changed files if the flag is present.
+	 *
+	 * @param argParser the argument parser containing command-line options
+	 * @param merger the merger of local indexes into the index to build
+	 * @param tasks the work queue for executing indexing tasks, or null to index
+	 *   files in the calling thread
+	 * @return the text file indexer
+	 */
+	private static TextFileIndexer processIncrementalFlag(ArgumentParser argParser, IndexMerger merger,
+			WorkQueue tasks) {
+		if (argParser.hasFlag(INCREMENTAL_FLAG) || argParser.hasFlag(WATCH_FLAG)) {
+			Path path = argParser.getPath(INCREMENTAL_FLAG, Path.of(DEFAULT_MANIFEST_FILENAME));
+			logger.info("Indexing incrementally with manifest: {}", path);
+			return new IncrementalTextFileIndexer(merger, tasks, path);
+		}
+		if (tasks == null) {
+			return new TextFileIndexer(merger.getInvertedIndex());
+		}
+		return new ConcurrentTextFileIndexer(merger, tasks);
+	}
+
+	/**
+	 * Determines whether an index is built or loaded by the command-line
+	 * arguments, rather than searched in a database.
+	 *
+	 * @param argParser the argument parser containing command-line options
+	 * @return true if any of the text, HTML, load JSON, or load flags are present
+	 */
+	private static boolean hasIndexInput(ArgumentParser argParser) {
+		return argParser.hasFlag(TEXT_FLAG) || argParser.hasFlag(HTML_FLAG) || argParser.hasFlag(LOAD_JSON_FLAG)
+				|| argParser.hasFlag(LOAD_FLAG);
+	}
+
+	/**
+	 * Processes the database flag and creates the store of the index in the
+	 * database configured by the properties file.
+	 *
+	 * @param argParser the argument parser containing command-line options
+	 * @return the store, or null if the flag is missing or the properties are
+	 *   invalid
+	 */
+	private static JdbcIndexStore processDatabaseFlag(ArgumentParser argParser) {
+		if (!argParser.hasFlag(DATABASE_FLAG)) {
+			return null;
+		}
+
+		Path path = argParser.getPath(DATABASE_FLAG, Path.of(DEFAULT_DATABASE_FILENAME));
+		try {
+			DatabaseConnector connector = new DatabaseConnector(path);
+			logger.info("Using database at {}", connector.uri);
+			return new JdbcIndexStore(connector);
+		}
+		catch (IOException e) {
+			logger.error("Error processing {} at \"{}\"", DATABASE_FLAG, path, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Creates the function answering queries from the index stored in the
+	 * database. Only exact search is supported, so the partial flag is ignored.
+	 *
+	 * @param argParser the argument parser containing command-line options
+	 * @param store the store of the index in the database
+	 * @return the search function, which returns no results if the database cannot
+	 *   be searched
+	 */
+	private static Function<Set<String>, List<SearchResult>> createDatabaseSearch(ArgumentParser argParser,
+			JdbcIndexStore store) {
+		if (argParser.hasFlag(PARTIAL_FLAG)) {
+			logger.warn("Partial search is not supported by the database. Using exact search.");
+		}
+
+		return query -> {
+			try {
+				return store.searchExact(query);
+			}
+			catch (SQLException e) {
+				logger.error("Error searching the database for {}", query, e);
+				return Collections.emptyList();
+			}
+		};
+	}
+
+	/**
+	 * Stores the index in the database, logging the rate postings were written.
+	 *
+	 * @param store the store of the index in the database
+	 * @param invertedIndex the index to store
+	 */
+	private static void saveToDatabase(JdbcIndexStore store, InvertedIndex invertedIndex) {
+		try {
+			Instant start = Instant.now();
+			int postings = store.save(invertedIndex);
+			long elapsedMillis = Math.max(1, Duration.between(start, Instant.now()).toMillis());
+			logger.info("Stored {} postings in the database in {} ms ({} postings per second)", postings,
+					elapsedMillis, postings * 1000L / elapsedMillis);
+		}
+		catch (SQLException e) {
+			logger.error("Error storing the index in the database", e);
+		}
+	}
+
+	/**
+	 * Determines whether the crawl should keep running in the background while the
+	 * web server searches the segmented index.
+	 *
+	 * @param argParser the argument parser containing command-line options
+	 * @return true if the segmented, server, and HTML flags are all present
+	 */
+	private static boolean isLiveCrawl(ArgumentParser argParser) {
+		return argParser.hasFlag(SEGMENTED_FLAG) && argParser.hasFlag(SERVER_FLAG) && argParser.hasFlag(HTML_FLAG);
+	}
+
+	/**
+	 * Determines whether the text directory should be watched for changes while the
+	 * web server searches the index.
+	 *
+	 * @param argParser the argument parser containing command-line options
+	 * @return true if the watch, server, and text flags are all present
+	 */
+	private static boolean isWatching(ArgumentParser argParser) {
+		return argParser.hasFlag(WATCH_FLAG) && argParser.hasFlag(SERVER_FLAG) && argParser.hasFlag(TEXT_FLAG);
+	}
+
+	/**
+	 * Processes the watch flag and starts watching the text directory for changes,
+	 * updating the index with the incremental indexer.
+	 *
+	 * @param argParser the argument parser containing command-line options
+	 * @param indexer the incremental indexer that indexed the text directory
+	 * @return the started watcher, or null if the text directory cannot be watched
+	 */
+	private static TextFileWatcher processWatchFlag(ArgumentParser argParser, IncrementalTextFileIndexer indexer) {
+		Path path = argParser.getPath(TEXT_FLAG, null);
+		if (path == null || !Files.isDirectory(path)) {
+			logger.warn("Unable to watch {} flag path \"{}\", which is not a directory.", TEXT_FLAG, path);
+			return null;
+		}
+
+		try {
+			TextFileWatcher watcher = new TextFileWatcher(path, indexer);
+			watcher.start();
+			return watcher;
+		}
+		catch (IOException e) {
+			logger.error("Error watching {} at \"{}\"", TEXT_FLAG, path, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Stops watching the text directory, if it was watched.
+	 *
+	 * @param watcher the watcher to close, or null if there is none
+	 */
+	private static void closeWatcher(TextFileWatcher watcher) {
+		if (watcher != null) {
+			try {
+				watcher.close();
+			}
+			catch (IOException e) {
+				logger.error("Error closing the text file watcher", e);
+			}
+		}
+	}
+
 	/**
 	 * Processes the HTML flag and crawls the content at the given URI if valid.
 	 *
 	 * @param argParser the argument parser containing command-line options
 	 * @param webSiteIndexer the web page indexer to process the URI
+	 * @param background whether to start the crawl without waiting for it to
+	 *   finish
 	 */
-	private static void processHtmlFlag(ArgumentParser argParser, WebCrawler webSiteIndexer) {
+	private static void processHtmlFlag(ArgumentParser argParser, WebCrawler webSiteIndexer, boolean background) {
 		if (!argParser.hasFlag(HTML_FLAG)) {
 			logger.warn("No {} flag provided. Skipping.", HTML_FLAG);
 			return;
@@ -249,13 +645,117 @@ public class Driver {
 		logger.info("Processing {} flag at \"{}\"", HTML_FLAG, seed);
 
 		try {
-			webSiteIndexer.crawl(seed);
+			if (background) {
+				webSiteIndexer.start(seed);
+			}
+			else {
+				webSiteIndexer.crawl(seed);
+			}
 		}
-		catch (UncheckedIOException e) {
+		catch (IOException | UncheckedIOException e) {
 			logger.error("Error processing {} at \"{}\"", HTML_FLAG, seed, e);
 		}
 	}
 
+	/**
+	 * Processes the journal flag and opens the crawl journal at the given path if
+	 * valid, which resumes the crawl it records if there is one.
+	 *
+	 * @param argParser the argument parser containing command-line options
+	 * @return the opened journal, or null if the crawl is not journaled
+	 */
+	private static CrawlJournal processJournalFlag(ArgumentParser argParser) {
+		if (!argParser.hasFlag(JOURNAL_FLAG)) {
+			return null;
+		}
+
+		Path path = argParser.getPath(JOURNAL_FLAG, Path.of(DEFAULT_JOURNAL_FILENAME));
+
+		if (path == null) {
+			logger.error("Invalid or null path provided for {} flag.", JOURNAL_FLAG);
+			return null;
+		}
+
+		logger.info("Processing {} flag at \"{}\"", JOURNAL_FLAG, path);
+
+		try {
+			return new CrawlJournal(path, argParser.getPositiveInteger(CHECKPOINT_FLAG, DEFAULT_CHECKPOINT_PAGES));
+		}
+		catch (IOException | UncheckedIOException e) {
+			logger.error("Error processing {} at \"{}\"", JOURNAL_FLAG, path, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Closes the crawl journal if the crawl was journaled.
+	 *
+	 * @param journal the journal to close, or null if the crawl is not journaled
+	 */
+	private static void closeJournal(CrawlJournal journal) {
+		if (journal != null) {
+			try {
+				journal.close();
+			}
+			catch (IOException e) {
+				logger.error("Error closing crawl journal", e);
+			}
+		}
+	}
+
+	/**
+	 * Freezes the built index if it will be searched by the query or server flags,
+	 * so searches run against compact sorted arrays without locking.
+	 *
+	 * @param argParser the argument parser containing command-line options
+	 * @param invertedIndex the built thread-safe inverted index
+	 * @return the frozen index, or the original index if nothing will be searched
+	 */
+	private static InvertedIndex processFreeze(ArgumentParser argParser, InvertedIndex invertedIndex) {
+		if (argParser.hasFlag(QUERY_FLAG) || argParser.hasFlag(SERVER_FLAG)) {
+			return invertedIndex.freeze();
+		}
+		return invertedIndex;
+	}
+
+	/**
+	 * Processes the load flag and reads the binary index at the given path if
+	 * valid, or maps it into memory if the mmap flag is present. The text and HTML
+	 * flags are ignored when an index is loaded, since a loaded index cannot be
+	 * modified.
+	 *
+	 * @param argParser the argument parser containing command-line options
+	 * @return the loaded index, or null if no index was loaded
+	 */
+	private static FrozenInvertedIndex processLoadFlag(ArgumentParser argParser) {
+		if (!argParser.hasFlag(LOAD_FLAG)) {
+			return null;
+		}
+
+		Path path = argParser.getPath(LOAD_FLAG, null);
+
+		if (path == null) {
+			logger.error("Invalid or null path provided for {} flag.", LOAD_FLAG);
+			return null;
+		}
+
+		logger.info("Processing {} flag at \"{}\"", LOAD_FLAG, path);
+
+		try {
+			FrozenInvertedIndex loaded = argParser.hasFlag(MMAP_FLAG) ? FrozenInvertedIndex.map(path)
+					: FrozenInvertedIndex.load(path);
+			if (argParser.hasFlag(TEXT_FLAG) || argParser.hasFlag(HTML_FLAG) || argParser.hasFlag(LOAD_JSON_FLAG)) {
+				logger.warn("Index loaded with {} flag. Skipping {}, {}, and {} flags.", LOAD_FLAG, TEXT_FLAG, HTML_FLAG,
+						LOAD_JSON_FLAG);
+			}
+			return loaded;
+		}
+		catch (IOException | UncheckedIOException e) {
+			logger.error("Error processing {} at \"{}\"", LOAD_FLAG, path, e);
+			return null;
+		}
+	}
+
 	/**
 	 * Processes the server flag and starts the search engine web server if the flag
 	 * is present.
@@ -263,7 +763,7 @@ public class Driver {
 	 * @param argParser the argument parser containing command-line options
 	 * @param invertedIndex the thread-safe inverted index to use for searches
 	 */
-	private static void processServerFlag(ArgumentParser argParser, ThreadSafeInvertedIndex invertedIndex) {
+	private static void processServerFlag(ArgumentParser argParser, InvertedIndex invertedIndex) {
 		if (argParser.hasFlag(SERVER_FLAG)) {
 			try {
 				String portEnv = System.getenv("PORT");
@@ -282,34 +782,86 @@ public class Driver {
 	}
 
 	/**
-	 * Processes the path-related input flags for text indexing and query
-	 * processing.
+	 * Processes the path-related input flags for text indexing, loading JSON, and
+	 * query processing.
 	 *
 	 * @param argParser the argument parser containing command-line options
-	 * @param textFileIndexer the indexer to process text file input
+	 * @param textFileIndexer the indexer to process text file input, or null to
+	 *   skip text file input
+	 * @param jsonLoader the loader to process JSON input, or null to skip JSON
+	 *   input
 	 * @param queryProcessor the processor to handle query input
 	 */
 	private static void processPathInputFlags(ArgumentParser argParser, TextFileIndexer textFileIndexer,
-			QueryProcessor queryProcessor) {
-		processPathFlag(argParser, TEXT_FLAG, null, textFileIndexer::indexPath);
+			JsonIndexLoader jsonLoader, QueryProcessor queryProcessor) {
+		if (textFileIndexer != null) {
+			processPathFlag(argParser, TEXT_FLAG, null, textFileIndexer::indexPath);
+		}
+		if (jsonLoader != null) {
+			processLoadJsonFlags(argParser, jsonLoader);
+		}
 		processPathFlag(argParser, QUERY_FLAG, null, queryProcessor::processPath);
 	}
 
+	/**
+	 * Processes the load JSON and load counts flags, rebuilding the index from the
+	 * index and counts JSON files of a previous run.
+	 *
+	 * @param argParser the argument parser containing command-line options
+	 * @param jsonLoader the loader of the JSON files into the index
+	 */
+	private static void processLoadJsonFlags(ArgumentParser argParser, JsonIndexLoader jsonLoader) {
+		processPathFlag(argParser, LOAD_JSON_FLAG, Path.of(DEFAULT_INDEX_FILENAME), jsonLoader::loadIndex);
+		processPathFlag(argParser, LOAD_COUNTS_FLAG, Path.of(DEFAULT_COUNTS_FILENAME), jsonLoader::loadCounts);
+	}
+
 	/**
 	 * Processes the output flags and writes the corresponding JSON files for word
-	 * counts, inverted index, and search results.
+	 * counts, inverted index, and search results, compressed with gzip if
+	 * requested, and the binary index file.
 	 *
 	 * @param argParser the argument parser
 	 * @param invertedIndex the inverted index used for output
 	 * @param queryProcessor the query processor used for output
+	 * @param tasks the work queue used to write the index in parallel, or null to
+	 *   write it in the calling thread
 	 */
 	private static void processOutputFlags(ArgumentParser argParser, InvertedIndex invertedIndex,
-			QueryProcessor queryProcessor) {
-		processPathFlag(argParser, COUNTS_FLAG, Path.of(DEFAULT_COUNTS_FILENAME), invertedIndex::countsToJson);
+			QueryProcessor queryProcessor, WorkQueue tasks) {
+		processPathFlag(argParser, COUNTS_FLAG, Path.of(DEFAULT_COUNTS_FILENAME),
+				processGzipFlag(argParser, invertedIndex::countsToJson));
+
+		if (tasks == null) {
+			processPathFlag(argParser, INDEX_FLAG, Path.of(DEFAULT_INDEX_FILENAME),
+					processGzipFlag(argParser, invertedIndex::indexToJson));
+		}
+		else {
+			processPathFlag(argParser, INDEX_FLAG, Path.of(DEFAULT_INDEX_FILENAME),
+					processGzipFlag(argParser, path -> invertedIndex.indexToJson(path, tasks)));
+		}
 
-		processPathFlag(argParser, INDEX_FLAG, Path.of(DEFAULT_INDEX_FILENAME), invertedIndex::indexToJson);
+		processPathFlag(argParser, RESULTS_FLAG, Path.of(DEFAULT_RESULTS_FILENAME),
+				processGzipFlag(argParser, queryProcessor::resultsToJson));
 
-		processPathFlag(argParser, RESULTS_FLAG, Path.of(DEFAULT_RESULTS_FILENAME), queryProcessor::resultsToJson);
+		processPathFlag(argParser, SAVE_FLAG, Path.of(DEFAULT_SAVE_FILENAME), invertedIndex::save);
+	}
+
+	/**
+	 * Processes the gzip flag for a JSON output. If the flag is present, the
+	 * output is written to the path with the gzip extension added, which
+	 * compresses it as it is written.
+	 *
+	 * @param argParser the argument parser containing command-line options
+	 * @param writer the function that writes the JSON output to a path
+	 * @return the function that writes the JSON output, compressed if the gzip
+	 *   flag is present
+	 * @see JsonWriter#toCompressed(Path)
+	 */
+	private static IOThrowingConsumer<Path> processGzipFlag(ArgumentParser argParser, IOThrowingConsumer<Path> writer) {
+		if (!argParser.hasFlag(GZIP_FLAG)) {
+			return writer;
+		}
+		return path -> writer.accept(JsonWriter.toCompressed(path));
 	}
 
 	/**
@@ -0,0 +1,378 @@
+package edu.usfca.cs272.crawler;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.usfca.cs272.index.FrozenInvertedIndex;
+import edu.usfca.cs272.index.InvertedIndex;
+
+/**
+ * An append-only journal of a web crawl, so a crawl that stops part way can be
+ * resumed without fetching its pages again. Each line records one event, its
+ * type followed by a tab and a URI or count:
+ *
+ * <ul>
+ * <li>{@code discovered} when a URI is added to the crawl</li>
+ * <li>{@code fetched} when the HTML of a URI has been fetched</li>
+ * <li>{@code indexed} when a page has been merged into the index, or has
+ * nothing to index</li>
+ * <li>{@code checkpoint} when the index has been saved to the checkpoint file,
+ * with the number of indexed lines the checkpoint covers</li>
+ * </ul>
+ *
+ * Every line is flushed as soon as it is written, and checkpoints are written
+ * to a temporary file and moved into place, so a crash leaves at most a partial
+ * last line, which is ignored. When an existing journal is opened, the pages
+ * covered by its last checkpoint are done, and every other discovered URI is
+ * pending and fetched again. The journal is then rewritten with only the lines
+ * that still matter.
+ */
+public class CrawlJournal implements Closeable {
+	/**
+	 * Logger for logging events in CrawlJournal class.
+	 */
+	private static final Logger logger = LogManager.getLogger(CrawlJournal.class);
+
+	/** The type of line recording a discovered URI. */
+	private static final String DISCOVERED = "discovered";
+
+	/** The type of line recording a fetched URI. */
+	private static final String FETCHED = "fetched";
+
+	/** The type of line recording an indexed URI. */
+	private static final String INDEXED = "indexed";
+
+	/** The type of line recording a saved checkpoint. */
+	private static final String CHECKPOINT = "checkpoint";
+
+	/** The separator between the type and value of a line. */
+	private static final char SEPARATOR = '\t';
+
+	/** The file extension added to the journal path for the index checkpoint. */
+	private static final String CHECKPOINT_EXTENSION = ".checkpoint";
+
+	/** The path of the journal file. */
+	private final Path path;
+
+	/** The path of the index checkpoint file. */
+	private final Path checkpointPath;
+
+	/** The number of pages indexed between checkpoints. */
+	private final int interval;
+
+	/** Every URI discovered by the journaled crawl, in the order discovered. */
+	private final Set<URI> discovered;
+
+	/** The discovered URIs not covered by the last checkpoint when opened. */
+	private final List<URI> pending;
+
+	/** Whether a checkpoint of an earlier run can be restored. */
+	private final boolean restorable;
+
+	/** Appends lines to the journal file. */
+	private final BufferedWriter writer;
+
+	/** The number of indexed lines in the journal file. */
+	private int indexed;
+
+	/** The number of indexed lines covered by the last checkpoint. */
+	private int checkpointed;
+
+	/** Serializes saving checkpoints without blocking other lines. */
+	private final Object checkpointLock;
+
+	/**
+	 * Opens the journal at the given path, reading the state of any earlier crawl
+	 * it records and compacting it before appending to it.
+	 *
+	 * @param path the path of the journal file
+	 * @param interval the number of pages indexed between checkpoints
+	 * @throws IOException if an I/O error occurs while reading or writing the
+	 *   journal
+	 */
+	public CrawlJournal(Path path, int interval) throws IOException {
+		this.path = path;
+		this.checkpointPath = path.resolveSibling(path.getFileName() + CHECKPOINT_EXTENSION);
+		this.interval = interval;
+		this.discovered = new LinkedHashSet<>();
+		this.checkpointLock = new Object();
+
+		List<URI> indexedUris = new ArrayList<>();
+		int covered = 0;
+		if (Files.exists(path)) {
+			covered = read(indexedUris);
+		}
+		if (covered > 0 && !Files.exists(checkpointPath)) {
+			logger.warn("Checkpoint missing for crawl journal: {}", checkpointPath);
+			covered = 0;
+		}
+
+		Set<URI> done = new HashSet<>(indexedUris.subList(0, covered));
+		this.pending = new ArrayList<>();
+		for (URI uri : discovered) {
+			if (!done.contains(uri)) {
+				pending.add(uri);
+			}
+		}
+		this.restorable = covered > 0;
+		this.indexed = 0;
+		this.checkpointed = 0;
+
+		compact(indexedUris.subList(0, covered));
+		this.writer = Files.newBufferedWriter(path, UTF_8, CREATE, APPEND);
+
+		logger.info("Opened crawl journal {} with {} discovered and {} pending URIs", path, discovered.size(),
+				pending.size());
+	}
+
+	/**
+	 * Reads the lines of the journal file, ignoring a partial last line.
+	 *
+	 * @param indexedUris the list to add the indexed URIs to, in order
+	 * @return the number of indexed URIs covered by the last checkpoint
+	 * @throws IOException if an I/O error occurs while reading the journal
+	 */
+	private int read(List<URI> indexedUris) throws IOException {
+		int covered = 0;
+		boolean partial = !endsWithNewline();
+		// replaces the bytes of a character cut off by a crash instead of failing
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(path), UTF_8))) {
+			String next = reader.readLine();
+			for (String line = next; line != null; line = next) {
+				next = reader.readLine();
+				if (next == null && partial) {
+					logger.warn("Ignoring partial last crawl journal line: {}", line);
+					break;
+				}
+
+				int split = line.indexOf(SEPARATOR);
+				if (split < 0) {
+					logger.warn("Skipping malformed crawl journal line: {}", line);
+					continue;
+				}
+
+				String type = line.substring(0, split);
+				String value = line.substring(split + 1);
+				try {
+					switch (type) {
+						case DISCOVERED -> discovered.add(URI.create(value));
+						case INDEXED -> indexedUris.add(URI.create(value));
+						case CHECKPOINT -> covered = Math.min(Integer.parseInt(value), indexedUris.size());
+						case FETCHED -> {
+							// only recorded to follow the progress of a crawl
+						}
+						default -> logger.warn("Skipping unknown crawl journal line: {}", line);
+					}
+				}
+				catch (IllegalArgumentException e) {
+					logger.warn("Skipping malformed crawl journal line: {}", line);
+				}
+			}
+		}
+		return covered;
+	}
+
+	/**
+	 * Determines whether the journal file is empty or ends with a complete line,
+	 * since a line cut off by a crash may still look like a valid URI or count.
+	 *
+	 * @return true if the last line of the journal is complete
+	 * @throws IOException if an I/O error occurs while reading the journal
+	 */
+	private boolean endsWithNewline() throws IOException {
+		try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+			long size = channel.size();
+			if (size == 0) {
+				return true;
+			}
+			ByteBuffer last = ByteBuffer.allocate(1);
+			channel.position(size - 1).read(last);
+			return last.get(0) == '\n';
+		}
+	}
+
+	/**
+	 * Rewrites the journal file with the discovered URIs and the URIs covered by
+	 * the last checkpoint, dropping lines about pages that will be fetched again.
+	 *
+	 * @param done the URIs covered by the last checkpoint, in order
+	 * @throws IOException if an I/O error occurs while writing the journal
+	 */
+	private void compact(List<URI> done) throws IOException {
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		try (BufferedWriter compacted = Files.newBufferedWriter(temp, UTF_8)) {
+			for (URI uri : discovered) {
+				writeLine(compacted, DISCOVERED, uri.toString());
+			}
+			for (URI uri : done) {
+				writeLine(compacted, INDEXED, uri.toString());
+			}
+			if (!done.isEmpty()) {
+				writeLine(compacted, CHECKPOINT, Integer.toString(done.size()));
+			}
+		}
+		Files.move(temp, path, REPLACE_EXISTING, ATOMIC_MOVE);
+		indexed = done.size();
+		checkpointed = done.size();
+	}
+
+	/**
+	 * Writes a line to the writer.
+	 *
+	 * @param writer the writer to use
+	 * @param type the type of line
+	 * @param value the URI or count of the line
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static void writeLine(BufferedWriter writer, String type, String value) throws IOException {
+		writer.write(type);
+		writer.write(SEPARATOR);
+		writer.write(value);
+		writer.newLine();
+	}
+
+	/**
+	 * Appends a line to the journal and flushes it.
+	 *
+	 * @param type the type of line
+	 * @param value the URI or count of the line
+	 * @throws IOException if an I/O error occurs
+	 */
+	private synchronized void append(String type, String value) throws IOException {
+		writeLine(writer, type, value);
+		writer.flush();
+	}
+
+	/**
+	 * Returns every URI discovered by earlier runs of the crawl.
+	 *
+	 * @return an unmodifiable view of the discovered URIs, in the order discovered
+	 */
+	public Set<URI> viewDiscovered() {
+		return Collections.unmodifiableSet(discovered);
+	}
+
+	/**
+	 * Returns the URIs discovered by earlier runs of the crawl that are not in the
+	 * checkpoint, and so have to be fetched.
+	 *
+	 * @return an unmodifiable view of the pending URIs, in the order discovered
+	 */
+	public List<URI> viewPending() {
+		return Collections.unmodifiableList(pending);
+	}
+
+	/**
+	 * Loads the index checkpoint saved by an earlier run of the crawl.
+	 *
+	 * @return a modifiable copy of the checkpoint, or null if there is none
+	 * @throws IOException if an I/O error occurs while reading the checkpoint
+	 */
+	public InvertedIndex restore() throws IOException {
+		if (!restorable) {
+			return null;
+		}
+		logger.info("Restoring crawl checkpoint: {}", checkpointPath);
+		return FrozenInvertedIndex.load(checkpointPath).thaw();
+	}
+
+	/**
+	 * Records that a URI was added to the crawl.
+	 *
+	 * @param uri the discovered URI
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void discovered(URI uri) throws IOException {
+		append(DISCOVERED, uri.toString());
+	}
+
+	/**
+	 * Records that the HTML of a URI was fetched.
+	 *
+	 * @param uri the fetched URI
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void fetched(URI uri) throws IOException {
+		append(FETCHED, uri.toString());
+	}
+
+	/**
+	 * Records that a page was merged into the index. Must be called while the
+	 * page cannot be missing from a concurrent checkpoint.
+	 *
+	 * @param uri the indexed URI
+	 * @return true if a checkpoint is due
+	 * @throws IOException if an I/O error occurs
+	 */
+	public synchronized boolean indexed(URI uri) throws IOException {
+		append(INDEXED, uri.toString());
+		indexed++;
+		return indexed - checkpointed >= interval;
+	}
+
+	/**
+	 * Returns the number of pages recorded as indexed, which a checkpoint of the
+	 * index taken now would cover.
+	 *
+	 * @return the number of indexed pages
+	 */
+	public synchronized int indexed() {
+		return indexed;
+	}
+
+	/**
+	 * Saves a checkpoint of the index and records the number of indexed pages it
+	 * covers. Older checkpoints than the last one saved are ignored.
+	 *
+	 * @param snapshot a frozen snapshot of the index
+	 * @param covered the number of indexed pages in the snapshot
+	 * @throws IOException if an I/O error occurs
+	 *
+	 * @see #indexed()
+	 */
+	public void checkpoint(FrozenInvertedIndex snapshot, int covered) throws IOException {
+		synchronized (checkpointLock) {
+			synchronized (this) {
+				if (covered <= checkpointed) {
+					return;
+				}
+				// claim the checkpoint so other pages do not trigger one while saving
+				checkpointed = covered;
+			}
+
+			Path temp = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+			snapshot.save(temp);
+			Files.move(temp, checkpointPath, REPLACE_EXISTING, ATOMIC_MOVE);
+			append(CHECKPOINT, Integer.toString(covered));
+			logger.info("Saved crawl checkpoint covering {} pages", covered);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
@@ -1,7 +1,5 @@
 package edu.usfca.cs272.crawler;
 
-import static opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM.ENGLISH;
-
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.URI;
@@ -12,12 +10,15 @@ import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import edu.usfca.cs272.index.FrozenInvertedIndex;
+import edu.usfca.cs272.index.IndexMerger;
 import edu.usfca.cs272.index.InvertedIndex;
-import edu.usfca.cs272.index.ThreadSafeInvertedIndex;
+import edu.usfca.cs272.threads.MultiReaderLock;
 import edu.usfca.cs272.threads.WorkQueue;
-import edu.usfca.cs272.util.FileStemmer;
+import edu.usfca.cs272.util.StemCache;
+import edu.usfca.cs272.util.TextAnalyzer;
+import edu.usfca.cs272.util.WordTokenizer;
 import opennlp.tools.stemmer.Stemmer;
-import opennlp.tools.stemmer.snowball.SnowballStemmer;
 
 /**
  * Class responsible for crawling URIs and storing their content into an
@@ -30,10 +31,10 @@ public class WebCrawler {
 	private static final Logger logger = LogManager.getLogger(WebCrawler.class);
 
 	/**
-	 * The inverted index to store word occurrences across multiple files in a
-	 * thread-safe manner.
+	 * Merges the local index of each task into the shared thread-safe inverted
+	 * index.
 	 */
-	private final ThreadSafeInvertedIndex invertedIndex;
+	private final IndexMerger merger;
 
 	/**
 	 * WorkQueue for managing concurrent tasks.
@@ -55,6 +56,30 @@ public class WebCrawler {
 	 */
 	private final Set<URI> crawledUris;
 
+	/**
+	 * The journal recording the progress of the crawl, or null if the crawl is not
+	 * journaled.
+	 */
+	private final CrawlJournal journal;
+
+	/**
+	 * Held for reading while a page is merged and recorded as indexed, and for
+	 * writing while a checkpoint snapshot of the index is taken, so every
+	 * checkpoint covers exactly the pages recorded before it.
+	 */
+	private final MultiReaderLock checkpointLock;
+
+	/**
+	 * The cache of stems shared by every page indexed.
+	 */
+	private final StemCache stems;
+
+	/**
+	 * Whether the crawl was stopped, after which queued tasks return without
+	 * fetching their pages.
+	 */
+	private volatile boolean stopped;
+
 	/**
 	 * Initializes a {@link WebCrawler} with the given thread-safe inverted index
 	 * and work queue.
@@ -63,26 +88,189 @@ public class WebCrawler {
 	 * @param tasks the work queue for managing tasks
 	 * @param totalUris the total number of URIs to crawl
 	 */
-	public WebCrawler(ThreadSafeInvertedIndex invertedIndex, WorkQueue tasks, int totalUris) {
-		this.invertedIndex = invertedIndex;
+	public WebCrawler(InvertedIndex invertedIndex, WorkQueue tasks, int totalUris) {
+		this(new IndexMerger(invertedIndex), tasks, totalUris);
+	}
+
+	/**
+	 * Initializes a {@link WebCrawler} that merges the local index of each task
+	 * with the provided merger.
+	 *
+	 * @param merger the merger of local indexes into the thread-safe inverted
+	 *   index
+	 * @param tasks the work queue for managing tasks
+	 * @param totalUris the total number of URIs to crawl
+	 */
+	public WebCrawler(IndexMerger merger, WorkQueue tasks, int totalUris) {
+		this(merger, tasks, totalUris, null);
+	}
+
+	/**
+	 * Initializes a {@link WebCrawler} that records its progress in the provided
+	 * journal, and resumes the crawl the journal records if there is one.
+	 *
+	 * @param merger the merger of local indexes into the thread-safe inverted
+	 *   index
+	 * @param tasks the work queue for managing tasks
+	 * @param totalUris the total number of URIs to crawl
+	 * @param journal the journal of the crawl, or null to not journal the crawl
+	 */
+	public WebCrawler(IndexMerger merger, WorkQueue tasks, int totalUris, CrawlJournal journal) {
+		this.merger = merger;
 		this.tasks = tasks;
 		this.totalUris = totalUris;
 		this.crawledUris = new HashSet<>();
+		this.journal = journal;
+		this.checkpointLock = new MultiReaderLock();
+		this.stems = new StemCache();
+		this.stopped = false;
 		logger.debug("Initialized WebCrawler with provided inverted index and work queue.");
 	}
 
 	/**
-	 * Starts a task to crawl the specified URI.
+	 * Starts a task to crawl the specified URI and waits for the crawl to finish.
+	 * If the crawl is journaled, a final checkpoint is saved once it finishes.
 	 *
 	 * @param seed the URI to index
+	 * @throws IOException if an I/O error occurs while resuming the crawl or saving
+	 *   the final checkpoint
 	 */
-	public void crawl(String seed) {
+	public void crawl(String seed) throws IOException {
+		start(seed);
+		tasks.finish();
+		merger.finish();
+		logger.debug("Stem cache: {}", stems);
+		if (journal != null) {
+			checkpoint();
+		}
+	}
+
+	/**
+	 * Returns the cache of stems shared by every page indexed.
+	 *
+	 * @return the cache of stems
+	 */
+	public StemCache getStemCache() {
+		return stems;
+	}
+
+	/**
+	 * Starts a task to crawl the specified URI without waiting for the crawl to
+	 * finish, so pages keep being merged into the index in the background. Only
+	 * useful with a merger that merges each page directly. If the journal records
+	 * an earlier run of the crawl, its checkpoint is merged into the index and its
+	 * pending URIs are crawled instead.
+	 *
+	 * @param seed the URI to index
+	 * @throws IOException if an I/O error occurs while resuming the crawl
+	 */
+	public void start(String seed) throws IOException {
+		if (journal != null && resume()) {
+			return;
+		}
+
 		URI uri = LinkFinder.clean(seed);
 		if (uri != null) {
-			crawledUris.add(uri);
+			synchronized (crawledUris) {
+				crawledUris.add(uri);
+				if (journal != null) {
+					journal.discovered(uri);
+				}
+			}
 			tasks.execute(new Task(uri));
 		}
-		tasks.finish();
+	}
+
+	/**
+	 * Stops a crawl started with {@link #start(String)}. Tasks already fetching a
+	 * page finish indexing it, but queued tasks return without fetching their pages
+	 * and no new links are queued, so the work queue can be finished without
+	 * waiting for the rest of the crawl. If the crawl is journaled, the URIs that
+	 * were not fetched stay pending in the journal for a later run to resume.
+	 */
+	public void stop() {
+		stopped = true;
+		logger.info("Stopping crawl before it finishes");
+	}
+
+	/**
+	 * Resumes the crawl recorded by the journal, merging its checkpoint into the
+	 * index and starting a task for each pending URI.
+	 *
+	 * @return true if the journal records an earlier run of the crawl
+	 * @throws IOException if an I/O error occurs while restoring the checkpoint
+	 */
+	private boolean resume() throws IOException {
+		if (journal.viewDiscovered().isEmpty()) {
+			return false;
+		}
+
+		InvertedIndex restored = journal.restore();
+		if (restored != null) {
+			merger.add(restored);
+		}
+
+		synchronized (crawledUris) {
+			crawledUris.addAll(journal.viewDiscovered());
+		}
+		logger.info("Resuming crawl of {} URIs with {} pending", journal.viewDiscovered().size(),
+				journal.viewPending().size());
+		for (URI uri : journal.viewPending()) {
+			tasks.execute(new Task(uri));
+		}
+		return true;
+	}
+
+	/**
+	 * Merges a local index and records the page as indexed in the journal, saving
+	 * a checkpoint if one is due.
+	 *
+	 * @param uri the URI of the page
+	 * @param local the local index of the page, or null if it has nothing to index
+	 * @throws IOException if an I/O error occurs while writing the journal
+	 */
+	private void merge(URI uri, InvertedIndex local) throws IOException {
+		if (journal == null) {
+			merger.add(local);
+			return;
+		}
+
+		boolean due;
+		checkpointLock.readLock().lock();
+		try {
+			if (local != null) {
+				merger.add(local);
+			}
+			due = journal.indexed(uri);
+		}
+		finally {
+			checkpointLock.readLock().unlock();
+		}
+
+		if (due) {
+			checkpoint();
+		}
+	}
+
+	/**
+	 * Takes a frozen snapshot of the index along with the number of pages recorded
+	 * as indexed, and saves it as the checkpoint of the journal.
+	 *
+	 * @throws IOException if an I/O error occurs while saving the checkpoint
+	 */
+	private void checkpoint() throws IOException {
+		FrozenInvertedIndex snapshot;
+		int covered;
+		checkpointLock.writeLock().lock();
+		try {
+			merger.finish();
+			snapshot = merger.getInvertedIndex().freeze();
+			covered = journal.indexed();
+		}
+		finally {
+			checkpointLock.writeLock().unlock();
+		}
+		journal.checkpoint(snapshot, covered);
 	}
 
 	/**
@@ -97,9 +285,10 @@ public class WebCrawler {
 	public static void indexText(String source, String text, InvertedIndex invertedIndex, Stemmer stemmer)
 			throws IOException {
 		int position = 1;
-		for (String word : FileStemmer.parse(text)) {
-			if (!word.isEmpty()) {
-				invertedIndex.add(stemmer.stem(word).toString(), source, position);
+		WordTokenizer words = TextAnalyzer.get().tokenize(text);
+		while (words.next()) {
+			if (!words.isEmpty()) {
+				invertedIndex.add(stemmer.stem(words).toString(), source, position);
 				position++;
 			}
 		}
@@ -133,17 +322,27 @@ public class WebCrawler {
 		 */
 		@Override
 		public void run() {
+			if (stopped) {
+				return;
+			}
+
 			try {
 				String html = HtmlFetcher.fetch(uri, MAX_REDIRECTS);
 				if (html != null) {
+					if (journal != null) {
+						journal.fetched(uri);
+					}
 					html = HtmlCleaner.stripBlockElements(html);
 					ArrayList<URI> links = LinkFinder.listUris(uri, html);
 					synchronized (crawledUris) {
 						for (URI link : links) {
-							if (crawledUris.size() >= totalUris) {
+							if (stopped || crawledUris.size() >= totalUris) {
 								break;
 							}
 							if (crawledUris.add(link)) {
+								if (journal != null) {
+									journal.discovered(link);
+								}
 								tasks.execute(new Task(link));
 							}
 						}
@@ -151,8 +350,11 @@ public class WebCrawler {
 					html = HtmlCleaner.stripTags(html);
 					html = HtmlCleaner.stripEntities(html);
 					InvertedIndex local = new InvertedIndex();
-					indexText(uri.toString(), html, local, new SnowballStemmer(ENGLISH));
-					invertedIndex.addAll(local);
+					indexText(uri.toString(), html, local, stems.wrap(TextAnalyzer.get().getStemmer()));
+					merge(uri, local);
+				}
+				else if (journal != null) {
+					merge(uri, null);
 				}
 			}
 			catch (IOException e) {
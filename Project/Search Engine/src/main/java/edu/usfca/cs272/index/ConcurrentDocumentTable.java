@@ -0,0 +1,146 @@
+package edu.usfca.cs272.index;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Document table safe for concurrent use. The sources and word counts are
+ * stored in fixed-size blocks of arrays indexed by document id, and the word
+ * counts are updated atomically, so lookups and word count updates never block.
+ * Only registering a new source takes a lock, so document ids are assigned in
+ * order and every id below {@link #size()} can already be resolved to its
+ * source.
+ *
+ * Growing the table only copies the array of blocks, never the blocks
+ * themselves, so a word count updated while the table grows is never lost.
+ */
+public class ConcurrentDocumentTable extends DocumentTable {
+	/** The number of bits of a document id that index within a block. */
+	private static final int BLOCK_BITS = 10;
+
+	/** The number of document ids in each block. */
+	private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+	/** The mask of the bits of a document id that index within a block. */
+	private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+	/** The document id of each registered source. */
+	private final ConcurrentHashMap<String, Integer> ids;
+
+	/** The blocks of source identifiers, indexed by document id. */
+	private volatile String[][] sources;
+
+	/** The blocks of word counts, indexed by document id. */
+	private volatile AtomicIntegerArray[] counts;
+
+	/**
+	 * The number of registered sources, which is also the next document id to
+	 * assign. Only incremented once the source of the id is stored.
+	 */
+	private volatile int size;
+
+	/** The number of sources with a word count greater than zero. */
+	private final AtomicInteger sizeCounts;
+
+	/** Guards registering new sources, so ids are assigned in order. */
+	private final Object registerLock;
+
+	/**
+	 * Constructs an empty concurrent document table.
+	 */
+	public ConcurrentDocumentTable() {
+		this.ids = new ConcurrentHashMap<>();
+		this.sources = new String[1][BLOCK_SIZE];
+		this.counts = new AtomicIntegerArray[] { new AtomicIntegerArray(BLOCK_SIZE) };
+		this.size = 0;
+		this.sizeCounts = new AtomicInteger();
+		this.registerLock = new Object();
+	}
+
+	@Override
+	public int register(String source) {
+		Integer id = ids.get(source);
+		if (id != null) {
+			return id;
+		}
+
+		synchronized (registerLock) {
+			id = ids.get(source);
+			if (id == null) {
+				id = size;
+				int block = id >>> BLOCK_BITS;
+				if (block == counts.length) {
+					grow();
+				}
+				sources[block][id & BLOCK_MASK] = source;
+				size = id + 1;
+				ids.put(source, id);
+			}
+			return id;
+		}
+	}
+
+	/**
+	 * Adds a block for the next document ids. The arrays of blocks are replaced
+	 * by copies with the new block, and the existing blocks are shared, so
+	 * concurrent readers and word count updates see the same blocks.
+	 */
+	private void grow() {
+		int blocks = counts.length;
+		String[][] grownSources = Arrays.copyOf(sources, blocks * 2);
+		AtomicIntegerArray[] grownCounts = Arrays.copyOf(counts, blocks * 2);
+		for (int block = blocks; block < grownCounts.length; block++) {
+			grownSources[block] = new String[BLOCK_SIZE];
+			grownCounts[block] = new AtomicIntegerArray(BLOCK_SIZE);
+		}
+		sources = grownSources;
+		counts = grownCounts;
+	}
+
+	@Override
+	public int id(String source) {
+		return ids.getOrDefault(source, -1);
+	}
+
+	@Override
+	public String source(int id) {
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("Document id has not been assigned: " + id);
+		}
+		return sources[id >>> BLOCK_BITS][id & BLOCK_MASK];
+	}
+
+	@Override
+	public int count(int id) {
+		return id >= 0 && id < size ? counts[id >>> BLOCK_BITS].get(id & BLOCK_MASK) : 0;
+	}
+
+	@Override
+	public void mergeCount(int id, int count) {
+		if (count > 0) {
+			int previous = counts[id >>> BLOCK_BITS].getAndAccumulate(id & BLOCK_MASK, count, Math::max);
+			if (previous == 0) {
+				sizeCounts.incrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	public void clearCount(int id) {
+		if (counts[id >>> BLOCK_BITS].getAndSet(id & BLOCK_MASK, 0) > 0) {
+			sizeCounts.decrementAndGet();
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int sizeCounts() {
+		return sizeCounts.get();
+	}
+}
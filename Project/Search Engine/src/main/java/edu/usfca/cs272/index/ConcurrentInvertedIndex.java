@@ -0,0 +1,487 @@
+package edu.usfca.cs272.index;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.usfca.cs272.threads.MultiReaderLock;
+import edu.usfca.cs272.threads.WorkQueue;
+import edu.usfca.cs272.util.JsonWriter;
+
+/**
+ * Inverted index safe for concurrent use without a global lock. Words are kept
+ * in a concurrent skip list map and the postings of each word in a concurrent
+ * hash map, so writers to different words never block each other and readers
+ * never block at all.
+ *
+ * Position lists are never modified once they are stored in the index. Writers
+ * replace a posting with a merged copy atomically, so readers always see a
+ * complete position list. Reads are weakly consistent: a search that runs while
+ * sources are being merged in may see some of their words and not others.
+ *
+ * Removing a source removes its postings without locking, but words left
+ * without postings are only dropped while no merge is running, since a merge
+ * could otherwise store postings in a word that is being dropped.
+ *
+ * Every method of {@link InvertedIndex} that reads or writes postings is
+ * overridden to use the concurrent maps, so none of them see the unused map of
+ * the base class.
+ */
+public class ConcurrentInvertedIndex extends InvertedIndex {
+	/**
+	 * Logger for logging events in ConcurrentInvertedIndex class.
+	 */
+	private static final Logger logger = LogManager.getLogger(ConcurrentInvertedIndex.class);
+
+	/** The document table assigning each source an id and storing its word count. */
+	private final ConcurrentDocumentTable documents;
+
+	/** A concurrent sorted map storing words, document ids, and positions. */
+	private final ConcurrentSkipListMap<String, ConcurrentHashMap<Integer, PositionList>> index;
+
+	/**
+	 * The number of words in the index, since counting the skip list map takes
+	 * time proportional to its size.
+	 */
+	private final AtomicInteger wordCount;
+
+	/**
+	 * Held for reading while postings are merged in, so merges never block each
+	 * other, and for writing while words left without postings are dropped.
+	 */
+	private final MultiReaderLock dropLock;
+
+	/**
+	 * Constructs a new ConcurrentInvertedIndex with an empty index and document
+	 * table.
+	 */
+	public ConcurrentInvertedIndex() {
+		this(new ConcurrentDocumentTable());
+	}
+
+	/**
+	 * Constructs a new ConcurrentInvertedIndex with an empty index that resolves
+	 * document ids with the provided concurrent document table.
+	 *
+	 * @param documents the document table to use
+	 */
+	private ConcurrentInvertedIndex(ConcurrentDocumentTable documents) {
+		super(documents);
+		this.documents = documents;
+		this.index = new ConcurrentSkipListMap<>();
+		this.wordCount = new AtomicInteger();
+		this.dropLock = new MultiReaderLock();
+		logger.debug("Initialized new ConcurrentInvertedIndex");
+	}
+
+	/**
+	 * Adds a single word occurrence to the inverted index and updates the word
+	 * count. Since position lists are copied on every change, prefer building a
+	 * local index and merging it in with {@link #addAll(InvertedIndex)}.
+	 *
+	 * @param word the word to add
+	 * @param source the source where the word was found
+	 * @param position the position of the word in the source
+	 */
+	@Override
+	public void add(String word, String source, int position) {
+		int id = documents.register(source);
+		documents.mergeCount(id, position);
+
+		PositionList single = new PositionList();
+		single.add(position);
+		dropLock.readLock().lock();
+		try {
+			mergePositions(sources(word), id, single);
+		}
+		finally {
+			dropLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds a list of words from a source to the inverted index and updates the word
+	 * count. The words are gathered in a local index first, so each posting is
+	 * stored with a single merge.
+	 *
+	 * @param words the list of words to add to the index
+	 * @param source the source where the words were found
+	 */
+	@Override
+	public void add(List<String> words, String source) {
+		InvertedIndex local = new InvertedIndex();
+		local.add(words, source);
+		addAll(local);
+	}
+
+	/**
+	 * Merges the contents of another InvertedIndex into this index by combining
+	 * their source word counts and index mappings. Word counts are merged before
+	 * postings, so a posting is never visible before its document's word count.
+	 * Position lists of the other index are shared rather than copied, so the other
+	 * index should not be modified afterwards.
+	 *
+	 * @param other the InvertedIndex whose entries are to be merged into this index
+	 */
+	@Override
+	public void addAll(InvertedIndex other) {
+		int[] mapping = documents.mergeAll(other.documents());
+		addAllIndex(other.postings().entrySet(), mapping);
+	}
+
+	/**
+	 * Merges postings of another index into this index, translating their
+	 * document ids with the provided mapping.
+	 *
+	 * @param otherWords the set of word entries from another inverted index
+	 * @param mapping the document id in this index of each document id in the
+	 *   other index
+	 */
+	@Override
+	void addAllIndex(Set<Entry<String, TreeMap<Integer, PositionList>>> otherWords, int[] mapping) {
+		dropLock.readLock().lock();
+		try {
+			for (Entry<String, TreeMap<Integer, PositionList>> otherWord : otherWords) {
+				ConcurrentHashMap<Integer, PositionList> thisSources = sources(otherWord.getKey());
+				for (Entry<Integer, PositionList> otherSource : otherWord.getValue().entrySet()) {
+					mergePositions(thisSources, mapping[otherSource.getKey()], otherSource.getValue());
+				}
+			}
+		}
+		finally {
+			dropLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds all positions of a word in a source at once. The word count of the
+	 * source is raised to the last position first, so the posting is never visible
+	 * without it.
+	 *
+	 * @param word the word to add
+	 * @param source the source where the word was found
+	 * @param positions the positions of the word in the source, which must not be
+	 *   used after they are added
+	 */
+	@Override
+	void addPostings(String word, String source, PositionList positions) {
+		if (positions.isEmpty()) {
+			return;
+		}
+
+		int id = documents.register(source);
+		documents.mergeCount(id, positions.last());
+		dropLock.readLock().lock();
+		try {
+			mergePositions(sources(word), id, positions);
+		}
+		finally {
+			dropLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds the offset to every position and word count in the index, replacing
+	 * each position list with a shifted copy so that stored lists are never
+	 * modified.
+	 *
+	 * @param offset the non-negative offset to add
+	 */
+	@Override
+	void shiftPositions(int offset) {
+		for (ConcurrentHashMap<Integer, PositionList> sources : index.values()) {
+			sources.replaceAll((id, positions) -> {
+				PositionList shifted = new PositionList();
+				shifted.addAll(positions);
+				shifted.shift(offset);
+				return shifted;
+			});
+		}
+		documents.shiftCounts(offset);
+	}
+
+	/**
+	 * Removes a source from the inverted index, along with its word count. Every
+	 * word in the index is checked for postings of the source. Postings are
+	 * removed before the word count, so a posting is never visible without its
+	 * document's word count.
+	 *
+	 * @param source the source to remove
+	 * @return true if the source was in the index
+	 */
+	@Override
+	public boolean remove(String source) {
+		return remove(source, index.keySet());
+	}
+
+	/**
+	 * Removes a source from the inverted index, along with its word count. Only
+	 * the given words are checked for postings of the source, so they must include
+	 * every word found in the source.
+	 *
+	 * @param source the source to remove
+	 * @param words the words found in the source
+	 * @return true if the source was in the index
+	 */
+	@Override
+	public boolean remove(String source, Collection<String> words) {
+		int id = documents.id(source);
+		if (documents.count(id) == 0) {
+			return false;
+		}
+		removePostings(id, words);
+		documents.clearCount(id);
+		return true;
+	}
+
+	/**
+	 * Removes the postings of a document from the given words, and then drops any
+	 * of those words left without postings while holding the write lock, so no
+	 * merge is storing postings in them.
+	 *
+	 * @param id the document id
+	 * @param words the words to remove the postings of the document from
+	 */
+	@Override
+	void removePostings(int id, Collection<String> words) {
+		List<String> emptied = new ArrayList<>();
+		for (String word : words) {
+			Map<Integer, PositionList> sources = index.get(word);
+			if (sources != null && sources.remove(id) != null && sources.isEmpty()) {
+				emptied.add(word);
+			}
+		}
+
+		if (!emptied.isEmpty()) {
+			dropLock.writeLock().lock();
+			try {
+				for (String word : emptied) {
+					Map<Integer, PositionList> sources = index.get(word);
+					if (sources != null && sources.isEmpty() && index.remove(word, sources)) {
+						wordCount.decrementAndGet();
+					}
+				}
+			}
+			finally {
+				dropLock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Returns the postings of the word, adding the word with empty postings and
+	 * counting it if it is not in the index yet. Must be called while holding the
+	 * read lock, so the word is not dropped before postings are stored in it.
+	 *
+	 * @param word the word to return the postings of
+	 * @return the postings of the word
+	 */
+	private ConcurrentHashMap<Integer, PositionList> sources(String word) {
+		ConcurrentHashMap<Integer, PositionList> sources = index.get(word);
+		if (sources == null) {
+			ConcurrentHashMap<Integer, PositionList> created = new ConcurrentHashMap<>();
+			sources = index.putIfAbsent(word, created);
+			if (sources == null) {
+				wordCount.incrementAndGet();
+				sources = created;
+			}
+		}
+		return sources;
+	}
+
+	/**
+	 * Stores the positions for the document, replacing any existing position list
+	 * with a merged copy so that stored lists are never modified.
+	 *
+	 * @param sources the postings of a word
+	 * @param id the document id
+	 * @param positions the positions to store, which must not be modified later
+	 */
+	private static void mergePositions(ConcurrentHashMap<Integer, PositionList> sources, int id,
+			PositionList positions) {
+		sources.merge(id, positions, (existing, added) -> {
+			PositionList merged = new PositionList();
+			merged.addAll(existing);
+			merged.addAll(added);
+			return merged;
+		});
+	}
+
+	/**
+	 * Returns the postings of the word keyed by source rather than by document id,
+	 * sorted by source.
+	 *
+	 * @param postings the postings keyed by document id
+	 * @return a sorted map of source identifiers to positions
+	 */
+	private TreeMap<String, PositionList> resolveSources(Map<Integer, PositionList> postings) {
+		TreeMap<String, PositionList> resolved = new TreeMap<>();
+		for (Entry<Integer, PositionList> posting : postings.entrySet()) {
+			resolved.put(documents.source(posting.getKey()), posting.getValue());
+		}
+		return resolved;
+	}
+
+	/**
+	 * Returns a read-only snapshot of this index compacted into sorted arrays.
+	 * Sources merged in while the snapshot is taken may be partially included.
+	 *
+	 * @return a frozen copy of this index
+	 */
+	@Override
+	public FrozenInvertedIndex freeze() {
+		TreeMap<String, TreeMap<Integer, PositionList>> snapshot = postings();
+		logger.info("Freezing concurrent index with {} words", snapshot.size());
+		return new FrozenInvertedIndex(documents, snapshot);
+	}
+
+	/**
+	 * Returns a weakly consistent copy of the words, document ids, and positions
+	 * of this index. The position lists are shared, since they are never modified
+	 * once they are stored.
+	 *
+	 * @return a new map of the postings of this index
+	 */
+	@Override
+	TreeMap<String, TreeMap<Integer, PositionList>> postings() {
+		TreeMap<String, TreeMap<Integer, PositionList>> snapshot = new TreeMap<>();
+		for (var entry : index.entrySet()) {
+			snapshot.put(entry.getKey(), new TreeMap<>(entry.getValue()));
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Returns the number of distinct words stored in the index, from a counter
+	 * updated as words are added and dropped.
+	 *
+	 * @return the number of words in the index
+	 */
+	@Override
+	public int sizeWords() {
+		return wordCount.get();
+	}
+
+	@Override
+	public int sizeSources(String word) {
+		Map<Integer, PositionList> sources = index.get(word);
+		return sources == null ? 0 : sources.size();
+	}
+
+	@Override
+	public int sizePositions(String word, String source) {
+		PositionList positions = positions(word, source);
+		return positions == null ? 0 : positions.size();
+	}
+
+	@Override
+	public boolean hasWord(String word) {
+		return index.containsKey(word);
+	}
+
+	@Override
+	public boolean hasSource(String word, String source) {
+		return positions(word, source) != null;
+	}
+
+	@Override
+	public boolean hasPosition(String word, String source, int position) {
+		PositionList positions = positions(word, source);
+		return positions != null && positions.contains(position);
+	}
+
+	/**
+	 * Returns the position list of the word in the source.
+	 *
+	 * @param word the word to lookup
+	 * @param source the source to lookup
+	 * @return the position list, or null if not present
+	 */
+	private PositionList positions(String word, String source) {
+		Map<Integer, PositionList> sources = index.get(word);
+		return sources == null ? null : sources.get(documents.id(source));
+	}
+
+	/**
+	 * Returns an unmodifiable, weakly consistent view of the words stored in the
+	 * index.
+	 *
+	 * @return an unmodifiable sorted set of words
+	 */
+	@Override
+	public SortedSet<String> viewWords() {
+		return Collections.unmodifiableSortedSet(index.navigableKeySet());
+	}
+
+	@Override
+	public SortedSet<String> viewSources(String word) {
+		Map<Integer, PositionList> sources = index.get(word);
+		return sources == null ? Collections.emptySortedSet()
+				: Collections.unmodifiableSortedSet(resolveSources(sources).navigableKeySet());
+	}
+
+	@Override
+	public SortedSet<Integer> viewPositions(String word, String source) {
+		PositionList positions = positions(word, source);
+		return positions == null ? Collections.emptySortedSet()
+				: Collections.unmodifiableSortedSet(new TreeSet<>(positions));
+	}
+
+	@Override
+	public String indexToJson() {
+		return JsonWriter.writeNestedObjectArrays(index, this::resolveSources);
+	}
+
+	@Override
+	public void indexToJson(Path path) throws IOException {
+		logger.info("Writing concurrent index JSON to file: {}", path);
+		JsonWriter.writeNestedObjectArrays(index, this::resolveSources, path);
+		logger.info("Successfully wrote concurrent index JSON to file: {}", path);
+	}
+
+	@Override
+	public void indexToJson(Path path, WorkQueue tasks) throws IOException {
+		logger.info("Writing concurrent index JSON to file in parallel: {}", path);
+		JsonWriter.writeNestedObjectArrays(index, this::resolveSources, path, tasks);
+		logger.info("Successfully wrote concurrent index JSON to file: {}", path);
+	}
+
+	@Override
+	public void indexToJson(Writer writer) throws IOException {
+		JsonWriter.writeNestedObjectArrays(index, this::resolveSources, writer);
+	}
+
+	@Override
+	void searchPartial(String queryWord, ScoreAccumulator matches) {
+		for (var indexWord : index.tailMap(queryWord).entrySet()) {
+			if (!indexWord.getKey().startsWith(queryWord)) {
+				break;
+			}
+			accumulate(matches, indexWord.getValue());
+		}
+	}
+
+	@Override
+	void searchExact(String word, ScoreAccumulator matches) {
+		Map<Integer, PositionList> sources = index.get(word);
+		if (sources != null) {
+			accumulate(matches, sources);
+		}
+	}
+}
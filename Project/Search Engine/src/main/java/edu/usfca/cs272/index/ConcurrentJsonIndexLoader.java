@@ -0,0 +1,208 @@
+package edu.usfca.cs272.index;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.usfca.cs272.threads.WorkQueue;
+import edu.usfca.cs272.util.JsonReader;
+
+/**
+ * ConcurrentJsonIndexLoader rebuilds a thread-safe inverted index from JSON
+ * files using a work queue. The index file is split into ranges of words while
+ * it is read, and the postings of each range are parsed into a local index by a
+ * separate task.
+ */
+public class ConcurrentJsonIndexLoader extends JsonIndexLoader {
+	/**
+	 * Logger for logging events in ConcurrentJsonIndexLoader class.
+	 */
+	private static final Logger logger = LogManager.getLogger(ConcurrentJsonIndexLoader.class);
+
+	/**
+	 * The number of characters of postings after which a range of words is handed
+	 * to a task.
+	 */
+	private static final int CHUNK_CHARS = 256 * 1024;
+
+	/**
+	 * Merges the local index of each task into the shared thread-safe inverted
+	 * index.
+	 */
+	private final IndexMerger merger;
+
+	/**
+	 * WorkQueue for managing concurrent tasks.
+	 */
+	private final WorkQueue tasks;
+
+	/**
+	 * Limits the number of ranges read ahead of the tasks parsing them, so the
+	 * whole file is never held in memory.
+	 */
+	private final Semaphore pending;
+
+	/**
+	 * The first error parsing the postings of a range of words, if any, so loading
+	 * the file fails once every task has finished.
+	 */
+	private volatile IOException failure;
+
+	/**
+	 * Constructs a ConcurrentJsonIndexLoader that merges the local index of each
+	 * task with the provided merger.
+	 *
+	 * @param merger the merger of local indexes into the thread-safe inverted
+	 *   index to update
+	 * @param tasks the work queue for executing loading tasks
+	 */
+	public ConcurrentJsonIndexLoader(IndexMerger merger, WorkQueue tasks) {
+		super(merger.getInvertedIndex());
+		this.merger = merger;
+		this.tasks = tasks;
+		this.pending = new Semaphore(tasks.size() * 2);
+		this.failure = null;
+		logger.debug("Initialized ConcurrentJsonIndexLoader with provided index merger and work queue.");
+	}
+
+	/**
+	 * Loads the words, sources, and positions of an index JSON file into the
+	 * inverted index, parsing ranges of words in parallel. If the file is not a
+	 * valid index, the ranges parsed before the error was found may already be in
+	 * the inverted index.
+	 *
+	 * @param path the index JSON file to load, which may be compressed with gzip
+	 * @throws IOException if an I/O error occurs or the file is not a valid index
+	 */
+	@Override
+	public void loadIndex(Path path) throws IOException {
+		failure = null;
+		try (JsonReader reader = JsonReader.open(path)) {
+			List<String> words = new ArrayList<>();
+			StringBuilder postings = new StringBuilder();
+
+			reader.beginObject();
+			while (reader.hasNext()) {
+				words.add(reader.nextName());
+				postings.append(postings.isEmpty() ? '[' : ',');
+				reader.copyValue(postings);
+
+				if (postings.length() >= CHUNK_CHARS) {
+					submit(words, postings);
+					words = new ArrayList<>();
+					postings.setLength(0);
+				}
+			}
+			reader.endObject();
+			reader.endDocument();
+
+			if (!words.isEmpty()) {
+				submit(words, postings);
+			}
+		}
+		finally {
+			tasks.finish();
+			merger.finish();
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Merges a loaded local index through the merger.
+	 *
+	 * @param local the loaded index, which must not be used after it is merged
+	 */
+	@Override
+	protected void merge(InvertedIndex local) {
+		merger.add(local);
+		merger.finish();
+	}
+
+	/**
+	 * Submits a task to parse the postings of a range of words, waiting first if
+	 * too many ranges are already waiting to be parsed.
+	 *
+	 * @param words the words of the range, in order
+	 * @param postings the raw postings of each word, as elements of an unclosed
+	 *   JSON array
+	 * @throws IOException if interrupted while waiting
+	 */
+	private void submit(List<String> words, StringBuilder postings) throws IOException {
+		postings.append(']');
+		try {
+			pending.acquire();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while loading index JSON.");
+		}
+		tasks.execute(new Task(words, postings.toString()));
+	}
+
+	/**
+	 * Private inner class representing a task for parsing a range of words.
+	 */
+	private class Task implements Runnable {
+		/**
+		 * The words of the range, in order.
+		 */
+		private final List<String> words;
+
+		/**
+		 * The postings of each word, as a JSON array.
+		 */
+		private final String postings;
+
+		/**
+		 * Constructs a new Task for parsing the postings of the given words.
+		 *
+		 * @param words the words of the range, in order
+		 * @param postings the postings of each word, as a JSON array
+		 */
+		public Task(List<String> words, String postings) {
+			this.words = words;
+			this.postings = postings;
+		}
+
+		/**
+		 * Parses the postings into a local inverted index and hands it to the merger
+		 * for the shared thread-safe inverted index.
+		 */
+		@Override
+		public void run() {
+			try (JsonReader reader = new JsonReader(new StringReader(postings))) {
+				InvertedIndex local = new InvertedIndex();
+				reader.beginArray();
+				for (String word : words) {
+					reader.hasNext();
+					readPostings(reader, word, local);
+				}
+				reader.endArray();
+				merger.add(local);
+			}
+			catch (IOException e) {
+				logger.error("Error loading postings of words starting at: " + words.get(0), e);
+				synchronized (ConcurrentJsonIndexLoader.this) {
+					if (failure == null) {
+						failure = e;
+					}
+				}
+				throw new UncheckedIOException(e);
+			}
+			finally {
+				pending.release();
+			}
+		}
+	}
+}
@@ -1,20 +1,34 @@
 package edu.usfca.cs272.index;
 
-import static opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM.ENGLISH;
-
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import edu.usfca.cs272.threads.WorkQueue;
-import opennlp.tools.stemmer.snowball.SnowballStemmer;
+import edu.usfca.cs272.util.TextAnalyzer;
 
 /**
  * ConcurrentTextFileIndexer indexes text files concurrently using a thread-safe
  * inverted index and a work queue.
+ *
+ * Files larger than the chunk size are split into chunks of about that many
+ * bytes, each ending after a line break, and the chunks are indexed in parallel
+ * with positions counted from the start of each chunk. Once every chunk of a
+ * file is indexed, the positions of each chunk are shifted by the number of
+ * words in the chunks before it, so the file is indexed exactly as if it were
+ * read from start to end.
  */
 public class ConcurrentTextFileIndexer extends TextFileIndexer {
 	/**
@@ -23,16 +37,31 @@ public class ConcurrentTextFileIndexer extends TextFileIndexer {
 	private static final Logger logger = LogManager.getLogger(ConcurrentTextFileIndexer.class);
 
 	/**
-	 * The inverted index to store word occurrences across multiple files in a
-	 * thread-safe manner.
+	 * The default number of bytes in each chunk of a large file.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+	/**
+	 * The number of bytes read at a time while looking for the end of a chunk.
+	 */
+	private static final int SCAN_SIZE = 8192;
+
+	/**
+	 * Merges the local index of each task into the shared thread-safe inverted
+	 * index.
 	 */
-	private final ThreadSafeInvertedIndex invertedIndex;
+	private final IndexMerger merger;
 
 	/**
 	 * WorkQueue for managing concurrent tasks.
 	 */
 	private final WorkQueue tasks;
 
+	/**
+	 * The number of bytes in each chunk of a large file.
+	 */
+	private final int chunkSize;
+
 	/**
 	 * Constructs a ConcurrentTextFileIndexer with the provided inverted index and
 	 * work queue.
@@ -40,11 +69,42 @@ public class ConcurrentTextFileIndexer extends TextFileIndexer {
 	 * @param invertedIndex the thread-safe inverted index to update
 	 * @param tasks the work queue for executing indexing tasks
 	 */
-	public ConcurrentTextFileIndexer(ThreadSafeInvertedIndex invertedIndex, WorkQueue tasks) {
-		super(invertedIndex);
-		this.invertedIndex = invertedIndex;
+	public ConcurrentTextFileIndexer(InvertedIndex invertedIndex, WorkQueue tasks) {
+		this(new IndexMerger(invertedIndex), tasks);
+	}
+
+	/**
+	 * Constructs a ConcurrentTextFileIndexer that merges the local index of each
+	 * task with the provided merger.
+	 *
+	 * @param merger the merger of local indexes into the thread-safe inverted
+	 *   index to update
+	 * @param tasks the work queue for executing indexing tasks
+	 */
+	public ConcurrentTextFileIndexer(IndexMerger merger, WorkQueue tasks) {
+		this(merger, tasks, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Constructs a ConcurrentTextFileIndexer that merges the local index of each
+	 * task with the provided merger, and splits files larger than the chunk size
+	 * into chunks indexed in parallel.
+	 *
+	 * @param merger the merger of local indexes into the thread-safe inverted
+	 *   index to update
+	 * @param tasks the work queue for executing indexing tasks
+	 * @param chunkSize the number of bytes in each chunk of a large file
+	 * @throws IllegalArgumentException if the chunk size is not positive
+	 */
+	public ConcurrentTextFileIndexer(IndexMerger merger, WorkQueue tasks, int chunkSize) {
+		super(merger.getInvertedIndex());
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+		}
+		this.merger = merger;
 		this.tasks = tasks;
-		logger.debug("Initialized ConcurrentTextFileIndexer with provided inverted index and work queue.");
+		this.chunkSize = chunkSize;
+		logger.debug("Initialized ConcurrentTextFileIndexer with provided index merger and work queue.");
 	}
 
 	/**
@@ -58,6 +118,8 @@ public class ConcurrentTextFileIndexer extends TextFileIndexer {
 	public void indexPath(Path path) throws IOException {
 		super.indexPath(path);
 		tasks.finish();
+		merger.finish();
+		logger.debug("Stem cache: {}", getStemCache());
 	}
 
 	/**
@@ -91,21 +153,220 @@ public class ConcurrentTextFileIndexer extends TextFileIndexer {
 
 		/**
 		 * Executes the file indexing task. Reads the file, indexes its content using a
-		 * local inverted index, and merges the result into the shared thread-safe
-		 * inverted index.
+		 * local inverted index, and hands the result to the merger for the shared
+		 * thread-safe inverted index.
 		 */
 		@Override
 		public void run() {
 			try {
+				if (Files.size(file) > chunkSize && split()) {
+					return;
+				}
+
 				InvertedIndex local = new InvertedIndex();
-				TextFileIndexer.indexFile(file, local, new SnowballStemmer(ENGLISH));
-				invertedIndex.addAll(local);
+				TextFileIndexer.indexFile(file, local, getStemCache().wrap(TextAnalyzer.get().getStemmer()));
+				merger.add(local);
 			}
 			catch (IOException e) {
 				logger.error("Error indexing file: " + file, e);
 				throw new UncheckedIOException(e);
 			}
 		}
+
+		/**
+		 * Splits the file into chunks that each end after a line break, and submits
+		 * a task to index each chunk. A chunk holding a line too long to map at once
+		 * cannot be split off, so the file is left for this task to stream instead.
+		 *
+		 * @return true if the chunks were submitted, or false if the file must be
+		 *   streamed instead
+		 * @throws IOException if an I/O error occurs while reading the file
+		 */
+		private boolean split() throws IOException {
+			List<Long> ends = new ArrayList<>();
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				long size = channel.size();
+				ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+				long end = 0;
+				while (end < size) {
+					long start = end;
+					end = Math.min(size, end + chunkSize);
+					end = lineEnd(channel, end, buffer);
+					if (end - start > Integer.MAX_VALUE) {
+						logger.debug("Streaming {} with a line too long to map", file);
+						return false;
+					}
+					ends.add(end);
+				}
+			}
+
+			logger.debug("Indexing {} in {} chunks", file, ends.size());
+			LargeFile large = new LargeFile(file, ends.size());
+			long start = 0;
+			for (int i = 0; i < ends.size(); i++) {
+				tasks.execute(new ChunkTask(large, i, start, ends.get(i)));
+				start = ends.get(i);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Returns the position just after the first line feed at or after the given
+	 * position, or the end of the file if there is none. Line feed bytes never
+	 * occur inside a multi-byte UTF-8 character, and a carriage return before a
+	 * line feed stays in the same chunk, so every chunk ends on a line break.
+	 *
+	 * @param channel the channel of the file
+	 * @param position the position to search from
+	 * @param buffer the buffer to read into
+	 * @return the position after the next line feed
+	 * @throws IOException if an I/O error occurs while reading the file
+	 */
+	private static long lineEnd(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+		long size = channel.size();
+		while (position < size) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+	/**
+	 * A large file indexed in chunks. The chunk that finishes last combines the
+	 * local indexes of every chunk and hands the result to the merger.
+	 */
+	private class LargeFile {
+		/**
+		 * The file being indexed.
+		 */
+		private final Path file;
+
+		/**
+		 * The local index of each chunk, with positions counted from the start of
+		 * the chunk.
+		 */
+		private final InvertedIndex[] locals;
+
+		/**
+		 * The number of words in each chunk.
+		 */
+		private final int[] counts;
+
+		/**
+		 * The number of chunks not yet indexed.
+		 */
+		private final AtomicInteger remaining;
+
+		/**
+		 * Constructs a large file indexed in the given number of chunks.
+		 *
+		 * @param file the file being indexed
+		 * @param chunks the number of chunks
+		 */
+		public LargeFile(Path file, int chunks) {
+			this.file = file;
+			this.locals = new InvertedIndex[chunks];
+			this.counts = new int[chunks];
+			this.remaining = new AtomicInteger(chunks);
+		}
+
+		/**
+		 * Records the local index of a chunk, and merges the whole file once every
+		 * chunk has been indexed.
+		 *
+		 * @param chunk the index of the chunk
+		 * @param local the local index of the chunk
+		 * @param count the number of words in the chunk
+		 */
+		public void finish(int chunk, InvertedIndex local, int count) {
+			locals[chunk] = local;
+			counts[chunk] = count;
+			if (remaining.decrementAndGet() > 0) {
+				return;
+			}
+
+			InvertedIndex combined = locals[0];
+			int offset = counts[0];
+			for (int i = 1; i < locals.length; i++) {
+				locals[i].shiftPositions(offset);
+				combined.addAll(locals[i]);
+				offset += counts[i];
+			}
+			merger.add(combined);
+		}
+	}
+
+	/**
+	 * Private inner class representing a task for indexing a chunk of a large
+	 * file. If the chunk cannot be read, the whole file is left out of the index.
+	 */
+	private class ChunkTask implements Runnable {
+		/**
+		 * The file the chunk belongs to.
+		 */
+		private final LargeFile large;
+
+		/**
+		 * The index of the chunk within the file.
+		 */
+		private final int chunk;
+
+		/**
+		 * The position of the first byte of the chunk.
+		 */
+		private final long start;
+
+		/**
+		 * The position just after the last byte of the chunk.
+		 */
+		private final long end;
+
+		/**
+		 * Constructs a new ChunkTask for indexing the given chunk.
+		 *
+		 * @param large the file the chunk belongs to
+		 * @param chunk the index of the chunk within the file
+		 * @param start the position of the first byte of the chunk
+		 * @param end the position just after the last byte of the chunk
+		 */
+		public ChunkTask(LargeFile large, int chunk, long start, long end) {
+			this.large = large;
+			this.chunk = chunk;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public void run() {
+			try {
+				ByteBuffer bytes;
+				try (FileChannel channel = FileChannel.open(large.file, StandardOpenOption.READ)) {
+					if (channel.size() < end) {
+						throw new EOFException("File changed while indexing: " + large.file);
+					}
+					bytes = channel.map(MapMode.READ_ONLY, start, end - start);
+				}
+
+				InvertedIndex local = new InvertedIndex();
+				int count = TextFileIndexer.indexBytes(bytes, large.file.toString(), local,
+						getStemCache().wrap(TextAnalyzer.get().getStemmer()));
+				large.finish(chunk, local, count);
+			}
+			catch (IOException e) {
+				logger.error("Error indexing chunk {} of file: {}", chunk, large.file, e);
+				throw new UncheckedIOException(e);
+			}
+		}
 	}
 
 }
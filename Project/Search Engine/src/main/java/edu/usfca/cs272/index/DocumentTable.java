@@ -0,0 +1,187 @@
+package edu.usfca.cs272.index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Registry that assigns each source (file path or URL) a dense integer
+ * identifier and tracks the word count of each source by that identifier. The
+ * inverted index stores identifiers in its postings so that each source string
+ * is kept exactly once, and only resolves identifiers back to strings when
+ * results leave the index.
+ *
+ * Implementations store the sources and word counts in arrays indexed by
+ * document id. The {@link SerialDocumentTable} is not thread-safe, and the
+ * {@link ConcurrentDocumentTable} is safe for concurrent use.
+ *
+ * @see SerialDocumentTable
+ * @see ConcurrentDocumentTable
+ */
+public abstract class DocumentTable {
+	/**
+	 * Returns the document id of the source, registering the source with the next
+	 * available id if it has not been seen before.
+	 *
+	 * @param source the source identifier
+	 * @return the document id of the source
+	 */
+	public abstract int register(String source);
+
+	/**
+	 * Returns the document id of the source without registering it.
+	 *
+	 * @param source the source identifier
+	 * @return the document id of the source, or -1 if the source is not registered
+	 */
+	public abstract int id(String source);
+
+	/**
+	 * Returns the source identifier registered with the document id.
+	 *
+	 * @param id the document id
+	 * @return the source identifier
+	 * @throws IndexOutOfBoundsException if the id has not been assigned
+	 */
+	public abstract String source(int id);
+
+	/**
+	 * Returns the word count of the document.
+	 *
+	 * @param id the document id
+	 * @return the word count, or 0 if the document has no words
+	 */
+	public abstract int count(int id);
+
+	/**
+	 * Updates the word count of the document if the given count is larger than the
+	 * current one.
+	 *
+	 * @param id the document id
+	 * @param count the candidate word count
+	 */
+	public abstract void mergeCount(int id, int count);
+
+	/**
+	 * Clears the word count of the document, such as when it is removed from the
+	 * index. The source stays registered with the same document id.
+	 *
+	 * @param id the document id
+	 */
+	public abstract void clearCount(int id);
+
+	/**
+	 * Returns the number of registered sources, which is also the next document id
+	 * to be assigned. Every document id below the returned size is assigned and
+	 * resolves to its source.
+	 *
+	 * @return the number of registered sources
+	 */
+	public abstract int size();
+
+	/**
+	 * Returns the number of sources with a word count.
+	 *
+	 * @return the number of sources with a word count greater than zero
+	 */
+	public abstract int sizeCounts();
+
+	/**
+	 * Determines whether the source has a word count.
+	 *
+	 * @param source the source identifier
+	 * @return true if the source is registered with a word count greater than zero
+	 */
+	public boolean hasCount(String source) {
+		return count(id(source)) > 0;
+	}
+
+	/**
+	 * Adds the offset to the word count of every document with a word count.
+	 *
+	 * @param offset the non-negative offset to add
+	 */
+	void shiftCounts(int offset) {
+		for (int id = 0; id < size(); id++) {
+			int count = count(id);
+			if (count > 0) {
+				mergeCount(id, count + offset);
+			}
+		}
+	}
+
+	/**
+	 * Registers every source of the other table in this table and merges their
+	 * word counts.
+	 *
+	 * @param other the table to merge into this one
+	 * @return an array mapping each document id of the other table to its
+	 *   document id in this table
+	 */
+	public int[] mergeAll(DocumentTable other) {
+		int[] mapping = new int[other.size()];
+		for (int otherId = 0; otherId < mapping.length; otherId++) {
+			int id = register(other.source(otherId));
+			mergeCount(id, other.count(otherId));
+			mapping[otherId] = id;
+		}
+		return mapping;
+	}
+
+	/**
+	 * Returns an unmodifiable map of sources to word counts, sorted by source. The
+	 * map is built on each call, so it does not reflect later updates.
+	 *
+	 * @return an unmodifiable sorted map of the sources with word counts
+	 */
+	public SortedMap<String, Integer> viewCounts() {
+		TreeMap<String, Integer> sorted = new TreeMap<>();
+		int size = size();
+		for (int id = 0; id < size; id++) {
+			int count = count(id);
+			if (count > 0) {
+				sorted.put(source(id), count);
+			}
+		}
+		return Collections.unmodifiableSortedMap(sorted);
+	}
+
+	/**
+	 * Writes the sources and word counts in document id order in the binary index
+	 * format.
+	 *
+	 * @param out the stream to write to
+	 * @throws IOException if an I/O error occurs
+	 */
+	void write(DataOutputStream out) throws IOException {
+		int size = size();
+		out.writeInt(size);
+		for (int id = 0; id < size; id++) {
+			IndexFile.writeString(out, source(id));
+			out.writeInt(count(id));
+		}
+	}
+
+	/**
+	 * Reads a document table written by {@link #write(DataOutputStream)}, keeping
+	 * the same document ids.
+	 *
+	 * @param in the stream to read from
+	 * @return the document table
+	 * @throws IOException if an I/O error occurs or the table is corrupt
+	 */
+	static DocumentTable read(DataInputStream in) throws IOException {
+		int size = IndexFile.readLength(in);
+		DocumentTable documents = new SerialDocumentTable();
+		for (int id = 0; id < size; id++) {
+			if (documents.register(IndexFile.readString(in)) != id) {
+				throw new IOException("Corrupt binary index, duplicate source for document " + id);
+			}
+			documents.mergeCount(id, in.readInt());
+		}
+		return documents;
+	}
+}
@@ -0,0 +1,694 @@
+package edu.usfca.cs272.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.usfca.cs272.threads.WorkQueue;
+import edu.usfca.cs272.util.JsonWriter;
+
+/**
+ * A read-only inverted index compacted into sorted arrays. Words are kept in a
+ * front-coded {@link TermDictionary} and identified by term id, the postings of
+ * every word are stored contiguously in parallel arrays of document ids and
+ * precomputed term frequencies, and all positions share one encoded byte array.
+ * The arrays are held as buffers, which either wrap heap arrays or are mapped
+ * straight from a binary index file. Document ids are reassigned in source
+ * order, so postings are already sorted the way they are output.
+ *
+ * Since nothing changes after construction, every method is safe to call from
+ * multiple threads without locking. Created by {@link InvertedIndex#freeze()};
+ * a frozen index is meant to be searched and output, not merged into another
+ * index. Every method of {@link InvertedIndex} is overridden to read the arrays,
+ * and every method that would modify the index throws an exception instead. Its
+ * arrays can be saved to a binary index file and loaded back as they are, so an
+ * index only has to be built once.
+ */
+public class FrozenInvertedIndex extends InvertedIndex {
+	/**
+	 * Logger for logging events in FrozenInvertedIndex class.
+	 */
+	private static final Logger logger = LogManager.getLogger(FrozenInvertedIndex.class);
+
+	/** The document table, with document ids in sorted source order. */
+	private final DocumentTable documents;
+
+	/** The words in the index, identified by their sorted term id. */
+	private final TermDictionary words;
+
+	/**
+	 * The first posting of each word, plus one final entry marking the end of the
+	 * last word's postings.
+	 */
+	private final IntBuffer wordOffsets;
+
+	/** The document id of each posting, sorted within each word. */
+	private final IntBuffer postingDocuments;
+
+	/** The number of positions (term frequency) of each posting. */
+	private final IntBuffer postingFrequencies;
+
+	/**
+	 * The first encoded position byte of each posting, plus one final entry
+	 * marking the end of the last posting's positions.
+	 */
+	private final IntBuffer positionOffsets;
+
+	/** The encoded position deltas of every posting, stored contiguously. */
+	private final ByteBuffer positions;
+
+	/**
+	 * Compacts the provided index into a frozen index.
+	 *
+	 * @param documents the document table of the index to compact
+	 * @param index the words, document ids, and positions to compact
+	 */
+	FrozenInvertedIndex(DocumentTable documents, TreeMap<String, TreeMap<Integer, PositionList>> index) {
+		this(sortDocuments(documents), documents, index);
+	}
+
+	/**
+	 * Compacts the provided index into a frozen index using the sorted copy of its
+	 * document table.
+	 *
+	 * @param sorted the document table with ids in sorted source order
+	 * @param documents the document table of the index to compact
+	 * @param index the words, document ids, and positions to compact
+	 */
+	private FrozenInvertedIndex(DocumentTable sorted, DocumentTable documents,
+			TreeMap<String, TreeMap<Integer, PositionList>> index) {
+		super(sorted);
+		this.documents = sorted;
+
+		int[] mapping = new int[documents.size()];
+		for (int id = 0; id < mapping.length; id++) {
+			mapping[id] = sorted.id(documents.source(id));
+		}
+
+		int postings = 0;
+		long bytes = 0;
+		for (TreeMap<Integer, PositionList> sources : index.values()) {
+			postings += sources.size();
+			for (PositionList list : sources.values()) {
+				bytes += list.encodedLength();
+			}
+		}
+
+		if (bytes > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Index has too many positions to freeze: " + bytes + " bytes");
+		}
+
+		int[] wordOffsets = new int[index.size() + 1];
+		int[] postingDocuments = new int[postings];
+		int[] postingFrequencies = new int[postings];
+		int[] positionOffsets = new int[postings + 1];
+		byte[] positions = new byte[(int) bytes];
+
+		int word = 0;
+		int posting = 0;
+		int offset = 0;
+		for (var entry : index.entrySet()) {
+			wordOffsets[word] = posting;
+
+			// postings are keyed by old document id, so sort them by new id
+			TreeMap<Integer, PositionList> remapped = new TreeMap<>();
+			for (var source : entry.getValue().entrySet()) {
+				remapped.put(mapping[source.getKey()], source.getValue());
+			}
+
+			for (var source : remapped.entrySet()) {
+				PositionList list = source.getValue();
+				postingDocuments[posting] = source.getKey();
+				postingFrequencies[posting] = list.size();
+				positionOffsets[posting] = offset;
+				list.copyEncodedTo(positions, offset);
+				offset += list.encodedLength();
+				posting++;
+			}
+			word++;
+		}
+		wordOffsets[word] = posting;
+		positionOffsets[posting] = offset;
+
+		this.words = new TermDictionary(index.keySet());
+		this.wordOffsets = IntBuffer.wrap(wordOffsets);
+		this.postingDocuments = IntBuffer.wrap(postingDocuments);
+		this.postingFrequencies = IntBuffer.wrap(postingFrequencies);
+		this.positionOffsets = IntBuffer.wrap(positionOffsets);
+		this.positions = ByteBuffer.wrap(positions);
+
+		logger.info("Froze index with {} words in {} dictionary bytes, {} postings, and {} position bytes",
+				words.size(), words.encodedLength(), postings, offset);
+	}
+
+	/**
+	 * Constructs a frozen index from arrays read or mapped from a binary index
+	 * file, after checking that their lengths match.
+	 *
+	 * @param documents the document table, with document ids in sorted source
+	 *   order
+	 * @param words the words in the index
+	 * @param wordOffsets the first posting of each word, plus the end
+	 * @param postingDocuments the document id of each posting
+	 * @param postingFrequencies the number of positions of each posting
+	 * @param positionOffsets the first position byte of each posting, plus the end
+	 * @param positions the encoded position deltas of every posting
+	 * @throws IOException if the lengths of the arrays do not match
+	 */
+	private FrozenInvertedIndex(DocumentTable documents, TermDictionary words, IntBuffer wordOffsets,
+			IntBuffer postingDocuments, IntBuffer postingFrequencies, IntBuffer positionOffsets, ByteBuffer positions)
+			throws IOException {
+		super(documents);
+		int postings = postingDocuments.capacity();
+		if (wordOffsets.capacity() != words.size() + 1 || postingFrequencies.capacity() != postings
+				|| positionOffsets.capacity() != postings + 1 || wordOffsets.get(words.size()) != postings
+				|| positionOffsets.get(postings) != positions.capacity()) {
+			throw new IOException("Corrupt binary index, array lengths do not match.");
+		}
+
+		this.documents = documents;
+		this.words = words;
+		this.wordOffsets = wordOffsets;
+		this.postingDocuments = postingDocuments;
+		this.postingFrequencies = postingFrequencies;
+		this.positionOffsets = positionOffsets;
+		this.positions = positions;
+	}
+
+	/**
+	 * Writes this index to a binary index file, which stores the document table,
+	 * the front-coded words, and the posting arrays as they are in memory.
+	 *
+	 * @param path the path to the binary index file
+	 * @throws IOException if an I/O error occurs while writing the file
+	 * @see #load(Path)
+	 */
+	@Override
+	public void save(Path path) throws IOException {
+		logger.info("Saving binary index to file: {}", path);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			IndexFile.writeHeader(out);
+			documents.write(out);
+			words.write(out);
+			IndexFile.writeInts(out, wordOffsets);
+			IndexFile.writeInts(out, postingDocuments);
+			IndexFile.writeInts(out, postingFrequencies);
+			IndexFile.writeInts(out, positionOffsets);
+			IndexFile.writeBytes(out, positions);
+		}
+		logger.info("Successfully saved binary index to file: {}", path);
+	}
+
+	/**
+	 * Reads a frozen index from a binary index file written by
+	 * {@link #save(Path)}, without rebuilding or re-sorting anything.
+	 *
+	 * @param path the path to the binary index file
+	 * @return the frozen index
+	 * @throws IOException if an I/O error occurs while reading the file, or the
+	 *   file is not a valid binary index
+	 */
+	public static FrozenInvertedIndex load(Path path) throws IOException {
+		logger.info("Loading binary index from file: {}", path);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			IndexFile.readHeader(in);
+			DocumentTable documents = DocumentTable.read(in);
+			TermDictionary words = TermDictionary.read(in);
+			IntBuffer wordOffsets = IntBuffer.wrap(IndexFile.readInts(in));
+			IntBuffer postingDocuments = IntBuffer.wrap(IndexFile.readInts(in));
+			IntBuffer postingFrequencies = IntBuffer.wrap(IndexFile.readInts(in));
+			IntBuffer positionOffsets = IntBuffer.wrap(IndexFile.readInts(in));
+			ByteBuffer positions = ByteBuffer.wrap(IndexFile.readBytes(in));
+
+			logger.info("Loaded binary index with {} words, {} postings, and {} sources", words.size(),
+					postingDocuments.capacity(), documents.size());
+			return new FrozenInvertedIndex(documents, words, wordOffsets, postingDocuments, postingFrequencies,
+					positionOffsets, positions);
+		}
+	}
+
+	/**
+	 * Maps a binary index file written by {@link #save(Path)} into memory. Only
+	 * the document table and the front-coded words are read onto the heap; the
+	 * posting arrays and positions are searched directly in the mapped file, so
+	 * the index starts without reading its postings, can be larger than the heap,
+	 * and shares the page cache with other processes mapping the same file.
+	 *
+	 * @param path the path to the binary index file
+	 * @return the frozen index backed by the mapped file
+	 * @throws IOException if an I/O error occurs while reading or mapping the file,
+	 *   or the file is not a valid binary index
+	 */
+	public static FrozenInvertedIndex map(Path path) throws IOException {
+		logger.info("Mapping binary index from file: {}", path);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			IndexFile.CountingInputStream counter = new IndexFile.CountingInputStream(
+					new BufferedInputStream(Channels.newInputStream(channel)));
+			DataInputStream in = new DataInputStream(counter);
+			IndexFile.readHeader(in);
+			DocumentTable documents = DocumentTable.read(in);
+			TermDictionary words = TermDictionary.read(in);
+
+			long position = counter.count();
+			IntBuffer wordOffsets = IndexFile.mapInts(channel, position);
+			position += IndexFile.sizeOf(wordOffsets);
+			IntBuffer postingDocuments = IndexFile.mapInts(channel, position);
+			position += IndexFile.sizeOf(postingDocuments);
+			IntBuffer postingFrequencies = IndexFile.mapInts(channel, position);
+			position += IndexFile.sizeOf(postingFrequencies);
+			IntBuffer positionOffsets = IndexFile.mapInts(channel, position);
+			position += IndexFile.sizeOf(positionOffsets);
+			ByteBuffer positions = IndexFile.mapBytes(channel, position);
+
+			logger.info("Mapped binary index with {} words, {} postings, and {} sources", words.size(),
+					postingDocuments.capacity(), documents.size());
+			return new FrozenInvertedIndex(documents, words, wordOffsets, postingDocuments, postingFrequencies,
+					positionOffsets, positions);
+		}
+	}
+
+	/**
+	 * Returns a copy of the document table with document ids reassigned in sorted
+	 * source order.
+	 *
+	 * @param documents the document table to copy
+	 * @return the sorted copy
+	 */
+	private static DocumentTable sortDocuments(DocumentTable documents) {
+		Integer[] ids = new Integer[documents.size()];
+		for (int id = 0; id < ids.length; id++) {
+			ids[id] = id;
+		}
+		Arrays.sort(ids, (a, b) -> documents.source(a).compareTo(documents.source(b)));
+
+		DocumentTable sorted = new SerialDocumentTable();
+		for (int id : ids) {
+			sorted.mergeCount(sorted.register(documents.source(id)), documents.count(id));
+		}
+		return sorted;
+	}
+
+	/**
+	 * Returns the term id of the word.
+	 *
+	 * @param word the word to find
+	 * @return the term id of the word, or a negative value if not present
+	 *
+	 * @see TermDictionary#find(String)
+	 */
+	private int find(String word) {
+		return words.find(word);
+	}
+
+	/**
+	 * Returns the posting of the source for the word.
+	 *
+	 * @param word the word to lookup
+	 * @param source the source to lookup
+	 * @return the index of the posting, or -1 if not present
+	 */
+	private int find(String word, String source) {
+		int term = find(word);
+		int id = documents.id(source);
+		if (term < 0 || id < 0) {
+			return -1;
+		}
+		int low = wordOffsets.get(term);
+		int high = wordOffsets.get(term + 1) - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int middleId = postingDocuments.get(middle);
+			if (middleId < id) {
+				low = middle + 1;
+			}
+			else if (middleId > id) {
+				high = middle - 1;
+			}
+			else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Decodes the positions of the posting.
+	 *
+	 * @param posting the index of the posting
+	 * @return the positions of the posting
+	 */
+	private PositionList positions(int posting) {
+		int offset = positionOffsets.get(posting);
+		return new PositionList(positions, offset, positionOffsets.get(posting + 1) - offset);
+	}
+
+	/**
+	 * Returns the postings of the word keyed by source, in source order.
+	 *
+	 * @param term the index of the word
+	 * @return a map of source identifiers to positions
+	 */
+	Map<String, PositionList> resolveSources(int term) {
+		Map<String, PositionList> resolved = new LinkedHashMap<>();
+		for (int posting = wordOffsets.get(term); posting < wordOffsets.get(term + 1); posting++) {
+			resolved.put(documents.source(postingDocuments.get(posting)), positions(posting));
+		}
+		return resolved;
+	}
+
+	/**
+	 * Returns a map view of the sorted words to their term id, used to output the
+	 * index while decoding each word only once.
+	 *
+	 * @return an unmodifiable map of words to their term id in sorted order
+	 */
+	Map<String, Integer> viewTerms() {
+		return new AbstractMap<>() {
+			@Override
+			public Set<Entry<String, Integer>> entrySet() {
+				return new AbstractSet<>() {
+					@Override
+					public Iterator<Entry<String, Integer>> iterator() {
+						return new Iterator<>() {
+							/** Decodes the words in order. */
+							private final Iterator<String> iterator = words.iterator();
+
+							/** The term id of the next word. */
+							private int term = 0;
+
+							@Override
+							public boolean hasNext() {
+								return iterator.hasNext();
+							}
+
+							@Override
+							public Entry<String, Integer> next() {
+								if (!hasNext()) {
+									throw new NoSuchElementException();
+								}
+								return Map.entry(iterator.next(), term++);
+							}
+						};
+					}
+
+					@Override
+					public int size() {
+						return words.size();
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * Always throws an exception since a frozen index cannot be modified.
+	 *
+	 * @param word unused
+	 * @param source unused
+	 * @param position unused
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void add(String word, String source, int position) {
+		throw new UnsupportedOperationException("Frozen index cannot be modified.");
+	}
+
+	/**
+	 * Always throws an exception since a frozen index cannot be modified.
+	 *
+	 * @param words unused
+	 * @param source unused
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void add(List<String> words, String source) {
+		throw new UnsupportedOperationException("Frozen index cannot be modified.");
+	}
+
+	/**
+	 * Always throws an exception since a frozen index cannot be modified.
+	 *
+	 * @param other unused
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void addAll(InvertedIndex other) {
+		throw new UnsupportedOperationException("Frozen index cannot be modified.");
+	}
+
+	/**
+	 * Always throws an exception since a frozen index cannot be modified.
+	 *
+	 * @param source unused
+	 * @return never returns normally
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean remove(String source) {
+		throw new UnsupportedOperationException("Frozen index cannot be modified.");
+	}
+
+	/**
+	 * Always throws an exception since a frozen index cannot be modified.
+	 *
+	 * @param source unused
+	 * @param words unused
+	 * @return never returns normally
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean remove(String source, Collection<String> words) {
+		throw new UnsupportedOperationException("Frozen index cannot be modified.");
+	}
+
+	/**
+	 * Always throws an exception since a frozen index cannot be modified.
+	 *
+	 * @param otherWords unused
+	 * @param mapping unused
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	void addAllIndex(Set<Entry<String, TreeMap<Integer, PositionList>>> otherWords, int[] mapping) {
+		throw new UnsupportedOperationException("Frozen index cannot be modified.");
+	}
+
+	/**
+	 * Always throws an exception since a frozen index cannot be modified.
+	 *
+	 * @param word unused
+	 * @param source unused
+	 * @param positions unused
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	void addPostings(String word, String source, PositionList positions) {
+		throw new UnsupportedOperationException("Frozen index cannot be modified.");
+	}
+
+	/**
+	 * Always throws an exception since a frozen index cannot be modified.
+	 *
+	 * @param id unused
+	 * @param words unused
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	void removePostings(int id, Collection<String> words) {
+		throw new UnsupportedOperationException("Frozen index cannot be modified.");
+	}
+
+	/**
+	 * Always throws an exception since a frozen index cannot be modified.
+	 *
+	 * @param offset unused
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	void shiftPositions(int offset) {
+		throw new UnsupportedOperationException("Frozen index cannot be modified.");
+	}
+
+	/**
+	 * Returns a copy of the words, document ids, and positions of this index,
+	 * decoded from its arrays. Changes to the copy do not affect this index.
+	 *
+	 * @return a new map of the postings of this index
+	 */
+	@Override
+	TreeMap<String, TreeMap<Integer, PositionList>> postings() {
+		TreeMap<String, TreeMap<Integer, PositionList>> copy = new TreeMap<>();
+		for (Entry<String, Integer> term : viewTerms().entrySet()) {
+			TreeMap<Integer, PositionList> sources = new TreeMap<>();
+			int index = term.getValue();
+			for (int posting = wordOffsets.get(index), end = wordOffsets.get(index + 1); posting < end; posting++) {
+				sources.put(postingDocuments.get(posting), positions(posting));
+			}
+			copy.put(term.getKey(), sources);
+		}
+		return copy;
+	}
+
+	/**
+	 * Returns this index, since it is already frozen.
+	 *
+	 * @return this index
+	 */
+	@Override
+	public FrozenInvertedIndex freeze() {
+		return this;
+	}
+
+	/**
+	 * Returns a modifiable copy of this index, such as to keep adding to an index
+	 * saved by an earlier run.
+	 *
+	 * @return a new inverted index with the same words, sources, and positions
+	 */
+	public InvertedIndex thaw() {
+		InvertedIndex thawed = new InvertedIndex();
+		for (Entry<String, Integer> term : viewTerms().entrySet()) {
+			for (Entry<String, PositionList> source : resolveSources(term.getValue()).entrySet()) {
+				thawed.addPostings(term.getKey(), source.getKey(), source.getValue());
+			}
+		}
+		return thawed;
+	}
+
+	@Override
+	public int sizeWords() {
+		return words.size();
+	}
+
+	@Override
+	public int sizeSources(String word) {
+		int term = find(word);
+		return term < 0 ? 0 : wordOffsets.get(term + 1) - wordOffsets.get(term);
+	}
+
+	@Override
+	public int sizePositions(String word, String source) {
+		int posting = find(word, source);
+		return posting < 0 ? 0 : postingFrequencies.get(posting);
+	}
+
+	@Override
+	public boolean hasWord(String word) {
+		return find(word) >= 0;
+	}
+
+	@Override
+	public boolean hasSource(String word, String source) {
+		return find(word, source) >= 0;
+	}
+
+	@Override
+	public boolean hasPosition(String word, String source, int position) {
+		int posting = find(word, source);
+		return posting >= 0 && positions(posting).contains(position);
+	}
+
+	@Override
+	public SortedSet<String> viewWords() {
+		TreeSet<String> copy = new TreeSet<>();
+		for (String word : words) {
+			copy.add(word);
+		}
+		return Collections.unmodifiableSortedSet(copy);
+	}
+
+	@Override
+	public SortedSet<String> viewSources(String word) {
+		int term = find(word);
+		return term < 0 ? Collections.emptySortedSet()
+				: Collections.unmodifiableSortedSet(new TreeSet<>(resolveSources(term).keySet()));
+	}
+
+	@Override
+	public SortedSet<Integer> viewPositions(String word, String source) {
+		int posting = find(word, source);
+		return posting < 0 ? Collections.emptySortedSet()
+				: Collections.unmodifiableSortedSet(new TreeSet<>(positions(posting)));
+	}
+
+	@Override
+	public String indexToJson() {
+		return JsonWriter.writeNestedObjectArrays(viewTerms(), this::resolveSources);
+	}
+
+	@Override
+	public void indexToJson(Path path) throws IOException {
+		logger.info("Writing frozen index JSON to file: {}", path);
+		JsonWriter.writeNestedObjectArrays(viewTerms(), this::resolveSources, path);
+		logger.info("Successfully wrote frozen index JSON to file: {}", path);
+	}
+
+	@Override
+	public void indexToJson(Path path, WorkQueue tasks) throws IOException {
+		logger.info("Writing frozen index JSON to file in parallel: {}", path);
+		JsonWriter.writeNestedObjectArrays(viewTerms(), this::resolveSources, path, tasks);
+		logger.info("Successfully wrote frozen index JSON to file: {}", path);
+	}
+
+	@Override
+	public void indexToJson(Writer writer) throws IOException {
+		JsonWriter.writeNestedObjectArrays(viewTerms(), this::resolveSources, writer);
+	}
+
+	@Override
+	void searchPartial(String queryWord, ScoreAccumulator matches) {
+		int[] range = words.prefixRange(queryWord);
+		for (int term = range[0]; term < range[1]; term++) {
+			accumulate(matches, term);
+		}
+	}
+
+	@Override
+	void searchExact(String word, ScoreAccumulator matches) {
+		int term = find(word);
+		if (term >= 0) {
+			accumulate(matches, term);
+		}
+	}
+
+	/**
+	 * Adds the postings of a word to the accumulated matches, using the
+	 * precomputed term frequencies as match counts.
+	 *
+	 * @param matches the accumulator of match counts by document id
+	 * @param term the index of the matching word
+	 */
+	private void accumulate(ScoreAccumulator matches, int term) {
+		for (int posting = wordOffsets.get(term), end = wordOffsets.get(term + 1); posting < end; posting++) {
+			matches.add(postingDocuments.get(posting), postingFrequencies.get(posting));
+		}
+	}
+}
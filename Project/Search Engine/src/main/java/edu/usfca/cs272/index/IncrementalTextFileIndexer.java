@@ -0,0 +1,300 @@
+package edu.usfca.cs272.index;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.usfca.cs272.threads.WorkQueue;
+import edu.usfca.cs272.util.TextAnalyzer;
+import opennlp.tools.stemmer.Stemmer;
+
+/**
+ * IncrementalTextFileIndexer indexes only the text files that are new or have
+ * changed since the last run, using an {@link IndexManifest} saved by that run.
+ * The postings of unchanged files are restored from the manifest without
+ * reading or stemming the files, the old postings of changed files are removed
+ * before they are indexed again, and the postings of deleted files are removed.
+ *
+ * A file is unchanged if its size and modification time match the manifest, or
+ * if its content hash does. Files are indexed on the work queue if one is
+ * provided, and in the calling thread otherwise.
+ */
+public class IncrementalTextFileIndexer extends TextFileIndexer {
+	/**
+	 * Logger for logging events in IncrementalTextFileIndexer class.
+	 */
+	private static final Logger logger = LogManager.getLogger(IncrementalTextFileIndexer.class);
+
+	/**
+	 * Merges the local index of each changed file into the inverted index.
+	 */
+	private final IndexMerger merger;
+
+	/**
+	 * WorkQueue for indexing files concurrently, or null to index them in the
+	 * calling thread.
+	 */
+	private final WorkQueue tasks;
+
+	/**
+	 * The path of the manifest file read and saved by each run.
+	 */
+	private final Path manifestPath;
+
+	/**
+	 * The manifest of the indexed files, or null until it is loaded.
+	 */
+	private IndexManifest manifest;
+
+	/**
+	 * Constructs an IncrementalTextFileIndexer that indexes files in the calling
+	 * thread.
+	 *
+	 * @param invertedIndex the inverted index to update, which must support
+	 *   removing sources
+	 * @param manifestPath the path of the manifest file
+	 */
+	public IncrementalTextFileIndexer(InvertedIndex invertedIndex, Path manifestPath) {
+		this(new IndexMerger(invertedIndex), null, manifestPath);
+	}
+
+	/**
+	 * Constructs an IncrementalTextFileIndexer that merges the local index of each
+	 * changed file with the provided merger.
+	 *
+	 * @param merger the merger of local indexes into the inverted index to update,
+	 *   which must support removing sources
+	 * @param tasks the work queue for executing indexing tasks, or null to index
+	 *   files in the calling thread
+	 * @param manifestPath the path of the manifest file
+	 */
+	public IncrementalTextFileIndexer(IndexMerger merger, WorkQueue tasks, Path manifestPath) {
+		super(merger.getInvertedIndex());
+		this.merger = merger;
+		this.tasks = tasks;
+		this.manifestPath = manifestPath;
+		this.manifest = null;
+	}
+
+	/**
+	 * Indexes the new and changed text files of the given path, restoring the rest
+	 * from the manifest, and removes the files that no longer exist. The changes
+	 * to the manifest are saved once every file has been indexed.
+	 *
+	 * @param path the file or directory to index
+	 * @throws IOException if an I/O error occurs when indexing a file or directory,
+	 *   or saving the manifest
+	 */
+	@Override
+	public void indexPath(Path path) throws IOException {
+		restore();
+
+		Set<Path> files = Files.isDirectory(path) ? TextFileFinder.uniqueText(path) : Set.of(path);
+		Set<String> sources = new HashSet<>();
+		for (Path file : files) {
+			sources.add(file.toString());
+			indexFile(file);
+		}
+
+		finish();
+
+		for (String source : manifest.copySources()) {
+			if (!sources.contains(source)) {
+				removeSource(source);
+			}
+		}
+
+		save();
+	}
+
+	/**
+	 * Updates the index for a batch of paths that were created, modified, or
+	 * deleted since they were last indexed. The text files in an existing
+	 * directory are indexed if they are new or have changed, an existing text file
+	 * is indexed if it has changed, and every file at or under a path that no
+	 * longer exists is removed. Only the records of the files indexed or removed
+	 * by the batch are appended to the manifest once it has been indexed.
+	 *
+	 * @param paths the created, modified, or deleted paths
+	 * @throws IOException if an I/O error occurs when indexing a file or directory,
+	 *   or saving the manifest
+	 */
+	public void update(Collection<Path> paths) throws IOException {
+		restore();
+
+		for (Path path : paths) {
+			if (Files.isDirectory(path)) {
+				for (Path file : TextFileFinder.uniqueText(path)) {
+					indexFile(file);
+				}
+			}
+			else if (TextFileFinder.IS_TEXT.test(path)) {
+				indexFile(path);
+			}
+			else {
+				for (String source : manifest.copySources()) {
+					if (Path.of(source).startsWith(path)) {
+						removeSource(source);
+					}
+				}
+			}
+		}
+
+		finish();
+		save();
+	}
+
+	/**
+	 * Indexes the file if it is new or has changed since the last run.
+	 *
+	 * @param file the file to index
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	@Override
+	public void indexFile(Path file) throws IOException {
+		if (tasks != null) {
+			tasks.execute(new Task(file));
+		}
+		else {
+			indexChanged(file, getStemCache().wrap(TextAnalyzer.get().getStemmer()));
+		}
+	}
+
+	/**
+	 * Loads the manifest of the last run and restores the postings it records
+	 * into the index, unless it has already been loaded.
+	 */
+	private void restore() {
+		if (manifest == null) {
+			manifest = loadManifest();
+			manifest.restore(merger.getInvertedIndex());
+		}
+	}
+
+	/**
+	 * Waits for every indexing task and merges anything still pending into the
+	 * index.
+	 */
+	private void finish() {
+		if (tasks != null) {
+			tasks.finish();
+		}
+		merger.finish();
+		logger.debug("Stem cache: {}", getStemCache());
+	}
+
+	/**
+	 * Saves the changes to the manifest, only appending the records of the files
+	 * indexed or removed since it was last saved.
+	 *
+	 * @throws IOException if an I/O error occurs while writing the manifest
+	 * @see IndexManifest#saveChanges(Path)
+	 */
+	private void save() throws IOException {
+		manifest.saveChanges(manifestPath);
+		logger.info("Saved manifest of {} files: {}", manifest.size(), manifestPath);
+	}
+
+	/**
+	 * Removes a deleted file from the manifest and its postings from the index.
+	 *
+	 * @param source the source of the deleted file
+	 */
+	private void removeSource(String source) {
+		IndexManifest.Document removed = manifest.remove(source);
+		if (removed != null) {
+			logger.info("Removing deleted file: {}", source);
+			merger.getInvertedIndex().remove(source, removed.viewWords());
+		}
+	}
+
+	/**
+	 * Loads the manifest of the last run, or creates an empty one if there is no
+	 * usable manifest.
+	 *
+	 * @return the manifest
+	 */
+	private IndexManifest loadManifest() {
+		if (Files.exists(manifestPath)) {
+			try {
+				IndexManifest loaded = IndexManifest.load(manifestPath);
+				logger.info("Loaded manifest of {} files: {}", loaded.size(), manifestPath);
+				return loaded;
+			}
+			catch (IOException e) {
+				logger.warn("Unable to load manifest, indexing every file: " + manifestPath, e);
+			}
+		}
+		return new IndexManifest();
+	}
+
+	/**
+	 * Compares the file with the manifest and indexes it again if it is new or
+	 * its content has changed, replacing its old postings in the inverted index.
+	 *
+	 * @param file the file to index
+	 * @param stemmer the stemmer to use
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	private void indexChanged(Path file, Stemmer stemmer) throws IOException {
+		String source = file.toString();
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		IndexManifest.Document previous = manifest.get(source);
+		if (previous != null && previous.matches(attributes)) {
+			return;
+		}
+
+		byte[] hash = IndexManifest.hash(file);
+		if (previous != null && previous.matches(hash)) {
+			manifest.put(source, previous.touch(attributes));
+			return;
+		}
+
+		logger.debug("Indexing {} file: {}", previous == null ? "new" : "changed", file);
+		InvertedIndex local = new InvertedIndex();
+		TextFileIndexer.indexFile(file, local, stemmer);
+		if (previous != null) {
+			merger.getInvertedIndex().remove(source, previous.viewWords());
+		}
+		manifest.put(source, IndexManifest.record(attributes, hash, local));
+		merger.add(local);
+	}
+
+	/**
+	 * Private inner class representing a task for indexing a file.
+	 */
+	private class Task implements Runnable {
+		/**
+		 * The file to be indexed by this task.
+		 */
+		private final Path file;
+
+		/**
+		 * Constructs a new Task for indexing the given file.
+		 *
+		 * @param file the file to index
+		 */
+		public Task(Path file) {
+			this.file = file;
+		}
+
+		@Override
+		public void run() {
+			try {
+				indexChanged(file, getStemCache().wrap(TextAnalyzer.get().getStemmer()));
+			}
+			catch (IOException e) {
+				logger.error("Error indexing file: " + file, e);
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
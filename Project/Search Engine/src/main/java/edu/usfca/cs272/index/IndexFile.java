@@ -0,0 +1,337 @@
+package edu.usfca.cs272.index;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+
+/**
+ * Reads and writes the parts of the binary index format. A binary index file
+ * starts with {@link #MAGIC} and {@link #VERSION}, followed by the document
+ * table, the term dictionary, and the posting arrays of a
+ * {@link FrozenInvertedIndex}. Every value is big-endian, and every array is
+ * written as its length followed by its elements, so a file is either loaded
+ * with bulk reads straight into the arrays the frozen index searches, or its
+ * arrays are mapped into memory and searched in place.
+ *
+ * The format has no checksum, since a mapped file is never read in full. A file
+ * is rejected if its header, lengths, or array sizes are wrong or it is
+ * truncated, but damaged elements within the arrays are not detected.
+ *
+ * @see FrozenInvertedIndex#save(java.nio.file.Path)
+ * @see FrozenInvertedIndex#load(java.nio.file.Path)
+ * @see FrozenInvertedIndex#map(java.nio.file.Path)
+ */
+final class IndexFile {
+	/** The first four bytes of every binary index file. */
+	static final int MAGIC = 0x49445831;
+
+	/** The version of the binary index format. */
+	static final int VERSION = 1;
+
+	/** The number of integers converted at a time when reading or writing. */
+	private static final int CHUNK = 8192;
+
+	/**
+	 * Writes the header of a binary index file.
+	 *
+	 * @param out the stream to write to
+	 * @throws IOException if an I/O error occurs
+	 */
+	static void writeHeader(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+	}
+
+	/**
+	 * Reads and checks the header of a binary index file.
+	 *
+	 * @param in the stream to read from
+	 * @throws IOException if an I/O error occurs or the stream is not a binary
+	 *   index file of this version
+	 */
+	static void readHeader(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a binary index file.");
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported binary index version: " + version);
+		}
+	}
+
+	/**
+	 * Writes a string as its length in UTF-8 bytes followed by those bytes.
+	 *
+	 * @param out the stream to write to
+	 * @param value the string to write
+	 * @throws IOException if an I/O error occurs
+	 */
+	static void writeString(DataOutputStream out, String value) throws IOException {
+		writeBytes(out, value.getBytes(UTF_8));
+	}
+
+	/**
+	 * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+	 *
+	 * @param in the stream to read from
+	 * @return the string
+	 * @throws IOException if an I/O error occurs
+	 */
+	static String readString(DataInputStream in) throws IOException {
+		return new String(readBytes(in), UTF_8);
+	}
+
+	/**
+	 * Writes a byte array as its length followed by its bytes.
+	 *
+	 * @param out the stream to write to
+	 * @param values the bytes to write
+	 * @throws IOException if an I/O error occurs
+	 */
+	static void writeBytes(DataOutputStream out, byte[] values) throws IOException {
+		out.writeInt(values.length);
+		out.write(values);
+	}
+
+	/**
+	 * Writes the bytes of a buffer as their count followed by the bytes, without
+	 * changing the position of the buffer.
+	 *
+	 * @param out the stream to write to
+	 * @param values the bytes to write
+	 * @throws IOException if an I/O error occurs
+	 */
+	static void writeBytes(DataOutputStream out, ByteBuffer values) throws IOException {
+		out.writeInt(values.capacity());
+		byte[] chunk = new byte[CHUNK * Integer.BYTES];
+		for (int start = 0; start < values.capacity(); start += chunk.length) {
+			int count = Math.min(chunk.length, values.capacity() - start);
+			values.get(start, chunk, 0, count);
+			out.write(chunk, 0, count);
+		}
+	}
+
+	/**
+	 * Reads a byte array written by {@link #writeBytes(DataOutputStream, byte[])}.
+	 * Large arrays grow as their bytes are read, so a corrupt length reaches the
+	 * end of the stream instead of allocating that many bytes up front.
+	 *
+	 * @param in the stream to read from
+	 * @return the bytes
+	 * @throws IOException if an I/O error occurs, the length is negative, or the
+	 *   stream ends before the array
+	 */
+	static byte[] readBytes(DataInputStream in) throws IOException {
+		int length = readLength(in);
+		byte[] values = new byte[Math.min(length, CHUNK * Integer.BYTES)];
+		in.readFully(values);
+		while (values.length < length) {
+			int read = values.length;
+			values = Arrays.copyOf(values, (int) Math.min(length, 2L * read));
+			in.readFully(values, read, values.length - read);
+		}
+		return values;
+	}
+
+	/**
+	 * Writes the integers of a buffer as their count followed by the integers,
+	 * without changing the position of the buffer.
+	 *
+	 * @param out the stream to write to
+	 * @param values the integers to write
+	 * @throws IOException if an I/O error occurs
+	 */
+	static void writeInts(DataOutputStream out, IntBuffer values) throws IOException {
+		out.writeInt(values.capacity());
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK * Integer.BYTES);
+		IntBuffer chunk = buffer.asIntBuffer();
+		for (int start = 0; start < values.capacity(); start += CHUNK) {
+			int count = Math.min(CHUNK, values.capacity() - start);
+			chunk.put(0, values, start, count);
+			out.write(buffer.array(), 0, count * Integer.BYTES);
+		}
+	}
+
+	/**
+	 * Reads an integer array written by
+	 * {@link #writeInts(DataOutputStream, IntBuffer)}. Large arrays grow as their
+	 * integers are read, so a corrupt length reaches the end of the stream instead
+	 * of allocating that many integers up front.
+	 *
+	 * @param in the stream to read from
+	 * @return the integers
+	 * @throws IOException if an I/O error occurs, the length is negative, or the
+	 *   stream ends before the array
+	 */
+	static int[] readInts(DataInputStream in) throws IOException {
+		int length = readLength(in);
+		int[] values = new int[Math.min(length, CHUNK)];
+		byte[] bytes = new byte[CHUNK * Integer.BYTES];
+		IntBuffer buffer = ByteBuffer.wrap(bytes).asIntBuffer();
+		for (int start = 0; start < length; start += CHUNK) {
+			if (start == values.length) {
+				values = Arrays.copyOf(values, (int) Math.min(length, 2L * start));
+			}
+			int count = Math.min(CHUNK, length - start);
+			in.readFully(bytes, 0, count * Integer.BYTES);
+			buffer.get(0, values, start, count);
+		}
+		return values;
+	}
+
+	/**
+	 * Maps an integer array written by
+	 * {@link #writeInts(DataOutputStream, IntBuffer)} at the given position of the
+	 * file.
+	 *
+	 * @param channel the channel of the binary index file
+	 * @param position the position of the array length in the file
+	 * @return a read-only buffer of the mapped integers
+	 * @throws IOException if an I/O error occurs or the array does not fit in
+	 *   the file
+	 */
+	static IntBuffer mapInts(FileChannel channel, long position) throws IOException {
+		return map(channel, position, Integer.BYTES).asIntBuffer();
+	}
+
+	/**
+	 * Maps a byte array written by
+	 * {@link #writeBytes(DataOutputStream, ByteBuffer)} at the given position of
+	 * the file.
+	 *
+	 * @param channel the channel of the binary index file
+	 * @param position the position of the array length in the file
+	 * @return a read-only buffer of the mapped bytes
+	 * @throws IOException if an I/O error occurs or the array does not fit in
+	 *   the file
+	 */
+	static ByteBuffer mapBytes(FileChannel channel, long position) throws IOException {
+		return map(channel, position, Byte.BYTES);
+	}
+
+	/**
+	 * Maps the elements of an array at the given position of the file.
+	 *
+	 * @param channel the channel of the binary index file
+	 * @param position the position of the array length in the file
+	 * @param width the number of bytes of each element
+	 * @return a read-only buffer of the mapped elements
+	 * @throws IOException if an I/O error occurs or the array does not fit in
+	 *   the file
+	 */
+	private static ByteBuffer map(FileChannel channel, long position, int width) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+		while (header.hasRemaining()) {
+			if (channel.read(header, position + header.position()) < 0) {
+				throw new IOException("Corrupt binary index, array truncated at: " + position);
+			}
+		}
+
+		int length = header.getInt(0);
+		if (length < 0) {
+			throw new IOException("Corrupt binary index, negative length: " + length);
+		}
+
+		long bytes = (long) length * width;
+		long start = position + Integer.BYTES;
+		if (bytes > Integer.MAX_VALUE) {
+			throw new IOException("Array is too large to map: " + bytes + " bytes");
+		}
+		if (start + bytes > channel.size()) {
+			throw new IOException("Corrupt binary index, array truncated at: " + position);
+		}
+		return channel.map(MapMode.READ_ONLY, start, bytes);
+	}
+
+	/**
+	 * Returns the number of bytes an integer array takes in the file, including
+	 * its length.
+	 *
+	 * @param values the integers
+	 * @return the size of the array in the file
+	 */
+	static long sizeOf(IntBuffer values) {
+		return Integer.BYTES + (long) values.capacity() * Integer.BYTES;
+	}
+
+	/**
+	 * Reads the length of an array.
+	 *
+	 * @param in the stream to read from
+	 * @return the length
+	 * @throws IOException if an I/O error occurs or the length is negative
+	 */
+	static int readLength(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			throw new IOException("Corrupt binary index, negative length: " + length);
+		}
+		return length;
+	}
+
+	/**
+	 * Counts the bytes read through it, so the position in the file of the arrays
+	 * following the parts read onto the heap is known.
+	 */
+	static class CountingInputStream extends FilterInputStream {
+		/** The number of bytes read or skipped. */
+		private long count;
+
+		/**
+		 * Counts the bytes read from the provided stream.
+		 *
+		 * @param in the stream to read from
+		 */
+		CountingInputStream(InputStream in) {
+			super(in);
+			this.count = 0;
+		}
+
+		/**
+		 * Returns the number of bytes read or skipped.
+		 *
+		 * @return the number of bytes read or skipped
+		 */
+		long count() {
+			return count;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int value = super.read();
+			if (value >= 0) {
+				count++;
+			}
+			return value;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			int read = super.read(bytes, offset, length);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+
+	/** Prevent instantiating this class of static methods. */
+	private IndexFile() {
+	}
+}
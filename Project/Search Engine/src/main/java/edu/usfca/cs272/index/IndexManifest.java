@@ -0,0 +1,448 @@
+package edu.usfca.cs272.index;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A manifest of the text files in an index, recording the size, modification
+ * time, and content hash of each file along with the postings it added to the
+ * index. A later run compares the files against the manifest, so only new or
+ * changed files are read and stemmed again. The postings are enough to rebuild
+ * the index of the unchanged files, and to remove the postings of a changed or
+ * deleted file.
+ *
+ * The manifest is saved in a binary format with the same conventions as the
+ * binary index format: a header, then a log of records, each tagged as either a
+ * file with its path, size, modification time, hash, and words with their
+ * encoded positions, or the path of a removed file. When a manifest is loaded,
+ * the last record of each path wins. A full save writes one record per file,
+ * while {@link #saveChanges(Path)} only appends the records of the files
+ * recorded or removed since the last save, so keeping a large manifest up to
+ * date after a few files change does not rewrite it. Once the log holds more
+ * outdated records than current ones, it is compacted by a full save.
+ *
+ * A crash while appending leaves at most a partial last record, which is
+ * ignored when the manifest is loaded, and the next save is then a full save.
+ *
+ * Every method is synchronized, so files can be recorded by multiple threads.
+ *
+ * @see IncrementalTextFileIndexer
+ */
+public class IndexManifest {
+	/**
+	 * Logger for logging events in IndexManifest class.
+	 */
+	private static final Logger logger = LogManager.getLogger(IndexManifest.class);
+
+	/** The first four bytes of every manifest file. */
+	private static final int MAGIC = 0x49444d31;
+
+	/** The version of the manifest format. */
+	private static final int VERSION = 2;
+
+	/** The tag of a record of a removed file. */
+	private static final byte REMOVED = 0;
+
+	/** The tag of a record of a file. */
+	private static final byte RECORDED = 1;
+
+	/** The algorithm used to hash the content of files. */
+	private static final String HASH_ALGORITHM = "SHA-256";
+
+	/** The number of bytes read from a file at a time while hashing it. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** The recorded files, keyed by source. */
+	private final TreeMap<String, Document> documents;
+
+	/** The sources recorded or removed since the manifest was last saved. */
+	private final Set<String> changed;
+
+	/**
+	 * The number of records in the saved log, or -1 if the next save must be a
+	 * full save.
+	 */
+	private int records;
+
+	/**
+	 * Constructs an empty manifest.
+	 */
+	public IndexManifest() {
+		this.documents = new TreeMap<>();
+		this.changed = new HashSet<>();
+		this.records = -1;
+	}
+
+	/**
+	 * The recorded state of a single text file.
+	 */
+	public static class Document {
+		/** The size of the file in bytes. */
+		private final long size;
+
+		/** The last modification time of the file in milliseconds. */
+		private final long modified;
+
+		/** The hash of the content of the file. */
+		private final byte[] hash;
+
+		/** The positions of each word found in the file. */
+		private final TreeMap<String, PositionList> postings;
+
+		/**
+		 * Constructs the record of a file.
+		 *
+		 * @param size the size of the file in bytes
+		 * @param modified the last modification time of the file in milliseconds
+		 * @param hash the hash of the content of the file
+		 * @param postings the positions of each word found in the file
+		 */
+		private Document(long size, long modified, byte[] hash, TreeMap<String, PositionList> postings) {
+			this.size = size;
+			this.modified = modified;
+			this.hash = hash;
+			this.postings = postings;
+		}
+
+		/**
+		 * Returns the words found in the file.
+		 *
+		 * @return an unmodifiable view of the words
+		 */
+		public Set<String> viewWords() {
+			return Collections.unmodifiableSet(postings.keySet());
+		}
+
+		/**
+		 * Determines whether the file still has the recorded size and modification
+		 * time, in which case it is assumed to be unchanged without reading it.
+		 *
+		 * @param attributes the current attributes of the file
+		 * @return true if the size and modification time match
+		 */
+		public boolean matches(BasicFileAttributes attributes) {
+			return size == attributes.size() && modified == attributes.lastModifiedTime().toMillis();
+		}
+
+		/**
+		 * Determines whether the file still has the recorded content.
+		 *
+		 * @param hash the current hash of the content of the file
+		 * @return true if the hashes match
+		 */
+		public boolean matches(byte[] hash) {
+			return MessageDigest.isEqual(this.hash, hash);
+		}
+
+		/**
+		 * Returns a copy of this record with the given attributes, for a file that was
+		 * touched without changing its content.
+		 *
+		 * @param attributes the current attributes of the file
+		 * @return the updated record
+		 */
+		public Document touch(BasicFileAttributes attributes) {
+			return new Document(attributes.size(), attributes.lastModifiedTime().toMillis(), hash, postings);
+		}
+	}
+
+	/**
+	 * Creates the record of a file from its attributes and hash, and the local
+	 * index built from the file alone. The positions are copied, so the local index
+	 * can still be merged into another index.
+	 *
+	 * @param attributes the attributes of the file when it was read
+	 * @param hash the hash of the content of the file
+	 * @param local the index built from the file alone
+	 * @return the record of the file
+	 */
+	public static Document record(BasicFileAttributes attributes, byte[] hash, InvertedIndex local) {
+		TreeMap<String, PositionList> postings = new TreeMap<>();
+		for (Entry<String, TreeMap<Integer, PositionList>> word : local.postings().entrySet()) {
+			PositionList copy = new PositionList();
+			for (PositionList positions : word.getValue().values()) {
+				copy.addAll(positions);
+			}
+			postings.put(word.getKey(), copy);
+		}
+		return new Document(attributes.size(), attributes.lastModifiedTime().toMillis(), hash, postings);
+	}
+
+	/**
+	 * Returns the hash of the content of a file.
+	 *
+	 * @param file the file to hash
+	 * @return the hash of the content
+	 * @throws IOException if an I/O error occurs while reading the file
+	 */
+	public static byte[] hash(Path file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(HASH_ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Missing hash algorithm: " + HASH_ALGORITHM, e);
+		}
+
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream in = Files.newInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * Returns the record of a file.
+	 *
+	 * @param source the source of the file in the index
+	 * @return the record, or null if the file is not recorded
+	 */
+	public synchronized Document get(String source) {
+		return documents.get(source);
+	}
+
+	/**
+	 * Records a file, replacing any earlier record.
+	 *
+	 * @param source the source of the file in the index
+	 * @param document the record of the file
+	 */
+	public synchronized void put(String source, Document document) {
+		documents.put(source, document);
+		changed.add(source);
+	}
+
+	/**
+	 * Removes the record of a file.
+	 *
+	 * @param source the source of the file in the index
+	 * @return the removed record, or null if the file was not recorded
+	 */
+	public synchronized Document remove(String source) {
+		Document removed = documents.remove(source);
+		if (removed != null) {
+			changed.add(source);
+		}
+		return removed;
+	}
+
+	/**
+	 * Returns the sources of the recorded files.
+	 *
+	 * @return a copy of the sources, in sorted order
+	 */
+	public synchronized ArrayList<String> copySources() {
+		return new ArrayList<>(documents.keySet());
+	}
+
+	/**
+	 * Returns the number of recorded files.
+	 *
+	 * @return the number of recorded files
+	 */
+	public synchronized int size() {
+		return documents.size();
+	}
+
+	/**
+	 * Adds the postings of every recorded file to the index.
+	 *
+	 * @param invertedIndex the index to add to
+	 */
+	public void restore(InvertedIndex invertedIndex) {
+		InvertedIndex local = new InvertedIndex();
+		synchronized (this) {
+			for (Entry<String, Document> document : documents.entrySet()) {
+				for (Entry<String, PositionList> word : document.getValue().postings.entrySet()) {
+					PositionList copy = new PositionList();
+					copy.addAll(word.getValue());
+					local.addPostings(word.getKey(), document.getKey(), copy);
+				}
+			}
+		}
+		invertedIndex.addAll(local);
+	}
+
+	/**
+	 * Saves the manifest to a file with one record per file. The manifest is
+	 * written to a temporary file first and moved into place, so an interrupted
+	 * save keeps the earlier one.
+	 *
+	 * @param path the path of the manifest file
+	 * @throws IOException if an I/O error occurs while writing the file
+	 */
+	public synchronized void save(Path path) throws IOException {
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			for (Entry<String, Document> entry : documents.entrySet()) {
+				writeRecord(out, entry.getKey(), entry.getValue());
+			}
+		}
+		Files.move(temp, path, REPLACE_EXISTING, ATOMIC_MOVE);
+		records = documents.size();
+		changed.clear();
+	}
+
+	/**
+	 * Saves the files recorded or removed since the manifest was last saved or
+	 * loaded by appending their records to the manifest file. A full save is done
+	 * instead if the file was not saved or loaded by this manifest, its last record
+	 * was partial, or the log would hold more outdated records than current ones.
+	 *
+	 * @param path the path of the manifest file, which must be the one this
+	 *   manifest was last saved to or loaded from
+	 * @throws IOException if an I/O error occurs while writing the file
+	 * @see #save(Path)
+	 */
+	public synchronized void saveChanges(Path path) throws IOException {
+		if (changed.isEmpty() && records >= 0) {
+			return;
+		}
+		if (records < 0 || records + changed.size() > 2 * documents.size() || !Files.exists(path)) {
+			save(path);
+			return;
+		}
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(path, APPEND)))) {
+			for (String source : changed) {
+				writeRecord(out, source, documents.get(source));
+			}
+		}
+		records += changed.size();
+		changed.clear();
+	}
+
+	/**
+	 * Writes the record of a file, or of a removed file.
+	 *
+	 * @param out the stream to write to
+	 * @param source the source of the file
+	 * @param document the record of the file, or null if it was removed
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static void writeRecord(DataOutputStream out, String source, Document document) throws IOException {
+		if (document == null) {
+			out.writeByte(REMOVED);
+			IndexFile.writeString(out, source);
+			return;
+		}
+
+		out.writeByte(RECORDED);
+		IndexFile.writeString(out, source);
+		out.writeLong(document.size);
+		out.writeLong(document.modified);
+		IndexFile.writeBytes(out, document.hash);
+		out.writeInt(document.postings.size());
+		for (Entry<String, PositionList> word : document.postings.entrySet()) {
+			PositionList positions = word.getValue();
+			byte[] encoded = new byte[positions.encodedLength()];
+			positions.copyEncodedTo(encoded, 0);
+			IndexFile.writeString(out, word.getKey());
+			IndexFile.writeBytes(out, encoded);
+		}
+	}
+
+	/**
+	 * Loads a manifest saved by {@link #save(Path)} and
+	 * {@link #saveChanges(Path)}. A partial last record is ignored.
+	 *
+	 * @param path the path of the manifest file
+	 * @return the loaded manifest
+	 * @throws IOException if an I/O error occurs or the file is not a manifest of
+	 *   this version
+	 */
+	public static IndexManifest load(Path path) throws IOException {
+		IndexManifest manifest = new IndexManifest();
+		int records = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not an index manifest: " + path);
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported index manifest version: " + version);
+			}
+
+			for (int tag = in.read(); tag >= 0; tag = in.read()) {
+				try {
+					readRecord(in, tag, manifest.documents);
+				}
+				catch (EOFException e) {
+					logger.warn("Ignoring partial last record of index manifest: {}", path);
+					records = -1;
+					break;
+				}
+				records++;
+			}
+		}
+		manifest.records = records;
+		return manifest;
+	}
+
+	/**
+	 * Reads the rest of a record after its tag, and applies it to the recorded
+	 * files.
+	 *
+	 * @param in the stream to read from
+	 * @param tag the tag of the record
+	 * @param documents the recorded files to update
+	 * @throws IOException if an I/O error occurs or the record is corrupt
+	 */
+	private static void readRecord(DataInputStream in, int tag, TreeMap<String, Document> documents)
+			throws IOException {
+		String source = IndexFile.readString(in);
+		switch (tag) {
+			case REMOVED -> documents.remove(source);
+			case RECORDED -> {
+				long fileSize = in.readLong();
+				long modified = in.readLong();
+				byte[] hash = IndexFile.readBytes(in);
+				int words = IndexFile.readLength(in);
+				TreeMap<String, PositionList> postings = new TreeMap<>();
+				for (int j = 0; j < words; j++) {
+					String word = IndexFile.readString(in);
+					byte[] encoded = IndexFile.readBytes(in);
+					postings.put(word, new PositionList(ByteBuffer.wrap(encoded), 0, encoded.length));
+				}
+				documents.put(source, new Document(fileSize, modified, hash, postings));
+			}
+			default -> throw new IOException("Corrupt index manifest, unknown record: " + tag);
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "IndexManifest" + Arrays.toString(documents.keySet().toArray());
+	}
+}
@@ -0,0 +1,49 @@
+package edu.usfca.cs272.index;
+
+/**
+ * Merges the local inverted indexes built by worker tasks into a shared
+ * thread-safe inverted index. This implementation merges each local index
+ * directly as soon as it is added.
+ *
+ * @see ReducingIndexMerger
+ */
+public class IndexMerger {
+	/** The shared thread-safe inverted index to merge into. */
+	private final InvertedIndex invertedIndex;
+
+	/**
+	 * Constructs a merger for the shared inverted index.
+	 *
+	 * @param invertedIndex the shared thread-safe inverted index to merge into
+	 */
+	public IndexMerger(InvertedIndex invertedIndex) {
+		this.invertedIndex = invertedIndex;
+	}
+
+	/**
+	 * Returns the shared inverted index this merger merges into.
+	 *
+	 * @return the shared inverted index
+	 */
+	public InvertedIndex getInvertedIndex() {
+		return invertedIndex;
+	}
+
+	/**
+	 * Merges a local inverted index built by a worker task. The local index must
+	 * not be used after it is added. Safe to call from multiple threads.
+	 *
+	 * @param local the local inverted index to merge
+	 */
+	public void add(InvertedIndex local) {
+		invertedIndex.addAll(local);
+	}
+
+	/**
+	 * Merges anything still pending into the shared inverted index. Must be called
+	 * once every worker task has finished adding its local index.
+	 */
+	public void finish() {
+		// nothing is pending when merging directly
+	}
+}
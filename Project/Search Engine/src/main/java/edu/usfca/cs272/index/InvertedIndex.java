@@ -4,8 +4,8 @@ import java.io.IOException;
 import java.io.Writer;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -15,17 +15,23 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import edu.usfca.cs272.threads.WorkQueue;
 import edu.usfca.cs272.util.JsonWriter;
 
 /**
  * Represents an inverted index that maps words to their source locations and
  * positions. Provides methods for interacting with data and performing both
- * exact and partial searches. The inner SearchResult class encapsulates search
- * results for sources with match count and relevance score.
+ * exact and partial searches. Sources are stored by their document id from a
+ * {@link DocumentTable} and resolved back to strings only when they leave the
+ * index, and positions are stored in compressed {@link PositionList} postings.
+ * The inner SearchResult class encapsulates search results for sources with
+ * match count and relevance score.
  */
 public class InvertedIndex {
 	/**
@@ -34,21 +40,30 @@ public class InvertedIndex {
 	private static final Logger logger = LogManager.getLogger(InvertedIndex.class);
 
 	/**
-	 * A tree map storing source identifiers and their associated word counts.
+	 * The document table assigning each source an id and storing its word count.
 	 */
-	private final TreeMap<String, Integer> counts;
+	private final DocumentTable documents;
 
 	/**
-	 * An inverted index tree map storing words, source identifiers, and positions.
+	 * An inverted index tree map storing words, document ids, and positions.
 	 */
-	private final TreeMap<String, TreeMap<String, TreeSet<Integer>>> index;
+	private final TreeMap<String, TreeMap<Integer, PositionList>> index;
 
 	/**
-	 * Constructs a new InvertedIndex with an empty index and source word counts
-	 * map.
+	 * Constructs a new InvertedIndex with an empty index and document table.
 	 */
 	public InvertedIndex() {
-		this.counts = new TreeMap<>();
+		this(new SerialDocumentTable());
+	}
+
+	/**
+	 * Constructs a new InvertedIndex with an empty index that resolves document ids
+	 * with the provided document table.
+	 *
+	 * @param documents the document table to use
+	 */
+	protected InvertedIndex(DocumentTable documents) {
+		this.documents = documents;
 		this.index = new TreeMap<>();
 		logger.debug("Initialized new InvertedIndex");
 	}
@@ -62,8 +77,9 @@ public class InvertedIndex {
 	 * @param position the position of the word in the source
 	 */
 	public void add(String word, String source, int position) {
-		addCounts(source, position);
-		addIndex(word, source, position);
+		int id = documents.register(source);
+		addCounts(id, position);
+		addIndex(word, id, position);
 	}
 
 	/**
@@ -74,80 +90,121 @@ public class InvertedIndex {
 	 * @param source the source where the words were found
 	 */
 	public void add(List<String> words, String source) {
-		addCounts(words, source);
-		addAllIndex(words, source);
+		int id = documents.register(source);
+		addCounts(words, id);
+		addAllIndex(words, id);
 	}
 
 	/**
 	 * Merges the contents of another InvertedIndex into this index by combining
-	 * their source word counts and index mappings.
+	 * their source word counts and index mappings. The other index may be any
+	 * implementation, since its postings are read through {@link #postings()}.
+	 * Position lists of the other index may be shared rather than copied, so the
+	 * other index should not be used afterwards.
 	 *
 	 * @param other the InvertedIndex whose entries are to be merged into this index
 	 */
 	public void addAll(InvertedIndex other) {
-		addAllCounts(other.counts.entrySet());
-		addAllIndex(other.index.entrySet());
+		int[] mapping = documents.mergeAll(other.documents());
+		addAllIndex(other.postings().entrySet(), mapping);
 	}
 
 	/**
-	 * Adds the position as the word count for the source in counts if the position
-	 * is greater than the current count.
+	 * Removes a source from the inverted index, along with its word count. Every
+	 * word in the index is checked for postings of the source.
 	 *
-	 * @param source the source identifier
-	 * @param position the position of the word in the source
+	 * @param source the source to remove
+	 * @return true if the source was in the index
 	 */
-	private void addCounts(String source, int position) {
-		counts.merge(source, position, Integer::max);
+	public boolean remove(String source) {
+		int id = documents.id(source);
+		if (documents.count(id) == 0) {
+			return false;
+		}
+		removePostings(id, new ArrayList<>(index.keySet()));
+		documents.clearCount(id);
+		return true;
 	}
 
 	/**
-	 * Adds the word count for a given source to counts.
+	 * Removes a source from the inverted index, along with its word count. Only
+	 * the given words are checked for postings of the source, so they must include
+	 * every word found in the source.
 	 *
-	 * @param words the list of words found in the source
-	 * @param source the identifier of the source document
-	 */
-	private void addCounts(List<String> words, String source) {
-		int count = words.size();
-		if (count > 0) {
-			counts.put(source, count);
+	 * @param source the source to remove
+	 * @param words the words found in the source
+	 * @return true if the source was in the index
+	 */
+	public boolean remove(String source, Collection<String> words) {
+		int id = documents.id(source);
+		if (documents.count(id) == 0) {
+			return false;
 		}
+		removePostings(id, words);
+		documents.clearCount(id);
+		return true;
 	}
 
 	/**
-	 * Merges all source word count entries from another inverted index into this
-	 * index.
+	 * Removes the postings of a document from the given words, and removes any
+	 * word left without postings.
 	 *
-	 * @param otherCounts the set of source count entries from another index
+	 * @param id the document id
+	 * @param words the words to remove the postings of the document from
 	 */
-	private void addAllCounts(Set<Entry<String, Integer>> otherCounts) {
-		for (Entry<String, Integer> count : otherCounts) {
-			counts.merge(count.getKey(), count.getValue(), Integer::max);
+	void removePostings(int id, Collection<String> words) {
+		for (String word : words) {
+			TreeMap<Integer, PositionList> sources = index.get(word);
+			if (sources != null && sources.remove(id) != null && sources.isEmpty()) {
+				index.remove(word);
+			}
 		}
 	}
 
+	/**
+	 * Adds the position as the word count for the document if the position is
+	 * greater than the current count.
+	 *
+	 * @param id the document id
+	 * @param position the position of the word in the source
+	 */
+	private void addCounts(int id, int position) {
+		documents.mergeCount(id, position);
+	}
+
+	/**
+	 * Adds the word count for a given document.
+	 *
+	 * @param words the list of words found in the source
+	 * @param id the document id of the source
+	 */
+	private void addCounts(List<String> words, int id) {
+		documents.mergeCount(id, words.size());
+	}
+
 	/**
 	 * Adds a word occurrence to the index.
 	 *
 	 * @param word the word to add
-	 * @param source the source in which the word was found
+	 * @param id the document id of the source in which the word was found
 	 * @param position the position of the word in the source
 	 */
-	private void addIndex(String word, String source, int position) {
+	private void addIndex(String word, int id, int position) {
 		// CITE: Derived from ChatGPT Prompt: "How can I initialize nested structures in
 		// Java in one line"
-		index.computeIfAbsent(word, k -> new TreeMap<>()).computeIfAbsent(source, k -> new TreeSet<>()).add(position);
+		index.computeIfAbsent(word, k -> new TreeMap<>()).computeIfAbsent(id, k -> new PositionList()).add(position);
 	}
 
 	/**
 	 * Adds multiple words to the index from a given source.
 	 *
 	 * @param words the list of words to add
-	 * @param source the source in which the words were found
+	 * @param id the document id of the source in which the words were found
 	 */
-	private void addAllIndex(List<String> words, String source) {
+	private void addAllIndex(List<String> words, int id) {
 		int counter = 1;
 		for (String word : words) {
-			addIndex(word, source, counter);
+			addIndex(word, id, counter);
 			counter += 1;
 		}
 	}
@@ -155,41 +212,135 @@ public class InvertedIndex {
 	/**
 	 * Merges all inverted index entries from another index into this index by
 	 * adding new words and sources and combining positions for existing words and
-	 * sources.
+	 * sources. Document ids of the other index are translated with the provided
+	 * mapping.
 	 *
 	 * @param otherWords the set of word entries from another inverted index
-	 */
-	private void addAllIndex(Set<Entry<String, TreeMap<String, TreeSet<Integer>>>> otherWords) {
-		for (Entry<String, TreeMap<String, TreeSet<Integer>>> otherWord : otherWords) {
-			String word = otherWord.getKey();
-			TreeMap<String, TreeSet<Integer>> otherSources = otherWord.getValue();
-			TreeMap<String, TreeSet<Integer>> thisSources = index.get(word);
-			if (thisSources == null) {
-				index.put(word, otherSources);
-			}
-			else {
-				for (Entry<String, TreeSet<Integer>> otherSource : otherSources.entrySet()) {
-					String source = otherSource.getKey();
-					TreeSet<Integer> otherPositions = otherSource.getValue();
-					TreeSet<Integer> thisPositions = thisSources.get(source);
-					if (thisPositions == null) {
-						thisSources.put(source, otherPositions);
-					}
-					else {
-						thisPositions.addAll(otherPositions);
-					}
+	 * @param mapping the document id in this index of each document id in the
+	 *   other index
+	 */
+	void addAllIndex(Set<Entry<String, TreeMap<Integer, PositionList>>> otherWords, int[] mapping) {
+		for (Entry<String, TreeMap<Integer, PositionList>> otherWord : otherWords) {
+			TreeMap<Integer, PositionList> thisSources = index.computeIfAbsent(otherWord.getKey(), k -> new TreeMap<>());
+			for (Entry<Integer, PositionList> otherSource : otherWord.getValue().entrySet()) {
+				int id = mapping[otherSource.getKey()];
+				PositionList otherPositions = otherSource.getValue();
+				PositionList thisPositions = thisSources.get(id);
+				if (thisPositions == null) {
+					thisSources.put(id, otherPositions);
+				}
+				else {
+					thisPositions.addAll(otherPositions);
 				}
 			}
 		}
 	}
 
+	/**
+	 * Adds the offset to every position and word count in the index, such as when
+	 * a later part of a source was indexed counting positions from 1.
+	 *
+	 * @param offset the non-negative offset to add
+	 */
+	void shiftPositions(int offset) {
+		for (TreeMap<Integer, PositionList> sources : index.values()) {
+			for (PositionList positions : sources.values()) {
+				positions.shift(offset);
+			}
+		}
+		documents.shiftCounts(offset);
+	}
+
+	/**
+	 * Adds all positions of a word in a source at once, such as when postings are
+	 * loaded from a file rather than built position by position. The word count of
+	 * the source is raised to the last position if it is lower.
+	 *
+	 * @param word the word to add
+	 * @param source the source where the word was found
+	 * @param positions the positions of the word in the source, which must not be
+	 *   used after they are added
+	 */
+	void addPostings(String word, String source, PositionList positions) {
+		if (positions.isEmpty()) {
+			return;
+		}
+
+		int id = documents.register(source);
+		documents.mergeCount(id, positions.last());
+		PositionList existing = index.computeIfAbsent(word, k -> new TreeMap<>()).putIfAbsent(id, positions);
+		if (existing != null) {
+			existing.addAll(positions);
+		}
+	}
+
+	/**
+	 * Returns the postings of the word keyed by source rather than by document id,
+	 * sorted by source. Used where postings leave the index.
+	 *
+	 * @param postings the postings keyed by document id
+	 * @return a sorted map of source identifiers to positions
+	 */
+	TreeMap<String, PositionList> resolveSources(TreeMap<Integer, PositionList> postings) {
+		TreeMap<String, PositionList> resolved = new TreeMap<>();
+		for (Entry<Integer, PositionList> posting : postings.entrySet()) {
+			resolved.put(documents.source(posting.getKey()), posting.getValue());
+		}
+		return resolved;
+	}
+
+	/**
+	 * Returns the document table of this index, for other index implementations
+	 * in this package that merge in or copy from this index.
+	 *
+	 * @return the document table
+	 */
+	DocumentTable documents() {
+		return documents;
+	}
+
+	/**
+	 * Returns the words, document ids, and positions of this index, for other
+	 * index implementations in this package that merge in or copy from this index.
+	 * Subclasses that store their postings some other way return a copy instead.
+	 *
+	 * @return the underlying index map
+	 */
+	TreeMap<String, TreeMap<Integer, PositionList>> postings() {
+		return index;
+	}
+
+	/**
+	 * Returns a read-only snapshot of this index compacted into sorted arrays,
+	 * which can be searched without locking. Later changes to this index are not
+	 * reflected in the snapshot.
+	 *
+	 * @return a frozen copy of this index
+	 */
+	public FrozenInvertedIndex freeze() {
+		logger.info("Freezing index with {} words", index.size());
+		return new FrozenInvertedIndex(documents, index);
+	}
+
+	/**
+	 * Writes a frozen copy of this index to a binary index file, which can be
+	 * loaded back with {@link FrozenInvertedIndex#load(Path)} instead of building
+	 * the index again.
+	 *
+	 * @param path the path to the binary index file
+	 * @throws IOException if an I/O error occurs while writing the file
+	 */
+	public void save(Path path) throws IOException {
+		freeze().save(path);
+	}
+
 	/**
 	 * Returns the number of sources stored in the counts map.
 	 *
 	 * @return the number of sources with word counts
 	 */
 	public int sizeCounts() {
-		return counts.size();
+		return documents.sizeCounts();
 	}
 
 	/**
@@ -208,7 +359,7 @@ public class InvertedIndex {
 	 * @return the total number of sources containing the word, or 0 if not present
 	 */
 	public int sizeSources(String word) {
-		TreeMap<String, TreeSet<Integer>> sources = index.get(word);
+		TreeMap<Integer, PositionList> sources = index.get(word);
 		return sources == null ? 0 : sources.size();
 	}
 
@@ -221,9 +372,9 @@ public class InvertedIndex {
 	 *   not present
 	 */
 	public int sizePositions(String word, String source) {
-		TreeMap<String, TreeSet<Integer>> sources = index.get(word);
+		TreeMap<Integer, PositionList> sources = index.get(word);
 		if (sources != null) {
-			TreeSet<Integer> positions = sources.get(source);
+			PositionList positions = sources.get(documents.id(source));
 			if (positions != null) {
 				return positions.size();
 			}
@@ -238,7 +389,7 @@ public class InvertedIndex {
 	 * @return true if the source exists in the counts map
 	 */
 	public boolean hasCounts(String source) {
-		return counts.containsKey(source);
+		return documents.hasCount(source);
 	}
 
 	/**
@@ -259,8 +410,8 @@ public class InvertedIndex {
 	 * @return true if the word appears in the source
 	 */
 	public boolean hasSource(String word, String source) {
-		TreeMap<String, TreeSet<Integer>> sources = index.get(word);
-		return sources != null && sources.containsKey(source);
+		TreeMap<Integer, PositionList> sources = index.get(word);
+		return sources != null && sources.containsKey(documents.id(source));
 	}
 
 	/**
@@ -273,9 +424,9 @@ public class InvertedIndex {
 	 * @return true if the position is recorded for the word in the source
 	 */
 	public boolean hasPosition(String word, String source, int position) {
-		TreeMap<String, TreeSet<Integer>> sources = index.get(word);
+		TreeMap<Integer, PositionList> sources = index.get(word);
 		if (sources != null) {
-			TreeSet<Integer> positions = sources.get(source);
+			PositionList positions = sources.get(documents.id(source));
 			if (positions != null) {
 				return positions.contains(position);
 			}
@@ -284,13 +435,13 @@ public class InvertedIndex {
 	}
 
 	/**
-	 * Returns an unmodifiable view of the source word counts.
+	 * Returns an unmodifiable copy of the source word counts.
 	 *
 	 * @return an unmodifiable sorted map containing the source identifiers and
 	 *   their word counts
 	 */
 	public SortedMap<String, Integer> viewCounts() {
-		return Collections.unmodifiableSortedMap(counts);
+		return documents.viewCounts();
 	}
 
 	/**
@@ -303,21 +454,22 @@ public class InvertedIndex {
 	}
 
 	/**
-	 * Returns an unmodifiable view of the sources in which the given word appears.
+	 * Returns an unmodifiable copy of the sources in which the given word appears,
+	 * resolved from their document ids.
 	 *
 	 * @param word the word to lookup
 	 * @return an unmodifiable sorted set of source identifiers, or an empty sorted
 	 *   set if the word is not present
 	 */
 	public SortedSet<String> viewSources(String word) {
-		TreeMap<String, TreeSet<Integer>> sources = index.get(word);
+		TreeMap<Integer, PositionList> sources = index.get(word);
 		return sources == null ? Collections.emptySortedSet()
-				: Collections.unmodifiableSortedSet(sources.navigableKeySet());
+				: Collections.unmodifiableSortedSet(resolveSources(sources).navigableKeySet());
 	}
 
 	/**
-	 * Returns an unmodifiable view of the positions for the given word in the
-	 * specified source.
+	 * Returns an unmodifiable copy of the positions for the given word in the
+	 * specified source, decoded from its compressed position list.
 	 *
 	 * @param word the word to lookup
 	 * @param source the source in which to lookup the word
@@ -325,11 +477,11 @@ public class InvertedIndex {
 	 *   not present
 	 */
 	public SortedSet<Integer> viewPositions(String word, String source) {
-		TreeMap<String, TreeSet<Integer>> sources = index.get(word);
+		TreeMap<Integer, PositionList> sources = index.get(word);
 		if (sources != null) {
-			TreeSet<Integer> positions = sources.get(source);
+			PositionList positions = sources.get(documents.id(source));
 			if (positions != null) {
-				return Collections.unmodifiableSortedSet(positions);
+				return Collections.unmodifiableSortedSet(new TreeSet<>(positions));
 			}
 		}
 		return Collections.emptySortedSet();
@@ -351,7 +503,7 @@ public class InvertedIndex {
 	 * @return a JSON string representing the source word counts
 	 */
 	public String countstoJson() {
-		return JsonWriter.writeObject(counts);
+		return JsonWriter.writeObject(documents.viewCounts());
 	}
 
 	/**
@@ -362,7 +514,7 @@ public class InvertedIndex {
 	 */
 	public void countsToJson(Path path) throws IOException {
 		logger.info("Writing counts JSON to file: {}", path);
-		JsonWriter.writeObject(counts, path);
+		JsonWriter.writeObject(documents.viewCounts(), path);
 		logger.info("Successfully wrote counts JSON to file: {}", path);
 	}
 
@@ -373,7 +525,7 @@ public class InvertedIndex {
 	 * @throws IOException if an I/O error occurs while writing the file
 	 */
 	public void countsToJson(Writer writer) throws IOException {
-		JsonWriter.writeObject(counts, writer);
+		JsonWriter.writeObject(documents.viewCounts(), writer);
 	}
 
 	/**
@@ -382,7 +534,7 @@ public class InvertedIndex {
 	 * @return a JSON string representing the inverted index
 	 */
 	public String indexToJson() {
-		return JsonWriter.writeNestedObjectArrays(index);
+		return JsonWriter.writeNestedObjectArrays(index, this::resolveSources);
 	}
 
 	/**
@@ -393,7 +545,22 @@ public class InvertedIndex {
 	 */
 	public void indexToJson(Path path) throws IOException {
 		logger.info("Writing index JSON to file: {}", path);
-		JsonWriter.writeNestedObjectArrays(index, path);
+		JsonWriter.writeNestedObjectArrays(index, this::resolveSources, path);
+		logger.info("Successfully wrote index JSON to file: {}", path);
+	}
+
+	/**
+	 * Writes the inverted index to a JSON file, rendering ranges of words in
+	 * parallel with the work queue. The output is identical to
+	 * {@link #indexToJson(Path)}.
+	 *
+	 * @param path the path to the output JSON file
+	 * @param tasks the work queue used to render the index
+	 * @throws IOException if an I/O error occurs while writing the file
+	 */
+	public void indexToJson(Path path, WorkQueue tasks) throws IOException {
+		logger.info("Writing index JSON to file in parallel: {}", path);
+		JsonWriter.writeNestedObjectArrays(index, this::resolveSources, path, tasks);
 		logger.info("Successfully wrote index JSON to file: {}", path);
 	}
 
@@ -404,7 +571,7 @@ public class InvertedIndex {
 	 * @throws IOException if an I/O error occurs while writing the file
 	 */
 	public void indexToJson(Writer writer) throws IOException {
-		JsonWriter.writeNestedObjectArrays(index, writer);
+		JsonWriter.writeNestedObjectArrays(index, this::resolveSources, writer);
 	}
 
 	/**
@@ -414,20 +581,63 @@ public class InvertedIndex {
 	 * @return a sorted list of search results
 	 */
 	public List<SearchResult> searchPartial(Set<String> query) {
-		Map<String, SearchResult> results = new HashMap<>();
-		List<SearchResult> sortedResults = new ArrayList<>();
+		return search(matches -> collectPartial(query, matches));
+	}
+
+	/**
+	 * Performs a partial search on the given query terms, keeping only the best
+	 * results up to the limit.
+	 *
+	 * @param query the collection of words to search for
+	 * @param limit the maximum number of results to keep
+	 * @return the sorted top results and the total number of hits
+	 */
+	public TopResults searchPartial(Set<String> query, int limit) {
+		return searchPartial(query, limit, source -> true, false);
+	}
+
+	/**
+	 * Performs a partial search on the given query terms, keeping only the best
+	 * results whose source is accepted by the filter up to the limit. Only the
+	 * kept results are sorted.
+	 *
+	 * @param query the collection of words to search for
+	 * @param limit the maximum number of results to keep
+	 * @param filter the sources of the results to count and keep
+	 * @param reverse true to keep the worst results in reverse order instead
+	 * @return the sorted top results and the total number of accepted hits
+	 */
+	public TopResults searchPartial(Set<String> query, int limit, Predicate<? super String> filter,
+			boolean reverse) {
+		return search(matches -> collectPartial(query, matches), limit, filter, reverse);
+	}
 
+	/**
+	 * Accumulates the matches of a partial search on the given query terms.
+	 *
+	 * @param query the collection of words to search for
+	 * @param matches the accumulator of match counts by document id
+	 */
+	void collectPartial(Set<String> query, ScoreAccumulator matches) {
 		for (String queryWord : query) {
-			// CITE: https://docs.oracle.com/javase/8/docs/api/java/util/TreeMap.html
-			for (var indexWord : index.tailMap(queryWord).entrySet()) {
-				if (!indexWord.getKey().startsWith(queryWord)) {
-					break;
-				}
-				updateSearchResults(results, sortedResults, indexWord.getValue().entrySet());
+			searchPartial(queryWord, matches);
+		}
+	}
+
+	/**
+	 * Accumulates the matches of every word starting with the query word.
+	 *
+	 * @param queryWord the prefix to search for
+	 * @param matches the accumulator of match counts by document id
+	 */
+	void searchPartial(String queryWord, ScoreAccumulator matches) {
+		// CITE: https://docs.oracle.com/javase/8/docs/api/java/util/TreeMap.html
+		for (var indexWord : index.tailMap(queryWord).entrySet()) {
+			if (!indexWord.getKey().startsWith(queryWord)) {
+				break;
 			}
+			accumulate(matches, indexWord.getValue());
 		}
-		Collections.sort(sortedResults);
-		return sortedResults;
 	}
 
 	/**
@@ -437,37 +647,147 @@ public class InvertedIndex {
 	 * @return a sorted list of search results
 	 */
 	public List<SearchResult> searchExact(Set<String> query) {
-		Map<String, SearchResult> results = new HashMap<>();
-		List<SearchResult> sortedResults = new ArrayList<>();
+		return search(matches -> collectExact(query, matches));
+	}
+
+	/**
+	 * Performs an exact search on the given query terms, keeping only the best
+	 * results up to the limit.
+	 *
+	 * @param query the collection of words to search for
+	 * @param limit the maximum number of results to keep
+	 * @return the sorted top results and the total number of hits
+	 */
+	public TopResults searchExact(Set<String> query, int limit) {
+		return searchExact(query, limit, source -> true, false);
+	}
+
+	/**
+	 * Performs an exact search on the given query terms, keeping only the best
+	 * results whose source is accepted by the filter up to the limit. Only the
+	 * kept results are sorted.
+	 *
+	 * @param query the collection of words to search for
+	 * @param limit the maximum number of results to keep
+	 * @param filter the sources of the results to count and keep
+	 * @param reverse true to keep the worst results in reverse order instead
+	 * @return the sorted top results and the total number of accepted hits
+	 */
+	public TopResults searchExact(Set<String> query, int limit, Predicate<? super String> filter,
+			boolean reverse) {
+		return search(matches -> collectExact(query, matches), limit, filter, reverse);
+	}
 
+	/**
+	 * Accumulates the matches of an exact search on the given query terms.
+	 *
+	 * @param query the collection of words to search for
+	 * @param matches the accumulator of match counts by document id
+	 */
+	void collectExact(Set<String> query, ScoreAccumulator matches) {
 		for (String word : query) {
-			TreeMap<String, TreeSet<Integer>> sources = index.get(word);
-			if (sources != null) {
-				updateSearchResults(results, sortedResults, sources.entrySet());
-			}
+			searchExact(word, matches);
+		}
+	}
+
+	/**
+	 * Accumulates the matches of the word.
+	 *
+	 * @param word the word to search for
+	 * @param matches the accumulator of match counts by document id
+	 */
+	void searchExact(String word, ScoreAccumulator matches) {
+		TreeMap<Integer, PositionList> sources = index.get(word);
+		if (sources != null) {
+			accumulate(matches, sources);
 		}
-		Collections.sort(sortedResults);
-		return sortedResults;
 	}
 
 	/**
-	 * Updates the search results by adding new entries and updating match counts.
+	 * Adds the number of positions of each posting to the match count of its
+	 * document.
 	 *
-	 * @param results the map storing search results
-	 * @param sortedResults the list of sorted search results
-	 * @param sources the set of source entries containing word counts
+	 * @param matches the accumulator of match counts by document id
+	 * @param sources the postings of a matching word
 	 */
-	private void updateSearchResults(Map<String, SearchResult> results, List<SearchResult> sortedResults,
-			Set<Entry<String, TreeSet<Integer>>> sources) {
-		for (var source : sources) {
-			results.computeIfAbsent(source.getKey(), k -> {
-				var result = new SearchResult(k);
-				sortedResults.add(result);
-				return result;
-			}).incrementMatchCount(source.getValue().size());
+	static void accumulate(ScoreAccumulator matches, Map<Integer, PositionList> sources) {
+		for (var source : sources.entrySet()) {
+			matches.add(source.getKey(), source.getValue().size());
 		}
 	}
 
+	/**
+	 * Runs a search with the accumulator of the calling thread and returns every
+	 * matching document as a sorted list of search results. Every search returning
+	 * a list goes through this method.
+	 *
+	 * @param collector the search accumulating matches into the accumulator
+	 * @return a sorted list of search results
+	 */
+	List<SearchResult> search(Consumer<ScoreAccumulator> collector) {
+		ScoreAccumulator matches = ScoreAccumulator.local();
+		try {
+			collector.accept(matches);
+			List<SearchResult> results = new ArrayList<>(matches.size());
+			for (int i = 0; i < matches.size(); i++) {
+				int id = matches.document(i);
+				results.add(new SearchResult(id, matches.matches(id)));
+			}
+			Collections.sort(results);
+			return results;
+		}
+		finally {
+			matches.clear();
+		}
+	}
+
+	/**
+	 * Runs a search with the accumulator of the calling thread and selects the
+	 * best matching documents, only creating search results for the kept ones.
+	 * Every search returning top results goes through this method.
+	 *
+	 * @param collector the search accumulating matches into the accumulator
+	 * @param limit the maximum number of results to keep
+	 * @param filter the sources of the results to count and keep
+	 * @param reverse true to keep the worst results in reverse order instead
+	 * @return the sorted top results and the total number of accepted hits
+	 */
+	TopResults search(Consumer<ScoreAccumulator> collector, int limit, Predicate<? super String> filter,
+			boolean reverse) {
+		ScoreAccumulator matches = ScoreAccumulator.local();
+		try {
+			collector.accept(matches);
+			return TopResults.select(this, matches, limit, filter, reverse);
+		}
+		finally {
+			matches.clear();
+		}
+	}
+
+	/**
+	 * Creates the search result of a document, for selecting results outside of
+	 * this class.
+	 *
+	 * @param id the document id of the source
+	 * @param matchCount the number of matches found in the source
+	 * @return the search result
+	 */
+	SearchResult result(int id, int matchCount) {
+		return new SearchResult(id, matchCount);
+	}
+
+	/**
+	 * Returns the relevance score of a source, which is its fraction of words that
+	 * matched.
+	 *
+	 * @param matchCount the number of matches found in the source
+	 * @param totalWords the total number of words in the source
+	 * @return the relevance score
+	 */
+	static double score(int matchCount, int totalWords) {
+		return (double) matchCount / totalWords;
+	}
+
 	/**
 	 * Represents a single search result with match count and relevance score.
 	 */
@@ -476,25 +796,50 @@ public class InvertedIndex {
 		private final String source;
 
 		/** The number of matches found in the source. */
-		private int matchCount;
+		private final int matchCount;
 
 		/** The total number of word occurrences found in the source */
 		private final int totalWords;
 
 		/** The relevance score of the result. */
-		private double score;
+		private final double score;
+
+		/**
+		 * Constructs a search result with a source and no matches, scored by the
+		 * total words of the source.
+		 *
+		 * @param source the source document
+		 */
+		public SearchResult(String source) {
+			this(source, 0, documents.count(documents.id(source)));
+		}
+
+		/**
+		 * Constructs a search result with a document id and match count, scored by
+		 * the total words of the source. The source and its word count are resolved
+		 * from the document table right away, while the caller still holds any lock
+		 * protecting the index.
+		 *
+		 * @param id the document id of the source
+		 * @param matchCount the number of matches found in the source
+		 */
+		SearchResult(int id, int matchCount) {
+			this(documents.source(id), matchCount, documents.count(id));
+		}
 
 		/**
 		 * Constructs a search result with a source, match count, and total words for
 		 * scoring.
 		 *
 		 * @param source the source document
+		 * @param matchCount the number of matches found in the source
+		 * @param totalWords the total number of words in the source
 		 */
-		public SearchResult(String source) {
+		private SearchResult(String source, int matchCount, int totalWords) {
 			this.source = source;
-			this.matchCount = 0;
-			this.totalWords = counts.get(source);
-			this.score = 0.0;
+			this.matchCount = matchCount;
+			this.totalWords = totalWords;
+			this.score = score(matchCount, totalWords);
 		}
 
 		/**
@@ -507,9 +852,23 @@ public class InvertedIndex {
 		 */
 		@Override
 		public int compareTo(SearchResult o) {
-			return (o.score != this.score) ? Double.compare(o.score, this.score)
-					: (o.matchCount != this.matchCount) ? Integer.compare(o.matchCount, this.matchCount)
-					: this.source.compareToIgnoreCase(o.source);
+			return compareTo(o.score, o.matchCount, o.source);
+		}
+
+		/**
+		 * Compares this search result to a match that has not been turned into a
+		 * search result, in the same order as {@link #compareTo(SearchResult)}.
+		 *
+		 * @param score the relevance score of the match
+		 * @param matchCount the match count of the match
+		 * @param source the source of the match
+		 * @return a negative integer, zero, or a positive integer as this result is
+		 *   less than, equal to, or greater than the match
+		 */
+		int compareTo(double score, int matchCount, String source) {
+			return (score != this.score) ? Double.compare(score, this.score)
+					: (matchCount != this.matchCount) ? Integer.compare(matchCount, this.matchCount)
+					: this.source.compareToIgnoreCase(source);
 		}
 
 		/**
@@ -573,26 +932,6 @@ public class InvertedIndex {
 			return score;
 		}
 
-		/**
-		 * Sets the match count for this search result and updates the relevance score.
-		 *
-		 * @param matchCount the new match count to set
-		 */
-		private void setMatchCount(int matchCount) {
-			this.matchCount = matchCount;
-			this.score = (double) matchCount / totalWords;
-		}
-
-		/**
-		 * Increments the match count by a specified amount and updates the relevance
-		 * score.
-		 *
-		 * @param matchCount the number of additional matches to add
-		 */
-		private void incrementMatchCount(int matchCount) {
-			setMatchCount(this.matchCount + matchCount);
-		}
-
 		/**
 		 * Returns a JSON-formatted string representation of the search result.
 		 *
@@ -0,0 +1,342 @@
+package edu.usfca.cs272.index;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.usfca.cs272.index.InvertedIndex.SearchResult;
+import edu.usfca.cs272.util.DatabaseConnector;
+
+/**
+ * Stores an inverted index in a relational database, with one table of
+ * documents and their word counts and one table of postings. Each posting row
+ * holds a word, a document id, the number of positions, and the positions in
+ * the same compressed encoding as {@link PositionList}.
+ *
+ * The index is written in a single transaction with prepared statements that
+ * insert many rows at once, sent to the database in batches. Exact searches are
+ * answered by summing the frequencies of the matching postings of each document
+ * in SQL, so only one row per matching document is returned.
+ *
+ * The tables are created with MariaDB types and syntax, which an in-process H2
+ * database in MariaDB mode also accepts. Other databases may need the tables
+ * created by hand with equivalent types before saving.
+ */
+public class JdbcIndexStore {
+	/**
+	 * Logger for logging events in JdbcIndexStore class.
+	 */
+	private static final Logger logger = LogManager.getLogger(JdbcIndexStore.class);
+
+	/** The number of rows inserted by each statement. */
+	private static final int ROWS_PER_INSERT = 500;
+
+	/** The number of insert statements sent to the database in each batch. */
+	private static final int INSERTS_PER_BATCH = 8;
+
+	/** Creates the documents table. */
+	private static final String CREATE_DOCUMENTS = """
+			CREATE TABLE IF NOT EXISTS index_documents (
+				id INT NOT NULL PRIMARY KEY,
+				source VARCHAR(2048) NOT NULL,
+				word_count INT NOT NULL
+			)""";
+
+	/** Creates the postings table. */
+	private static final String CREATE_POSTINGS = """
+			CREATE TABLE IF NOT EXISTS index_postings (
+				word VARCHAR(512) NOT NULL,
+				document_id INT NOT NULL,
+				frequency INT NOT NULL,
+				positions LONGBLOB NOT NULL,
+				PRIMARY KEY (word, document_id)
+			)""";
+
+	/** Sums the frequencies of the postings of each document, given the words. */
+	private static final String SEARCH_EXACT = """
+			SELECT d.source, d.word_count, SUM(p.frequency)
+			FROM index_postings p JOIN index_documents d ON d.id = p.document_id
+			WHERE p.word IN (%s)
+			GROUP BY d.id, d.source, d.word_count""";
+
+	/** Selects every posting along with its source. */
+	private static final String SELECT_POSTINGS = """
+			SELECT p.word, d.source, p.positions
+			FROM index_postings p JOIN index_documents d ON d.id = p.document_id""";
+
+	/** Selects every document. */
+	private static final String SELECT_DOCUMENTS = "SELECT source, word_count FROM index_documents";
+
+	/** Connects to the database. */
+	private final DatabaseConnector connector;
+
+	/**
+	 * Constructs a store of inverted indexes in the database of the connector.
+	 *
+	 * @param connector the connector to the database
+	 */
+	public JdbcIndexStore(DatabaseConnector connector) {
+		this.connector = connector;
+	}
+
+	/**
+	 * Creates the tables of the store if they do not exist.
+	 *
+	 * @throws SQLException if unable to create the tables
+	 */
+	public void createTables() throws SQLException {
+		try (Connection db = connector.getConnection(); Statement sql = db.createStatement()) {
+			sql.executeUpdate(CREATE_DOCUMENTS);
+			sql.executeUpdate(CREATE_POSTINGS);
+		}
+	}
+
+	/**
+	 * Replaces the index stored in the database with a frozen copy of the given
+	 * index. Nothing is replaced if the index cannot be written in full.
+	 *
+	 * @param invertedIndex the index to store
+	 * @return the number of postings stored
+	 * @throws SQLException if unable to write the index
+	 */
+	public int save(InvertedIndex invertedIndex) throws SQLException {
+		FrozenInvertedIndex snapshot = invertedIndex instanceof FrozenInvertedIndex frozen ? frozen
+				: invertedIndex.freeze();
+		createTables();
+
+		try (Connection db = connector.getConnection()) {
+			db.setAutoCommit(false);
+			try {
+				try (Statement sql = db.createStatement()) {
+					sql.executeUpdate("DELETE FROM index_postings");
+					sql.executeUpdate("DELETE FROM index_documents");
+				}
+
+				Map<String, Integer> ids = new HashMap<>();
+				try (MultiRowInsert documents = new MultiRowInsert(db, "index_documents", "id", "source",
+						"word_count")) {
+					for (Entry<String, Integer> count : snapshot.viewCounts().entrySet()) {
+						int id = ids.size();
+						ids.put(count.getKey(), id);
+						documents.add(id, count.getKey(), count.getValue());
+					}
+				}
+
+				int postings = 0;
+				try (MultiRowInsert rows = new MultiRowInsert(db, "index_postings", "word", "document_id", "frequency",
+						"positions")) {
+					for (Entry<String, Integer> term : snapshot.viewTerms().entrySet()) {
+						for (Entry<String, PositionList> posting : snapshot.resolveSources(term.getValue()).entrySet()) {
+							PositionList positions = posting.getValue();
+							byte[] encoded = new byte[positions.encodedLength()];
+							positions.copyEncodedTo(encoded, 0);
+							rows.add(term.getKey(), ids.get(posting.getKey()), positions.size(), encoded);
+							postings++;
+						}
+					}
+				}
+
+				db.commit();
+				logger.info("Stored {} documents and {} postings in the database", ids.size(), postings);
+				return postings;
+			}
+			catch (SQLException | RuntimeException e) {
+				db.rollback();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Adds the index stored in the database to the given index.
+	 *
+	 * @param invertedIndex the index to add to
+	 * @throws SQLException if unable to read the index
+	 */
+	public void load(InvertedIndex invertedIndex) throws SQLException {
+		InvertedIndex local = new InvertedIndex();
+		try (Connection db = connector.getConnection(); Statement sql = db.createStatement()) {
+			try (ResultSet results = sql.executeQuery(SELECT_POSTINGS)) {
+				while (results.next()) {
+					byte[] encoded = results.getBytes(3);
+					local.addPostings(results.getString(1), results.getString(2),
+							new PositionList(ByteBuffer.wrap(encoded), 0, encoded.length));
+				}
+			}
+
+			DocumentTable documents = local.documents();
+			try (ResultSet results = sql.executeQuery(SELECT_DOCUMENTS)) {
+				while (results.next()) {
+					documents.mergeCount(documents.register(results.getString(1)), results.getInt(2));
+				}
+			}
+		}
+		invertedIndex.addAll(local);
+	}
+
+	/**
+	 * Performs an exact search of the stored index on the given query terms.
+	 *
+	 * @param query the collection of words to search for
+	 * @return a sorted list of search results
+	 * @throws SQLException if unable to search the index
+	 */
+	public List<SearchResult> searchExact(Set<String> query) throws SQLException {
+		if (query.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		// results are created by a holder index that only knows the matching sources
+		InvertedIndex holder = new InvertedIndex();
+		DocumentTable documents = holder.documents();
+		List<SearchResult> results = new ArrayList<>();
+
+		String sql = String.format(SEARCH_EXACT, String.join(", ", Collections.nCopies(query.size(), "?")));
+		try (Connection db = connector.getConnection(); PreparedStatement statement = db.prepareStatement(sql)) {
+			int parameter = 1;
+			for (String word : query) {
+				statement.setString(parameter++, word);
+			}
+
+			try (ResultSet rows = statement.executeQuery()) {
+				while (rows.next()) {
+					int id = documents.register(rows.getString(1));
+					documents.mergeCount(id, rows.getInt(2));
+					results.add(holder.new SearchResult(id, rows.getInt(3)));
+				}
+			}
+		}
+
+		Collections.sort(results);
+		return results;
+	}
+
+	/**
+	 * Inserts rows into a table with prepared statements of many rows each, sending
+	 * the full statements to the database in batches. The remaining rows are
+	 * inserted when closed.
+	 */
+	private static class MultiRowInsert implements AutoCloseable {
+		/** The connection to insert with. */
+		private final Connection db;
+
+		/** The table to insert into. */
+		private final String table;
+
+		/** The columns of each row. */
+		private final String[] columns;
+
+		/** The statement inserting a full set of rows. */
+		private final PreparedStatement statement;
+
+		/** The values of the rows not yet bound to the statement. */
+		private final Object[] values;
+
+		/** The number of values not yet bound to the statement. */
+		private int pending;
+
+		/** The number of full statements added to the current batch. */
+		private int batched;
+
+		/**
+		 * Prepares to insert rows into the table.
+		 *
+		 * @param db the connection to insert with
+		 * @param table the table to insert into
+		 * @param columns the columns of each row
+		 * @throws SQLException if unable to prepare the statement
+		 */
+		public MultiRowInsert(Connection db, String table, String... columns) throws SQLException {
+			this.db = db;
+			this.table = table;
+			this.columns = columns;
+			this.statement = db.prepareStatement(insert(ROWS_PER_INSERT));
+			this.values = new Object[ROWS_PER_INSERT * columns.length];
+			this.pending = 0;
+			this.batched = 0;
+		}
+
+		/**
+		 * Returns the SQL inserting the given number of rows.
+		 *
+		 * @param rows the number of rows
+		 * @return the insert statement
+		 */
+		private String insert(int rows) {
+			String row = "(" + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+			return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES "
+					+ String.join(", ", Collections.nCopies(rows, row));
+		}
+
+		/**
+		 * Adds a row, inserting the pending rows once there are enough for a
+		 * statement.
+		 *
+		 * @param row the values of the row, in column order
+		 * @throws SQLException if unable to insert the rows
+		 */
+		public void add(Object... row) throws SQLException {
+			System.arraycopy(row, 0, values, pending, columns.length);
+			pending += columns.length;
+
+			if (pending == values.length) {
+				bind(statement, pending);
+				statement.addBatch();
+				pending = 0;
+				if (++batched == INSERTS_PER_BATCH) {
+					statement.executeBatch();
+					batched = 0;
+				}
+			}
+		}
+
+		/**
+		 * Binds the pending values to the parameters of the statement.
+		 *
+		 * @param target the statement to bind to
+		 * @param count the number of values to bind
+		 * @throws SQLException if unable to bind the values
+		 */
+		private void bind(PreparedStatement target, int count) throws SQLException {
+			for (int i = 0; i < count; i++) {
+				target.setObject(i + 1, values[i]);
+			}
+		}
+
+		/**
+		 * Sends the remaining batch, and inserts the rows that do not fill a
+		 * statement.
+		 *
+		 * @throws SQLException if unable to insert the rows
+		 */
+		@Override
+		public void close() throws SQLException {
+			try (statement) {
+				if (batched > 0) {
+					statement.executeBatch();
+					batched = 0;
+				}
+				if (pending > 0) {
+					try (PreparedStatement last = db.prepareStatement(insert(pending / columns.length))) {
+						bind(last, pending);
+						last.executeUpdate();
+					}
+					pending = 0;
+				}
+			}
+		}
+	}
+}
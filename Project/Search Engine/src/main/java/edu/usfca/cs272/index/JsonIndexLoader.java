@@ -0,0 +1,116 @@
+package edu.usfca.cs272.index;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import edu.usfca.cs272.util.JsonReader;
+
+/**
+ * A class that rebuilds an inverted index from the index and word counts JSON
+ * files written by a previous run, without reading or stemming the original
+ * text. The files are read with a streaming {@link JsonReader}, and the positions
+ * of each word in each source are added to the index at once.
+ *
+ * @see InvertedIndex#indexToJson(Path)
+ * @see InvertedIndex#countsToJson(Path)
+ */
+public class JsonIndexLoader {
+	/**
+	 * The inverted index to load into.
+	 */
+	private final InvertedIndex invertedIndex;
+
+	/**
+	 * Constructs a JsonIndexLoader with the InvertedIndex.
+	 *
+	 * @param invertedIndex the inverted index to update
+	 */
+	public JsonIndexLoader(InvertedIndex invertedIndex) {
+		this.invertedIndex = invertedIndex;
+	}
+
+	/**
+	 * Loads the words, sources, and positions of an index JSON file into the
+	 * inverted index. The word count of each source is set from its last position,
+	 * which is the same count indexing the text produces.
+	 *
+	 * @param path the index JSON file to load, which may be compressed with gzip
+	 * @throws IOException if an I/O error occurs or the file is not a valid index
+	 */
+	public void loadIndex(Path path) throws IOException {
+		InvertedIndex local = new InvertedIndex();
+		try (JsonReader reader = JsonReader.open(path)) {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				readPostings(reader, reader.nextName(), local);
+			}
+			reader.endObject();
+			reader.endDocument();
+		}
+		merge(local);
+	}
+
+	/**
+	 * Loads the word counts of a counts JSON file into the inverted index. Only
+	 * needed for sources without any words in the loaded index.
+	 *
+	 * @param path the counts JSON file to load, which may be compressed with gzip
+	 * @throws IOException if an I/O error occurs or the file is not valid counts
+	 */
+	public void loadCounts(Path path) throws IOException {
+		InvertedIndex local = new InvertedIndex();
+		DocumentTable documents = local.documents();
+		try (JsonReader reader = JsonReader.open(path)) {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String source = reader.nextName();
+				int count = reader.nextInt();
+				if (count < 0) {
+					throw new IOException("Invalid word count " + count + " for source: " + source);
+				}
+				if (count > 0) {
+					documents.mergeCount(documents.register(source), count);
+				}
+			}
+			reader.endObject();
+			reader.endDocument();
+		}
+		merge(local);
+	}
+
+	/**
+	 * Merges a loaded local index into the inverted index.
+	 *
+	 * @param local the loaded index, which must not be used after it is merged
+	 */
+	protected void merge(InvertedIndex local) {
+		invertedIndex.addAll(local);
+	}
+
+	/**
+	 * Reads the sources and positions of a word, and adds them to the index.
+	 *
+	 * @param reader the reader positioned at the object of sources of the word
+	 * @param word the word whose sources are read
+	 * @param invertedIndex the index to update
+	 * @throws IOException if an I/O error occurs or the postings are not valid
+	 */
+	static void readPostings(JsonReader reader, String word, InvertedIndex invertedIndex) throws IOException {
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String source = reader.nextName();
+			PositionList positions = new PositionList();
+			reader.beginArray();
+			while (reader.hasNext()) {
+				int position = reader.nextInt();
+				if (position <= 0) {
+					throw new IOException("Invalid position " + position + " of " + word + " in source: " + source);
+				}
+				positions.add(position);
+			}
+			reader.endArray();
+			invertedIndex.addPostings(word, source, positions);
+		}
+		reader.endObject();
+	}
+}
@@ -0,0 +1,389 @@
+package edu.usfca.cs272.index;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A compact, sorted set of word positions stored as a byte array. Positions are
+ * delta-encoded against the previous position and each delta is written as a
+ * variable-length integer, using 7 bits per byte with the high bit marking that
+ * another byte follows. Since positions are usually appended in increasing
+ * order while indexing, most positions take a single byte instead of a boxed
+ * integer and a tree node.
+ *
+ * Positions added out of order are merged into place, and duplicate positions
+ * are ignored, so this collection behaves like a sorted set of positive
+ * integers.
+ *
+ * Warning: This class is not thread-safe. If multiple threads access this class
+ * concurrently, access must be synchronized externally.
+ */
+public class PositionList extends AbstractCollection<Integer> {
+	/** Initial capacity of the byte array; most postings hold few positions. */
+	private static final int INITIAL_CAPACITY = 4;
+
+	/** The variable-length encoded position deltas. */
+	private byte[] bytes;
+
+	/** The number of bytes in use. */
+	private int length;
+
+	/** The number of positions stored. */
+	private int size;
+
+	/** The last (and largest) position stored, or 0 if empty. */
+	private int last;
+
+	/**
+	 * Constructs an empty position list.
+	 */
+	public PositionList() {
+		this.bytes = new byte[INITIAL_CAPACITY];
+		this.length = 0;
+		this.size = 0;
+		this.last = 0;
+	}
+
+	/**
+	 * Constructs a position list from a slice of already encoded position deltas,
+	 * such as one copied out with {@link #copyEncodedTo(byte[], int)}.
+	 *
+	 * @param source the buffer containing the encoded deltas
+	 * @param offset the offset of the first encoded byte
+	 * @param length the number of encoded bytes
+	 */
+	PositionList(ByteBuffer source, int offset, int length) {
+		this.bytes = new byte[length];
+		source.get(offset, this.bytes);
+		this.length = length;
+		this.size = 0;
+		this.last = 0;
+		for (int position : this) {
+			this.size++;
+			this.last = position;
+		}
+	}
+
+	/**
+	 * Adds a position to the list. Appending a position larger than the last one
+	 * only writes its delta; smaller positions are merged into place.
+	 *
+	 * @param position the position to add, which must be positive
+	 * @return true if the position was not already present
+	 * @throws IllegalArgumentException if the position is not positive
+	 */
+	public boolean add(int position) {
+		if (position <= 0) {
+			throw new IllegalArgumentException("Positions must be positive: " + position);
+		}
+
+		if (position > last) {
+			append(position - last);
+			last = position;
+			size++;
+			return true;
+		}
+
+		if (contains(position)) {
+			return false;
+		}
+
+		PositionList single = new PositionList();
+		single.add(position);
+		merge(single);
+		return true;
+	}
+
+	/**
+	 * Adds a position to the list.
+	 *
+	 * @param position the position to add
+	 * @return true if the position was not already present
+	 *
+	 * @see #add(int)
+	 */
+	@Override
+	public boolean add(Integer position) {
+		return add(position.intValue());
+	}
+
+	/**
+	 * Adds all positions of the other list to this list. If every position of the
+	 * other list comes after the positions of this list, its bytes are appended
+	 * directly; otherwise the two lists are merged.
+	 *
+	 * @param other the positions to add
+	 */
+	public void addAll(PositionList other) {
+		if (other.size == 0) {
+			return;
+		}
+
+		if (size == 0 || other.first() > last) {
+			Iterator<Integer> iterator = other.iterator();
+			int first = iterator.next();
+			append(first - last);
+			ensureCapacity(length + other.length);
+			int skip = varintLength(first);
+			System.arraycopy(other.bytes, skip, bytes, length, other.length - skip);
+			length += other.length - skip;
+			size += other.size;
+			last = other.last;
+		}
+		else {
+			merge(other);
+		}
+	}
+
+	/**
+	 * Determines whether the position is stored in this list.
+	 *
+	 * @param position the position to look for
+	 * @return true if the position is stored
+	 */
+	public boolean contains(int position) {
+		if (position <= 0 || position > last) {
+			return false;
+		}
+
+		int current = 0;
+		int offset = 0;
+		while (offset < length) {
+			int delta = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[offset++];
+				delta |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+
+			current += delta;
+			if (current >= position) {
+				return current == position;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determines whether the object is a position stored in this list.
+	 *
+	 * @param o the object to look for
+	 * @return true if the object is an integer position stored in this list
+	 */
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof Integer position && contains(position.intValue());
+	}
+
+	/**
+	 * Returns the first (smallest) position in this list.
+	 *
+	 * @return the first position
+	 * @throws NoSuchElementException if the list is empty
+	 */
+	public int first() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return iterator().next();
+	}
+
+	/**
+	 * Returns the last (largest) position in this list.
+	 *
+	 * @return the last position
+	 * @throws NoSuchElementException if the list is empty
+	 */
+	public int last() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return last;
+	}
+
+	/**
+	 * Returns the number of positions stored.
+	 *
+	 * @return the number of positions
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of bytes used to encode the positions.
+	 *
+	 * @return the encoded length in bytes
+	 */
+	public int encodedLength() {
+		return length;
+	}
+
+	/**
+	 * Copies the encoded position deltas into the destination array.
+	 *
+	 * @param dest the destination array
+	 * @param offset the offset in the destination array to copy to
+	 *
+	 * @see #encodedLength()
+	 */
+	void copyEncodedTo(byte[] dest, int offset) {
+		System.arraycopy(bytes, 0, dest, offset, length);
+	}
+
+	/**
+	 * Adds the offset to every position, such as when the positions were counted
+	 * from the start of a later part of a source. Only the first delta changes.
+	 *
+	 * @param offset the non-negative offset to add
+	 */
+	void shift(int offset) {
+		if (size == 0 || offset == 0) {
+			return;
+		}
+
+		int first = first();
+		int skip = varintLength(first);
+		byte[] rest = Arrays.copyOfRange(bytes, skip, length);
+		length = 0;
+		append(first + offset);
+		ensureCapacity(length + rest.length);
+		System.arraycopy(rest, 0, bytes, length, rest.length);
+		length += rest.length;
+		last += offset;
+	}
+
+	/**
+	 * Shrinks the backing array to the encoded length, releasing unused capacity
+	 * once no further positions are expected.
+	 */
+	public void trim() {
+		if (bytes.length > length) {
+			bytes = Arrays.copyOf(bytes, length);
+		}
+	}
+
+	/**
+	 * Returns an iterator over the positions in increasing order.
+	 *
+	 * @return an iterator decoding the positions
+	 */
+	@Override
+	public Iterator<Integer> iterator() {
+		return new Iterator<>() {
+			/** Offset of the next delta to decode. */
+			private int offset = 0;
+
+			/** The last decoded position. */
+			private int current = 0;
+
+			@Override
+			public boolean hasNext() {
+				return offset < length;
+			}
+
+			@Override
+			public Integer next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				int delta = 0;
+				int shift = 0;
+				byte b;
+				do {
+					b = bytes[offset++];
+					delta |= (b & 0x7F) << shift;
+					shift += 7;
+				} while (b < 0);
+
+				current += delta;
+				return current;
+			}
+		};
+	}
+
+	/**
+	 * Merges the other list into this one, re-encoding the combined positions.
+	 *
+	 * @param other the positions to merge
+	 */
+	private void merge(PositionList other) {
+		Iterator<Integer> mine = iterator();
+		Iterator<Integer> theirs = other.iterator();
+		PositionList merged = new PositionList();
+		merged.ensureCapacity(length + other.length);
+
+		Integer a = mine.hasNext() ? mine.next() : null;
+		Integer b = theirs.hasNext() ? theirs.next() : null;
+		while (a != null || b != null) {
+			int next;
+			if (b == null || (a != null && a < b)) {
+				next = a;
+				a = mine.hasNext() ? mine.next() : null;
+			}
+			else if (a == null || b < a) {
+				next = b;
+				b = theirs.hasNext() ? theirs.next() : null;
+			}
+			else {
+				next = a;
+				a = mine.hasNext() ? mine.next() : null;
+				b = theirs.hasNext() ? theirs.next() : null;
+			}
+			merged.add(next);
+		}
+
+		this.bytes = merged.bytes;
+		this.length = merged.length;
+		this.size = merged.size;
+		this.last = merged.last;
+	}
+
+	/**
+	 * Writes the value as a variable-length integer at the end of the array.
+	 *
+	 * @param value the non-negative value to write
+	 */
+	private void append(int value) {
+		ensureCapacity(length + 5);
+		while ((value & ~0x7F) != 0) {
+			bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		bytes[length++] = (byte) value;
+	}
+
+	/**
+	 * Grows the backing array so it can hold at least the given number of bytes.
+	 *
+	 * @param capacity the minimum capacity
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length + (bytes.length >> 1)));
+		}
+	}
+
+	/**
+	 * Returns the number of bytes needed to encode the value as a variable-length
+	 * integer.
+	 *
+	 * @param value the non-negative value
+	 * @return the encoded length in bytes
+	 */
+	private static int varintLength(int value) {
+		int count = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			count++;
+		}
+		return count;
+	}
+}
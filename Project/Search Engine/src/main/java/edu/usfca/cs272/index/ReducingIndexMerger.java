@@ -0,0 +1,105 @@
+package edu.usfca.cs272.index;
+
+import java.util.ArrayList;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Merges the local inverted indexes built by worker tasks in pairs, like a
+ * binary counter, before they reach the shared inverted index. Each level holds
+ * at most one waiting index built from about twice as many local indexes as the
+ * level below it. A worker that adds an index to an occupied level takes the
+ * waiting index and merges the pair itself, outside of any lock, then carries
+ * the result up to the next level.
+ *
+ * Most merging therefore happens in parallel across workers on private
+ * indexes, and {@link #finish()} only performs one merge into the shared index
+ * per occupied level, which is logarithmic in the number of local indexes.
+ */
+public class ReducingIndexMerger extends IndexMerger {
+	/**
+	 * Logger for logging events in ReducingIndexMerger class.
+	 */
+	private static final Logger logger = LogManager.getLogger(ReducingIndexMerger.class);
+
+	/** The index waiting at each level, or null if the level is empty. */
+	private final ArrayList<InvertedIndex> levels;
+
+	/**
+	 * Constructs a reducing merger for the shared inverted index.
+	 *
+	 * @param invertedIndex the shared thread-safe inverted index to merge into
+	 */
+	public ReducingIndexMerger(InvertedIndex invertedIndex) {
+		super(invertedIndex);
+		this.levels = new ArrayList<>();
+	}
+
+	/**
+	 * Adds a local inverted index at the lowest level, merging it with waiting
+	 * indexes until it reaches an empty level.
+	 *
+	 * @param local the local inverted index to merge
+	 */
+	@Override
+	public void add(InvertedIndex local) {
+		InvertedIndex carry = local;
+		int level = 0;
+
+		while (true) {
+			InvertedIndex waiting;
+			synchronized (levels) {
+				if (level == levels.size()) {
+					levels.add(null);
+				}
+				waiting = levels.get(level);
+				levels.set(level, waiting == null ? carry : null);
+			}
+
+			if (waiting == null) {
+				return;
+			}
+
+			carry = merge(waiting, carry);
+			level++;
+		}
+	}
+
+	/**
+	 * Merges the smaller of two private indexes into the larger one.
+	 *
+	 * @param first the first index
+	 * @param second the second index
+	 * @return the index containing both
+	 */
+	private static InvertedIndex merge(InvertedIndex first, InvertedIndex second) {
+		if (first.sizeWords() < second.sizeWords()) {
+			second.addAll(first);
+			return second;
+		}
+		first.addAll(second);
+		return first;
+	}
+
+	/**
+	 * Merges the index waiting at each level into the shared inverted index.
+	 */
+	@Override
+	public void finish() {
+		ArrayList<InvertedIndex> pending = new ArrayList<>();
+		synchronized (levels) {
+			for (InvertedIndex waiting : levels) {
+				if (waiting != null) {
+					pending.add(waiting);
+				}
+			}
+			levels.clear();
+		}
+
+		logger.debug("Merging {} reduced indexes into the shared index", pending.size());
+		for (InvertedIndex waiting : pending) {
+			getInvertedIndex().addAll(waiting);
+		}
+	}
+}
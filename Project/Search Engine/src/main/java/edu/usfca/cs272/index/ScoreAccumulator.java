@@ -0,0 +1,122 @@
+package edu.usfca.cs272.index;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates the match counts of a search in a primitive array indexed by
+ * document id, along with the list of documents that have matched so far. The
+ * accumulated matches are only turned into search results once every query word
+ * has been searched, and the arrays are reused by the same thread for the next
+ * query, so a search does not allocate a map entry or a result per posting.
+ *
+ * Warning: This class is not thread-safe. Each thread uses its own accumulator
+ * from {@link #local()}.
+ */
+class ScoreAccumulator {
+	/** Initial capacity of the match counts and matched documents arrays. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** The accumulator of each thread, reused across queries. */
+	private static final ThreadLocal<ScoreAccumulator> LOCAL = ThreadLocal.withInitial(ScoreAccumulator::new);
+
+	/** The number of matches of each document, indexed by document id. */
+	private int[] matches;
+
+	/** The document ids with at least one match, in the order they matched. */
+	private int[] documents;
+
+	/** The number of documents with at least one match. */
+	private int size;
+
+	/** Whether a search of the thread is using this accumulator. */
+	private boolean inUse;
+
+	/**
+	 * Constructs an empty accumulator.
+	 */
+	ScoreAccumulator() {
+		this.matches = new int[INITIAL_CAPACITY];
+		this.documents = new int[INITIAL_CAPACITY];
+		this.size = 0;
+		this.inUse = false;
+	}
+
+	/**
+	 * Returns the accumulator of the calling thread. The accumulator must be
+	 * cleared once the search using it is done. A search started while another
+	 * search of the same thread is still using the accumulator, such as from a
+	 * result filter, gets a new accumulator instead.
+	 *
+	 * @return the accumulator of the calling thread, or a new accumulator if it is
+	 *   in use
+	 */
+	static ScoreAccumulator local() {
+		ScoreAccumulator accumulator = LOCAL.get();
+		if (accumulator.inUse) {
+			return new ScoreAccumulator();
+		}
+		accumulator.inUse = true;
+		return accumulator;
+	}
+
+	/**
+	 * Adds matches for the document, remembering the document the first time it
+	 * matches.
+	 *
+	 * @param id the document id
+	 * @param count the number of matches to add, which must be positive
+	 */
+	void add(int id, int count) {
+		if (id >= matches.length) {
+			matches = Arrays.copyOf(matches, Math.max(matches.length * 2, id + 1));
+		}
+		if (matches[id] == 0) {
+			if (size == documents.length) {
+				documents = Arrays.copyOf(documents, documents.length * 2);
+			}
+			documents[size++] = id;
+		}
+		matches[id] += count;
+	}
+
+	/**
+	 * Returns the number of documents with at least one match.
+	 *
+	 * @return the number of matched documents
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the id of a matched document.
+	 *
+	 * @param index the position of the document in the order they matched
+	 * @return the document id
+	 */
+	int document(int index) {
+		return documents[index];
+	}
+
+	/**
+	 * Returns the number of matches accumulated for the document.
+	 *
+	 * @param id the document id
+	 * @return the number of matches, or 0 if the document has not matched
+	 */
+	int matches(int id) {
+		return id < matches.length ? matches[id] : 0;
+	}
+
+	/**
+	 * Resets the accumulator for the next query, only touching the entries of the
+	 * documents that matched, and releases it for the next search of the thread.
+	 */
+	void clear() {
+		for (int i = 0; i < size; i++) {
+			matches[documents[i]] = 0;
+		}
+		size = 0;
+		inUse = false;
+	}
+}
@@ -0,0 +1,665 @@
+package edu.usfca.cs272.index;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.usfca.cs272.threads.WorkQueue;
+
+/**
+ * Inverted index made of immutable segments, in the style of a log-structured
+ * merge tree. Every merged local index becomes a small segment of its own.
+ * Once the small segments hold enough postings, they are sealed into one
+ * larger segment by a background task on the work queue, and whenever
+ * {@link #MERGE_FACTOR} sealed segments of the same level exist, they are
+ * merged into one segment of the next level.
+ *
+ * Segments are never modified once published, and the list of segments is
+ * replaced as a whole, so searches take a snapshot of the list and fan out over
+ * the segments without ever blocking on writers. All segments share one
+ * {@link ConcurrentDocumentTable}, so the matches of each segment are combined
+ * by document id. Each source is expected to be added once; a source added
+ * again before its segments are merged is counted once per segment by
+ * searches, unless it is removed first.
+ *
+ * Removing a source replaces every segment with postings of the source by a
+ * copy without them. A background merge of a segment replaced this way is
+ * discarded once it finishes, and the replacement is merged instead.
+ *
+ * Every method of {@link InvertedIndex} that reads or writes postings is
+ * overridden to go through the segments, so none of them see the unused map of
+ * the base class.
+ */
+public class SegmentedInvertedIndex extends InvertedIndex {
+	/**
+	 * Logger for logging events in SegmentedInvertedIndex class.
+	 */
+	private static final Logger logger = LogManager.getLogger(SegmentedInvertedIndex.class);
+
+	/** Default number of postings the small segments hold before being sealed. */
+	public static final int DEFAULT_SEGMENT_SIZE = 50_000;
+
+	/** The number of sealed segments of one level merged into the next level. */
+	public static final int MERGE_FACTOR = 4;
+
+	/** The document table shared by every segment. */
+	private final ConcurrentDocumentTable documents;
+
+	/** The work queue running background merges. */
+	private final WorkQueue tasks;
+
+	/** The number of postings the small segments hold before being sealed. */
+	private final int segmentSize;
+
+	/** Guards changes to the segment list and the segments being merged. */
+	private final Object lock;
+
+	/** The published segments, replaced as a whole on every change. */
+	private volatile List<Segment> segments;
+
+	/** The segments currently being merged by a background task. */
+	private final Set<Segment> merging;
+
+	/**
+	 * Constructs a new SegmentedInvertedIndex that merges segments on the work
+	 * queue with the default segment size.
+	 *
+	 * @param tasks the work queue for background merges
+	 */
+	public SegmentedInvertedIndex(WorkQueue tasks) {
+		this(tasks, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Constructs a new SegmentedInvertedIndex that merges segments on the work
+	 * queue.
+	 *
+	 * @param tasks the work queue for background merges
+	 * @param segmentSize the number of postings the small segments hold before
+	 *   being sealed
+	 */
+	public SegmentedInvertedIndex(WorkQueue tasks, int segmentSize) {
+		this(new ConcurrentDocumentTable(), tasks, segmentSize);
+	}
+
+	/**
+	 * Constructs a new SegmentedInvertedIndex with the given document table.
+	 *
+	 * @param documents the document table shared by every segment
+	 * @param tasks the work queue for background merges
+	 * @param segmentSize the number of postings the small segments hold before
+	 *   being sealed
+	 */
+	private SegmentedInvertedIndex(ConcurrentDocumentTable documents, WorkQueue tasks, int segmentSize) {
+		super(documents);
+		this.documents = documents;
+		this.tasks = tasks;
+		this.segmentSize = segmentSize;
+		this.lock = new Object();
+		this.segments = List.of();
+		this.merging = new HashSet<>();
+		logger.debug("Initialized SegmentedInvertedIndex with segment size {}", segmentSize);
+	}
+
+	/**
+	 * An immutable segment of the index.
+	 */
+	private static class Segment {
+		/** The words, document ids, and positions of this segment. */
+		private final InvertedIndex index;
+
+		/** The number of postings in this segment. */
+		private final int postings;
+
+		/** The level of this segment, where 0 is an unsealed small segment. */
+		private final int level;
+
+		/**
+		 * Constructs a segment.
+		 *
+		 * @param index the words, document ids, and positions of the segment
+		 * @param level the level of the segment
+		 */
+		private Segment(InvertedIndex index, int level) {
+			int postings = 0;
+			for (TreeMap<Integer, PositionList> sources : index.postings().values()) {
+				postings += sources.size();
+			}
+			this.index = index;
+			this.postings = postings;
+			this.level = level;
+		}
+	}
+
+	/**
+	 * Task merging segments into one segment of the next level in the background.
+	 */
+	private class MergeTask implements Runnable {
+		/** The segments to merge. */
+		private final List<Segment> inputs;
+
+		/** The level of the merged segment. */
+		private final int level;
+
+		/**
+		 * Constructs a merge task.
+		 *
+		 * @param inputs the segments to merge
+		 * @param level the level of the merged segment
+		 */
+		private MergeTask(List<Segment> inputs, int level) {
+			this.inputs = inputs;
+			this.level = level;
+		}
+
+		/**
+		 * Merges the segments and replaces them with the merged segment.
+		 */
+		@Override
+		public void run() {
+			Segment merged = new Segment(merge(inputs), level);
+
+			synchronized (lock) {
+				if (!segments.containsAll(inputs)) {
+					merging.removeAll(inputs);
+					scheduleMerges();
+					logger.debug("Discarded a merge of {} segments replaced while merging", inputs.size());
+					return;
+				}
+
+				List<Segment> updated = new ArrayList<>(segments);
+				updated.removeAll(inputs);
+				updated.add(merged);
+				segments = List.copyOf(updated);
+				merging.removeAll(inputs);
+				scheduleMerges();
+			}
+
+			logger.debug("Merged {} segments into a level {} segment with {} postings", inputs.size(), level,
+					merged.postings);
+		}
+	}
+
+	/**
+	 * Merges the segments into a new index, copying every position list so the
+	 * segments themselves are left untouched.
+	 *
+	 * @param inputs the segments to merge
+	 * @return the merged index
+	 */
+	private InvertedIndex merge(List<Segment> inputs) {
+		InvertedIndex merged = new InvertedIndex(documents);
+		TreeMap<String, TreeMap<Integer, PositionList>> target = merged.postings();
+
+		for (Segment segment : inputs) {
+			for (var word : segment.index.postings().entrySet()) {
+				TreeMap<Integer, PositionList> sources = target.computeIfAbsent(word.getKey(), k -> new TreeMap<>());
+				for (var source : word.getValue().entrySet()) {
+					sources.computeIfAbsent(source.getKey(), k -> new PositionList()).addAll(source.getValue());
+				}
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * Starts background merges for the small segments once they hold enough
+	 * postings, and for any level with enough sealed segments. Must be called
+	 * while holding the lock.
+	 */
+	private void scheduleMerges() {
+		Map<Integer, List<Segment>> levels = new TreeMap<>();
+		for (Segment segment : segments) {
+			if (!merging.contains(segment)) {
+				levels.computeIfAbsent(segment.level, k -> new ArrayList<>()).add(segment);
+			}
+		}
+
+		for (var level : levels.entrySet()) {
+			List<Segment> candidates = level.getValue();
+			if (level.getKey() == 0) {
+				int postings = 0;
+				for (Segment segment : candidates) {
+					postings += segment.postings;
+				}
+				if (postings >= segmentSize && !submit(candidates, 1)) {
+					return;
+				}
+			}
+			else if (candidates.size() >= MERGE_FACTOR
+					&& !submit(candidates.subList(0, MERGE_FACTOR), level.getKey() + 1)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Submits a background merge of the segments. If the work queue has been shut
+	 * down, the segments are merged in the calling thread instead, which also
+	 * schedules any merges that follow from it. Must be called while holding the
+	 * lock.
+	 *
+	 * @param inputs the segments to merge
+	 * @param level the level of the merged segment
+	 * @return true if the merge was submitted, or false if it was merged in the
+	 *   calling thread and the segment list has changed
+	 */
+	private boolean submit(List<Segment> inputs, int level) {
+		List<Segment> copy = List.copyOf(inputs);
+		merging.addAll(copy);
+		MergeTask task = new MergeTask(copy, level);
+		try {
+			tasks.execute(task);
+			return true;
+		}
+		catch (IllegalStateException e) {
+			logger.debug("Merging {} segments in the calling thread after shutdown", copy.size());
+			task.run();
+			return false;
+		}
+	}
+
+	/**
+	 * Adds a single word occurrence as a new segment. Since each call creates a
+	 * segment, prefer building a local index and merging it in with
+	 * {@link #addAll(InvertedIndex)}.
+	 *
+	 * @param word the word to add
+	 * @param source the source where the word was found
+	 * @param position the position of the word in the source
+	 */
+	@Override
+	public void add(String word, String source, int position) {
+		InvertedIndex local = new InvertedIndex();
+		local.add(word, source, position);
+		addAll(local);
+	}
+
+	/**
+	 * Adds a list of words from a source to the inverted index as a new segment.
+	 *
+	 * @param words the list of words to add to the index
+	 * @param source the source where the words were found
+	 */
+	@Override
+	public void add(List<String> words, String source) {
+		InvertedIndex local = new InvertedIndex();
+		local.add(words, source);
+		addAll(local);
+	}
+
+	/**
+	 * Adds the contents of another InvertedIndex to this index as a new small
+	 * segment. Word counts are merged first, so a segment is never visible before
+	 * the word counts of its documents. Position lists of the other index are
+	 * shared rather than copied, so the other index should not be modified
+	 * afterwards.
+	 *
+	 * @param other the InvertedIndex whose entries are to be added to this index
+	 */
+	@Override
+	public void addAll(InvertedIndex other) {
+		int[] mapping = documents.mergeAll(other.documents());
+		addAllIndex(other.postings().entrySet(), mapping);
+	}
+
+	/**
+	 * Adds postings of another index to this index as a new small segment,
+	 * translating their document ids with the provided mapping. Position lists
+	 * are shared rather than copied.
+	 *
+	 * @param otherWords the set of word entries from another inverted index
+	 * @param mapping the document id in this index of each document id in the
+	 *   other index
+	 */
+	@Override
+	void addAllIndex(Set<Entry<String, TreeMap<Integer, PositionList>>> otherWords, int[] mapping) {
+		InvertedIndex index = new InvertedIndex(documents);
+		index.addAllIndex(otherWords, mapping);
+		Segment segment = new Segment(index, 0);
+
+		synchronized (lock) {
+			List<Segment> updated = new ArrayList<>(segments);
+			updated.add(segment);
+			segments = List.copyOf(updated);
+			scheduleMerges();
+		}
+	}
+
+	/**
+	 * Adds all positions of a word in a source at once as a new small segment.
+	 *
+	 * @param word the word to add
+	 * @param source the source where the word was found
+	 * @param positions the positions of the word in the source, which must not be
+	 *   used after they are added
+	 */
+	@Override
+	void addPostings(String word, String source, PositionList positions) {
+		InvertedIndex local = new InvertedIndex();
+		local.addPostings(word, source, positions);
+		addAll(local);
+	}
+
+	/**
+	 * Adds the offset to every position and word count in the index, replacing
+	 * every segment with a shifted copy. A background merge of a replaced segment
+	 * is discarded once it finishes.
+	 *
+	 * @param offset the non-negative offset to add
+	 */
+	@Override
+	void shiftPositions(int offset) {
+		synchronized (lock) {
+			List<Segment> updated = new ArrayList<>(segments.size());
+			for (Segment segment : segments) {
+				InvertedIndex shifted = merge(List.of(segment));
+				for (TreeMap<Integer, PositionList> sources : shifted.postings().values()) {
+					for (PositionList positions : sources.values()) {
+						positions.shift(offset);
+					}
+				}
+				updated.add(new Segment(shifted, segment.level));
+			}
+			segments = List.copyOf(updated);
+			documents.shiftCounts(offset);
+		}
+	}
+
+	/**
+	 * Returns a copy of the words, document ids, and positions of every segment
+	 * merged together. The segments themselves are left untouched.
+	 *
+	 * @return a new map of the postings of this index
+	 */
+	@Override
+	TreeMap<String, TreeMap<Integer, PositionList>> postings() {
+		return merge(segments).postings();
+	}
+
+	/**
+	 * Removes a source from the inverted index, along with its word count. Every
+	 * word of every segment is checked for postings of the source.
+	 *
+	 * @param source the source to remove
+	 * @return true if the source was in the index
+	 */
+	@Override
+	public boolean remove(String source) {
+		return remove(source, viewWords());
+	}
+
+	/**
+	 * Removes a source from the inverted index, along with its word count. Only
+	 * the given words are checked for postings of the source, so they must include
+	 * every word found in the source. Postings are removed before the word count,
+	 * so a posting is never visible without its document's word count.
+	 *
+	 * @param source the source to remove
+	 * @param words the words found in the source
+	 * @return true if the source was in the index
+	 */
+	@Override
+	public boolean remove(String source, Collection<String> words) {
+		int id = documents.id(source);
+		if (documents.count(id) == 0) {
+			return false;
+		}
+		removePostings(id, words);
+		documents.clearCount(id);
+		return true;
+	}
+
+	/**
+	 * Replaces every segment with postings of the document in the given words by a
+	 * copy without them, dropping segments left without postings, and publishes
+	 * the new list of segments.
+	 *
+	 * @param id the document id
+	 * @param words the words to remove the postings of the document from
+	 */
+	@Override
+	void removePostings(int id, Collection<String> words) {
+		synchronized (lock) {
+			List<Segment> updated = new ArrayList<>(segments.size());
+			boolean changed = false;
+			for (Segment segment : segments) {
+				InvertedIndex remaining = without(segment, id, words);
+				if (remaining == segment.index) {
+					updated.add(segment);
+					continue;
+				}
+				changed = true;
+				if (!remaining.postings().isEmpty()) {
+					updated.add(new Segment(remaining, segment.level));
+				}
+			}
+			if (changed) {
+				segments = List.copyOf(updated);
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of a segment without the postings of the document in the
+	 * given words. Words without postings of the document share their postings
+	 * with the segment, which are never modified.
+	 *
+	 * @param segment the segment to remove the postings from
+	 * @param id the document id
+	 * @param words the words to remove the postings of the document from
+	 * @return a new index without the postings, or the index of the segment if it
+	 *   has no postings of the document in the words
+	 */
+	private InvertedIndex without(Segment segment, int id, Collection<String> words) {
+		TreeMap<String, TreeMap<Integer, PositionList>> postings = segment.index.postings();
+		InvertedIndex remaining = segment.index;
+		for (String word : words) {
+			TreeMap<Integer, PositionList> sources = postings.get(word);
+			if (sources == null || !sources.containsKey(id)) {
+				continue;
+			}
+			if (remaining == segment.index) {
+				remaining = new InvertedIndex(documents);
+				remaining.postings().putAll(postings);
+			}
+			TreeMap<Integer, PositionList> kept = new TreeMap<>(sources);
+			kept.remove(id);
+			if (kept.isEmpty()) {
+				remaining.postings().remove(word);
+			}
+			else {
+				remaining.postings().put(word, kept);
+			}
+		}
+		return remaining;
+	}
+
+	/**
+	 * Returns the number of segments currently published.
+	 *
+	 * @return the number of segments
+	 */
+	public int sizeSegments() {
+		return segments.size();
+	}
+
+	/**
+	 * Returns a read-only snapshot of the current segments compacted into sorted
+	 * arrays.
+	 *
+	 * @return a frozen copy of this index
+	 */
+	@Override
+	public FrozenInvertedIndex freeze() {
+		return merge(segments).freeze();
+	}
+
+	@Override
+	public int sizeWords() {
+		return viewWords().size();
+	}
+
+	@Override
+	public int sizeSources(String word) {
+		Set<Integer> ids = new HashSet<>();
+		for (Segment segment : segments) {
+			TreeMap<Integer, PositionList> sources = segment.index.postings().get(word);
+			if (sources != null) {
+				ids.addAll(sources.keySet());
+			}
+		}
+		return ids.size();
+	}
+
+	@Override
+	public int sizePositions(String word, String source) {
+		return viewPositions(word, source).size();
+	}
+
+	@Override
+	public boolean hasWord(String word) {
+		for (Segment segment : segments) {
+			if (segment.index.hasWord(word)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean hasSource(String word, String source) {
+		for (Segment segment : segments) {
+			if (segment.index.hasSource(word, source)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean hasPosition(String word, String source, int position) {
+		for (Segment segment : segments) {
+			if (segment.index.hasPosition(word, source, position)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns an unmodifiable copy of the words stored in every segment.
+	 *
+	 * @return an unmodifiable sorted set of words
+	 */
+	@Override
+	public SortedSet<String> viewWords() {
+		TreeSet<String> words = new TreeSet<>();
+		for (Segment segment : segments) {
+			words.addAll(segment.index.postings().keySet());
+		}
+		return Collections.unmodifiableSortedSet(words);
+	}
+
+	@Override
+	public SortedSet<String> viewSources(String word) {
+		TreeSet<String> sources = new TreeSet<>();
+		for (Segment segment : segments) {
+			sources.addAll(segment.index.viewSources(word));
+		}
+		return Collections.unmodifiableSortedSet(sources);
+	}
+
+	@Override
+	public SortedSet<Integer> viewPositions(String word, String source) {
+		TreeSet<Integer> positions = new TreeSet<>();
+		for (Segment segment : segments) {
+			positions.addAll(segment.index.viewPositions(word, source));
+		}
+		return Collections.unmodifiableSortedSet(positions);
+	}
+
+	@Override
+	public String indexToJson() {
+		return merge(segments).indexToJson();
+	}
+
+	@Override
+	public void indexToJson(Path path) throws IOException {
+		merge(segments).indexToJson(path);
+	}
+
+	@Override
+	public void indexToJson(Path path, WorkQueue tasks) throws IOException {
+		merge(segments).indexToJson(path, tasks);
+	}
+
+	@Override
+	public void indexToJson(Writer writer) throws IOException {
+		merge(segments).indexToJson(writer);
+	}
+
+	@Override
+	void searchPartial(String queryWord, ScoreAccumulator matches) {
+		for (Segment segment : segments) {
+			segment.index.searchPartial(queryWord, matches);
+		}
+	}
+
+	@Override
+	void searchExact(String word, ScoreAccumulator matches) {
+		for (Segment segment : segments) {
+			segment.index.searchExact(word, matches);
+		}
+	}
+
+	/**
+	 * Accumulates the matches of a partial search on the given query terms over a
+	 * snapshot of the segments, combining the matches of each segment by document
+	 * id.
+	 *
+	 * @param query the collection of words to search for
+	 * @param matches the accumulator of match counts by document id
+	 */
+	@Override
+	void collectPartial(Set<String> query, ScoreAccumulator matches) {
+		List<Segment> snapshot = segments;
+		for (String queryWord : query) {
+			for (Segment segment : snapshot) {
+				segment.index.searchPartial(queryWord, matches);
+			}
+		}
+	}
+
+	/**
+	 * Accumulates the matches of an exact search on the given query terms over a
+	 * snapshot of the segments, combining the matches of each segment by document
+	 * id.
+	 *
+	 * @param query the collection of words to search for
+	 * @param matches the accumulator of match counts by document id
+	 */
+	@Override
+	void collectExact(Set<String> query, ScoreAccumulator matches) {
+		List<Segment> snapshot = segments;
+		for (String word : query) {
+			for (Segment segment : snapshot) {
+				segment.index.searchExact(word, matches);
+			}
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package edu.usfca.cs272.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Document table that keeps the sources in a list and the word counts in an
+ * array, both indexed by document id.
+ *
+ * Warning: This class is not thread-safe. If multiple threads access this class
+ * concurrently, access must be synchronized externally.
+ */
+public class SerialDocumentTable extends DocumentTable {
+	/** Initial capacity of the word counts array. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The source identifiers, indexed by document id. */
+	private final ArrayList<String> sources;
+
+	/** The document id of each registered source. */
+	private final HashMap<String, Integer> ids;
+
+	/** The word count of each source, indexed by document id. */
+	private int[] counts;
+
+	/** The number of sources with a word count greater than zero. */
+	private int sizeCounts;
+
+	/**
+	 * Constructs an empty document table.
+	 */
+	public SerialDocumentTable() {
+		this.sources = new ArrayList<>();
+		this.ids = new HashMap<>();
+		this.counts = new int[INITIAL_CAPACITY];
+		this.sizeCounts = 0;
+	}
+
+	@Override
+	public int register(String source) {
+		Integer id = ids.get(source);
+		if (id == null) {
+			id = sources.size();
+			sources.add(source);
+			ids.put(source, id);
+			if (id >= counts.length) {
+				counts = Arrays.copyOf(counts, counts.length * 2);
+			}
+		}
+		return id;
+	}
+
+	@Override
+	public int id(String source) {
+		Integer id = ids.get(source);
+		return id == null ? -1 : id;
+	}
+
+	@Override
+	public String source(int id) {
+		return sources.get(id);
+	}
+
+	@Override
+	public int count(int id) {
+		return id >= 0 && id < sources.size() ? counts[id] : 0;
+	}
+
+	@Override
+	public void mergeCount(int id, int count) {
+		if (count > counts[id]) {
+			if (counts[id] == 0) {
+				sizeCounts++;
+			}
+			counts[id] = count;
+		}
+	}
+
+	@Override
+	public void clearCount(int id) {
+		if (counts[id] > 0) {
+			counts[id] = 0;
+			sizeCounts--;
+		}
+	}
+
+	@Override
+	public int size() {
+		return sources.size();
+	}
+
+	@Override
+	public int sizeCounts() {
+		return sizeCounts;
+	}
+}
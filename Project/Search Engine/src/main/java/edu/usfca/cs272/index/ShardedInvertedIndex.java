@@ -0,0 +1,781 @@
+package edu.usfca.cs272.index;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.usfca.cs272.threads.MultiReaderLock;
+import edu.usfca.cs272.threads.WorkQueue;
+
+/**
+ * Inverted index partitioned into shards by ranges of words, with a separate
+ * {@link MultiReaderLock} per shard. Shards cover contiguous, sorted ranges of
+ * the vocabulary, so a prefix search only scans the shard (or rarely, the
+ * neighboring shards) its prefix falls in, and output visits the shards in
+ * order.
+ *
+ * The shards start out splitting the lowercase letters evenly, which leaves
+ * them skewed for real text, and every word outside those letters (such as
+ * stems with accented or non-Latin letters) falls in the last shard. So each
+ * time the number of words doubles, the shards are rebalanced: new bounds are
+ * picked from the indexed words so every shard covers about the same number of
+ * words, and the words are moved while every shard is locked for writing.
+ * Operations on a single shard check the bounds again once they hold its lock,
+ * and retry if a rebalance moved them.
+ *
+ * Merging another index locks one shard at a time, starting from a different
+ * shard on each call, so worker tasks merging in parallel mostly work on
+ * different shards instead of waiting on a single write lock. Sources and word
+ * counts are kept in a {@link ConcurrentDocumentTable} shared by all shards.
+ *
+ * Every method of {@link InvertedIndex} that reads or writes postings is
+ * overridden to go through the shards, so none of them see the unused map of
+ * the base class.
+ */
+public class ShardedInvertedIndex extends InvertedIndex {
+	/**
+	 * Logger for logging events in ShardedInvertedIndex class.
+	 */
+	private static final Logger logger = LogManager.getLogger(ShardedInvertedIndex.class);
+
+	/** The maximum number of shards, one per lowercase letter of the initial split. */
+	public static final int MAX_SHARDS = 26;
+
+	/** The number of words at which the shards are first rebalanced. */
+	static final int REBALANCE_WORDS = 1024;
+
+	/** The document table shared by every shard. */
+	private final ConcurrentDocumentTable documents;
+
+	/** The shards, in sorted order of the words they cover. */
+	private final Shard[] shards;
+
+	/**
+	 * The smallest possible word of each shard after the first, used to find the
+	 * shard of a word with a binary search. Only replaced while every shard is
+	 * locked for writing, so it does not change while any shard lock is held.
+	 */
+	private volatile String[] bounds;
+
+	/** Rotates the shard each merge starts with. */
+	private final AtomicInteger nextShard;
+
+	/** The number of words at which the shards are rebalanced next. */
+	private volatile int rebalanceWords;
+
+	/**
+	 * Constructs a new ShardedInvertedIndex with the given number of shards.
+	 *
+	 * @param shards the number of shards, clamped between 1 and
+	 *   {@link #MAX_SHARDS}
+	 */
+	public ShardedInvertedIndex(int shards) {
+		this(new ConcurrentDocumentTable(), Math.max(1, Math.min(shards, MAX_SHARDS)));
+	}
+
+	/**
+	 * Constructs a new ShardedInvertedIndex with the given document table and
+	 * number of shards.
+	 *
+	 * @param documents the document table shared by every shard
+	 * @param shards the number of shards
+	 */
+	private ShardedInvertedIndex(ConcurrentDocumentTable documents, int shards) {
+		super(documents);
+		this.documents = documents;
+		this.shards = new Shard[shards];
+		this.nextShard = new AtomicInteger();
+		this.rebalanceWords = Math.max(REBALANCE_WORDS, shards);
+
+		for (int i = 0; i < shards; i++) {
+			this.shards[i] = new Shard(documents);
+		}
+
+		// spread the lowercase letters evenly over the shards until there are words
+		String[] letters = new String[shards - 1];
+		for (int i = 1; i < shards; i++) {
+			letters[i - 1] = String.valueOf((char) ('a' + i * MAX_SHARDS / shards));
+		}
+		this.bounds = letters;
+
+		logger.debug("Initialized ShardedInvertedIndex with {} shards split at {}", shards, Arrays.toString(letters));
+	}
+
+	/**
+	 * A partition of the index with its own lock.
+	 */
+	private static class Shard {
+		/** The lock protecting this shard. */
+		private final MultiReaderLock lock;
+
+		/** The words of this shard, sharing the document table of the index. */
+		private final InvertedIndex index;
+
+		/**
+		 * Constructs an empty shard.
+		 *
+		 * @param documents the document table shared by every shard
+		 */
+		private Shard(DocumentTable documents) {
+			this.lock = new MultiReaderLock();
+			this.index = new InvertedIndex(documents);
+		}
+
+		/**
+		 * Acquires the write lock, performs the specified write operation, and then
+		 * releases the lock.
+		 *
+		 * @param operation the write operation to perform
+		 */
+		private void write(Runnable operation) {
+			lock.writeLock().lock();
+			try {
+				operation.run();
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the shard covering the word.
+	 *
+	 * @param bounds the bounds of the shards
+	 * @param word the word to lookup
+	 * @return the index of the shard
+	 */
+	private static int shardOf(String[] bounds, String word) {
+		int found = Arrays.binarySearch(bounds, word);
+		return found >= 0 ? found + 1 : -(found + 1);
+	}
+
+	/**
+	 * Returns the index of the shard covering the word with the current bounds.
+	 *
+	 * @param word the word to lookup
+	 * @return the index of the shard
+	 */
+	int shardOf(String word) {
+		return shardOf(bounds, word);
+	}
+
+	/**
+	 * Holds the read lock of the shard covering the word while performing the
+	 * read operation, retrying if the shards were rebalanced before the lock was
+	 * acquired.
+	 *
+	 * @param <T> the return type of the read operation
+	 * @param word the word whose shard to read
+	 * @param operation the read operation to perform on the index of the shard
+	 * @return the result of the read operation
+	 */
+	private <T> T read(String word, Function<InvertedIndex, T> operation) {
+		while (true) {
+			String[] current = bounds;
+			Shard shard = shards[shardOf(current, word)];
+			shard.lock.readLock().lock();
+			try {
+				if (current == bounds) {
+					return operation.apply(shard.index);
+				}
+			}
+			finally {
+				shard.lock.readLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Holds the write lock of the shard covering the word while performing the
+	 * write operation, retrying if the shards were rebalanced before the lock was
+	 * acquired.
+	 *
+	 * @param word the word whose shard to write
+	 * @param operation the write operation to perform on the index of the shard
+	 */
+	private void write(String word, Consumer<InvertedIndex> operation) {
+		while (true) {
+			String[] current = bounds;
+			Shard shard = shards[shardOf(current, word)];
+			shard.lock.writeLock().lock();
+			try {
+				if (current == bounds) {
+					operation.accept(shard.index);
+					return;
+				}
+			}
+			finally {
+				shard.lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Returns the words of the sorted map that fall in the given shard.
+	 *
+	 * @param <V> the type of the values of the map
+	 * @param sorted the sorted map to split
+	 * @param bounds the bounds of the shards
+	 * @param shard the index of the shard
+	 * @return a view of the sorted map in the range of the shard
+	 */
+	private static <V> SortedMap<String, V> range(SortedMap<String, V> sorted, String[] bounds, int shard) {
+		if (bounds.length == 0) {
+			return sorted;
+		}
+		if (shard == 0) {
+			return sorted.headMap(bounds[0]);
+		}
+		if (shard == bounds.length) {
+			return sorted.tailMap(bounds[shard - 1]);
+		}
+		return sorted.subMap(bounds[shard - 1], bounds[shard]);
+	}
+
+	/**
+	 * Acquires the read lock of every shard in order.
+	 */
+	private void lockAll() {
+		for (Shard shard : shards) {
+			shard.lock.readLock().lock();
+		}
+	}
+
+	/**
+	 * Releases the read lock of every shard in reverse order.
+	 */
+	private void unlockAll() {
+		for (int i = shards.length - 1; i >= 0; i--) {
+			shards[i].lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of words in each shard, for logging and testing how
+	 * evenly the words are spread.
+	 *
+	 * @return the number of words in each shard, in shard order
+	 */
+	int[] shardSizes() {
+		lockAll();
+		try {
+			int[] sizes = new int[shards.length];
+			for (int i = 0; i < shards.length; i++) {
+				sizes[i] = shards[i].index.sizeWords();
+			}
+			return sizes;
+		}
+		finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * Rebalances the shards if the number of words has reached the next
+	 * rebalance, so the number of words between rebalances doubles each time.
+	 */
+	private void rebalanceIfGrown() {
+		if (shards.length > 1 && sizeWords() >= rebalanceWords) {
+			rebalance();
+		}
+	}
+
+	/**
+	 * Picks new bounds that split the indexed words evenly between the shards and
+	 * moves the words to their new shards, holding the write lock of every shard
+	 * in order.
+	 */
+	private void rebalance() {
+		for (Shard shard : shards) {
+			shard.lock.writeLock().lock();
+		}
+		try {
+			TreeMap<String, TreeMap<Integer, PositionList>> combined = new TreeMap<>();
+			for (Shard shard : shards) {
+				combined.putAll(shard.index.postings());
+			}
+
+			int words = combined.size();
+			if (words < rebalanceWords) {
+				return;
+			}
+
+			String[] picked = new String[shards.length - 1];
+			Iterator<String> iterator = combined.keySet().iterator();
+			String word = null;
+			for (int i = 0, next = 0; i < picked.length; i++) {
+				int target = (i + 1) * words / shards.length;
+				for (; next <= target; next++) {
+					word = iterator.next();
+				}
+				picked[i] = word;
+			}
+
+			for (int i = 0; i < shards.length; i++) {
+				TreeMap<String, TreeMap<Integer, PositionList>> postings = shards[i].index.postings();
+				postings.clear();
+				postings.putAll(range(combined, picked, i));
+			}
+
+			bounds = picked;
+			rebalanceWords = words * 2;
+			logger.debug("Rebalanced {} words over shards split at {}", words, Arrays.toString(picked));
+		}
+		finally {
+			for (int i = shards.length - 1; i >= 0; i--) {
+				shards[i].lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Adds a single word occurrence to the shard of the word and updates the word
+	 * count.
+	 *
+	 * @param word the word to add
+	 * @param source the source where the word was found
+	 * @param position the position of the word in the source
+	 */
+	@Override
+	public void add(String word, String source, int position) {
+		write(word, index -> index.add(word, source, position));
+	}
+
+	/**
+	 * Adds a list of words from a source to the inverted index and updates the word
+	 * count. The words are gathered in a local index first and merged in one shard
+	 * at a time.
+	 *
+	 * @param words the list of words to add to the index
+	 * @param source the source where the words were found
+	 */
+	@Override
+	public void add(List<String> words, String source) {
+		InvertedIndex local = new InvertedIndex();
+		local.add(words, source);
+		addAll(local);
+	}
+
+	/**
+	 * Merges the contents of another InvertedIndex into this index. Word counts
+	 * are merged first, then the words of each shard are merged while holding only
+	 * that shard's write lock. Successive calls start with different shards to
+	 * spread concurrent merges across the shards. The shards are rebalanced
+	 * afterwards if the number of words has doubled.
+	 *
+	 * @param other the InvertedIndex whose entries are to be merged into this index
+	 */
+	@Override
+	public void addAll(InvertedIndex other) {
+		int[] mapping = documents.mergeAll(other.documents());
+		addAllShards(other.postings(), mapping);
+		rebalanceIfGrown();
+	}
+
+	/**
+	 * Merges postings of another index into this index, translating their
+	 * document ids with the provided mapping. The words are sorted first, so they
+	 * can be merged one shard at a time.
+	 *
+	 * @param otherWords the set of word entries from another inverted index
+	 * @param mapping the document id in this index of each document id in the
+	 *   other index
+	 */
+	@Override
+	void addAllIndex(Set<Entry<String, TreeMap<Integer, PositionList>>> otherWords, int[] mapping) {
+		TreeMap<String, TreeMap<Integer, PositionList>> postings = new TreeMap<>();
+		for (Entry<String, TreeMap<Integer, PositionList>> otherWord : otherWords) {
+			postings.put(otherWord.getKey(), otherWord.getValue());
+		}
+		addAllShards(postings, mapping);
+		rebalanceIfGrown();
+	}
+
+	/**
+	 * Merges sorted postings into the shards, holding only one shard's write lock
+	 * at a time, starting with a different shard on each call. The words of each
+	 * shard are picked while holding its lock and then crossed off, and the shards
+	 * are visited again if a rebalance left some words unmerged.
+	 *
+	 * @param postings the sorted postings to merge
+	 * @param mapping the document id in this index of each document id in the
+	 *   postings
+	 */
+	private void addAllShards(TreeMap<String, TreeMap<Integer, PositionList>> postings, int[] mapping) {
+		TreeMap<String, TreeMap<Integer, PositionList>> pending = new TreeMap<>(postings);
+		int start = Math.floorMod(nextShard.getAndIncrement(), shards.length);
+
+		while (!pending.isEmpty()) {
+			for (int i = 0; i < shards.length; i++) {
+				int current = (start + i) % shards.length;
+				if (range(pending, bounds, current).isEmpty()) {
+					continue;
+				}
+
+				Shard shard = shards[current];
+				shard.write(() -> {
+					var range = range(pending, bounds, current);
+					if (!range.isEmpty()) {
+						shard.index.addAllIndex(range.entrySet(), mapping);
+						range.clear();
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Removes a source from the inverted index, holding the write lock of one
+	 * shard at a time. Every word in the index is checked for postings of the
+	 * source. Postings are removed before the word count, so a posting is never
+	 * visible without its document's word count.
+	 *
+	 * @param source the source to remove
+	 * @return true if the source was in the index
+	 */
+	@Override
+	public boolean remove(String source) {
+		return remove(source, viewWords());
+	}
+
+	/**
+	 * Removes a source from the inverted index, holding the write lock of one
+	 * shard at a time. Only the given words are checked for postings of the source,
+	 * and only the shards covering them are locked.
+	 *
+	 * @param source the source to remove
+	 * @param words the words found in the source
+	 * @return true if the source was in the index
+	 */
+	@Override
+	public boolean remove(String source, Collection<String> words) {
+		int id = documents.id(source);
+		if (documents.count(id) == 0) {
+			return false;
+		}
+		removePostings(id, words);
+		documents.clearCount(id);
+		return true;
+	}
+
+	/**
+	 * Removes the postings of a document from the given words, holding the write
+	 * lock of one shard at a time, and only locking the shards covering the words.
+	 * The words of each shard are picked while holding its lock and then crossed
+	 * off, so a rebalance in between only means visiting the shards again.
+	 *
+	 * @param id the document id
+	 * @param words the words to remove the postings of the document from
+	 */
+	@Override
+	void removePostings(int id, Collection<String> words) {
+		TreeMap<String, Boolean> pending = new TreeMap<>();
+		for (String word : words) {
+			pending.put(word, true);
+		}
+
+		while (!pending.isEmpty()) {
+			for (int i = 0; i < shards.length; i++) {
+				if (!range(pending, bounds, i).isEmpty()) {
+					int shardIndex = i;
+					Shard shard = shards[i];
+					shard.write(() -> {
+						var range = range(pending, bounds, shardIndex);
+						shard.index.removePostings(id, new ArrayList<>(range.keySet()));
+						range.clear();
+					});
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds all positions of a word in a source at once, holding the write lock of
+	 * the shard covering the word.
+	 *
+	 * @param word the word to add
+	 * @param source the source where the word was found
+	 * @param positions the positions of the word in the source, which must not be
+	 *   used after they are added
+	 */
+	@Override
+	void addPostings(String word, String source, PositionList positions) {
+		write(word, index -> index.addPostings(word, source, positions));
+	}
+
+	/**
+	 * Adds the offset to every position and word count in the index, holding the
+	 * write lock of every shard, so a rebalance cannot move words between shards
+	 * while they are shifted. The word counts shared by the shards are shifted
+	 * once.
+	 *
+	 * @param offset the non-negative offset to add
+	 */
+	@Override
+	void shiftPositions(int offset) {
+		for (Shard shard : shards) {
+			shard.lock.writeLock().lock();
+		}
+		try {
+			for (Shard shard : shards) {
+				for (TreeMap<Integer, PositionList> sources : shard.index.postings().values()) {
+					for (PositionList positions : sources.values()) {
+						positions.shift(offset);
+					}
+				}
+			}
+		}
+		finally {
+			for (int i = shards.length - 1; i >= 0; i--) {
+				shards[i].lock.writeLock().unlock();
+			}
+		}
+		documents.shiftCounts(offset);
+	}
+
+	/**
+	 * Returns a copy of the words, document ids, and positions of every shard,
+	 * taken while holding the read lock of every shard. The position lists are
+	 * copied too, since shards modify them in place.
+	 *
+	 * @return a new map of the postings of this index
+	 */
+	@Override
+	TreeMap<String, TreeMap<Integer, PositionList>> postings() {
+		lockAll();
+		try {
+			TreeMap<String, TreeMap<Integer, PositionList>> copy = new TreeMap<>();
+			for (Shard shard : shards) {
+				for (var word : shard.index.postings().entrySet()) {
+					TreeMap<Integer, PositionList> sources = new TreeMap<>();
+					for (var source : word.getValue().entrySet()) {
+						PositionList positions = new PositionList();
+						positions.addAll(source.getValue());
+						sources.put(source.getKey(), positions);
+					}
+					copy.put(word.getKey(), sources);
+				}
+			}
+			return copy;
+		}
+		finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * Returns a read-only snapshot of this index compacted into sorted arrays,
+	 * holding the read lock of every shard while it is built.
+	 *
+	 * @return a frozen copy of this index
+	 */
+	@Override
+	public FrozenInvertedIndex freeze() {
+		lockAll();
+		try {
+			TreeMap<String, TreeMap<Integer, PositionList>> combined = new TreeMap<>();
+			for (Shard shard : shards) {
+				combined.putAll(shard.index.postings());
+			}
+			logger.info("Freezing sharded index with {} words", combined.size());
+			return new FrozenInvertedIndex(documents, combined);
+		}
+		finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * Returns the number of distinct words stored in the index, holding the read
+	 * lock of every shard so no words are moved while they are counted.
+	 *
+	 * @return the number of words in the index
+	 */
+	@Override
+	public int sizeWords() {
+		int size = 0;
+		for (int shardSize : shardSizes()) {
+			size += shardSize;
+		}
+		return size;
+	}
+
+	@Override
+	public int sizeSources(String word) {
+		return read(word, index -> index.sizeSources(word));
+	}
+
+	@Override
+	public int sizePositions(String word, String source) {
+		return read(word, index -> index.sizePositions(word, source));
+	}
+
+	@Override
+	public boolean hasWord(String word) {
+		return read(word, index -> index.hasWord(word));
+	}
+
+	@Override
+	public boolean hasSource(String word, String source) {
+		return read(word, index -> index.hasSource(word, source));
+	}
+
+	@Override
+	public boolean hasPosition(String word, String source, int position) {
+		return read(word, index -> index.hasPosition(word, source, position));
+	}
+
+	/**
+	 * Returns an unmodifiable copy of the words stored in the index, holding the
+	 * read lock of every shard so no words are moved while they are copied.
+	 *
+	 * @return an unmodifiable sorted set of words
+	 */
+	@Override
+	public SortedSet<String> viewWords() {
+		lockAll();
+		try {
+			TreeSet<String> words = new TreeSet<>();
+			for (Shard shard : shards) {
+				words.addAll(shard.index.viewWords());
+			}
+			return Collections.unmodifiableSortedSet(words);
+		}
+		finally {
+			unlockAll();
+		}
+	}
+
+	@Override
+	public SortedSet<String> viewSources(String word) {
+		return read(word, index -> index.viewSources(word));
+	}
+
+	@Override
+	public SortedSet<Integer> viewPositions(String word, String source) {
+		return read(word, index -> index.viewPositions(word, source));
+	}
+
+	/**
+	 * Returns a JSON-formatted string representation of the inverted index, from a
+	 * frozen snapshot of the index.
+	 *
+	 * @return a JSON string representing the inverted index
+	 * @see #freeze()
+	 */
+	@Override
+	public String indexToJson() {
+		return freeze().indexToJson();
+	}
+
+	/**
+	 * Writes the inverted index to a JSON file. The shard locks are only held
+	 * while a frozen snapshot of the index is taken, so writers can continue while
+	 * the snapshot is written.
+	 *
+	 * @param path the path to the output JSON file
+	 * @throws IOException if an I/O error occurs while writing the file
+	 * @see #freeze()
+	 */
+	@Override
+	public void indexToJson(Path path) throws IOException {
+		logger.info("Writing sharded index JSON to file: {}", path);
+		freeze().indexToJson(path);
+		logger.info("Successfully wrote sharded index JSON to file: {}", path);
+	}
+
+	/**
+	 * Writes the inverted index to a JSON file, rendering ranges of words in
+	 * parallel. The shard locks are only held while a frozen snapshot of the index
+	 * is taken.
+	 *
+	 * @param path the path to the output JSON file
+	 * @param tasks the work queue used to render the index
+	 * @throws IOException if an I/O error occurs while writing the file
+	 * @see #freeze()
+	 */
+	@Override
+	public void indexToJson(Path path, WorkQueue tasks) throws IOException {
+		freeze().indexToJson(path, tasks);
+	}
+
+	/**
+	 * Writes the inverted index with the provided writer. The shard locks are only
+	 * held while a frozen snapshot of the index is taken, so writers can continue
+	 * while the snapshot is written.
+	 *
+	 * @param writer the provided writer
+	 * @throws IOException if an I/O error occurs while writing the file
+	 * @see #freeze()
+	 */
+	@Override
+	public void indexToJson(Writer writer) throws IOException {
+		freeze().indexToJson(writer);
+	}
+
+	/**
+	 * Accumulates the matches of every word starting with the query word. Since
+	 * shards cover contiguous ranges, the words starting with the query word only
+	 * continue into the next shard if that shard's smallest possible word also
+	 * starts with the query word. The read locks of all the shards searched are
+	 * held together, so a rebalance cannot move words between them mid-search.
+	 *
+	 * @param queryWord the prefix to search for
+	 * @param matches the accumulator of match counts by document id
+	 */
+	@Override
+	void searchPartial(String queryWord, ScoreAccumulator matches) {
+		while (true) {
+			String[] current = bounds;
+			int first = shardOf(current, queryWord);
+			int last = first;
+			while (last < current.length && current[last].startsWith(queryWord)) {
+				last++;
+			}
+
+			for (int i = first; i <= last; i++) {
+				shards[i].lock.readLock().lock();
+			}
+			try {
+				if (current == bounds) {
+					for (int i = first; i <= last; i++) {
+						shards[i].index.searchPartial(queryWord, matches);
+					}
+					return;
+				}
+			}
+			finally {
+				for (int i = last; i >= first; i--) {
+					shards[i].lock.readLock().unlock();
+				}
+			}
+		}
+	}
+
+	@Override
+	void searchExact(String word, ScoreAccumulator matches) {
+		read(word, index -> {
+			index.searchExact(word, matches);
+			return null;
+		});
+	}
+}
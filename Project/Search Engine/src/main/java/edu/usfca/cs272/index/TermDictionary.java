@@ -0,0 +1,431 @@
+package edu.usfca.cs272.index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable, sorted dictionary of terms stored with front coding. Terms are
+ * grouped into blocks of {@link #BLOCK_SIZE}. The first term of each block is
+ * stored in full, and every other term only stores the length of the prefix it
+ * shares with the previous term followed by the rest of its characters. Lengths
+ * and characters are written as variable-length integers, so ASCII terms take
+ * one byte per stored character.
+ *
+ * Each term is identified by its position in sorted order. Lookups binary
+ * search the first term of each block, then decode at most one block. Since
+ * terms are sorted, all terms starting with a prefix form one contiguous range
+ * of term ids, which can be iterated without comparing strings.
+ *
+ * Terms are ordered the same way as {@link String#compareTo(String)}.
+ */
+public class TermDictionary implements Iterable<String> {
+	/** The number of terms in each block. */
+	public static final int BLOCK_SIZE = 16;
+
+	/** The front-coded terms. */
+	private final byte[] data;
+
+	/** The offset of the first byte of each block. */
+	private final int[] blocks;
+
+	/** The number of terms. */
+	private final int size;
+
+	/** The length of the longest term. */
+	private final int maxLength;
+
+	/**
+	 * Constructs a dictionary of the terms, which must be sorted in strictly
+	 * increasing order.
+	 *
+	 * @param terms the sorted terms
+	 * @throws IllegalArgumentException if the terms are not strictly increasing
+	 */
+	public TermDictionary(Iterable<String> terms) {
+		byte[] bytes = new byte[64];
+		int[] offsets = new int[8];
+		int length = 0;
+		int count = 0;
+		int longest = 0;
+		String previous = null;
+
+		for (String term : terms) {
+			if (previous != null && previous.compareTo(term) >= 0) {
+				throw new IllegalArgumentException("Terms are not strictly increasing: " + previous + ", " + term);
+			}
+
+			int shared = 0;
+			if (count % BLOCK_SIZE == 0) {
+				int block = count / BLOCK_SIZE;
+				if (block == offsets.length) {
+					offsets = Arrays.copyOf(offsets, offsets.length * 2);
+				}
+				offsets[block] = length;
+			}
+			else {
+				int limit = Math.min(previous.length(), term.length());
+				while (shared < limit && previous.charAt(shared) == term.charAt(shared)) {
+					shared++;
+				}
+			}
+
+			// at most 5 bytes per length and 3 bytes per character
+			int needed = length + 10 + 3 * (term.length() - shared);
+			if (needed > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(needed, bytes.length * 2));
+			}
+
+			if (count % BLOCK_SIZE != 0) {
+				length = writeVarint(bytes, length, shared);
+			}
+			length = writeVarint(bytes, length, term.length() - shared);
+			for (int i = shared; i < term.length(); i++) {
+				length = writeVarint(bytes, length, term.charAt(i));
+			}
+
+			longest = Math.max(longest, term.length());
+			previous = term;
+			count++;
+		}
+
+		this.data = Arrays.copyOf(bytes, length);
+		this.blocks = Arrays.copyOf(offsets, (count + BLOCK_SIZE - 1) / BLOCK_SIZE);
+		this.size = count;
+		this.maxLength = longest;
+	}
+
+	/**
+	 * Constructs a dictionary from already front-coded terms.
+	 *
+	 * @param data the front-coded terms
+	 * @param blocks the offset of the first byte of each block
+	 * @param size the number of terms
+	 * @param maxLength the length of the longest term
+	 */
+	private TermDictionary(byte[] data, int[] blocks, int size, int maxLength) {
+		this.data = data;
+		this.blocks = blocks;
+		this.size = size;
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * Writes the front-coded terms in the binary index format.
+	 *
+	 * @param out the stream to write to
+	 * @throws IOException if an I/O error occurs
+	 */
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(size);
+		out.writeInt(maxLength);
+		IndexFile.writeInts(out, IntBuffer.wrap(blocks));
+		IndexFile.writeBytes(out, data);
+	}
+
+	/**
+	 * Reads a dictionary written by {@link #write(DataOutputStream)} without
+	 * decoding its terms.
+	 *
+	 * @param in the stream to read from
+	 * @return the dictionary
+	 * @throws IOException if an I/O error occurs or the dictionary is corrupt
+	 */
+	static TermDictionary read(DataInputStream in) throws IOException {
+		int size = IndexFile.readLength(in);
+		int maxLength = IndexFile.readLength(in);
+		int[] blocks = IndexFile.readInts(in);
+		byte[] data = IndexFile.readBytes(in);
+		if (blocks.length != (size + BLOCK_SIZE - 1) / BLOCK_SIZE) {
+			throw new IOException("Corrupt binary index, " + blocks.length + " blocks for " + size + " terms.");
+		}
+		// every character is stored in at least one byte
+		if (maxLength > data.length) {
+			throw new IOException("Corrupt binary index, longest term is " + maxLength + " characters.");
+		}
+		return new TermDictionary(data, blocks, size, maxLength);
+	}
+
+	/**
+	 * Writes the value as a variable-length integer.
+	 *
+	 * @param bytes the array to write to
+	 * @param offset the offset to write at
+	 * @param value the non-negative value to write
+	 * @return the offset after the written bytes
+	 */
+	private static int writeVarint(byte[] bytes, int offset, int value) {
+		while ((value & ~0x7F) != 0) {
+			bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		bytes[offset++] = (byte) value;
+		return offset;
+	}
+
+	/**
+	 * Returns the number of terms.
+	 *
+	 * @return the number of terms
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of bytes used to store the terms.
+	 *
+	 * @return the encoded length in bytes
+	 */
+	public int encodedLength() {
+		return data.length + blocks.length * Integer.BYTES;
+	}
+
+	/**
+	 * Returns the term with the given id.
+	 *
+	 * @param id the term id
+	 * @return the term
+	 * @throws IndexOutOfBoundsException if the id is out of range
+	 */
+	public String term(int id) {
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("Term id out of range: " + id);
+		}
+
+		Cursor cursor = new Cursor();
+		cursor.seek(id / BLOCK_SIZE);
+		do {
+			cursor.next();
+		} while (cursor.id < id);
+		return cursor.term();
+	}
+
+	/**
+	 * Searches for the term.
+	 *
+	 * @param term the term to search for
+	 * @return the id of the term, or {@code (-(insertion point) - 1)} if the term
+	 *   is not present, where the insertion point is the id of the first greater
+	 *   term
+	 *
+	 * @see Arrays#binarySearch(Object[], Object)
+	 */
+	public int find(String term) {
+		Cursor cursor = new Cursor();
+
+		// find the last block starting with a term no greater than the search term
+		int low = 0;
+		int high = blocks.length - 1;
+		int block = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			cursor.seek(middle);
+			cursor.next();
+			int compared = cursor.compareTo(term);
+			if (compared == 0) {
+				return cursor.id;
+			}
+			if (compared < 0) {
+				block = middle;
+				low = middle + 1;
+			}
+			else {
+				high = middle - 1;
+			}
+		}
+
+		if (block < 0) {
+			return -1;
+		}
+
+		cursor.seek(block);
+		int end = Math.min((block + 1) * BLOCK_SIZE, size);
+		while (cursor.id + 1 < end) {
+			cursor.next();
+			int compared = cursor.compareTo(term);
+			if (compared == 0) {
+				return cursor.id;
+			}
+			if (compared > 0) {
+				return -cursor.id - 1;
+			}
+		}
+		return -end - 1;
+	}
+
+	/**
+	 * Determines whether the dictionary contains the term.
+	 *
+	 * @param term the term to look for
+	 * @return true if the term is present
+	 */
+	public boolean contains(String term) {
+		return find(term) >= 0;
+	}
+
+	/**
+	 * Returns the id of the first term greater than or equal to the given term.
+	 *
+	 * @param term the term to search for
+	 * @return the id of the first term not less than the given term, or the
+	 *   number of terms if there is none
+	 */
+	public int lowerBound(String term) {
+		int found = find(term);
+		return found >= 0 ? found : -found - 1;
+	}
+
+	/**
+	 * Returns the range of ids of the terms starting with the prefix. Since terms
+	 * are sorted, every term in the range starts with the prefix.
+	 *
+	 * @param prefix the prefix to search for
+	 * @return a two element array of the first id in the range and the id after
+	 *   the last id in the range, which are equal if no term starts with the
+	 *   prefix
+	 */
+	public int[] prefixRange(String prefix) {
+		int start = lowerBound(prefix);
+
+		// the smallest string greater than every string starting with the prefix
+		int last = prefix.length() - 1;
+		while (last >= 0 && prefix.charAt(last) == Character.MAX_VALUE) {
+			last--;
+		}
+
+		int end = size;
+		if (last >= 0) {
+			String successor = prefix.substring(0, last) + (char) (prefix.charAt(last) + 1);
+			end = lowerBound(successor);
+		}
+		return new int[] { start, end };
+	}
+
+	/**
+	 * Returns an iterator over the terms in sorted order, decoding each block once.
+	 *
+	 * @return an iterator over the terms
+	 */
+	@Override
+	public Iterator<String> iterator() {
+		return new Iterator<>() {
+			/** Decodes the terms in order. */
+			private final Cursor cursor = new Cursor();
+
+			@Override
+			public boolean hasNext() {
+				return cursor.id + 1 < size;
+			}
+
+			@Override
+			public String next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				cursor.next();
+				return cursor.term();
+			}
+		};
+	}
+
+	/**
+	 * Decodes terms one at a time into a reusable character buffer.
+	 */
+	private class Cursor {
+		/** The characters of the current term. */
+		private final char[] chars;
+
+		/** The length of the current term. */
+		private int length;
+
+		/** The id of the current term, or one less than the first id to decode. */
+		private int id;
+
+		/** The offset of the next byte to decode. */
+		private int offset;
+
+		/**
+		 * Constructs a cursor positioned before the first term.
+		 */
+		private Cursor() {
+			this.chars = new char[maxLength];
+			this.length = 0;
+			this.id = -1;
+			this.offset = 0;
+		}
+
+		/**
+		 * Positions the cursor before the first term of the block.
+		 *
+		 * @param block the block index
+		 */
+		private void seek(int block) {
+			this.offset = blocks[block];
+			this.id = block * BLOCK_SIZE - 1;
+			this.length = 0;
+		}
+
+		/**
+		 * Decodes the next term into the buffer.
+		 */
+		private void next() {
+			id++;
+			int shared = id % BLOCK_SIZE == 0 ? 0 : readVarint();
+			int suffix = readVarint();
+			for (int i = 0; i < suffix; i++) {
+				chars[shared + i] = (char) readVarint();
+			}
+			length = shared + suffix;
+		}
+
+		/**
+		 * Reads a variable-length integer.
+		 *
+		 * @return the decoded value
+		 */
+		private int readVarint() {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = data[offset++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			return value;
+		}
+
+		/**
+		 * Compares the current term to the given term, in the same order as
+		 * {@link String#compareTo(String)}.
+		 *
+		 * @param other the term to compare to
+		 * @return a negative number, zero, or a positive number if the current term
+		 *   is less than, equal to, or greater than the other term
+		 */
+		private int compareTo(String other) {
+			int limit = Math.min(length, other.length());
+			for (int i = 0; i < limit; i++) {
+				int compared = chars[i] - other.charAt(i);
+				if (compared != 0) {
+					return compared;
+				}
+			}
+			return length - other.length();
+		}
+
+		/**
+		 * Returns the current term.
+		 *
+		 * @return the current term
+		 */
+		private String term() {
+			return new String(chars, 0, length);
+		}
+	}
+}
@@ -5,11 +5,18 @@ import static opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM.ENGLISH;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Set;
 
-import edu.usfca.cs272.util.FileStemmer;
+import edu.usfca.cs272.util.ByteLineReader;
+import edu.usfca.cs272.util.StemCache;
+import edu.usfca.cs272.util.TextAnalyzer;
+import edu.usfca.cs272.util.WordTokenizer;
 import opennlp.tools.stemmer.Stemmer;
 import opennlp.tools.stemmer.snowball.SnowballStemmer;
 
@@ -22,6 +29,10 @@ public class TextFileIndexer {
 	 * The inverted index to store word occurrences across multiple files.
 	 */
 	private final InvertedIndex invertedIndex;
+	/**
+	 * The cache of stems shared by every file indexed.
+	 */
+	private final StemCache stems;
 	/**
 	 * Stemmer used to index files.
 	 */
@@ -34,7 +45,18 @@ public class TextFileIndexer {
 	 */
 	public TextFileIndexer(InvertedIndex invertedIndex) {
 		this.invertedIndex = invertedIndex;
-		this.stemmer = new SnowballStemmer(ENGLISH);
+		this.stems = new StemCache();
+		this.stemmer = stems.wrap(new SnowballStemmer(ENGLISH));
+	}
+
+	/**
+	 * Returns the cache of stems shared by every file indexed, which stemmers of
+	 * other threads should wrap.
+	 *
+	 * @return the cache of stems
+	 */
+	public StemCache getStemCache() {
+		return stems;
 	}
 
 	/**
@@ -64,27 +86,85 @@ public class TextFileIndexer {
 	}
 
 	/**
-	 * Lists the stems in a file and updates the inverted index.
+	 * Lists the stems in a file and updates the inverted index. The file is
+	 * memory-mapped and read as bytes, unless it is too large to map at once.
 	 *
 	 * @param file the file to index
 	 * @param invertedIndex the index to update
 	 * @param stemmer the stemmer to use
 	 * 
 	 * @throws IOException if an error occurs while reading the file
+	 *
+	 * @see #indexBytes(ByteBuffer, String, InvertedIndex, Stemmer)
 	 */
 	public static void indexFile(Path file, InvertedIndex invertedIndex, Stemmer stemmer) throws IOException {
-		int position = 1;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size <= Integer.MAX_VALUE) {
+				indexBytes(channel.map(MapMode.READ_ONLY, 0, size), file.toString(), invertedIndex, stemmer);
+				return;
+			}
+		}
+
 		try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
-			String line;
-			while ((line = reader.readLine()) != null) {
-				if (!line.isBlank()) {
-					for (String word : FileStemmer.parse(line)) {
-						invertedIndex.add(stemmer.stem(word).toString(), file.toString(), position);
-						position++;
-					}
-				}
+			indexLines(reader, file.toString(), invertedIndex, stemmer);
+		}
+	}
+
+	/**
+	 * Lists the stems in every line of UTF-8 bytes and updates the inverted index,
+	 * numbering positions from 1. ASCII lines are tokenized straight from the
+	 * bytes, without creating a string for each line.
+	 *
+	 * @param bytes the bytes of the lines to index
+	 * @param source the source of the lines
+	 * @param invertedIndex the index to update
+	 * @param stemmer the stemmer to use
+	 * @return the number of words indexed
+	 * @throws IOException if the bytes are not valid UTF-8
+	 *
+	 * @see ByteLineReader
+	 */
+	public static int indexBytes(ByteBuffer bytes, String source, InvertedIndex invertedIndex, Stemmer stemmer)
+			throws IOException {
+		int position = 1;
+		TextAnalyzer analyzer = TextAnalyzer.get();
+		ByteLineReader reader = new ByteLineReader(bytes);
+		CharSequence line;
+		while ((line = reader.readLine()) != null) {
+			WordTokenizer words = analyzer.tokenize(line);
+			while (words.next()) {
+				invertedIndex.add(stemmer.stem(words).toString(), source, position);
+				position++;
+			}
+		}
+		return position - 1;
+	}
+
+	/**
+	 * Lists the stems in every line of the reader and updates the inverted index,
+	 * numbering positions from 1.
+	 *
+	 * @param reader the reader of the lines to index
+	 * @param source the source of the lines
+	 * @param invertedIndex the index to update
+	 * @param stemmer the stemmer to use
+	 * @return the number of words indexed
+	 * @throws IOException if an error occurs while reading the lines
+	 */
+	public static int indexLines(BufferedReader reader, String source, InvertedIndex invertedIndex, Stemmer stemmer)
+			throws IOException {
+		int position = 1;
+		TextAnalyzer analyzer = TextAnalyzer.get();
+		String line;
+		while ((line = reader.readLine()) != null) {
+			WordTokenizer words = analyzer.tokenize(line);
+			while (words.next()) {
+				invertedIndex.add(stemmer.stem(words).toString(), source, position);
+				position++;
 			}
 		}
+		return position - 1;
 	}
 
 	/**
@@ -0,0 +1,222 @@
+package edu.usfca.cs272.index;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Watches a directory of text files and keeps the index up to date as files are
+ * created, modified, or deleted. Changes are collected until the directory has
+ * been quiet for a short delay, or a batch is full, and then handed to an
+ * {@link IncrementalTextFileIndexer} in one batch, so a burst of writes to the
+ * same file is indexed once. Subdirectories are watched as they are created.
+ *
+ * The watcher runs in its own daemon thread until it is closed. Searches of the
+ * index see each batch once it has been merged, typically within a second of
+ * the last change.
+ *
+ * @see WatchService
+ */
+public class TextFileWatcher implements Closeable {
+	/**
+	 * Logger for logging events in TextFileWatcher class.
+	 */
+	private static final Logger logger = LogManager.getLogger(TextFileWatcher.class);
+
+	/**
+	 * The number of milliseconds without changes before a batch is indexed.
+	 */
+	private static final long QUIET_MILLIS = 250;
+
+	/**
+	 * The number of changed paths that are indexed as a batch without waiting for
+	 * the directory to be quiet.
+	 */
+	private static final int MAX_BATCH = 64;
+
+	/**
+	 * The root directory of the watched text files.
+	 */
+	private final Path root;
+
+	/**
+	 * The indexer that updates the index for each batch of changes.
+	 */
+	private final IncrementalTextFileIndexer indexer;
+
+	/**
+	 * The service notified of changes to the watched directories.
+	 */
+	private final WatchService watcher;
+
+	/**
+	 * The watched directory of each registered key.
+	 */
+	private final Map<WatchKey, Path> directories;
+
+	/**
+	 * The thread collecting and indexing changes.
+	 */
+	private final Thread thread;
+
+	/**
+	 * Constructs a watcher of the text files in the root directory, and registers
+	 * the directory and its subdirectories. Nothing is indexed until the watcher is
+	 * started, so the root should already have been indexed by the indexer.
+	 *
+	 * @param root the root directory of the text files
+	 * @param indexer the indexer that updates the index for each batch of changes
+	 * @throws IOException if an I/O error occurs while registering directories
+	 */
+	public TextFileWatcher(Path root, IncrementalTextFileIndexer indexer) throws IOException {
+		this.root = root;
+		this.indexer = indexer;
+		this.watcher = root.getFileSystem().newWatchService();
+		this.directories = new HashMap<>();
+		this.thread = new Thread(this::watch, "text-file-watcher");
+		this.thread.setDaemon(true);
+		register(root);
+	}
+
+	/**
+	 * Starts watching for changes in the background.
+	 */
+	public void start() {
+		logger.info("Watching {} directories under: {}", directories.size(), root);
+		thread.start();
+	}
+
+	/**
+	 * Registers a directory and its subdirectories with the watch service,
+	 * following any symbolic links like {@link TextFileFinder}.
+	 *
+	 * @param directory the directory to register
+	 * @throws IOException if an I/O error occurs while registering directories
+	 */
+	private void register(Path directory) throws IOException {
+		try (Stream<Path> found = TextFileFinder.find(directory, Files::isDirectory)) {
+			for (Path path : (Iterable<Path>) found::iterator) {
+				directories.put(path.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), path);
+			}
+		}
+	}
+
+	/**
+	 * Collects batches of changes and indexes them until the watcher is closed.
+	 */
+	private void watch() {
+		try {
+			while (true) {
+				Set<Path> batch = new LinkedHashSet<>();
+				boolean overflow = collect(watcher.take(), batch);
+				WatchKey key;
+				while (!overflow && batch.size() < MAX_BATCH
+						&& (key = watcher.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+					overflow = collect(key, batch);
+				}
+				index(batch, overflow);
+			}
+		}
+		catch (ClosedWatchServiceException e) {
+			logger.debug("Stopped watching: {}", root);
+		}
+		catch (InterruptedException e) {
+			logger.debug("Interrupted watching: {}", root);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Adds the paths changed by the events of a key to the batch, and resets the
+	 * key so it is signalled again.
+	 *
+	 * @param key the signalled key
+	 * @param batch the changed paths
+	 * @return true if events were lost and the whole root must be rescanned
+	 */
+	private boolean collect(WatchKey key, Set<Path> batch) {
+		Path directory = directories.get(key);
+		boolean overflow = false;
+		List<WatchEvent<?>> events = key.pollEvents();
+		for (WatchEvent<?> event : events) {
+			if (event.kind() == OVERFLOW) {
+				overflow = true;
+			}
+			else if (directory != null) {
+				batch.add(directory.resolve((Path) event.context()));
+			}
+		}
+		if (!key.reset()) {
+			directories.remove(key);
+		}
+		return overflow;
+	}
+
+	/**
+	 * Indexes a batch of changes, registering any new directories first so files
+	 * created in them are not missed.
+	 *
+	 * @param batch the changed paths
+	 * @param overflow true if events were lost and the whole root must be
+	 *   rescanned
+	 */
+	private void index(Set<Path> batch, boolean overflow) {
+		try {
+			for (Path path : batch) {
+				if (Files.isDirectory(path)) {
+					register(path);
+				}
+			}
+
+			if (overflow) {
+				logger.warn("Missed changes under {}, rescanning every file", root);
+				register(root);
+				indexer.indexPath(root);
+			}
+			else {
+				logger.info("Updating {} changed paths", batch.size());
+				indexer.update(batch);
+			}
+		}
+		catch (IOException | RuntimeException e) {
+			logger.error("Error updating the index from: " + root, e);
+		}
+	}
+
+	/**
+	 * Stops watching for changes, and waits for any batch being indexed to finish.
+	 *
+	 * @throws IOException if an I/O error occurs while closing the watch service
+	 */
+	@Override
+	public void close() throws IOException {
+		watcher.close();
+		try {
+			thread.join();
+		}
+		catch (InterruptedException e) {
+			logger.debug("Interrupted waiting for the watcher to stop: {}", root);
+			Thread.currentThread().interrupt();
+		}
+	}
+}
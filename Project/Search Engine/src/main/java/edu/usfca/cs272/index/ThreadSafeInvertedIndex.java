@@ -3,21 +3,29 @@ package edu.usfca.cs272.index;
 import java.io.IOException;
 import java.io.Writer;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import edu.usfca.cs272.threads.MultiReaderLock;
+import edu.usfca.cs272.threads.WorkQueue;
+import edu.usfca.cs272.util.JsonWriter;
 
 /**
  * Represents an inverted index that maps words to their source locations and
  * positions. Provides methods for interacting with data and performing both
  * exact and partial searches in a thread-safe manner.
+ *
+ * The index JSON is exported from a frozen snapshot taken under the read lock
+ * for each export and dropped once the export finishes, so writers only wait
+ * while the snapshot is taken rather than while it is written.
  */
 public class ThreadSafeInvertedIndex extends InvertedIndex {
 	/**
@@ -71,6 +79,24 @@ public class ThreadSafeInvertedIndex extends InvertedIndex {
 		}
 	}
 
+	/**
+	 * Acquires the write lock, performs the specified write operation, and then
+	 * releases the lock in a thread-safe manner.
+	 *
+	 * @param <T> the return type of the write operation
+	 * @param operation the write operation to perform
+	 * @return the result of the write operation
+	 */
+	private <T> T writeOperation(Supplier<T> operation) {
+		lock.writeLock().lock();
+		try {
+			return operation.get();
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
 	/**
 	 * Adds a list of words from a source to the inverted index and updates the word
 	 * count in a thread safe manner.
@@ -107,6 +133,44 @@ public class ThreadSafeInvertedIndex extends InvertedIndex {
 		writeOperation(() -> super.addAll(other));
 	}
 
+	/**
+	 * Removes a source from the inverted index, along with its word count, in a
+	 * thread-safe manner.
+	 *
+	 * @param source the source to remove
+	 * @return true if the source was in the index
+	 */
+	@Override
+	public boolean remove(String source) {
+		return writeOperation(() -> super.remove(source));
+	}
+
+	/**
+	 * Removes a source from the inverted index, along with its word count, in a
+	 * thread-safe manner. Only the given words are checked for postings of the
+	 * source.
+	 *
+	 * @param source the source to remove
+	 * @param words the words found in the source
+	 * @return true if the source was in the index
+	 */
+	@Override
+	public boolean remove(String source, Collection<String> words) {
+		return writeOperation(() -> super.remove(source, words));
+	}
+
+	/**
+	 * Returns a read-only snapshot of this index compacted into sorted arrays in a
+	 * thread-safe manner. The snapshot is taken under the read lock, and needs no
+	 * locking once taken.
+	 *
+	 * @return a frozen copy of this index
+	 */
+	@Override
+	public FrozenInvertedIndex freeze() {
+		return readOperation(super::freeze);
+	}
+
 	/**
 	 * Returns the number of sources stored in the counts map in a thread-safe
 	 * manner.
@@ -277,110 +341,115 @@ public class ThreadSafeInvertedIndex extends InvertedIndex {
 	}
 
 	/**
-	 * Writes the source word counts to a JSON file in a thread-safe manner.
+	 * Writes the source word counts to a JSON file in a thread-safe manner. The
+	 * counts are copied under the read lock and written without holding it.
 	 *
 	 * @param path the path to the output JSON file
 	 * @throws IOException if an I/O error occurs while writing the file
 	 */
 	@Override
 	public void countsToJson(Path path) throws IOException {
-		lock.readLock().lock();
-
-		try {
-			super.countsToJson(path);
-			logger.debug("Successfully wrote source word counts to JSON file: {}", path);
-		}
-		finally {
-			lock.readLock().unlock();
-		}
+		logger.info("Writing counts JSON to file: {}", path);
+		JsonWriter.writeObject(viewCounts(), path);
+		logger.debug("Successfully wrote source word counts to JSON file: {}", path);
 	}
 
 	/**
 	 * Writes the source word counts with the provided writer in a thread-safe
-	 * manner.
+	 * manner. The counts are copied under the read lock and written without
+	 * holding it.
 	 *
 	 * @param writer the provided writer
 	 * @throws IOException if an I/O error occurs while writing the file
 	 */
 	@Override
 	public void countsToJson(Writer writer) throws IOException {
-		lock.readLock().lock();
-
-		try {
-			super.countsToJson(writer);
-		}
-		finally {
-			lock.readLock().unlock();
-		}
+		JsonWriter.writeObject(viewCounts(), writer);
 	}
 
 	/**
 	 * Returns a JSON-formatted string representation of the inverted index in a
-	 * thread-safe manner.
+	 * thread-safe manner, from a frozen snapshot of the index.
 	 *
 	 * @return a JSON string representing the inverted index
+	 * @see #freeze()
 	 */
 	@Override
 	public String indexToJson() {
-		return readOperation(super::indexToJson);
+		return freeze().indexToJson();
 	}
 
 	/**
-	 * Writes the inverted index to a JSON file in a thread-safe manner.
+	 * Writes the inverted index to a JSON file in a thread-safe manner. The read
+	 * lock is only held while a frozen snapshot of the index is taken, so writers
+	 * can continue while the snapshot is written.
 	 *
 	 * @param path the path to the output JSON file
 	 * @throws IOException if an I/O error occurs while writing the file
+	 * @see #freeze()
 	 */
 	@Override
 	public void indexToJson(Path path) throws IOException {
-		lock.readLock().lock();
+		freeze().indexToJson(path);
+		logger.debug("Successfully wrote inverted index to JSON file: {}", path);
+	}
 
-		try {
-			super.indexToJson(path);
-			logger.debug("Successfully wrote inverted index to JSON file: {}", path);
-		}
-		finally {
-			lock.readLock().unlock();
-		}
+	/**
+	 * Writes the inverted index to a JSON file in a thread-safe manner, rendering
+	 * ranges of words in parallel. The read lock is only held while a frozen
+	 * snapshot of the index is taken.
+	 *
+	 * @param path the path to the output JSON file
+	 * @param tasks the work queue used to render the index
+	 * @throws IOException if an I/O error occurs while writing the file
+	 * @see #freeze()
+	 */
+	@Override
+	public void indexToJson(Path path, WorkQueue tasks) throws IOException {
+		freeze().indexToJson(path, tasks);
 	}
 
 	/**
 	 * Writes the inverted index with the provided writer in a thread-safe manner.
+	 * The read lock is only held while a frozen snapshot of the index is taken, so
+	 * writers can continue while the snapshot is written.
 	 *
 	 * @param writer the provided writer
 	 * @throws IOException if an I/O error occurs while writing the file
+	 * @see #freeze()
 	 */
 	@Override
 	public void indexToJson(Writer writer) throws IOException {
-		lock.readLock().lock();
-
-		try {
-			super.indexToJson(writer);
-		}
-		finally {
-			lock.readLock().unlock();
-		}
+		freeze().indexToJson(writer);
 	}
 
 	/**
-	 * Performs an partial search on the given query terms in a thread-safe manner.
+	 * Runs a search under the read lock and returns every matching document as a
+	 * sorted list of search results. Every search overload returning a list goes
+	 * through this method, so all of them are thread-safe.
 	 *
-	 * @param query the collection of words to search for
+	 * @param collector the search accumulating matches into the accumulator
 	 * @return a sorted list of search results
 	 */
 	@Override
-	public List<SearchResult> searchPartial(Set<String> query) {
-		return readOperation(() -> super.searchPartial(query));
+	List<SearchResult> search(Consumer<ScoreAccumulator> collector) {
+		return readOperation(() -> super.search(collector));
 	}
 
 	/**
-	 * Performs an exact search on the given query terms in a thread-safe manner.
+	 * Runs a search under the read lock and selects the best matching documents.
+	 * Every search overload returning top results goes through this method, so
+	 * all of them are thread-safe.
 	 *
-	 * @param query the collection of words to search for
-	 * @return a sorted list of search results
+	 * @param collector the search accumulating matches into the accumulator
+	 * @param limit the maximum number of results to keep
+	 * @param filter the sources of the results to count and keep
+	 * @param reverse true to keep the worst results in reverse order instead
+	 * @return the sorted top results and the total number of accepted hits
 	 */
 	@Override
-	public List<SearchResult> searchExact(Set<String> query) {
-		return readOperation(() -> super.searchExact(query));
+	TopResults search(Consumer<ScoreAccumulator> collector, int limit, Predicate<? super String> filter,
+			boolean reverse) {
+		return readOperation(() -> super.search(collector, limit, filter, reverse));
 	}
 }
@@ -0,0 +1,101 @@
+package edu.usfca.cs272.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+import edu.usfca.cs272.index.InvertedIndex.SearchResult;
+
+/**
+ * The best results of a search up to some limit, along with the total number of
+ * hits. The results are selected with a bounded heap, so only the kept results
+ * are ever created and sorted, which is much cheaper than sorting every hit when
+ * only one page of results is displayed.
+ */
+public class TopResults {
+	/** The kept results in sorted order. */
+	private final List<SearchResult> results;
+
+	/** The total number of hits, including those that were not kept. */
+	private final int totalHits;
+
+	/**
+	 * Constructs top results from already sorted results.
+	 *
+	 * @param results the sorted results to keep
+	 * @param totalHits the total number of hits
+	 */
+	public TopResults(List<SearchResult> results, int totalHits) {
+		this.results = Collections.unmodifiableList(results);
+		this.totalHits = totalHits;
+	}
+
+	/**
+	 * Selects the best accumulated matches whose source is accepted by the filter,
+	 * up to the limit. The heap is ordered worst first, and a match is compared to
+	 * the worst kept result by its primitive score and count, so a search result is
+	 * only created for a match that is kept. The kept results are sorted once at
+	 * the end.
+	 *
+	 * @param index the index the matches were accumulated from
+	 * @param matches the accumulated match counts by document id
+	 * @param limit the maximum number of results to keep
+	 * @param filter the sources of the matches to count and keep
+	 * @param reverse true to keep the worst matches in reverse order instead
+	 * @return the selected results
+	 */
+	static TopResults select(InvertedIndex index, ScoreAccumulator matches, int limit,
+			Predicate<? super String> filter, boolean reverse) {
+		DocumentTable documents = index.documents();
+		Comparator<SearchResult> order = reverse ? Comparator.reverseOrder() : Comparator.naturalOrder();
+		int capacity = Math.max(0, Math.min(limit, matches.size()));
+		PriorityQueue<SearchResult> heap = new PriorityQueue<>(Math.max(1, capacity), order.reversed());
+		int total = 0;
+
+		for (int i = 0; i < matches.size(); i++) {
+			int id = matches.document(i);
+			String source = documents.source(id);
+			if (!filter.test(source)) {
+				continue;
+			}
+			total++;
+			int matchCount = matches.matches(id);
+			if (heap.size() < capacity) {
+				heap.add(index.result(id, matchCount));
+			}
+			else if (capacity > 0) {
+				double score = InvertedIndex.score(matchCount, documents.count(id));
+				int compared = heap.peek().compareTo(score, matchCount, source);
+				if (reverse ? compared < 0 : compared > 0) {
+					heap.poll();
+					heap.add(index.result(id, matchCount));
+				}
+			}
+		}
+
+		List<SearchResult> kept = new ArrayList<>(heap);
+		kept.sort(order);
+		return new TopResults(kept, total);
+	}
+
+	/**
+	 * Returns an unmodifiable view of the kept results in sorted order.
+	 *
+	 * @return the kept results
+	 */
+	public List<SearchResult> getResults() {
+		return results;
+	}
+
+	/**
+	 * Returns the total number of hits, including those that were not kept.
+	 *
+	 * @return the total number of hits
+	 */
+	public int getTotalHits() {
+		return totalHits;
+	}
+}
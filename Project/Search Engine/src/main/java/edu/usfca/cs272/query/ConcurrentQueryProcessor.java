@@ -15,7 +15,7 @@ import org.apache.logging.log4j.Logger;
 
 import edu.usfca.cs272.index.InvertedIndex;
 import edu.usfca.cs272.threads.WorkQueue;
-import edu.usfca.cs272.util.FileStemmer;
+import edu.usfca.cs272.util.TextAnalyzer;
 import edu.usfca.cs272.util.JsonWriter;
 
 /**
@@ -60,6 +60,22 @@ public class ConcurrentQueryProcessor implements QueryProcessor {
 		logger.debug("Initialized ConcurrentQueryProcessor with given search function");
 	}
 
+	/**
+	 * Constructs a ConcurrentQueryProcessor with the provided search function, such
+	 * as a search of an index stored elsewhere, and a WorkQueue for task
+	 * management. The search function must be safe to call from multiple threads.
+	 *
+	 * @param search the function performing the search of each query
+	 * @param tasks the WorkQueue to manage concurrent query processing tasks
+	 */
+	public ConcurrentQueryProcessor(Function<Set<String>, List<InvertedIndex.SearchResult>> search,
+			WorkQueue tasks) {
+		this.results = new TreeMap<>();
+		this.search = search;
+		this.tasks = tasks;
+		logger.debug("Initialized ConcurrentQueryProcessor with given search function");
+	}
+
 	/**
 	 * Reads a query file line by line and processes each query concurrently.
 	 *
@@ -220,7 +236,7 @@ public class ConcurrentQueryProcessor implements QueryProcessor {
 		 */
 		@Override
 		public void run() {
-			TreeSet<String> query = FileStemmer.uniqueStems(line);
+			TreeSet<String> query = TextAnalyzer.get().uniqueStems(line);
 			if (query.isEmpty()) {
 				return;
 			}
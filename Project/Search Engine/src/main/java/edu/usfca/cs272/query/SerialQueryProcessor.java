@@ -52,6 +52,18 @@ public class SerialQueryProcessor implements QueryProcessor {
 		this.stemmer = new SnowballStemmer(ENGLISH);
 	}
 
+	/**
+	 * Constructs a QueryProcessor with the provided search function, such as a
+	 * search of an index stored elsewhere.
+	 *
+	 * @param search the function performing the search of each query
+	 */
+	public SerialQueryProcessor(Function<Set<String>, List<InvertedIndex.SearchResult>> search) {
+		this.results = new TreeMap<>();
+		this.search = search;
+		this.stemmer = new SnowballStemmer(ENGLISH);
+	}
+
 	/**
 	 * Processes a single line of queries, performing a search and storing the
 	 * results.
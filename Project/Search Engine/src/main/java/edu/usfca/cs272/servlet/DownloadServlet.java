@@ -13,8 +13,8 @@ import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * Servlet serving the inverted index as a downloadable JSON file. Responds to
- * HTTP GET requests by writing the contents of the ThreadSafeInvertedIndex to
- * the response output stream.
+ * HTTP GET requests by writing the contents of the search engine's inverted
+ * index to the response output stream.
  */
 public class DownloadServlet extends HttpServlet {
 	/** Class version for serialization, in [YEAR][TERM] format (unused). */
@@ -17,7 +17,7 @@ import org.eclipse.jetty.server.handler.ShutdownHandler;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.resource.ResourceFactory;
 
-import edu.usfca.cs272.index.ThreadSafeInvertedIndex;
+import edu.usfca.cs272.index.InvertedIndex;
 
 /**
  * A web server that provides a search interface for the inverted index. Allows
@@ -59,9 +59,10 @@ public class SearchEngine {
 	private static int totalQueries = 0;
 
 	/**
-	 * Thread-safe inverted index used to perform search operations.
+	 * Thread-safe inverted index used to perform search operations, usually a
+	 * frozen snapshot of the built index.
 	 */
-	private static ThreadSafeInvertedIndex invertedIndex;
+	private static InvertedIndex invertedIndex;
 
 	/** Logger for SearchEngine class. */
 	private static final Logger logger = LogManager.getLogger(SearchEngine.class);
@@ -73,11 +74,12 @@ public class SearchEngine {
 	 * Runs the search engine web server with the specified configuration.
 	 *
 	 * @param port the port to run the server on
-	 * @param invertedIndex the thread-safe inverted index to use for searches
+	 * @param invertedIndex the thread-safe inverted index to use for searches,
+	 *   such as a frozen or thread-safe inverted index
 	 * @param textFiles the path to the text files directory
 	 * @throws Exception if unable to start and run server
 	 */
-	public static void run(int port, ThreadSafeInvertedIndex invertedIndex, Path textFiles) throws Exception {
+	public static void run(int port, InvertedIndex invertedIndex, Path textFiles) throws Exception {
 		logger.info("Started running SearchEngine");
 		SearchEngine.invertedIndex = invertedIndex;
 
@@ -178,7 +180,7 @@ public class SearchEngine {
 	 * 
 	 * @return the inverted index
 	 */
-	public static ThreadSafeInvertedIndex getInvertedIndex() {
+	public static InvertedIndex getInvertedIndex() {
 		return invertedIndex;
 	}
 
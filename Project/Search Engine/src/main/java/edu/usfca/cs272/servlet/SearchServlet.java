@@ -14,6 +14,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.apache.commons.text.StringEscapeUtils;
@@ -22,7 +23,8 @@ import org.apache.commons.text.StringSubstitutor;
 import edu.usfca.cs272.crawler.LinkFinder;
 import edu.usfca.cs272.index.InvertedIndex;
 import edu.usfca.cs272.index.InvertedIndex.SearchResult;
-import edu.usfca.cs272.util.FileStemmer;
+import edu.usfca.cs272.index.TopResults;
+import edu.usfca.cs272.util.TextAnalyzer;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -126,16 +128,17 @@ public class SearchServlet extends HttpServlet {
 		boolean hasQuery = query != null && !query.isBlank();
 
 		long start = System.nanoTime();
-		List<SearchResult> results = processQuery(query, exact, reverse, sourceType);
+		TopResults results = processQuery(query, exact, reverse, sourceType, page);
 		long end = System.nanoTime();
 		double elapsed = (end - start) / 1_000_000_000.0;
-		List<SearchResult> pageResults = paginateResults(results, page);
+		List<SearchResult> pageResults = paginateResults(results.getResults(), page);
+		int totalResults = results.getTotalHits();
 
 		Map<String, String> values = new HashMap<>();
 		values.put("title", TITLE);
 		values.put("query", hasQuery ? StringEscapeUtils.escapeHtml4(query) : "");
-		values.put("results", hasQuery ? buildResultsHtml(pageResults, query, request, results.size(), page, elapsed) : "");
-		values.put("pagination", buildPaginationHtml(request, results.size(), page));
+		values.put("results", hasQuery ? buildResultsHtml(pageResults, query, request, totalResults, page, elapsed) : "");
+		values.put("pagination", buildPaginationHtml(request, totalResults, page));
 		values.put("uptime", SearchEngine.getUptime());
 		values.put("totalQueries", String.valueOf(SearchEngine.getTotalQueries()));
 		values.put("totalWords", String.valueOf(SearchEngine.getInvertedIndex().sizeWords()));
@@ -162,48 +165,48 @@ public class SearchServlet extends HttpServlet {
 
 	/**
 	 * Executes the search query against the inverted index, applies source
-	 * filtering, optionally reverses the order, and returns the full result list.
+	 * filtering, optionally reverses the order, and keeps only the results up to
+	 * the end of the requested page. Only the kept results are sorted.
 	 *
 	 * @param query the search query string
 	 * @param exact true for exact matches only, false for partial matches
 	 * @param reverse true to reverse the result order
 	 * @param sourceType the filter for source type ("web", "local", or null/all)
-	 * @return the list of SearchResult objects matching the criteria
+	 * @param page the 1-based page number to keep results for
+	 * @return the results up to the end of the page and the total number of hits
 	 */
-	private static List<SearchResult> processQuery(String query, boolean exact, boolean reverse, String sourceType) {
+	private static TopResults processQuery(String query, boolean exact, boolean reverse, String sourceType,
+			int page) {
 		if (query == null || query.isBlank()) {
-			return List.of();
+			return new TopResults(List.of(), 0);
 		}
 
-		var stemmedQuery = FileStemmer.uniqueStems(query);
+		var stemmedQuery = TextAnalyzer.get().uniqueStems(query);
+		int limit = (int) Math.min(Integer.MAX_VALUE, (long) page * RESULTS_PER_PAGE);
+		Predicate<String> filter = source -> filterBySource(source, sourceType);
 
-		List<SearchResult> results = exact ? SearchEngine.getInvertedIndex().searchExact(stemmedQuery)
-				: SearchEngine.getInvertedIndex().searchPartial(stemmedQuery);
+		TopResults results = exact
+				? SearchEngine.getInvertedIndex().searchExact(stemmedQuery, limit, filter, reverse)
+				: SearchEngine.getInvertedIndex().searchPartial(stemmedQuery, limit, filter, reverse);
 
 		SearchEngine.incrementQueryCount();
 
-		results = results.stream().filter(r -> filterBySource(r, sourceType)).collect(Collectors.toList());
-
-		if (reverse) {
-			Collections.reverse(results);
-		}
-
 		return results;
 	}
 
 	/**
-	 * Determines if a SearchResult's source should be included based on the
+	 * Determines if a result's source should be included based on the
 	 * sourceType.
 	 *
-	 * @param result the SearchResult to test
+	 * @param source the source of the result to test
 	 * @param sourceType the source filter string ("web", "local", or null/all)
-	 * @return true if the result matches the filter, false otherwise
+	 * @return true if the source matches the filter, false otherwise
 	 */
-	private static boolean filterBySource(SearchResult result, String sourceType) {
+	private static boolean filterBySource(String source, String sourceType) {
 		if (sourceType == null || "all".equals(sourceType)) {
 			return true;
 		}
-		boolean isWeb = LinkFinder.isHttp(result.getSource());
+		boolean isWeb = LinkFinder.isHttp(source);
 		return "web".equals(sourceType) ? isWeb : !isWeb;
 	}
 
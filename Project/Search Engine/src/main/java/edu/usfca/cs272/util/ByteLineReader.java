@@ -0,0 +1,218 @@
+package edu.usfca.cs272.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.util.Arrays;
+
+/**
+ * Reads lines of UTF-8 text directly from a buffer of bytes, such as a
+ * memory-mapped file, splitting lines the same way as
+ * {@link BufferedReader#readLine()}. Lines end at a line feed, a carriage
+ * return, or a carriage return followed by a line feed.
+ *
+ * Lines are scanned eight bytes at a time while they are ASCII and have no line
+ * breaks. An ASCII line is returned as a reusable view of its bytes instead of a
+ * new string, and is recognized by {@link WordTokenizer} as already ASCII. Only
+ * lines with other characters are decoded, and malformed or unmappable input is
+ * reported the same way as by {@link java.nio.file.Files#newBufferedReader}.
+ *
+ * Warning: This class is not thread-safe. If multiple threads access this class
+ * concurrently, access must be synchronized externally.
+ */
+public class ByteLineReader {
+	/** The high bit of every byte of a word. */
+	private static final long HIGH_BITS = 0x8080808080808080L;
+
+	/** The low bit of every byte of a word. */
+	private static final long LOW_BITS = 0x0101010101010101L;
+
+	/** A line feed in every byte of a word. */
+	private static final long LINE_FEEDS = '\n' * LOW_BITS;
+
+	/** A carriage return in every byte of a word. */
+	private static final long CARRIAGE_RETURNS = '\r' * LOW_BITS;
+
+	/** The bytes to read. */
+	private final ByteBuffer bytes;
+
+	/** The position just after the last byte to read. */
+	private final int limit;
+
+	/** The position of the next byte to read. */
+	private int position;
+
+	/** Decodes lines that are not ASCII. */
+	private final CharsetDecoder decoder;
+
+	/** The current line, if it is ASCII. */
+	private final AsciiLine ascii;
+
+	/** The current line, if it is not ASCII. */
+	private CharBuffer decoded;
+
+	/**
+	 * Constructs a reader of the remaining bytes of the buffer. The position of
+	 * the buffer is not changed.
+	 *
+	 * @param bytes the bytes to read
+	 */
+	public ByteLineReader(ByteBuffer bytes) {
+		this.bytes = bytes;
+		this.limit = bytes.limit();
+		this.position = bytes.position();
+		this.decoder = UTF_8.newDecoder();
+		this.ascii = new AsciiLine();
+		this.decoded = CharBuffer.allocate(128);
+	}
+
+	/**
+	 * Reads the next line, without its line break. The line is only valid until
+	 * the next line is read.
+	 *
+	 * @return the next line, or null at the end of the bytes
+	 * @throws CharacterCodingException if the line is not valid UTF-8
+	 */
+	public CharSequence readLine() throws CharacterCodingException {
+		if (position >= limit) {
+			return null;
+		}
+
+		int start = position;
+		int i = start;
+		long high = 0;
+
+		// skip whole words of bytes until one might hold a line break
+		while (i + Long.BYTES <= limit) {
+			long word = bytes.getLong(i);
+			if (hasByte(word, LINE_FEEDS) || hasByte(word, CARRIAGE_RETURNS)) {
+				break;
+			}
+			high |= word & HIGH_BITS;
+			i += Long.BYTES;
+		}
+
+		while (i < limit) {
+			byte b = bytes.get(i);
+			if (b == '\n' || b == '\r') {
+				break;
+			}
+			high |= b & 0x80;
+			i++;
+		}
+
+		int end = i;
+		if (i < limit) {
+			i += bytes.get(i) == '\r' && i + 1 < limit && bytes.get(i + 1) == '\n' ? 2 : 1;
+		}
+		position = i;
+
+		if (high != 0) {
+			return decode(start, end - start);
+		}
+		ascii.set(bytes, start, end - start);
+		return ascii;
+	}
+
+	/**
+	 * Decodes a line that is not ASCII into the reusable buffer of characters.
+	 * UTF-8 never has more characters than bytes, so the buffer always fits.
+	 *
+	 * @param offset the position of the first byte of the line
+	 * @param count the number of bytes in the line
+	 * @return the decoded line
+	 * @throws CharacterCodingException if the line is not valid UTF-8
+	 */
+	private CharBuffer decode(int offset, int count) throws CharacterCodingException {
+		if (count > decoded.capacity()) {
+			decoded = CharBuffer.allocate(Math.max(count, decoded.capacity() * 2));
+		}
+
+		decoded.clear();
+		decoder.reset();
+		CoderResult result = decoder.decode(bytes.slice(offset, count), decoded, true);
+		if (!result.isError()) {
+			result = decoder.flush(decoded);
+		}
+		if (result.isError()) {
+			result.throwException();
+		}
+		return decoded.flip();
+	}
+
+	/**
+	 * Determines whether any byte of the word equals the byte repeated in the
+	 * pattern.
+	 *
+	 * @param word the word to check
+	 * @param pattern the byte to look for, repeated in every byte
+	 * @return true if any byte of the word equals the byte
+	 */
+	private static boolean hasByte(long word, long pattern) {
+		long zeroed = word ^ pattern;
+		return ((zeroed - LOW_BITS) & ~zeroed & HIGH_BITS) != 0;
+	}
+
+	/**
+	 * A reusable line of ASCII characters, copied out of the bytes so each
+	 * character is a single array access.
+	 */
+	static class AsciiLine implements CharSequence {
+		/** The characters of the line, one per byte. */
+		private byte[] chars;
+
+		/** The number of characters in the line. */
+		private int length;
+
+		/**
+		 * Constructs an empty line.
+		 */
+		public AsciiLine() {
+			this.chars = new byte[128];
+			this.length = 0;
+		}
+
+		/**
+		 * Replaces the line with the given ASCII bytes.
+		 *
+		 * @param source the buffer of bytes
+		 * @param offset the position of the first byte of the line
+		 * @param count the number of bytes in the line
+		 */
+		private void set(ByteBuffer source, int offset, int count) {
+			if (count > chars.length) {
+				chars = Arrays.copyOf(chars, Math.max(count, chars.length * 2));
+			}
+			source.get(offset, chars, 0, count);
+			length = count;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length) {
+				throw new IndexOutOfBoundsException(index);
+			}
+			return (char) chars[index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().substring(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return new String(chars, 0, length, UTF_8);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package edu.usfca.cs272.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.InvalidPropertiesFormatException;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Connects to a relational database configured by a properties file. The file
+ * either has a {@code uri} with the full JDBC URI of any database, such as an
+ * in-process or local one, or the {@code hostname} and {@code database} of a
+ * MariaDB server. The {@code username} and {@code password} are optional.
+ *
+ * @see DriverManager#getConnection(String, Properties)
+ */
+public class DatabaseConnector {
+	/**
+	 * URI to use when connecting to database. Should be in the format:
+	 * jdbc:subprotocol://hostname/database
+	 */
+	public final String uri;
+
+	/** Properties with username and password for connecting to database. */
+	private final Properties login;
+
+	/**
+	 * Creates a connector from the provided database properties file.
+	 *
+	 * @param path path to the database properties file
+	 * @throws IOException if unable to read or properly parse properties file
+	 */
+	public DatabaseConnector(Path path) throws IOException {
+		Properties config = loadConfig(path);
+
+		this.uri = config.containsKey("uri") ? config.getProperty("uri")
+				: String.format("jdbc:mariadb://%s/%s", config.getProperty("hostname"), config.getProperty("database"));
+
+		this.login = new Properties();
+		if (config.containsKey("username")) {
+			login.put("user", config.getProperty("username"));
+		}
+		if (config.containsKey("password")) {
+			login.put("password", config.getProperty("password"));
+		}
+	}
+
+	/**
+	 * Creates a connector for the JDBC URI with the provided login properties.
+	 *
+	 * @param uri the JDBC URI of the database
+	 * @param login the connection properties, such as user and password
+	 */
+	public DatabaseConnector(String uri, Properties login) {
+		this.uri = uri;
+		this.login = login;
+	}
+
+	/**
+	 * Attempts to load properties file with database configuration. Must include
+	 * either a uri, or a hostname and database.
+	 *
+	 * @param path path to database properties file
+	 * @return database properties
+	 * @throws IOException if unable to read or properly parse properties file
+	 */
+	public static Properties loadConfig(Path path) throws IOException {
+		Properties config = new Properties();
+
+		try (BufferedReader reader = Files.newBufferedReader(path)) {
+			config.load(reader);
+		}
+
+		if (!config.containsKey("uri") && !config.keySet().containsAll(Set.of("hostname", "database"))) {
+			throw new InvalidPropertiesFormatException(
+					"Must provide either uri, or hostname and database in properties file: " + path);
+		}
+
+		return config;
+	}
+
+	/**
+	 * Attempts to connect to database using loaded configuration.
+	 *
+	 * @return database connection
+	 * @throws SQLException if unable to establish database connection
+	 */
+	public Connection getConnection() throws SQLException {
+		Connection dbConnection = DriverManager.getConnection(uri, login);
+		dbConnection.setAutoCommit(true);
+		return dbConnection;
+	}
+}
@@ -60,16 +60,23 @@ public class FileStemmer {
 	}
 
 	/**
-	 * Parses the text into an array of clean words.
+	 * Parses the text into an array of clean words, the same words as splitting the
+	 * cleaned text but in a single pass.
 	 *
 	 * @param text the text to clean and split
 	 * @return an array of {@link String} objects
 	 *
 	 * @see #clean(String)
-	 * @see #parse(String)
+	 * @see #split(String)
+	 * @see WordTokenizer
 	 */
 	public static String[] parse(String text) {
-		return split(clean(text));
+		ArrayList<String> words = new ArrayList<>();
+		WordTokenizer tokenizer = new WordTokenizer(text);
+		while (tokenizer.next()) {
+			words.add(tokenizer.toString());
+		}
+		return words.toArray(EMPTY);
 	}
 
 	/**
@@ -85,11 +92,7 @@ public class FileStemmer {
 	 * @see Collection#add(Object)
 	 */
 	public static void addStems(String line, Stemmer stemmer, Collection<String> stems) {
-		String[] words = parse(line);
-		for (String word : words) {
-			String stem = stemmer.stem(word).toString();
-			stems.add(stem);
-		}
+		TextAnalyzer.get().addStems(line, stemmer, stems);
 	}
 
 	/**
@@ -110,19 +113,18 @@ public class FileStemmer {
 	}
 
 	/**
-	 * Parses the line into a list of cleaned and stemmed words using the default
-	 * stemmer for English.
+	 * Parses the line into a list of cleaned and stemmed words using the stemmer
+	 * for English of the calling thread.
 	 *
 	 * @param line the line of words to parse and stem
 	 * @return a list of cleaned and stemmed words in parsed order
 	 *
-	 * @see SnowballStemmer#SnowballStemmer(ALGORITHM)
+	 * @see TextAnalyzer#get()
 	 * @see ALGORITHM#ENGLISH
 	 * @see #listStems(String, Stemmer)
 	 */
 	public static ArrayList<String> listStems(String line) {
-		Stemmer stemmer = new SnowballStemmer(ENGLISH);
-		return listStems(line, stemmer);
+		return listStems(line, TextAnalyzer.get().getStemmer());
 	}
 
 	/**
@@ -171,18 +173,17 @@ public class FileStemmer {
 
 	/**
 	 * Parses the line into a set of unique, sorted, cleaned, and stemmed words
-	 * using the default stemmer for English.
+	 * using the stemmer for English of the calling thread.
 	 *
 	 * @param line the line of words to parse and stem
 	 * @return a sorted set of unique cleaned and stemmed words
 	 *
-	 * @see SnowballStemmer#SnowballStemmer(ALGORITHM)
+	 * @see TextAnalyzer#get()
 	 * @see ALGORITHM#ENGLISH
 	 * @see #uniqueStems(String, Stemmer)
 	 */
 	public static TreeSet<String> uniqueStems(String line) {
-		Stemmer stemmer = new SnowballStemmer(ENGLISH);
-		return uniqueStems(line, stemmer);
+		return TextAnalyzer.get().uniqueStems(line);
 	}
 
 	/**
@@ -0,0 +1,477 @@
+package edu.usfca.cs272.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the "pretty" JSON written by {@link JsonWriter} one token at a time from
+ * a stream, so a file is never loaded as a single string. Objects and arrays are
+ * walked with {@link #beginObject()}, {@link #hasNext()}, and
+ * {@link #endObject()} (or the array equivalents), and the raw text of a value
+ * can be copied out with {@link #copyValue(StringBuilder)} to be parsed later,
+ * possibly by another thread.
+ *
+ * Only the subset of JSON used by this project is supported: objects, arrays,
+ * strings, and integers. Since {@link JsonWriter} does not escape strings, a
+ * backslash in a string that does not start a valid escape is read as a plain
+ * backslash. A backslash that does start one, such as in {@code \n}, is still
+ * read as an escape.
+ *
+ * Warning: This class is not thread-safe. If multiple threads access this class
+ * concurrently, access must be synchronized externally.
+ */
+public class JsonReader implements Closeable {
+	/**
+	 * The number of characters read from the stream at a time.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The stream to read from.
+	 */
+	private final Reader reader;
+
+	/**
+	 * The characters read from the stream.
+	 */
+	private final char[] buffer;
+
+	/**
+	 * The position of the next character in the buffer.
+	 */
+	private int position;
+
+	/**
+	 * The number of characters in the buffer.
+	 */
+	private int limit;
+
+	/**
+	 * The number of characters read before the start of the buffer.
+	 */
+	private long offset;
+
+	/**
+	 * Whether a value has been read since the last separator, so the next element
+	 * of the enclosing object or array must be preceded by a comma.
+	 */
+	private boolean expectComma;
+
+	/**
+	 * Reused to build strings that do not fit in the buffer or contain escapes.
+	 */
+	private final StringBuilder builder;
+
+	/**
+	 * Constructs a reader of the JSON from the provided stream.
+	 *
+	 * @param reader the stream to read from
+	 */
+	public JsonReader(Reader reader) {
+		this.reader = reader;
+		this.buffer = new char[BUFFER_SIZE];
+		this.position = 0;
+		this.limit = 0;
+		this.offset = 0;
+		this.expectComma = false;
+		this.builder = new StringBuilder();
+	}
+
+	/**
+	 * Opens a reader of the JSON file at the given path. If the path has the gzip
+	 * extension, the file is decompressed as it is read.
+	 *
+	 * @param path the file path to read from
+	 * @return the reader of the file
+	 * @throws IOException if an IO error occurs
+	 *
+	 * @see JsonWriter#isCompressed(Path)
+	 */
+	public static JsonReader open(Path path) throws IOException {
+		if (!JsonWriter.isCompressed(path)) {
+			return new JsonReader(Files.newBufferedReader(path, UTF_8));
+		}
+
+		InputStream in = Files.newInputStream(path);
+		try {
+			return new JsonReader(new BufferedReader(new InputStreamReader(new GZIPInputStream(in, BUFFER_SIZE), UTF_8)));
+		}
+		catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the "{" that starts an object.
+	 *
+	 * @throws IOException if an IO error occurs or the next token is not "{"
+	 */
+	public void beginObject() throws IOException {
+		expect('{');
+		expectComma = false;
+	}
+
+	/**
+	 * Reads the "}" that ends an object.
+	 *
+	 * @throws IOException if an IO error occurs or the next token is not "}"
+	 */
+	public void endObject() throws IOException {
+		expect('}');
+		expectComma = true;
+	}
+
+	/**
+	 * Reads the end of the input, which may only follow the outermost value.
+	 *
+	 * @throws IOException if an IO error occurs or anything but whitespace
+	 *   follows
+	 */
+	public void endDocument() throws IOException {
+		if (peek() != -1) {
+			throw error("Unexpected content after the end");
+		}
+	}
+
+	/**
+	 * Reads the "[" that starts an array.
+	 *
+	 * @throws IOException if an IO error occurs or the next token is not "["
+	 */
+	public void beginArray() throws IOException {
+		expect('[');
+		expectComma = false;
+	}
+
+	/**
+	 * Reads the "]" that ends an array.
+	 *
+	 * @throws IOException if an IO error occurs or the next token is not "]"
+	 */
+	public void endArray() throws IOException {
+		expect(']');
+		expectComma = true;
+	}
+
+	/**
+	 * Determines whether the current object or array has another element, reading
+	 * the comma that separates it from the previous element.
+	 *
+	 * @return true if another element follows, false if the object or array ends
+	 * @throws IOException if an IO error occurs or the JSON is malformed
+	 */
+	public boolean hasNext() throws IOException {
+		int next = peek();
+		if (next == '}' || next == ']') {
+			return false;
+		}
+		if (expectComma) {
+			expect(',');
+			expectComma = false;
+			next = peek();
+			if (next == '}' || next == ']') {
+				throw error("Unexpected trailing comma");
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the name of the next member of an object, along with the colon that
+	 * follows it.
+	 *
+	 * @return the name
+	 * @throws IOException if an IO error occurs or the next token is not a name
+	 */
+	public String nextName() throws IOException {
+		String name = readString();
+		expect(':');
+		expectComma = false;
+		return name;
+	}
+
+	/**
+	 * Reads the next string value.
+	 *
+	 * @return the string
+	 * @throws IOException if an IO error occurs or the next token is not a string
+	 */
+	public String nextString() throws IOException {
+		String value = readString();
+		expectComma = true;
+		return value;
+	}
+
+	/**
+	 * Reads the next integer value.
+	 *
+	 * @return the integer
+	 * @throws IOException if an IO error occurs or the next token is not an
+	 *   integer that fits in an int
+	 */
+	public int nextInt() throws IOException {
+		boolean negative = peek() == '-';
+		if (negative) {
+			position++;
+		}
+
+		long value = 0;
+		int digits = 0;
+		while (fill()) {
+			char c = buffer[position];
+			if (c < '0' || c > '9') {
+				break;
+			}
+			value = value * 10 + (c - '0');
+			if (value > Integer.MAX_VALUE + 1L) {
+				throw error("Integer out of range");
+			}
+			position++;
+			digits++;
+		}
+
+		if (digits == 0) {
+			throw error("Expected an integer");
+		}
+		value = negative ? -value : value;
+		if (value > Integer.MAX_VALUE) {
+			throw error("Integer out of range");
+		}
+		expectComma = true;
+		return (int) value;
+	}
+
+	/**
+	 * Appends the raw text of the next value, including any nested objects and
+	 * arrays, to the builder without parsing it.
+	 *
+	 * @param out the builder to append the value to
+	 * @throws IOException if an IO error occurs or the value is malformed
+	 */
+	public void copyValue(StringBuilder out) throws IOException {
+		peek();
+		int copied = 0;
+		int depth = 0;
+		boolean string = false;
+		boolean escaped = false;
+		boolean done = false;
+
+		while (!done) {
+			if (!fill()) {
+				if (string || depth > 0) {
+					throw error("Unexpected end of input");
+				}
+				break;
+			}
+
+			int start = position;
+			while (position < limit && !done) {
+				char c = buffer[position];
+				if (string) {
+					if (escaped) {
+						escaped = false;
+					}
+					else if (c == '\\') {
+						escaped = true;
+					}
+					else if (c == '"') {
+						string = false;
+						done = depth == 0;
+					}
+				}
+				else if (depth == 0 && (c == ',' || c == '}' || c == ']' || Character.isWhitespace(c))) {
+					done = true;
+					break;
+				}
+				else if (c == '"') {
+					string = true;
+				}
+				else if (c == '{' || c == '[') {
+					depth++;
+				}
+				else if (c == '}' || c == ']') {
+					depth--;
+					done = depth == 0;
+				}
+				position++;
+			}
+			out.append(buffer, start, position - start);
+			copied += position - start;
+		}
+
+		if (copied == 0) {
+			throw error("Expected a value");
+		}
+		expectComma = true;
+	}
+
+	/**
+	 * Reads a quoted string, resolving any escapes.
+	 *
+	 * @return the string
+	 * @throws IOException if an IO error occurs or the next token is not a string
+	 */
+	private String readString() throws IOException {
+		expect('"');
+
+		int start = position;
+		while (position < limit) {
+			char c = buffer[position];
+			if (c == '"') {
+				return new String(buffer, start, position++ - start);
+			}
+			if (c == '\\') {
+				break;
+			}
+			position++;
+		}
+
+		builder.setLength(0);
+		builder.append(buffer, start, position - start);
+		while (true) {
+			if (!fill()) {
+				throw error("Unterminated string");
+			}
+			char c = buffer[position++];
+			if (c == '"') {
+				return builder.toString();
+			}
+			if (c == '\\') {
+				readEscape(builder);
+			}
+			else {
+				builder.append(c);
+			}
+		}
+	}
+
+	/**
+	 * Reads the characters after a backslash in a string and appends the
+	 * character they stand for. Since {@link JsonWriter} writes strings without
+	 * escaping them, a backslash that does not start a valid escape is kept as a
+	 * plain backslash, and the character after it is read as usual.
+	 *
+	 * @param out the builder to append the character to
+	 * @throws IOException if an IO error occurs or the string is unterminated
+	 */
+	private void readEscape(StringBuilder out) throws IOException {
+		if (!fill()) {
+			throw error("Unterminated string");
+		}
+		char c = buffer[position++];
+		switch (c) {
+			case '"', '\\', '/' -> out.append(c);
+			case 'b' -> out.append('\b');
+			case 'f' -> out.append('\f');
+			case 'n' -> out.append('\n');
+			case 'r' -> out.append('\r');
+			case 't' -> out.append('\t');
+			case 'u' -> readUnicode(out);
+			default -> {
+				out.append('\\');
+				position--;
+			}
+		}
+	}
+
+	/**
+	 * Reads the four hex digits of a unicode escape and appends the character they
+	 * stand for. If a character is not a hex digit, the backslash, the {@code u},
+	 * and the digits before it are kept as is instead.
+	 *
+	 * @param out the builder to append the character to
+	 * @throws IOException if an IO error occurs or the string is unterminated
+	 */
+	private void readUnicode(StringBuilder out) throws IOException {
+		char[] digits = new char[4];
+		int code = 0;
+		for (int i = 0; i < digits.length; i++) {
+			if (!fill()) {
+				throw error("Unterminated string");
+			}
+			int digit = Character.digit(buffer[position], 16);
+			if (digit < 0) {
+				out.append("\\u").append(digits, 0, i);
+				return;
+			}
+			digits[i] = buffer[position++];
+			code = code * 16 + digit;
+		}
+		out.append((char) code);
+	}
+
+	/**
+	 * Skips whitespace and reads the expected character.
+	 *
+	 * @param expected the character to read
+	 * @throws IOException if an IO error occurs or the next character is not the
+	 *   expected one
+	 */
+	private void expect(char expected) throws IOException {
+		if (peek() != expected) {
+			throw error("Expected '" + expected + "'");
+		}
+		position++;
+	}
+
+	/**
+	 * Skips whitespace and returns the next character without reading it.
+	 *
+	 * @return the next character, or -1 at the end of the input
+	 * @throws IOException if an IO error occurs
+	 */
+	private int peek() throws IOException {
+		while (fill()) {
+			char c = buffer[position];
+			if (!Character.isWhitespace(c)) {
+				return c;
+			}
+			position++;
+		}
+		return -1;
+	}
+
+	/**
+	 * Refills the buffer from the stream if every character in it has been read.
+	 *
+	 * @return true if a character is available, false at the end of the input
+	 * @throws IOException if an IO error occurs
+	 */
+	private boolean fill() throws IOException {
+		while (position >= limit) {
+			offset += limit;
+			position = 0;
+			limit = reader.read(buffer, 0, buffer.length);
+			if (limit < 0) {
+				limit = 0;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates an exception describing malformed JSON at the current position.
+	 *
+	 * @param message the problem found
+	 * @return the exception to throw
+	 */
+	private IOException error(String message) {
+		return new IOException(message + " at offset " + (offset + position) + " of JSON input.");
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
@@ -4,19 +4,27 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
 
 import edu.usfca.cs272.functional.IOThrowingConsumer;
 import edu.usfca.cs272.functional.IOThrowingFunction;
 import edu.usfca.cs272.index.InvertedIndex;
+import edu.usfca.cs272.threads.WorkQueue;
 
 /**
  * Outputs several simple data structures in "pretty" JSON format where newlines
@@ -74,6 +82,22 @@ public class JsonWriter {
 	 */
 	private static final String COLON_SPACE = ": ";
 
+	/**
+	 * The number of entries rendered by each task when writing in parallel.
+	 */
+	private static final int CHUNK_SIZE = 256;
+
+	/**
+	 * The file extension of output files compressed with gzip.
+	 */
+	public static final String GZIP_EXTENSION = ".gz";
+
+	/**
+	 * The size of the buffers in front of the compressor, large enough that each
+	 * write deflates a sizable block instead of a few characters at a time.
+	 */
+	private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
 	/**
 	 * Indents the writer by the specified number of times. Does nothing if the
 	 * indentation level is 0 or less.
@@ -117,20 +141,71 @@ public class JsonWriter {
 		writer.write(QUOTE);
 	}
 
+	/**
+	 * Determines whether output to the path is compressed with gzip, which is when
+	 * its file name ends with {@link #GZIP_EXTENSION}.
+	 *
+	 * @param path the file path to check
+	 * @return true if output to the path is compressed
+	 */
+	public static boolean isCompressed(Path path) {
+		Path name = path.getFileName();
+		return name != null && name.toString().endsWith(GZIP_EXTENSION);
+	}
+
+	/**
+	 * Returns the path with {@link #GZIP_EXTENSION} added to its file name, so
+	 * output to it is compressed with gzip. Returns the path itself if it already
+	 * has the extension.
+	 *
+	 * @param path the file path to convert
+	 * @return the path of the compressed file
+	 */
+	public static Path toCompressed(Path path) {
+		return isCompressed(path) ? path : path.resolveSibling(path.getFileName() + GZIP_EXTENSION);
+	}
+
 	/**
 	 * Helper that creates a BufferedWriter for the given path and passes it to the
-	 * consumer.
+	 * consumer. If the path has the gzip extension, the output is compressed with
+	 * gzip as it is written.
 	 *
 	 * @param path the file path to write to
 	 * @param consumer the lambda that uses the writer
 	 * @throws IOException if an IO error occurs
+	 *
+	 * @see #isCompressed(Path)
 	 */
 	private static void withBufferedWriter(Path path, IOThrowingConsumer<BufferedWriter> consumer) throws IOException {
-		try (BufferedWriter writer = Files.newBufferedWriter(path, UTF_8)) {
+		try (BufferedWriter writer = newBufferedWriter(path)) {
 			consumer.accept(writer);
 		}
 	}
 
+	/**
+	 * Opens a BufferedWriter for the given path, which streams its output through
+	 * a gzip compressor if the path has the gzip extension.
+	 *
+	 * @param path the file path to write to
+	 * @return the writer for the path
+	 * @throws IOException if an IO error occurs
+	 */
+	private static BufferedWriter newBufferedWriter(Path path) throws IOException {
+		if (!isCompressed(path)) {
+			return Files.newBufferedWriter(path, UTF_8);
+		}
+
+		OutputStream out = Files.newOutputStream(path);
+		try {
+			GZIPOutputStream gzip = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+			return new BufferedWriter(new OutputStreamWriter(gzip, UTF_8), GZIP_BUFFER_SIZE);
+		}
+		catch (IOException e) {
+			out.close();
+			throw e;
+		}
+	}
+
 	/**
 	 * Helper that creates a StringWriter, passes it to the function, and returns
 	 * the result. Returns null if an IOException occurs.
@@ -536,6 +611,266 @@ public class JsonWriter {
 		return withStringWriter(writer -> { writeNestedObjectArrays(elements, writer); return writer.toString(); });
 	}
 
+	/**
+	 * Writes the elements as a pretty JSON object with nested object arrays, where
+	 * each value is converted into its nested map by the provided function just
+	 * before it is written. Useful when the stored values must be resolved (for
+	 * example, from ids to names) before they can be output.
+	 *
+	 * @param <V> the type of values in the map
+	 * @param elements the elements to write
+	 * @param resolver converts each value into the nested map to write
+	 * @param writer the writer to use
+	 * @param indent the initial indent level; the first bracket is not indented,
+	 *   inner elements are indented by one, and the last bracket is indented at the
+	 *   initial indentation level
+	 * @throws IOException if an IO error occurs
+	 */
+	public static <V> void writeNestedObjectArrays(Map<String, V> elements,
+			Function<? super V, ? extends Map<String, ? extends Collection<? extends Number>>> resolver, Writer writer,
+			int indent) throws IOException {
+		writeObject(elements, writer, indent, value -> writeObjectArrays(resolver.apply(value), writer, indent + 1));
+	}
+
+	/**
+	 * Writes the elements as a pretty JSON object with nested object arrays using
+	 * the provided writer and no initial indentation, resolving each value with the
+	 * provided function.
+	 *
+	 * @param <V> the type of values in the map
+	 * @param elements the elements to write
+	 * @param resolver converts each value into the nested map to write
+	 * @param writer the writer to use
+	 * @throws IOException if an IO error occurs
+	 *
+	 * @see #writeNestedObjectArrays(Map, Function, Writer, int)
+	 */
+	public static <V> void writeNestedObjectArrays(Map<String, V> elements,
+			Function<? super V, ? extends Map<String, ? extends Collection<? extends Number>>> resolver, Writer writer)
+			throws IOException {
+		writeNestedObjectArrays(elements, resolver, writer, 0);
+	}
+
+	/**
+	 * Writes the elements as a pretty JSON object with nested object arrays to a
+	 * file, resolving each value with the provided function.
+	 *
+	 * @param <V> the type of values in the map
+	 * @param elements the elements to write
+	 * @param resolver converts each value into the nested map to write
+	 * @param path the file path to use
+	 * @throws IOException if an IO error occurs
+	 *
+	 * @see #writeNestedObjectArrays(Map, Function, Writer, int)
+	 */
+	public static <V> void writeNestedObjectArrays(Map<String, V> elements,
+			Function<? super V, ? extends Map<String, ? extends Collection<? extends Number>>> resolver, Path path)
+			throws IOException {
+		withBufferedWriter(path, writer -> writeNestedObjectArrays(elements, resolver, writer));
+	}
+
+	/**
+	 * Returns the elements as a pretty JSON object with nested object arrays,
+	 * resolving each value with the provided function.
+	 *
+	 * @param <V> the type of values in the map
+	 * @param elements the elements to use
+	 * @param resolver converts each value into the nested map to write
+	 * @return a {@link String} containing the elements in pretty JSON format
+	 *
+	 * @see #writeNestedObjectArrays(Map, Function, Writer, int)
+	 */
+	public static <V> String writeNestedObjectArrays(Map<String, V> elements,
+			Function<? super V, ? extends Map<String, ? extends Collection<? extends Number>>> resolver) {
+		return withStringWriter(writer -> {
+			writeNestedObjectArrays(elements, resolver, writer);
+			return writer.toString();
+		});
+	}
+
+	/**
+	 * Writes the elements as a pretty JSON object with nested object arrays,
+	 * resolving each value with the provided function. Contiguous ranges of entries
+	 * are rendered into separate buffers by the work queue, and the buffers are
+	 * written in order, so the output is identical to
+	 * {@link #writeNestedObjectArrays(Map, Function, Writer, int)}. Only a few
+	 * buffers per worker are rendered ahead of the writer at a time.
+	 *
+	 * The elements must not change while they are written, and the resolver must
+	 * be safe to call from multiple threads.
+	 *
+	 * @param <V> the type of values in the map
+	 * @param elements the elements to write
+	 * @param resolver converts each value into the nested map to write
+	 * @param writer the writer to use
+	 * @param indent the initial indent level; the first bracket is not indented,
+	 *   inner elements are indented by one, and the last bracket is indented at the
+	 *   initial indentation level
+	 * @param tasks the work queue used to render the entries
+	 * @throws IOException if an IO error occurs
+	 */
+	public static <V> void writeNestedObjectArrays(Map<String, V> elements,
+			Function<? super V, ? extends Map<String, ? extends Collection<? extends Number>>> resolver, Writer writer,
+			int indent, WorkQueue tasks) throws IOException {
+		ArrayDeque<RenderedChunk> rendering = new ArrayDeque<>();
+		int window = Math.max(2, tasks.size() * 2);
+		boolean empty = true;
+
+		writer.write(LEFT_CURLY + NEW_LINE);
+		List<Entry<String, V>> chunk = new ArrayList<>(CHUNK_SIZE);
+		for (Entry<String, V> entry : elements.entrySet()) {
+			chunk.add(entry);
+			if (chunk.size() == CHUNK_SIZE) {
+				rendering.add(new RenderedChunk(chunk, resolver, indent, tasks));
+				chunk = new ArrayList<>(CHUNK_SIZE);
+				if (rendering.size() >= window) {
+					empty = writeChunk(rendering.poll(), writer, empty);
+				}
+			}
+		}
+		if (!chunk.isEmpty()) {
+			rendering.add(new RenderedChunk(chunk, resolver, indent, tasks));
+		}
+		while (!rendering.isEmpty()) {
+			empty = writeChunk(rendering.poll(), writer, empty);
+		}
+		if (!empty) {
+			writer.write(NEW_LINE);
+		}
+		writeIndent(writer, indent);
+		writer.write(RIGHT_CURLY);
+	}
+
+	/**
+	 * Writes the elements as a pretty JSON object with nested object arrays to a
+	 * file, resolving each value with the provided function and rendering the
+	 * entries in parallel.
+	 *
+	 * @param <V> the type of values in the map
+	 * @param elements the elements to write
+	 * @param resolver converts each value into the nested map to write
+	 * @param path the file path to use
+	 * @param tasks the work queue used to render the entries
+	 * @throws IOException if an IO error occurs
+	 *
+	 * @see #writeNestedObjectArrays(Map, Function, Writer, int, WorkQueue)
+	 */
+	public static <V> void writeNestedObjectArrays(Map<String, V> elements,
+			Function<? super V, ? extends Map<String, ? extends Collection<? extends Number>>> resolver, Path path,
+			WorkQueue tasks) throws IOException {
+		withBufferedWriter(path, writer -> writeNestedObjectArrays(elements, resolver, writer, 0, tasks));
+	}
+
+	/**
+	 * Waits for a chunk to be rendered and writes it, separated from the previous
+	 * chunk by a comma.
+	 *
+	 * @param chunk the chunk to write
+	 * @param writer the writer to use
+	 * @param empty whether no chunk has been written yet
+	 * @return false, since a chunk has now been written
+	 * @throws IOException if an IO error occurs or the chunk could not be rendered
+	 */
+	private static boolean writeChunk(RenderedChunk chunk, Writer writer, boolean empty) throws IOException {
+		String rendered = chunk.await();
+		if (!empty) {
+			writer.write(COMMA_NEW_LINE);
+		}
+		writer.write(rendered);
+		return false;
+	}
+
+	/**
+	 * A contiguous range of map entries rendered as JSON by a task of the work
+	 * queue.
+	 */
+	private static class RenderedChunk {
+		/** The rendered entries, or null until rendered. */
+		private String rendered;
+
+		/** The exception thrown while rendering, if any. */
+		private Exception failure;
+
+		/** Whether rendering has finished. */
+		private boolean done;
+
+		/**
+		 * Renders the entries on the work queue.
+		 *
+		 * @param <V> the type of values in the map
+		 * @param entries the entries to render
+		 * @param resolver converts each value into the nested map to write
+		 * @param indent the indent level of the enclosing object
+		 * @param tasks the work queue used to render the entries
+		 */
+		<V> RenderedChunk(List<Entry<String, V>> entries,
+				Function<? super V, ? extends Map<String, ? extends Collection<? extends Number>>> resolver, int indent,
+				WorkQueue tasks) {
+			this.done = false;
+			tasks.execute(() -> render(entries, resolver, indent));
+		}
+
+		/**
+		 * Renders the entries into a string.
+		 *
+		 * @param <V> the type of values in the map
+		 * @param entries the entries to render
+		 * @param resolver converts each value into the nested map to write
+		 * @param indent the indent level of the enclosing object
+		 */
+		private <V> void render(List<Entry<String, V>> entries,
+				Function<? super V, ? extends Map<String, ? extends Collection<? extends Number>>> resolver, int indent) {
+			StringWriter writer = new StringWriter();
+			String result = null;
+			Exception exception = null;
+			IOThrowingConsumer<V> valueWriter = value -> writeObjectArrays(resolver.apply(value), writer, indent + 1);
+			try {
+				var it = entries.iterator();
+				writeEntry(it.next(), writer, indent + 1, valueWriter);
+				while (it.hasNext()) {
+					writer.write(COMMA_NEW_LINE);
+					writeEntry(it.next(), writer, indent + 1, valueWriter);
+				}
+				result = writer.toString();
+			}
+			catch (IOException | RuntimeException e) {
+				exception = e;
+			}
+			synchronized (this) {
+				rendered = result;
+				failure = exception;
+				done = true;
+				notifyAll();
+			}
+		}
+
+		/**
+		 * Waits for the entries to be rendered.
+		 *
+		 * @return the rendered entries
+		 * @throws IOException if the entries could not be rendered or the wait was
+		 *   interrupted
+		 */
+		synchronized String await() throws IOException {
+			try {
+				while (!done) {
+					wait();
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while writing JSON.");
+			}
+			if (failure instanceof IOException io) {
+				throw io;
+			}
+			if (failure instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			return rendered;
+		}
+	}
+
 	/**
 	 * Writes a single search result in a structured JSON format.
 	 *
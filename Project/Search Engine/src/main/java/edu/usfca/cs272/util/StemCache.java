@@ -0,0 +1,195 @@
+package edu.usfca.cs272.util;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import opennlp.tools.stemmer.Stemmer;
+
+/**
+ * A bounded cache of the stems of words, shared by any number of threads. Since
+ * the frequency of words in natural language text is heavily skewed, most words
+ * are stemmed many times, and each of those is answered from the cache instead.
+ *
+ * Lookups are lock-free hash lookups. Once the cache is full, stems are evicted
+ * with the CLOCK algorithm: a hand sweeps the cached stems, giving each stem
+ * found since the last sweep a second chance and evicting the rest, which keeps
+ * frequent words cached without reordering anything on a hit.
+ *
+ * Stemmers are not thread-safe, so the cache does not stem words itself. Each
+ * thread wraps its own stemmer with {@link #wrap(Stemmer)}, and only words
+ * missing from the cache are passed to that stemmer.
+ */
+public class StemCache {
+	/** The default maximum number of cached stems. */
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	/** The maximum number of cached stems. */
+	private final int capacity;
+
+	/** The cached stems by word. */
+	private final ConcurrentHashMap<String, Entry> stems;
+
+	/** The clock hand sweeping the cached stems, or null to start a new sweep. */
+	private Iterator<Entry> hand;
+
+	/** The number of words found in the cache. */
+	private final LongAdder hits;
+
+	/** The number of words not found in the cache. */
+	private final LongAdder misses;
+
+	/**
+	 * Constructs a cache of at most {@link #DEFAULT_CAPACITY} stems.
+	 */
+	public StemCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a cache of at most the given number of stems.
+	 *
+	 * @param capacity the maximum number of cached stems
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public StemCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+
+		this.capacity = capacity;
+		this.stems = new ConcurrentHashMap<>();
+		this.hand = null;
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+	}
+
+	/**
+	 * Returns the stem of the word, stemming it with the given stemmer and caching
+	 * the result if it is not already cached.
+	 *
+	 * @param word the word to stem
+	 * @param stemmer the stemmer to use if the word is not cached, which is only
+	 *   used by the calling thread
+	 * @return the stem of the word
+	 */
+	public String stem(CharSequence word, Stemmer stemmer) {
+		String key = word.toString();
+		Entry entry = stems.get(key);
+		if (entry != null) {
+			hits.increment();
+			// only written once per sweep, so hits on popular words stay reads
+			if (!entry.used) {
+				entry.used = true;
+			}
+			return entry.stem;
+		}
+
+		misses.increment();
+		String stem = stemmer.stem(key).toString();
+		if (stems.putIfAbsent(key, new Entry(stem)) == null && stems.size() > capacity) {
+			evict();
+		}
+		return stem;
+	}
+
+	/**
+	 * Returns a stemmer that looks up words in this cache before stemming them
+	 * with the given stemmer. Like the given stemmer, the returned stemmer must
+	 * only be used by one thread at a time.
+	 *
+	 * @param stemmer the stemmer to use for words that are not cached
+	 * @return the caching stemmer
+	 */
+	public Stemmer wrap(Stemmer stemmer) {
+		return word -> stem(word, stemmer);
+	}
+
+	/**
+	 * Advances the clock hand until the cache is back within its capacity,
+	 * evicting the stems not used since the hand last passed them.
+	 */
+	private synchronized void evict() {
+		while (stems.size() > capacity) {
+			if (hand == null || !hand.hasNext()) {
+				hand = stems.values().iterator();
+			}
+
+			Entry entry = hand.next();
+			if (entry.used) {
+				entry.used = false;
+			}
+			else {
+				hand.remove();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of words found in the cache.
+	 *
+	 * @return the number of hits
+	 */
+	public long hits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of words not found in the cache, which were stemmed.
+	 *
+	 * @return the number of misses
+	 */
+	public long misses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the fraction of words found in the cache, or 0 if no words have been
+	 * stemmed yet.
+	 *
+	 * @return the hit rate between 0 and 1
+	 */
+	public double hitRate() {
+		long found = hits();
+		long total = found + misses();
+		return total == 0 ? 0 : (double) found / total;
+	}
+
+	/**
+	 * Returns the number of cached stems.
+	 *
+	 * @return the number of cached stems
+	 */
+	public int size() {
+		return stems.size();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d stems cached, %d hits, %d misses (%.1f%% hit rate)", size(), hits(), misses(),
+				hitRate() * 100);
+	}
+
+	/**
+	 * A cached stem, and whether it was used since the clock hand last passed it.
+	 * The flag is not synchronized, since a lost update only changes which stem
+	 * is evicted.
+	 */
+	private static class Entry {
+		/** The stem. */
+		private final String stem;
+
+		/** Whether the stem was used since the clock hand last passed it. */
+		private boolean used;
+
+		/**
+		 * Constructs a cached stem, which has not been used yet.
+		 *
+		 * @param stem the stem
+		 */
+		public Entry(String stem) {
+			this.stem = stem;
+			this.used = false;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package edu.usfca.cs272.util;
+
+import static opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM.ENGLISH;
+
+import java.util.Collection;
+import java.util.TreeSet;
+
+import opennlp.tools.stemmer.Stemmer;
+import opennlp.tools.stemmer.snowball.SnowballStemmer;
+
+/**
+ * Cleans, splits, and stems text with a stemmer for English and a reusable
+ * {@link WordTokenizer}. Stemmers and tokenizers are not thread-safe, so each
+ * thread has its own analyzer, returned by {@link #get()}. Worker threads and
+ * the threads of the web server are pooled, so each analyzer is created once per
+ * thread instead of once per file, page, or query.
+ *
+ * Warning: An analyzer must only be used by the thread it belongs to, and its
+ * tokenizer only by one caller at a time.
+ *
+ * @see FileStemmer#uniqueStems(String)
+ */
+public class TextAnalyzer {
+	/** The analyzer of each thread. */
+	private static final ThreadLocal<TextAnalyzer> ANALYZERS = ThreadLocal.withInitial(TextAnalyzer::new);
+
+	/** The stemmer for English. */
+	private final Stemmer stemmer;
+
+	/** The reusable tokenizer. */
+	private final WordTokenizer tokenizer;
+
+	/**
+	 * Constructs an analyzer with its own stemmer and tokenizer.
+	 */
+	private TextAnalyzer() {
+		this.stemmer = new SnowballStemmer(ENGLISH);
+		this.tokenizer = new WordTokenizer();
+	}
+
+	/**
+	 * Returns the analyzer of the calling thread, creating it on first use.
+	 *
+	 * @return the analyzer of the calling thread
+	 */
+	public static TextAnalyzer get() {
+		return ANALYZERS.get();
+	}
+
+	/**
+	 * Returns the stemmer for English of this analyzer.
+	 *
+	 * @return the stemmer
+	 */
+	public Stemmer getStemmer() {
+		return stemmer;
+	}
+
+	/**
+	 * Returns the tokenizer of this analyzer, reset to tokenize the text. Any words
+	 * of the previous text not yet read are discarded.
+	 *
+	 * @param text the text to tokenize
+	 * @return the tokenizer
+	 */
+	public WordTokenizer tokenize(CharSequence text) {
+		return tokenizer.reset(text);
+	}
+
+	/**
+	 * Parses the line into cleaned and stemmed words, adding them to the
+	 * collection.
+	 *
+	 * @param line the line of words to parse and stem
+	 * @param stemmer the stemmer to use, such as this analyzer's stemmer wrapped by
+	 *   a {@link StemCache}
+	 * @param stems the collection to add stems to
+	 */
+	public void addStems(CharSequence line, Stemmer stemmer, Collection<String> stems) {
+		WordTokenizer words = tokenize(line);
+		while (words.next()) {
+			stems.add(stemmer.stem(words).toString());
+		}
+	}
+
+	/**
+	 * Parses the line into a set of unique, sorted, cleaned, and stemmed words.
+	 *
+	 * @param line the line of words to parse and stem
+	 * @return a sorted set of unique cleaned and stemmed words
+	 */
+	public TreeSet<String> uniqueStems(CharSequence line) {
+		TreeSet<String> stems = new TreeSet<>();
+		addStems(line, stemmer, stems);
+		return stems;
+	}
+}
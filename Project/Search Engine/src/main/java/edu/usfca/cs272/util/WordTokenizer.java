@@ -0,0 +1,345 @@
+package edu.usfca.cs272.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Splits text into the same cleaned words as {@link FileStemmer#clean(String)}
+ * followed by {@link FileStemmer#split(String)}, in a single pass without
+ * regular expressions. Alphabetic characters are kept, whitespace separates
+ * words, and everything else is removed. Text with non-ASCII characters is
+ * first decomposed, so accents are stripped the same way.
+ *
+ * The current word is kept in a reusable buffer and exposed as a
+ * {@link CharSequence}, so it can be handed to a stemmer without building a
+ * string for it first. One tokenizer can be reset to tokenize many lines.
+ *
+ * Warning: This class is not thread-safe. If multiple threads access this class
+ * concurrently, access must be synchronized externally.
+ *
+ * @see FileStemmer#parse(String)
+ */
+public class WordTokenizer implements CharSequence {
+	/** The initial capacity of the word buffer. */
+	private static final int BUFFER_SIZE = 64;
+
+	/** The kind of an ASCII character that is removed. */
+	private static final byte REMOVED = 0;
+
+	/** The kind of an ASCII character that is kept as part of a word. */
+	private static final byte LETTER = 1;
+
+	/** The kind of an ASCII character that separates words. */
+	private static final byte SPACE = 2;
+
+	/** The kind of each ASCII character. */
+	private static final byte[] ASCII = new byte[128];
+
+	static {
+		for (char c = 'a'; c <= 'z'; c++) {
+			ASCII[c] = LETTER;
+			ASCII[Character.toUpperCase(c)] = LETTER;
+		}
+		for (char c = '\t'; c <= '\r'; c++) {
+			ASCII[c] = SPACE;
+		}
+		ASCII[' '] = SPACE;
+	}
+
+	/** The character types that are Unicode whitespace, as a bit mask. */
+	private static final int SPACE_TYPES = (1 << Character.SPACE_SEPARATOR) | (1 << Character.LINE_SEPARATOR)
+			| (1 << Character.PARAGRAPH_SEPARATOR);
+
+	/** The text being tokenized, already cleaned if it is not ASCII. */
+	private CharSequence text;
+
+	/** Whether the text only has ASCII characters and is not yet cleaned. */
+	private boolean ascii;
+
+	/** The position of the next character of the text. */
+	private int position;
+
+	/** The characters of the current word. */
+	private char[] word;
+
+	/** The number of characters in the current word. */
+	private int length;
+
+	/** Whether ASCII letters lowercase the same way in the default locale. */
+	private boolean asciiLowerCase;
+
+	/** Whether an empty first word is pending, as split by the regular expression. */
+	private boolean emptyPending;
+
+	/**
+	 * Constructs a tokenizer of empty text.
+	 */
+	public WordTokenizer() {
+		this.word = new char[BUFFER_SIZE];
+		start("");
+	}
+
+	/**
+	 * Constructs a tokenizer of the text.
+	 *
+	 * @param text the text to tokenize
+	 */
+	public WordTokenizer(CharSequence text) {
+		this.word = new char[BUFFER_SIZE];
+		start(text);
+	}
+
+	/**
+	 * Starts tokenizing new text, discarding any words not yet read.
+	 *
+	 * @param text the text to tokenize
+	 * @return this tokenizer
+	 */
+	public WordTokenizer reset(CharSequence text) {
+		start(text);
+		return this;
+	}
+
+	/**
+	 * Starts tokenizing new text.
+	 *
+	 * @param text the text to tokenize
+	 */
+	private void start(CharSequence text) {
+		// lines read from bytes are already known to be ASCII
+		this.ascii = text instanceof ByteLineReader.AsciiLine || isAscii(text);
+		this.text = ascii ? text : clean(text);
+		this.position = 0;
+		this.length = 0;
+
+		// only the Turkic locales lowercase ASCII letters differently
+		String language = Locale.getDefault().getLanguage();
+		this.asciiLowerCase = !language.equals("tr") && !language.equals("az");
+		this.emptyPending = startsWithEmptyWord();
+	}
+
+	/**
+	 * Advances to the next word of the text.
+	 *
+	 * @return true if there is a next word, false at the end of the text
+	 */
+	public boolean next() {
+		length = 0;
+		if (emptyPending) {
+			emptyPending = false;
+			return true;
+		}
+		return ascii ? nextAscii() : nextCleaned();
+	}
+
+	/**
+	 * Advances to the next word of ASCII text, removing and lowercasing characters
+	 * along the way.
+	 *
+	 * @return true if there is a next word, false at the end of the text
+	 */
+	private boolean nextAscii() {
+		boolean lower = true;
+		int end = text.length();
+		while (position < end) {
+			char c = text.charAt(position++);
+			byte kind = ASCII[c];
+			if (kind == LETTER) {
+				if (c <= 'Z') {
+					if (asciiLowerCase) {
+						c |= 0x20;
+					}
+					else {
+						lower = false;
+					}
+				}
+				append(c);
+			}
+			else if (kind == SPACE && length > 0) {
+				break;
+			}
+		}
+
+		if (length == 0) {
+			return false;
+		}
+		if (!lower) {
+			lowerCase();
+		}
+		return true;
+	}
+
+	/**
+	 * Advances to the next word of text that is already cleaned.
+	 *
+	 * @return true if there is a next word, false at the end of the text
+	 */
+	private boolean nextCleaned() {
+		int end = text.length();
+		while (position < end) {
+			char c = text.charAt(position++);
+			if (!isSpace(c)) {
+				append(c);
+			}
+			else if (length > 0) {
+				break;
+			}
+		}
+		return length > 0;
+	}
+
+	/**
+	 * Cleans text with non-ASCII characters the same way as
+	 * {@link FileStemmer#clean(String)}. The whole text is lowercased at once,
+	 * since some lowercase rules depend on the surrounding characters.
+	 *
+	 * @param text the text to clean
+	 * @return the cleaned text
+	 */
+	private static String clean(CharSequence text) {
+		String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+		StringBuilder cleaned = new StringBuilder(decomposed.length());
+		for (int i = 0; i < decomposed.length();) {
+			int codePoint = decomposed.codePointAt(i);
+			if (Character.isAlphabetic(codePoint) || isSpace(codePoint)) {
+				cleaned.appendCodePoint(codePoint);
+			}
+			i += Character.charCount(codePoint);
+		}
+		return cleaned.toString().toLowerCase();
+	}
+
+	/**
+	 * Determines whether the text only has ASCII characters, which are already
+	 * decomposed.
+	 *
+	 * @param text the text to check
+	 * @return true if every character is ASCII
+	 */
+	private static boolean isAscii(CharSequence text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Determines whether the code point is Unicode whitespace, which separates
+	 * words.
+	 *
+	 * @param codePoint the code point to check
+	 * @return true if the code point is whitespace
+	 */
+	private static boolean isSpace(int codePoint) {
+		return codePoint < 0x80 ? ASCII[codePoint] == SPACE
+				: codePoint == 0x85 || ((SPACE_TYPES >> Character.getType(codePoint)) & 1) != 0;
+	}
+
+	/**
+	 * Determines whether splitting the cleaned text starts with an empty word. The
+	 * split strips leading whitespace other than no-break spaces first, so a word
+	 * following a leading no-break space is preceded by an empty word.
+	 *
+	 * @return true if the first word is empty
+	 */
+	private boolean startsWithEmptyWord() {
+		int end = text.length();
+		int i = 0;
+		while (i < end) {
+			char c = text.charAt(i++);
+			if (isWord(c)) {
+				return false;
+			}
+			if (isSpace(c) && !Character.isWhitespace(c)) {
+				break;
+			}
+		}
+
+		while (i < end) {
+			if (isWord(text.charAt(i++))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determines whether the character of the text is part of a word.
+	 *
+	 * @param c the character to check
+	 * @return true if the character is part of a word
+	 */
+	private boolean isWord(char c) {
+		return ascii ? ASCII[c] == LETTER : !isSpace(c);
+	}
+
+	/**
+	 * Appends a character to the current word.
+	 *
+	 * @param c the character to append
+	 */
+	private void append(char c) {
+		if (length == word.length) {
+			grow(length + 1);
+		}
+		word[length++] = c;
+	}
+
+	/**
+	 * Grows the word buffer to at least the given capacity.
+	 *
+	 * @param capacity the minimum capacity
+	 */
+	private void grow(int capacity) {
+		char[] grown = new char[Math.max(capacity, word.length * 2)];
+		System.arraycopy(word, 0, grown, 0, length);
+		word = grown;
+	}
+
+	/**
+	 * Converts the current word to lowercase with the rules of the default locale,
+	 * which may change its length.
+	 */
+	private void lowerCase() {
+		String lowered = new String(word, 0, length).toLowerCase();
+		length = 0;
+		if (lowered.length() > word.length) {
+			grow(lowered.length());
+		}
+		lowered.getChars(0, lowered.length(), word, 0);
+		length = lowered.length();
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		return word[index];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException();
+		}
+		return new String(word, start, end - start);
+	}
+
+	/**
+	 * Returns the current word as a string.
+	 *
+	 * @return the current word
+	 */
+	@Override
+	public String toString() {
+		return new String(word, 0, length);
+	}
+}
@@ -0,0 +1,353 @@
+package edu.usfca.cs272.crawler;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.usfca.cs272.index.FrozenInvertedIndex;
+import edu.usfca.cs272.index.InvertedIndex;
+
+/**
+ * A test suite for {@link CrawlJournal}, which must resume a crawl from the
+ * lines and checkpoint of an earlier run, even when that run stopped part way
+ * through writing a line.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class CrawlJournalTests {
+	/** Creates a new instance of this class. */
+	public CrawlJournalTests() {}
+
+	/** The directory for journal and checkpoint files. */
+	@TempDir
+	private static Path temp;
+
+	/** The URIs of the crawl, including one with a character of several bytes. */
+	private static final List<URI> URIS = List.of(URI.create("https://example.com/"),
+			URI.create("https://example.com/a.html"), URI.create("https://example.com/caf\u00e9.html"),
+			URI.create("https://example.com/b.html"), URI.create("https://example.com/c.html"));
+
+	/**
+	 * Returns the path of a new journal file.
+	 *
+	 * @param name the name of the journal
+	 * @return the path of the journal file
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static Path journalPath(String name) throws IOException {
+		Path path = temp.resolve(name + ".journal");
+		Files.deleteIfExists(path);
+		Files.deleteIfExists(checkpointPath(path));
+		return path;
+	}
+
+	/**
+	 * Returns the path of the checkpoint file of a journal.
+	 *
+	 * @param path the path of the journal file
+	 * @return the path of the checkpoint file
+	 */
+	private static Path checkpointPath(Path path) {
+		return path.resolveSibling(path.getFileName() + ".checkpoint");
+	}
+
+	/**
+	 * Creates a snapshot of an index with one word in each page.
+	 *
+	 * @param pages the pages of the index
+	 * @return the snapshot
+	 */
+	private static FrozenInvertedIndex snapshot(List<URI> pages) {
+		InvertedIndex index = new InvertedIndex();
+		for (URI page : pages) {
+			index.add("word", page.toString(), 1);
+		}
+		return index.freeze();
+	}
+
+	/**
+	 * Writes the journal of a crawl that discovers every URI, indexes the first
+	 * two pages and saves a checkpoint of them, and then indexes the third page.
+	 *
+	 * @param path the path of the journal file
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static void crawl(Path path) throws IOException {
+		try (CrawlJournal journal = new CrawlJournal(path, 2)) {
+			for (URI uri : URIS) {
+				journal.discovered(uri);
+			}
+			for (int i = 0; i < 3; i++) {
+				journal.fetched(URIS.get(i));
+				if (journal.indexed(URIS.get(i))) {
+					journal.checkpoint(snapshot(URIS.subList(0, 2)), journal.indexed());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Asserts the journal resumes the crawl with the discovered and pending URIs,
+	 * and restores the checkpoint of the covered pages.
+	 *
+	 * @param journal the opened journal
+	 * @param discovered the discovered URIs, in order
+	 * @param covered the number of pages covered by the checkpoint
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static void assertResumed(CrawlJournal journal, List<URI> discovered, List<URI> covered)
+			throws IOException {
+		Assertions.assertIterableEquals(discovered, journal.viewDiscovered());
+
+		List<URI> pending = new ArrayList<>(discovered);
+		pending.removeAll(covered);
+		Assertions.assertIterableEquals(pending, journal.viewPending());
+
+		InvertedIndex restored = journal.restore();
+		if (covered.isEmpty()) {
+			Assertions.assertNull(restored);
+		}
+		else {
+			Assertions.assertNotNull(restored);
+			Assertions.assertEquals(snapshot(covered).indexToJson(), restored.indexToJson());
+		}
+	}
+
+	/**
+	 * Tests resuming a crawl from a complete journal.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class ResumeTests {
+		/** Creates a new instance of this class. */
+		public ResumeTests() {}
+
+		/**
+		 * Tests a new journal has nothing to resume.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(1)
+		@Test
+		public void testNew() throws IOException {
+			Path path = journalPath("new");
+			try (CrawlJournal journal = new CrawlJournal(path, 2)) {
+				assertResumed(journal, List.of(), List.of());
+				Assertions.assertEquals(0, journal.indexed());
+			}
+			Assertions.assertEquals(0, Files.size(path));
+		}
+
+		/**
+		 * Tests the pages covered by the checkpoint are done, and every other
+		 * discovered page is pending, even if it was indexed after the checkpoint.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(2)
+		@Test
+		public void testResume() throws IOException {
+			Path path = journalPath("resume");
+			crawl(path);
+			try (CrawlJournal journal = new CrawlJournal(path, 2)) {
+				assertResumed(journal, URIS, URIS.subList(0, 2));
+				Assertions.assertEquals(2, journal.indexed());
+			}
+		}
+
+		/**
+		 * Tests opening a journal rewrites it with only the lines that still matter,
+		 * and opening it again resumes the same crawl.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(3)
+		@Test
+		public void testCompacted() throws IOException {
+			Path path = journalPath("compacted");
+			crawl(path);
+			new CrawlJournal(path, 2).close();
+
+			List<String> expected = new ArrayList<>();
+			for (URI uri : URIS) {
+				expected.add("discovered\t" + uri);
+			}
+			expected.add("indexed\t" + URIS.get(0));
+			expected.add("indexed\t" + URIS.get(1));
+			expected.add("checkpoint\t2");
+			Assertions.assertIterableEquals(expected, Files.readAllLines(path, UTF_8));
+
+			try (CrawlJournal journal = new CrawlJournal(path, 2)) {
+				assertResumed(journal, URIS, URIS.subList(0, 2));
+			}
+		}
+
+		/**
+		 * Tests a checkpoint is due after every interval of indexed pages, and an
+		 * older checkpoint than the last one saved is ignored.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(4)
+		@Test
+		public void testInterval() throws IOException {
+			Path path = journalPath("interval");
+			try (CrawlJournal journal = new CrawlJournal(path, 2)) {
+				Assertions.assertFalse(journal.indexed(URIS.get(0)));
+				Assertions.assertTrue(journal.indexed(URIS.get(1)));
+				Assertions.assertTrue(journal.indexed(URIS.get(2)));
+				journal.checkpoint(snapshot(URIS.subList(0, 3)), 3);
+				journal.checkpoint(snapshot(URIS.subList(0, 1)), 1);
+
+				Assertions.assertFalse(journal.indexed(URIS.get(3)));
+				Assertions.assertTrue(journal.indexed(URIS.get(4)));
+			}
+
+			try (CrawlJournal journal = new CrawlJournal(path, 2)) {
+				Assertions.assertIterableEquals(List.of(), journal.viewDiscovered());
+				Assertions.assertEquals(snapshot(URIS.subList(0, 3)).indexToJson(), journal.restore().indexToJson());
+			}
+		}
+
+		/**
+		 * Tests a missing checkpoint file leaves every discovered page pending.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(5)
+		@Test
+		public void testMissingCheckpoint() throws IOException {
+			Path path = journalPath("missing");
+			crawl(path);
+			Files.delete(checkpointPath(path));
+			try (CrawlJournal journal = new CrawlJournal(path, 2)) {
+				assertResumed(journal, URIS, List.of());
+			}
+		}
+
+		/**
+		 * Tests malformed and unknown lines are skipped.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(6)
+		@Test
+		public void testMalformed() throws IOException {
+			Path path = journalPath("malformed");
+			crawl(path);
+			List<String> lines = new ArrayList<>(Files.readAllLines(path, UTF_8));
+			lines.add(1, "garbage");
+			lines.add(2, "discovered\thttps://example.com/bad uri");
+			lines.add(3, "unknown\thttps://example.com/");
+			lines.add("checkpoint\tthree");
+			Files.write(path, lines, UTF_8);
+
+			try (CrawlJournal journal = new CrawlJournal(path, 2)) {
+				assertResumed(journal, URIS, URIS.subList(0, 2));
+			}
+		}
+	}
+
+	/**
+	 * Tests resuming a crawl from a journal cut off by a crash.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class TruncatedTests {
+		/** Creates a new instance of this class. */
+		public TruncatedTests() {}
+
+		/**
+		 * Tests a journal cut off at any byte resumes the crawl recorded by its
+		 * complete lines, ignoring the partial last line even when it still looks
+		 * like a valid URI or count, or ends part way through a character.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(1)
+		@Test
+		public void testEveryLength() throws IOException {
+			Path original = journalPath("original");
+			crawl(original);
+			byte[] bytes = Files.readAllBytes(original);
+			byte[] checkpoint = Files.readAllBytes(checkpointPath(original));
+
+			for (int length = 0; length <= bytes.length; length++) {
+				byte[] truncated = Arrays.copyOf(bytes, length);
+				String complete = new String(truncated, UTF_8);
+				complete = complete.substring(0, complete.lastIndexOf('\n') + 1);
+
+				Set<URI> discovered = new LinkedHashSet<>();
+				List<URI> indexed = new ArrayList<>();
+				int covered = 0;
+				for (String line : complete.lines().toList()) {
+					String[] parts = line.split("\t");
+					switch (parts[0]) {
+						case "discovered" -> discovered.add(URI.create(parts[1]));
+						case "indexed" -> indexed.add(URI.create(parts[1]));
+						case "checkpoint" -> covered = Integer.parseInt(parts[1]);
+						default -> {
+							// fetched lines do not change the state
+						}
+					}
+				}
+
+				Path path = journalPath("truncated");
+				Files.write(path, truncated);
+				Files.write(checkpointPath(path), checkpoint);
+				try (CrawlJournal journal = new CrawlJournal(path, 2)) {
+					assertResumed(journal, List.copyOf(discovered), indexed.subList(0, covered));
+				}
+			}
+		}
+
+		/**
+		 * Tests a partial last line is dropped when the journal is rewritten, so new
+		 * lines are not appended to it.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(2)
+		@Test
+		public void testAppendAfter() throws IOException {
+			Path path = journalPath("append");
+			crawl(path);
+			Files.writeString(path, "discovered\thttps://example.com/cut", UTF_8, APPEND);
+
+			try (CrawlJournal journal = new CrawlJournal(path, 2)) {
+				assertResumed(journal, URIS, URIS.subList(0, 2));
+				journal.discovered(URI.create("https://example.com/d.html"));
+			}
+
+			try (CrawlJournal journal = new CrawlJournal(path, 2)) {
+				Set<URI> expected = new HashSet<>(URIS);
+				expected.add(URI.create("https://example.com/d.html"));
+				Assertions.assertEquals(expected, new HashSet<>(journal.viewDiscovered()));
+			}
+		}
+	}
+}
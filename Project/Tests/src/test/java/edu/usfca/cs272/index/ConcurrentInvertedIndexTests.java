@@ -0,0 +1,329 @@
+package edu.usfca.cs272.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+
+/**
+ * A test suite for {@link ConcurrentInvertedIndex}, which merges and removes
+ * sources without a global lock.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class ConcurrentInvertedIndexTests {
+	/** Creates a new instance of this class. */
+	public ConcurrentInvertedIndexTests() {}
+
+	/** The number of threads used by the tests. */
+	private static final int THREADS = 4;
+
+	/**
+	 * Returns a local index of one source, with a word shared by every source, a
+	 * word shared by every other source, and a word of its own.
+	 *
+	 * @param i the number of the source
+	 * @return the local index
+	 */
+	private static InvertedIndex local(int i) {
+		InvertedIndex local = new InvertedIndex();
+		local.add(List.of("common", i % 2 == 0 ? "even" : "odd", "word" + i, "common"), "source" + i);
+		return local;
+	}
+
+	/**
+	 * Runs the task on several threads at once and waits for all of them,
+	 * rethrowing the first failure.
+	 *
+	 * @param task the task to run, given the number of its thread
+	 * @throws Exception if a task fails
+	 */
+	private static void runThreads(ThreadTask task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				int thread = i;
+				futures.add(executor.submit(() -> {
+					task.run(thread);
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	/** A task run by each thread of {@link #runThreads(ThreadTask)}. */
+	@FunctionalInterface
+	private interface ThreadTask {
+		/**
+		 * Runs the task.
+		 *
+		 * @param thread the number of the thread running the task
+		 * @throws Exception if the task fails
+		 */
+		void run(int thread) throws Exception;
+	}
+
+	/**
+	 * Tests merging, removing, and searching from several threads at once.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class ThreadTests {
+		/** Creates a new instance of this class. */
+		public ThreadTests() {}
+
+		/**
+		 * Tests that merging sources from several threads while searching gives the
+		 * same index as merging them one at a time, and that searches only see
+		 * complete sources.
+		 *
+		 * @throws Exception if a thread fails
+		 */
+		@Test
+		@Order(1)
+		public void testAddAll() throws Exception {
+			int sources = 400;
+			ConcurrentInvertedIndex index = new ConcurrentInvertedIndex();
+			AtomicBoolean merging = new AtomicBoolean(true);
+			AtomicInteger incomplete = new AtomicInteger();
+
+			Thread searcher = new Thread(() -> {
+				while (merging.get()) {
+					for (InvertedIndex.SearchResult result : index.searchExact(Set.of("common"))) {
+						if (result.getMatchCount() != 2 || result.getScore() != 0.5) {
+							incomplete.incrementAndGet();
+						}
+					}
+				}
+			});
+			searcher.start();
+
+			try {
+				runThreads(thread -> {
+					for (int i = thread; i < sources; i += THREADS) {
+						index.addAll(local(i));
+					}
+				});
+			}
+			finally {
+				merging.set(false);
+				searcher.join();
+			}
+
+			InvertedIndex expected = new InvertedIndex();
+			for (int i = 0; i < sources; i++) {
+				expected.addAll(local(i));
+			}
+
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(0, incomplete.get()),
+					() -> Assertions.assertEquals(expected.countstoJson(), index.countstoJson()),
+					() -> Assertions.assertEquals(expected.indexToJson(), index.indexToJson()),
+					() -> Assertions.assertEquals(expected.sizeWords(), index.sizeWords()),
+					() -> Assertions.assertEquals(expected.searchPartial(Set.of("e", "w")),
+							index.searchPartial(Set.of("e", "w"))));
+		}
+
+		/**
+		 * Tests that removing sources from several threads while others are merged
+		 * gives the same index as merging only the sources that are kept.
+		 *
+		 * @throws Exception if a thread fails
+		 */
+		@Test
+		@Order(2)
+		public void testRemove() throws Exception {
+			int sources = 400;
+			ConcurrentInvertedIndex index = new ConcurrentInvertedIndex();
+			for (int i = 0; i < sources; i += 2) {
+				index.addAll(local(i));
+			}
+
+			runThreads(thread -> {
+				for (int i = thread; i < sources; i += THREADS) {
+					if (i % 2 == 0) {
+						Assertions.assertTrue(index.remove("source" + i));
+					}
+					else {
+						index.addAll(local(i));
+					}
+				}
+			});
+
+			InvertedIndex expected = new InvertedIndex();
+			for (int i = 1; i < sources; i += 2) {
+				expected.addAll(local(i));
+			}
+
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(expected.countstoJson(), index.countstoJson()),
+					() -> Assertions.assertEquals(expected.indexToJson(), index.indexToJson()),
+					() -> Assertions.assertFalse(index.hasWord("even")),
+					() -> Assertions.assertEquals(expected.sizeWords(), index.sizeWords()),
+					() -> Assertions.assertEquals(expected.searchExact(Set.of("common", "odd")),
+							index.searchExact(Set.of("common", "odd"))));
+		}
+	}
+
+	/**
+	 * Tests that position lists are copied when they are merged rather than
+	 * modified in place.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class CopyTests {
+		/** Creates a new instance of this class. */
+		public CopyTests() {}
+
+		/**
+		 * Tests that a position list read from the index does not change when more
+		 * positions of the same word and source are merged in.
+		 */
+		@Test
+		@Order(1)
+		public void testSnapshot() {
+			ConcurrentInvertedIndex index = new ConcurrentInvertedIndex();
+			index.add("hello", "a.txt", 1);
+			PositionList before = index.postings().get("hello").firstEntry().getValue();
+
+			index.add("hello", "a.txt", 5);
+			PositionList after = index.postings().get("hello").firstEntry().getValue();
+
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(List.of(1), new ArrayList<>(before)),
+					() -> Assertions.assertEquals(List.of(1, 5), new ArrayList<>(after)),
+					() -> Assertions.assertNotSame(before, after));
+		}
+
+		/**
+		 * Tests that the position lists of a merged local index are not modified by
+		 * later merges of the same word and source.
+		 */
+		@Test
+		@Order(2)
+		public void testLocal() {
+			InvertedIndex first = new InvertedIndex();
+			first.add(List.of("hello", "world"), "a.txt");
+			PositionList positions = first.postings().get("hello").firstEntry().getValue();
+
+			InvertedIndex second = new InvertedIndex();
+			second.add("hello", "a.txt", 7);
+
+			ConcurrentInvertedIndex index = new ConcurrentInvertedIndex();
+			index.addAll(first);
+			index.addAll(second);
+
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(List.of(1), new ArrayList<>(positions)),
+					() -> Assertions.assertEquals(Set.of(1, 7), index.viewPositions("hello", "a.txt")),
+					() -> Assertions.assertEquals(7, index.viewCounts().get("a.txt")));
+		}
+
+		/**
+		 * Tests that shifting positions replaces the position lists instead of
+		 * modifying them.
+		 */
+		@Test
+		@Order(3)
+		public void testShift() {
+			ConcurrentInvertedIndex index = new ConcurrentInvertedIndex();
+			index.add(List.of("hello", "world"), "a.txt");
+			PositionList before = index.postings().get("world").firstEntry().getValue();
+
+			index.shiftPositions(10);
+
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(List.of(2), new ArrayList<>(before)),
+					() -> Assertions.assertEquals(Set.of(12), index.viewPositions("world", "a.txt")),
+					() -> Assertions.assertEquals(12, index.viewCounts().get("a.txt")));
+		}
+	}
+
+	/**
+	 * Tests dropping words left without postings.
+	 */
+	@Nested
+	@Order(3)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class DropTests {
+		/** Creates a new instance of this class. */
+		public DropTests() {}
+
+		/**
+		 * Tests that removing the only source of a word drops the word and updates
+		 * the word count, while words of other sources are kept.
+		 */
+		@Test
+		@Order(1)
+		public void testDrop() {
+			ConcurrentInvertedIndex index = new ConcurrentInvertedIndex();
+			index.addAll(local(0));
+			index.addAll(local(1));
+			Assertions.assertEquals(5, index.sizeWords());
+
+			Assertions.assertTrue(index.remove("source0"));
+			Assertions.assertFalse(index.remove("source0"));
+
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(3, index.sizeWords()),
+					() -> Assertions.assertEquals(Set.of("common", "odd", "word1"), index.viewWords()),
+					() -> Assertions.assertFalse(index.hasWord("even")),
+					() -> Assertions.assertEquals(1, index.sizeSources("common")),
+					() -> Assertions.assertEquals(1, index.sizeCounts()));
+		}
+
+		/**
+		 * Tests that the same words removed and merged again from several threads
+		 * are never dropped while they still have postings, and that the word count
+		 * matches the words left.
+		 *
+		 * @throws Exception if a thread fails
+		 */
+		@Test
+		@Order(2)
+		public void testDropWhileMerging() throws Exception {
+			ConcurrentInvertedIndex index = new ConcurrentInvertedIndex();
+			runThreads(thread -> {
+				for (int round = 0; round < 500; round++) {
+					index.addAll(local(thread));
+					index.remove("source" + thread, local(thread).viewWords());
+				}
+				index.addAll(local(thread));
+			});
+
+			InvertedIndex expected = new InvertedIndex();
+			for (int i = 0; i < THREADS; i++) {
+				expected.addAll(local(i));
+			}
+
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(expected.indexToJson(), index.indexToJson()),
+					() -> Assertions.assertEquals(expected.viewWords(), index.viewWords()),
+					() -> Assertions.assertEquals(expected.sizeWords(), index.sizeWords()));
+		}
+	}
+}
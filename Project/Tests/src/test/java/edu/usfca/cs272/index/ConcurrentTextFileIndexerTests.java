@@ -0,0 +1,161 @@
+package edu.usfca.cs272.index;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.usfca.cs272.threads.WorkQueue;
+
+/**
+ * A test suite for {@link ConcurrentTextFileIndexer}, which splits large files
+ * into chunks indexed in parallel.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class ConcurrentTextFileIndexerTests {
+	/** Creates a new instance of this class. */
+	public ConcurrentTextFileIndexerTests() {}
+
+	/** The directory for the text files. */
+	@TempDir
+	private static Path temp;
+
+	/**
+	 * Lines with a leading no-break space, non-ASCII letters, and words split by
+	 * punctuation, repeated to fill many chunks.
+	 */
+	private static final String[] LINES = {
+			"\u00a0hello world", "caf\u00e9 au lait, na\u00efve fa\u00e7ade",
+			"\u0395\u03bb\u03bb\u03b7\u03bd\u03b9\u03ba\u03ac \u039a\u0395\u03a6\u0391\u039b\u0391\u0399\u0391",
+			"\u65e5\u672c\u8a9e \u306e \u30c6\u30ad\u30b9\u30c8", "\ufb01ne \ufb02ow \u00c6ther \u0153uvre stra\u00dfe",
+			"", "running runners ran \u00a0 quickly", "hello-again world's 3rd" };
+
+	/**
+	 * Writes a file of the lines repeated the given number of times, with CRLF
+	 * line endings and no line break after the last line.
+	 *
+	 * @param name the name of the file
+	 * @param repeats the number of times to repeat the lines
+	 * @return the path of the file
+	 * @throws IOException if unable to write the file
+	 */
+	private static Path write(String name, int repeats) throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < repeats; i++) {
+			for (String line : LINES) {
+				text.append(line).append("\r\n");
+			}
+		}
+		text.append("\u00a0last \u00e9t\u00e9 line");
+		return Files.writeString(temp.resolve(name), text, UTF_8);
+	}
+
+	/**
+	 * Asserts that indexing the path in chunks of the given size gives the same
+	 * index and counts as the serial indexer.
+	 *
+	 * @param path the file or directory to index
+	 * @param chunkSize the number of bytes in each chunk
+	 * @throws IOException if unable to index the path
+	 */
+	private static void assertSerial(Path path, int chunkSize) throws IOException {
+		InvertedIndex expected = new InvertedIndex();
+		new TextFileIndexer(expected).indexPath(path);
+		Assertions.assertTrue(expected.sizeWords() > 0);
+
+		ThreadSafeInvertedIndex actual = new ThreadSafeInvertedIndex();
+		WorkQueue tasks = new WorkQueue(3);
+		try {
+			new ConcurrentTextFileIndexer(new IndexMerger(actual), tasks, chunkSize).indexPath(path);
+		}
+		finally {
+			tasks.join();
+		}
+
+		String message = path.getFileName() + " in chunks of " + chunkSize;
+		Assertions.assertAll(
+				() -> Assertions.assertEquals(expected.indexToJson(), actual.indexToJson(), message),
+				() -> Assertions.assertEquals(expected.countstoJson(), actual.countstoJson(), message));
+	}
+
+	/**
+	 * Tests indexing files in chunks.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class ChunkTests {
+		/** Creates a new instance of this class. */
+		public ChunkTests() {}
+
+		/**
+		 * Tests a file split into many small chunks.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Test
+		@Order(1)
+		public void testSmall() throws IOException {
+			Path file = write("small.txt", 20);
+			Assertions.assertTrue(Files.size(file) > 64 * 10);
+			assertSerial(file, 64);
+		}
+
+		/**
+		 * Tests every chunk size up to a little more than the lines, so the chunks
+		 * end at every byte of a line, including between a carriage return and a
+		 * line feed and inside multi-byte characters.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Test
+		@Order(2)
+		public void testEverySize() throws IOException {
+			Path file = write("sizes.txt", 3);
+			int lines = String.join("\r\n", LINES).getBytes(UTF_8).length;
+			for (int chunkSize = 1; chunkSize <= lines + 8; chunkSize++) {
+				assertSerial(file, chunkSize);
+			}
+		}
+
+		/**
+		 * Tests a file of a single line without a line break larger than a chunk.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Test
+		@Order(3)
+		public void testOneLine() throws IOException {
+			Path file = Files.writeString(temp.resolve("line.txt"), "\u00a0caf\u00e9 hello world ".repeat(50), UTF_8);
+			assertSerial(file, 16);
+		}
+
+		/**
+		 * Tests a directory of files smaller and larger than a chunk.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Test
+		@Order(4)
+		public void testDirectory() throws IOException {
+			Path dir = Files.createDirectories(temp.resolve("directory"));
+			Files.writeString(dir.resolve("tiny.txt"), "\u00a0hello\r\nworld", UTF_8);
+			Files.copy(write("large.txt", 10), dir.resolve("large.txt"));
+			assertSerial(dir, 100);
+		}
+	}
+}
@@ -0,0 +1,223 @@
+package edu.usfca.cs272.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+
+/**
+ * A test suite for the {@link SerialDocumentTable} and
+ * {@link ConcurrentDocumentTable} implementations of {@link DocumentTable}.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class DocumentTableTests {
+	/** Creates a new instance of this class. */
+	public DocumentTableTests() {}
+
+	/**
+	 * Registers more sources than fit in the initial arrays of a table, with a
+	 * word count for every other source, and checks the ids, sources, and word
+	 * counts of the table.
+	 *
+	 * @param table the empty table to fill
+	 */
+	private static void assertTable(DocumentTable table) {
+		int size = 5000;
+		for (int i = 0; i < size; i++) {
+			Assertions.assertEquals(i, table.register("source" + i));
+			table.mergeCount(i, i % 2 == 0 ? i + 1 : 0);
+		}
+
+		Assertions.assertAll(
+				() -> Assertions.assertEquals(size, table.size()),
+				() -> Assertions.assertEquals(size / 2, table.sizeCounts()),
+				() -> Assertions.assertEquals(42, table.register("source42")),
+				() -> Assertions.assertEquals(4999, table.id("source4999")),
+				() -> Assertions.assertEquals(-1, table.id("missing")),
+				() -> Assertions.assertEquals("source3000", table.source(3000)),
+				() -> Assertions.assertEquals(4001, table.count(4000)),
+				() -> Assertions.assertEquals(0, table.count(4001)),
+				() -> Assertions.assertEquals(0, table.count(size)),
+				() -> Assertions.assertEquals(0, table.count(-1)),
+				() -> Assertions.assertThrows(IndexOutOfBoundsException.class, () -> table.source(size)));
+	}
+
+	/**
+	 * Checks that a word count only grows, and that clearing it keeps the source
+	 * registered.
+	 *
+	 * @param table the empty table to use
+	 */
+	private static void assertCounts(DocumentTable table) {
+		int id = table.register("hello.txt");
+		table.mergeCount(id, 5);
+		table.mergeCount(id, 3);
+		Assertions.assertEquals(5, table.count(id));
+		Assertions.assertTrue(table.hasCount("hello.txt"));
+
+		table.clearCount(id);
+		table.clearCount(id);
+		Assertions.assertAll(
+				() -> Assertions.assertEquals(0, table.count(id)),
+				() -> Assertions.assertEquals(0, table.sizeCounts()),
+				() -> Assertions.assertFalse(table.hasCount("hello.txt")),
+				() -> Assertions.assertEquals(id, table.id("hello.txt")),
+				() -> Assertions.assertTrue(table.viewCounts().isEmpty()));
+	}
+
+	/**
+	 * Checks that merging a table registers its sources and maps its ids.
+	 *
+	 * @param table the empty table to merge into
+	 * @param other the empty table to merge from
+	 */
+	private static void assertMerge(DocumentTable table, DocumentTable other) {
+		table.mergeCount(table.register("b.txt"), 2);
+		other.mergeCount(other.register("a.txt"), 1);
+		other.mergeCount(other.register("b.txt"), 7);
+
+		int[] mapping = table.mergeAll(other);
+		Assertions.assertArrayEquals(new int[] { 1, 0 }, mapping);
+		Assertions.assertEquals(Map.of("a.txt", 1, "b.txt", 7), table.viewCounts());
+	}
+
+	/**
+	 * Tests the serial table.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class SerialTests {
+		/** Creates a new instance of this class. */
+		public SerialTests() {}
+
+		/**
+		 * Tests ids, sources, and word counts of a table that has grown.
+		 */
+		@Test
+		@Order(1)
+		public void testGrow() {
+			assertTable(new SerialDocumentTable());
+		}
+
+		/**
+		 * Tests merging and clearing word counts.
+		 */
+		@Test
+		@Order(2)
+		public void testCounts() {
+			assertCounts(new SerialDocumentTable());
+		}
+
+		/**
+		 * Tests merging another table.
+		 */
+		@Test
+		@Order(3)
+		public void testMerge() {
+			assertMerge(new SerialDocumentTable(), new ConcurrentDocumentTable());
+		}
+	}
+
+	/**
+	 * Tests the concurrent table.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class ConcurrentTests {
+		/** Creates a new instance of this class. */
+		public ConcurrentTests() {}
+
+		/**
+		 * Tests ids, sources, and word counts of a table that has grown.
+		 */
+		@Test
+		@Order(1)
+		public void testGrow() {
+			assertTable(new ConcurrentDocumentTable());
+		}
+
+		/**
+		 * Tests merging and clearing word counts.
+		 */
+		@Test
+		@Order(2)
+		public void testCounts() {
+			assertCounts(new ConcurrentDocumentTable());
+		}
+
+		/**
+		 * Tests merging another table.
+		 */
+		@Test
+		@Order(3)
+		public void testMerge() {
+			assertMerge(new ConcurrentDocumentTable(), new SerialDocumentTable());
+		}
+
+		/**
+		 * Tests that threads registering overlapping sources and merging word counts
+		 * while the table grows agree on the ids and keep every word count.
+		 *
+		 * @throws Exception if a thread fails
+		 */
+		@Test
+		@Order(4)
+		public void testThreads() throws Exception {
+			ConcurrentDocumentTable table = new ConcurrentDocumentTable();
+			int threads = 4;
+			int sources = 20000;
+
+			Supplier<Map<String, Integer>> worker = () -> {
+				TreeMap<String, Integer> seen = new TreeMap<>();
+				for (int i = 0; i < sources; i++) {
+					String source = "source" + i;
+					int id = table.register(source);
+					Assertions.assertEquals(source, table.source(id));
+					table.mergeCount(id, i + 1);
+					seen.put(source, id);
+				}
+				return seen;
+			};
+
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<Map<String, Integer>>> futures = new ArrayList<>();
+				for (int i = 0; i < threads; i++) {
+					futures.add(executor.submit(worker::get));
+				}
+
+				Map<String, Integer> expected = futures.get(0).get();
+				for (Future<Map<String, Integer>> future : futures) {
+					Assertions.assertEquals(expected, future.get());
+				}
+			}
+			finally {
+				executor.shutdown();
+			}
+
+			Assertions.assertEquals(sources, table.size());
+			Assertions.assertEquals(sources, table.sizeCounts());
+			for (int i = 0; i < sources; i++) {
+				Assertions.assertEquals(i + 1, table.count(table.id("source" + i)));
+			}
+		}
+	}
+}
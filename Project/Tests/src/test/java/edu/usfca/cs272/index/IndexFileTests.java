@@ -0,0 +1,232 @@
+package edu.usfca.cs272.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.usfca.cs272.tests.utils.ProjectPath;
+
+/**
+ * A test suite for the binary index format of {@link IndexFile}, written by
+ * {@link FrozenInvertedIndex#save(Path)} and read back by
+ * {@link FrozenInvertedIndex#load(Path)} and {@link FrozenInvertedIndex#map(Path)}.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class IndexFileTests {
+	/** Creates a new instance of this class. */
+	public IndexFileTests() {}
+
+	/** The directory for binary index files. */
+	@TempDir
+	private static Path temp;
+
+	/** The index of the simple text files. */
+	private static FrozenInvertedIndex index;
+
+	/** The binary index file of the simple text files. */
+	private static Path file;
+
+	/**
+	 * Builds and saves the index of the simple text files once for all tests.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	@BeforeAll
+	public static void setup() throws IOException {
+		InvertedIndex built = new InvertedIndex();
+		new TextFileIndexer(built).indexPath(ProjectPath.SIMPLE.path);
+		index = built.freeze();
+		file = temp.resolve("simple.index");
+		index.save(file);
+	}
+
+	/**
+	 * Asserts the index has the same counts, words, and positions as the index of
+	 * the simple text files.
+	 *
+	 * @param actual the index to compare
+	 */
+	private static void assertSameIndex(FrozenInvertedIndex actual) {
+		Assertions.assertEquals(index.countstoJson(), actual.countstoJson());
+		Assertions.assertEquals(index.indexToJson(), actual.indexToJson());
+	}
+
+	/**
+	 * Writes the bytes to a new binary index file.
+	 *
+	 * @param name the name of the file
+	 * @param bytes the bytes to write
+	 * @return the path of the file
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static Path write(String name, byte[] bytes) throws IOException {
+		return Files.write(temp.resolve(name), bytes);
+	}
+
+	/**
+	 * Asserts both loading and mapping the file fail with an I/O exception.
+	 *
+	 * @param path the binary index file
+	 */
+	private static void assertRejected(Path path) {
+		Assertions.assertThrows(IOException.class, () -> FrozenInvertedIndex.load(path), path::toString);
+		Assertions.assertThrows(IOException.class, () -> FrozenInvertedIndex.map(path), path::toString);
+	}
+
+	/**
+	 * Tests saving an index and reading it back.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class RoundTripTests {
+		/** Creates a new instance of this class. */
+		public RoundTripTests() {}
+
+		/**
+		 * Tests a loaded index is the same as the saved index.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(1)
+		@Test
+		public void testLoad() throws IOException {
+			assertSameIndex(FrozenInvertedIndex.load(file));
+		}
+
+		/**
+		 * Tests a mapped index is the same as the saved index.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(2)
+		@Test
+		public void testMap() throws IOException {
+			assertSameIndex(FrozenInvertedIndex.map(file));
+		}
+
+		/**
+		 * Tests saving a loaded or mapped index writes the same bytes again.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(3)
+		@Test
+		public void testSaveAgain() throws IOException {
+			byte[] expected = Files.readAllBytes(file);
+
+			Path loaded = temp.resolve("loaded.index");
+			FrozenInvertedIndex.load(file).save(loaded);
+			Assertions.assertArrayEquals(expected, Files.readAllBytes(loaded));
+
+			Path mapped = temp.resolve("mapped.index");
+			FrozenInvertedIndex.map(file).save(mapped);
+			Assertions.assertArrayEquals(expected, Files.readAllBytes(mapped));
+		}
+
+		/**
+		 * Tests an empty index can be saved, loaded, and mapped.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(4)
+		@Test
+		public void testEmpty() throws IOException {
+			Path empty = temp.resolve("empty.index");
+			new InvertedIndex().freeze().save(empty);
+
+			for (FrozenInvertedIndex actual : List.of(FrozenInvertedIndex.load(empty), FrozenInvertedIndex.map(empty))) {
+				Assertions.assertEquals(0, actual.sizeWords());
+				Assertions.assertEquals(0, actual.sizeCounts());
+			}
+		}
+	}
+
+	/**
+	 * Tests damaged binary index files are rejected.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class CorruptTests {
+		/** Creates a new instance of this class. */
+		public CorruptTests() {}
+
+		/**
+		 * Tests a file of another format or version is rejected.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(1)
+		@Test
+		public void testHeader() throws IOException {
+			byte[] bytes = Files.readAllBytes(file);
+
+			byte[] magic = bytes.clone();
+			magic[0] = '{';
+			assertRejected(write("magic.index", magic));
+
+			byte[] version = bytes.clone();
+			version[7] = (byte) (IndexFile.VERSION + 1);
+			assertRejected(write("version.index", version));
+
+			assertRejected(write("json.index", index.indexToJson().getBytes()));
+		}
+
+		/**
+		 * Tests a file cut off at any point is rejected.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(2)
+		@Test
+		public void testTruncated() throws IOException {
+			byte[] bytes = Files.readAllBytes(file);
+			for (int length = 0; length < bytes.length; length++) {
+				assertRejected(write("truncated.index", Arrays.copyOf(bytes, length)));
+			}
+		}
+
+		/**
+		 * Tests a negative or impossibly large array length is rejected without
+		 * allocating the array.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(3)
+		@Test
+		public void testLengths() throws IOException {
+			byte[] bytes = Files.readAllBytes(file);
+
+			// the length of the first source follows the header and document count
+			byte[] negative = bytes.clone();
+			negative[12] = (byte) 0x80;
+			assertRejected(write("negative.index", negative));
+
+			byte[] large = bytes.clone();
+			large[12] = 0x7F;
+			large[13] = (byte) 0xFF;
+			assertRejected(write("large.index", large));
+
+			byte[] trailing = Arrays.copyOf(bytes, bytes.length + 1);
+			Assertions.assertEquals(index.indexToJson(), FrozenInvertedIndex.load(write("trailing.index", trailing))
+					.indexToJson());
+		}
+	}
+}
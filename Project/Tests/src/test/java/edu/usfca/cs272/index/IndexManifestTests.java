@@ -0,0 +1,453 @@
+package edu.usfca.cs272.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.usfca.cs272.threads.WorkQueue;
+
+/**
+ * A test suite for {@link IndexManifest} and the
+ * {@link IncrementalTextFileIndexer} that reads and saves it.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class IndexManifestTests {
+	/** Creates a new instance of this class. */
+	public IndexManifestTests() {}
+
+	/** The directory for text and manifest files. */
+	@TempDir
+	private static Path temp;
+
+	/**
+	 * Creates a new directory of text files for a test.
+	 *
+	 * @param name the name of the directory
+	 * @return the directory
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static Path texts(String name) throws IOException {
+		Path dir = Files.createDirectories(temp.resolve(name));
+		Files.writeString(dir.resolve("hello.txt"), "hello world\r\nhello again");
+		Files.writeString(dir.resolve("cafe.txt"), "caf\u00e9 au lait");
+		Files.writeString(dir.resolve("gone.txt"), "goodbye cruel world");
+		return dir;
+	}
+
+	/**
+	 * Indexes the directory incrementally with the manifest into a new index, as
+	 * a new run would.
+	 *
+	 * @param dir the directory to index
+	 * @param manifest the path of the manifest
+	 * @return the new index
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static InvertedIndex incremental(Path dir, Path manifest) throws IOException {
+		InvertedIndex index = new InvertedIndex();
+		new IncrementalTextFileIndexer(index, manifest).indexPath(dir);
+		return index;
+	}
+
+	/**
+	 * Asserts the index has the same counts and postings as indexing every file
+	 * of the directory from scratch.
+	 *
+	 * @param dir the indexed directory
+	 * @param actual the index to compare
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static void assertFull(Path dir, InvertedIndex actual) throws IOException {
+		InvertedIndex expected = new InvertedIndex();
+		new TextFileIndexer(expected).indexPath(dir);
+		Assertions.assertAll(
+				() -> Assertions.assertEquals(expected.countstoJson(), actual.countstoJson()),
+				() -> Assertions.assertEquals(expected.indexToJson(), actual.indexToJson()));
+	}
+
+	/**
+	 * Tests saving and loading the manifest itself.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class FileTests {
+		/** Creates a new instance of this class. */
+		public FileTests() {}
+
+		/**
+		 * Tests that a saved manifest loads with the same records and restores the
+		 * same postings.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Test
+		@Order(1)
+		public void testRoundTrip() throws IOException {
+			Path dir = texts("round");
+			Path path = temp.resolve("round.manifest");
+			InvertedIndex built = incremental(dir, path);
+
+			IndexManifest loaded = IndexManifest.load(path);
+			InvertedIndex restored = new InvertedIndex();
+			loaded.restore(restored);
+
+			Path file = dir.resolve("hello.txt");
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			IndexManifest.Document document = loaded.get(file.toString());
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(3, loaded.size()),
+					() -> Assertions.assertTrue(document.matches(attributes)),
+					() -> Assertions.assertTrue(document.matches(IndexManifest.hash(file))),
+					() -> Assertions.assertEquals(Set.of("hello", "world", "again"), document.viewWords()),
+					() -> Assertions.assertEquals(built.indexToJson(), restored.indexToJson()),
+					() -> Assertions.assertEquals(built.countstoJson(), restored.countstoJson()));
+		}
+
+		/**
+		 * Tests that files without the header of a manifest, or with an unknown
+		 * record, are rejected.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Test
+		@Order(2)
+		public void testCorrupt() throws IOException {
+			Path dir = texts("corrupt");
+			Path path = temp.resolve("corrupt.manifest");
+			incremental(dir, path);
+			byte[] bytes = Files.readAllBytes(path);
+
+			byte[] magic = bytes.clone();
+			magic[0] ^= 1;
+			byte[] version = bytes.clone();
+			version[7] ^= 1;
+			byte[] record = bytes.clone();
+			record[8] = 7;
+			byte[] header = Arrays.copyOf(bytes, 6);
+
+			for (byte[] corrupt : List.of(magic, version, record, header, new byte[0])) {
+				Path bad = Files.write(temp.resolve("bad.manifest"), corrupt);
+				Assertions.assertThrows(IOException.class, () -> IndexManifest.load(bad));
+			}
+		}
+
+		/**
+		 * Tests that a partial last record, as left by a crash while appending, is
+		 * ignored, and that the next save rewrites the manifest without it.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Test
+		@Order(3)
+		public void testPartial() throws IOException {
+			Path dir = texts("partial");
+			Path path = temp.resolve("partial.manifest");
+			incremental(dir, path);
+			byte[] bytes = Files.readAllBytes(path);
+			Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+
+			IndexManifest loaded = IndexManifest.load(path);
+			Assertions.assertEquals(2, loaded.size());
+			Assertions.assertNull(loaded.get(dir.resolve("hello.txt").toString()));
+
+			loaded.saveChanges(path);
+			Assertions.assertEquals(loaded.copySources(), IndexManifest.load(path).copySources());
+			Assertions.assertTrue(Files.size(path) < bytes.length);
+		}
+
+		/**
+		 * Tests that saving changes appends the records of the changed files without
+		 * rewriting the manifest, and that the manifest is compacted by a full save
+		 * once it holds more outdated records than current ones.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Test
+		@Order(4)
+		public void testAppend() throws IOException {
+			Path dir = texts("append");
+			Path path = temp.resolve("append.manifest");
+			incremental(dir, path);
+			byte[] saved = Files.readAllBytes(path);
+
+			IndexManifest manifest = IndexManifest.load(path);
+			manifest.saveChanges(path);
+			Assertions.assertArrayEquals(saved, Files.readAllBytes(path));
+
+			String source = dir.resolve("hello.txt").toString();
+			IndexManifest.Document document = manifest.get(source);
+			manifest.put(source, document);
+			manifest.saveChanges(path);
+
+			byte[] appended = Files.readAllBytes(path);
+			Assertions.assertAll(
+					() -> Assertions.assertTrue(appended.length > saved.length),
+					() -> Assertions.assertArrayEquals(saved, Arrays.copyOf(appended, saved.length)),
+					() -> Assertions.assertEquals(manifest.copySources(), IndexManifest.load(path).copySources()));
+
+			for (int i = 0; i < 2; i++) {
+				manifest.put(source, document);
+				manifest.saveChanges(path);
+				Assertions.assertTrue(Files.size(path) > appended.length);
+			}
+			manifest.put(source, document);
+			manifest.saveChanges(path);
+			Assertions.assertArrayEquals(saved, Files.readAllBytes(path));
+
+			String gone = dir.resolve("gone.txt").toString();
+			manifest.remove(gone);
+			manifest.saveChanges(path);
+			Assertions.assertTrue(Files.size(path) > saved.length);
+			Assertions.assertNull(IndexManifest.load(path).get(gone));
+			Assertions.assertEquals(2, IndexManifest.load(path).size());
+		}
+	}
+
+	/**
+	 * Tests indexing a directory again with the manifest of an earlier run.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class IncrementalTests {
+		/** Creates a new instance of this class. */
+		public IncrementalTests() {}
+
+		/**
+		 * Tests that a file with the recorded size and modification time is not read
+		 * again, by changing its content without changing either of them.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Test
+		@Order(1)
+		public void testUnchanged() throws IOException {
+			Path dir = texts("unchanged");
+			Path path = temp.resolve("unchanged.manifest");
+			InvertedIndex first = incremental(dir, path);
+
+			Path file = dir.resolve("hello.txt");
+			FileTime modified = Files.getLastModifiedTime(file);
+			Files.writeString(file, "jello world\r\njello again");
+			Files.setLastModifiedTime(file, modified);
+
+			InvertedIndex second = incremental(dir, path);
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(first.indexToJson(), second.indexToJson()),
+					() -> Assertions.assertEquals(first.countstoJson(), second.countstoJson()),
+					() -> Assertions.assertTrue(second.hasWord("hello")),
+					() -> Assertions.assertFalse(second.hasWord("jello")));
+		}
+
+		/**
+		 * Tests that a file touched without changing its content keeps its postings,
+		 * and that its new modification time is recorded.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Test
+		@Order(2)
+		public void testTouched() throws IOException {
+			Path dir = texts("touched");
+			Path path = temp.resolve("touched.manifest");
+			incremental(dir, path);
+
+			Path file = dir.resolve("hello.txt");
+			Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60_000));
+
+			InvertedIndex second = incremental(dir, path);
+			assertFull(dir, second);
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			Assertions.assertTrue(IndexManifest.load(path).get(file.toString()).matches(attributes));
+		}
+
+		/**
+		 * Tests that the postings of a changed file are replaced by its new ones.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Test
+		@Order(3)
+		public void testChanged() throws IOException {
+			Path dir = texts("changed");
+			Path path = temp.resolve("changed.manifest");
+			incremental(dir, path);
+
+			Files.writeString(dir.resolve("hello.txt"), "farewell world");
+			Files.writeString(dir.resolve("new.txt"), "hello there");
+
+			InvertedIndex second = incremental(dir, path);
+			assertFull(dir, second);
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(Set.of(dir.resolve("new.txt").toString()), second.viewSources("hello")),
+					() -> Assertions.assertTrue(second.hasWord("farewel")),
+					() -> Assertions.assertFalse(second.hasWord("again")),
+					() -> Assertions.assertEquals(4, IndexManifest.load(path).size()));
+		}
+
+		/**
+		 * Tests that the postings and word count of a deleted file are removed, and
+		 * that it is dropped from the manifest.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Test
+		@Order(4)
+		public void testDeleted() throws IOException {
+			Path dir = texts("deleted");
+			Path path = temp.resolve("deleted.manifest");
+			incremental(dir, path);
+
+			Path gone = dir.resolve("gone.txt");
+			Files.delete(gone);
+
+			InvertedIndex second = incremental(dir, path);
+			assertFull(dir, second);
+			Assertions.assertAll(
+					() -> Assertions.assertFalse(second.hasWord("goodby")),
+					() -> Assertions.assertFalse(second.hasCounts(gone.toString())),
+					() -> Assertions.assertNull(IndexManifest.load(path).get(gone.toString())));
+		}
+
+		/**
+		 * Tests that a corrupt manifest is ignored, so every file is indexed again,
+		 * and is replaced by a usable manifest.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Test
+		@Order(5)
+		public void testCorrupt() throws IOException {
+			Path dir = texts("fallback");
+			Path path = temp.resolve("fallback.manifest");
+			incremental(dir, path);
+			byte[] bytes = Files.readAllBytes(path);
+			bytes[0] ^= 1;
+			Files.write(path, bytes);
+
+			Files.writeString(dir.resolve("hello.txt"), "farewell world");
+			InvertedIndex second = incremental(dir, path);
+			assertFull(dir, second);
+			Assertions.assertEquals(3, IndexManifest.load(path).size());
+		}
+	}
+
+	/**
+	 * Tests updating the index for batches of changed paths, as the watcher of a
+	 * text directory does.
+	 */
+	@Nested
+	@Order(3)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class UpdateTests {
+		/** Creates a new instance of this class. */
+		public UpdateTests() {}
+
+		/**
+		 * Tests that a batch of changed, deleted, and new paths updates the index and
+		 * only appends to the manifest.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Test
+		@Order(1)
+		public void testUpdate() throws IOException {
+			Path dir = texts("update");
+			Path path = temp.resolve("update.manifest");
+			InvertedIndex index = new InvertedIndex();
+			IncrementalTextFileIndexer indexer = new IncrementalTextFileIndexer(index, path);
+			indexer.indexPath(dir);
+			byte[] saved = Files.readAllBytes(path);
+
+			Path hello = dir.resolve("hello.txt");
+			Path gone = dir.resolve("gone.txt");
+			Path nested = Files.createDirectories(dir.resolve("nested"));
+			Files.writeString(hello, "farewell world");
+			Files.delete(gone);
+			Files.writeString(nested.resolve("new.txt"), "hello there");
+			indexer.update(List.of(hello, gone, nested));
+
+			assertFull(dir, index);
+			byte[] appended = Files.readAllBytes(path);
+			Assertions.assertArrayEquals(saved, Arrays.copyOf(appended, saved.length));
+			Assertions.assertEquals(3, IndexManifest.load(path).size());
+		}
+
+		/**
+		 * Tests that searches of a thread-safe index updated on a work queue only
+		 * see complete files while the files keep changing.
+		 *
+		 * @throws Exception if an update or a search fails
+		 */
+		@Test
+		@Order(2)
+		public void testSearch() throws Exception {
+			Path dir = Files.createDirectories(temp.resolve("search"));
+			List<Path> files = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				files.add(Files.writeString(dir.resolve("file" + i + ".txt"), "common common other thing"));
+			}
+
+			ThreadSafeInvertedIndex index = new ThreadSafeInvertedIndex();
+			WorkQueue tasks = new WorkQueue(3);
+			AtomicBoolean updating = new AtomicBoolean(true);
+			AtomicInteger incomplete = new AtomicInteger();
+			Thread searcher = new Thread(() -> {
+				while (updating.get()) {
+					List<InvertedIndex.SearchResult> results = index.searchExact(Set.of("common"));
+					for (InvertedIndex.SearchResult result : results) {
+						if (result.getMatchCount() != 2 || result.getScore() != 0.5) {
+							incomplete.incrementAndGet();
+						}
+					}
+					index.searchPartial(Set.of("oth"), 5, source -> true, false);
+				}
+			});
+
+			try {
+				IncrementalTextFileIndexer indexer = new IncrementalTextFileIndexer(new IndexMerger(index), tasks,
+						temp.resolve("search.manifest"));
+				indexer.indexPath(dir);
+				searcher.start();
+
+				for (int round = 1; round <= 10; round++) {
+					String text = round % 2 == 0 ? "common common other thing" : "thing others common common";
+					for (Path file : files) {
+						Files.writeString(file, text);
+					}
+					indexer.update(files);
+				}
+			}
+			finally {
+				updating.set(false);
+				searcher.join();
+				tasks.join();
+			}
+
+			Assertions.assertEquals(0, incomplete.get());
+			assertFull(dir, index);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package edu.usfca.cs272.index;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import edu.usfca.cs272.threads.WorkQueue;
+
+/**
+ * A test suite for merging each {@link InvertedIndex} implementation into a
+ * plain index with {@link InvertedIndex#addAll(InvertedIndex)}.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class InvertedIndexTests {
+	/** Creates a new instance of this class. */
+	public InvertedIndexTests() {}
+
+	/** The work queue used by segmented indexes. */
+	private static final WorkQueue tasks = new WorkQueue(2);
+
+	/** Shuts down the work queue after all tests. */
+	@AfterAll
+	public static void shutdown() {
+		tasks.shutdown();
+	}
+
+	/**
+	 * Fills an index with two sources sharing a word.
+	 *
+	 * @param index the empty index to fill
+	 * @return the filled index
+	 */
+	private static InvertedIndex fill(InvertedIndex index) {
+		index.add(List.of("hello", "world", "hello"), "a.txt");
+		index.add(List.of("help", "world"), "b.txt");
+		return index;
+	}
+
+	/**
+	 * Returns a filled plain index.
+	 *
+	 * @return the filled index
+	 */
+	private static InvertedIndex expected() {
+		return fill(new InvertedIndex());
+	}
+
+	/**
+	 * Merges a filled index of any implementation into a plain index that already
+	 * has a source, and checks the result matches merging a plain index.
+	 *
+	 * @param other the filled index to merge
+	 */
+	private static void assertAddAll(InvertedIndex other) {
+		InvertedIndex expected = new InvertedIndex();
+		expected.add(List.of("world"), "c.txt");
+		expected.addAll(expected());
+
+		InvertedIndex actual = new InvertedIndex();
+		actual.add(List.of("world"), "c.txt");
+		actual.addAll(other);
+
+		Assertions.assertAll(
+				() -> Assertions.assertEquals(expected.countstoJson(), actual.countstoJson()),
+				() -> Assertions.assertEquals(expected.indexToJson(), actual.indexToJson()),
+				() -> Assertions.assertEquals(3, actual.sizeCounts()));
+	}
+
+	/**
+	 * Tests merging each implementation into a plain index.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class AddAllTests {
+		/** Creates a new instance of this class. */
+		public AddAllTests() {}
+
+		/** Tests merging a plain index. */
+		@Test
+		@Order(1)
+		public void testPlain() {
+			assertAddAll(expected());
+		}
+
+		/** Tests merging a thread-safe index. */
+		@Test
+		@Order(2)
+		public void testThreadSafe() {
+			assertAddAll(fill(new ThreadSafeInvertedIndex()));
+		}
+
+		/** Tests merging a frozen index. */
+		@Test
+		@Order(3)
+		public void testFrozen() {
+			assertAddAll(expected().freeze());
+		}
+
+		/** Tests merging a concurrent index. */
+		@Test
+		@Order(4)
+		public void testConcurrent() {
+			assertAddAll(fill(new ConcurrentInvertedIndex()));
+		}
+
+		/** Tests merging a sharded index. */
+		@Test
+		@Order(5)
+		public void testSharded() {
+			assertAddAll(fill(new ShardedInvertedIndex(4)));
+		}
+
+		/** Tests merging a segmented index. */
+		@Test
+		@Order(6)
+		public void testSegmented() {
+			assertAddAll(fill(new SegmentedInvertedIndex(tasks, 1)));
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package edu.usfca.cs272.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import edu.usfca.cs272.util.DatabaseConnector;
+
+/**
+ * Approximates how long it takes to save, load, and search an index stored in
+ * a database with {@link JdbcIndexStore}, compared to the binary index file and
+ * the in-memory index. Note: Benchmarking is difficult in Java, and the times
+ * depend on the database and the machine, so treat the results as estimates.
+ *
+ * @see JdbcIndexStore
+ * @see FrozenInvertedIndex#save(Path)
+ */
+public class JdbcIndexStoreBenchmark {
+	/**
+	 * Counts the postings of the index, one for each word in each source.
+	 *
+	 * @param index the index to count
+	 * @return the number of postings
+	 */
+	private static int postings(InvertedIndex index) {
+		int postings = 0;
+		for (String word : index.viewWords()) {
+			postings += index.sizeSources(word);
+		}
+		return postings;
+	}
+
+	/**
+	 * Returns queries of one and two words of the index, and of a missing word.
+	 *
+	 * @param index the index to query
+	 * @return the queries
+	 */
+	private static List<Set<String>> queries(InvertedIndex index) {
+		List<Set<String>> queries = new ArrayList<>();
+		String previous = "zzzzmissing";
+		int i = 0;
+		for (String word : index.viewWords()) {
+			if (i++ % 40 == 0) {
+				queries.add(Set.of(word));
+				queries.add(Set.of(word, previous));
+				previous = word;
+			}
+		}
+		return queries;
+	}
+
+	/**
+	 * Returns the time since the start in milliseconds.
+	 *
+	 * @param start the start time from {@link System#nanoTime()}
+	 * @return the elapsed milliseconds
+	 */
+	private static double elapsed(long start) {
+		return (System.nanoTime() - start) / 1e6;
+	}
+
+	/**
+	 * Times saving and loading the index in the database and in a binary index
+	 * file, and exact searches of the database and of the in-memory index.
+	 *
+	 * @param args the database properties file and the directory of text files,
+	 *   or database.properties and input/text/rfcs if not provided
+	 * @throws IOException if unable to read a file
+	 * @throws SQLException if a database error occurs
+	 */
+	public static void main(String[] args) throws IOException, SQLException {
+		int warmup = 1;
+		int runs = 3;
+
+		Path properties = Path.of(args.length > 0 ? args[0] : "database.properties");
+		Path directory = Path.of(args.length > 1 ? args[1] : "input/text/rfcs");
+
+		InvertedIndex index = new InvertedIndex();
+		new TextFileIndexer(index).indexPath(directory);
+		FrozenInvertedIndex frozen = index.freeze();
+		JdbcIndexStore store = new JdbcIndexStore(new DatabaseConnector(properties));
+		List<Set<String>> queries = queries(index);
+		int postings = postings(index);
+		Path file = Files.createTempFile("benchmark", ".index");
+
+		double storeSave = Double.MAX_VALUE;
+		double storeLoad = Double.MAX_VALUE;
+		double fileSave = Double.MAX_VALUE;
+		double fileLoad = Double.MAX_VALUE;
+		double database = Double.MAX_VALUE;
+		double memory = Double.MAX_VALUE;
+		long result = 0;
+
+		try {
+			for (int run = 0; run < warmup + runs; run++) {
+				long start = System.nanoTime();
+				store.save(frozen);
+				double saved = elapsed(start);
+
+				start = System.nanoTime();
+				InvertedIndex loaded = new InvertedIndex();
+				store.load(loaded);
+				double read = elapsed(start);
+				result += loaded.sizeWords();
+
+				start = System.nanoTime();
+				frozen.save(file);
+				double written = elapsed(start);
+
+				start = System.nanoTime();
+				result += FrozenInvertedIndex.load(file).sizeWords();
+				double opened = elapsed(start);
+
+				start = System.nanoTime();
+				for (Set<String> query : queries) {
+					result += store.searchExact(query).size();
+				}
+				double searched = elapsed(start);
+
+				start = System.nanoTime();
+				for (Set<String> query : queries) {
+					result += index.searchExact(query).size();
+				}
+				double inMemory = elapsed(start);
+
+				if (run >= warmup) {
+					storeSave = Math.min(storeSave, saved);
+					storeLoad = Math.min(storeLoad, read);
+					fileSave = Math.min(fileSave, written);
+					fileLoad = Math.min(fileLoad, opened);
+					database = Math.min(database, searched);
+					memory = Math.min(memory, inMemory);
+				}
+			}
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+
+		System.out.printf("%,d postings of %,d words in %,d sources from %s (checksum %d)%n", postings,
+				index.sizeWords(), index.sizeCounts(), directory, result);
+		System.out.printf("Database save: %10.2f ms (%,12.0f postings/s)%n", storeSave, postings / storeSave * 1000);
+		System.out.printf("Database load: %10.2f ms (%,12.0f postings/s)%n", storeLoad, postings / storeLoad * 1000);
+		System.out.printf("File save:     %10.2f ms (%,12.0f postings/s)%n", fileSave, postings / fileSave * 1000);
+		System.out.printf("File load:     %10.2f ms (%,12.0f postings/s)%n", fileLoad, postings / fileLoad * 1000);
+		System.out.printf("%,d exact searches of one or two words%n", queries.size());
+		System.out.printf("Database search:  %10.4f ms per query%n", database / queries.size());
+		System.out.printf("In-memory search: %10.4f ms per query%n", memory / queries.size());
+	}
+
+	/** Prevent instantiating this class of static methods. */
+	private JdbcIndexStoreBenchmark() {
+	}
+}
@@ -0,0 +1,186 @@
+package edu.usfca.cs272.index;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import edu.usfca.cs272.index.InvertedIndex.SearchResult;
+import edu.usfca.cs272.tests.utils.ProjectPath;
+import edu.usfca.cs272.util.DatabaseConnector;
+
+/**
+ * An integration test suite for {@link JdbcIndexStore}, which must store, load,
+ * and search the same index as the in-memory index. Only runs when the
+ * {@code jdbc.it.uri} system property names a database, which the
+ * {@code jdbc-it} Maven profile sets to an in-process H2 database in MariaDB
+ * mode. Another database can be used by also setting {@code jdbc.it.uri},
+ * {@code jdbc.it.username}, and {@code jdbc.it.password}.
+ *
+ * @see JdbcIndexStoreBenchmark
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@EnabledIfSystemProperty(named = "jdbc.it.uri", matches = ".+")
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class JdbcIndexStoreTests {
+	/** Creates a new instance of this class. */
+	public JdbcIndexStoreTests() {}
+
+	/** The index of the RFC text files. */
+	private static InvertedIndex index;
+
+	/** The store in the database under test. */
+	private static JdbcIndexStore store;
+
+	/** Queries of one and two words of the index, and a missing word. */
+	private static List<Set<String>> queries;
+
+	/**
+	 * Builds the index of the RFC text files and connects to the database once
+	 * for all tests.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	@BeforeAll
+	public static void setup() throws IOException {
+		index = new InvertedIndex();
+		new TextFileIndexer(index).indexPath(ProjectPath.RFCS.path);
+
+		Properties login = new Properties();
+		String username = System.getProperty("jdbc.it.username", "");
+		String password = System.getProperty("jdbc.it.password", "");
+		if (!username.isBlank()) {
+			login.put("user", username);
+		}
+		if (!password.isBlank()) {
+			login.put("password", password);
+		}
+		store = new JdbcIndexStore(new DatabaseConnector(System.getProperty("jdbc.it.uri"), login));
+
+		queries = new ArrayList<>();
+		String previous = "zzzzmissing";
+		int i = 0;
+		for (String word : index.viewWords()) {
+			if (i++ % 40 == 0) {
+				queries.add(Set.of(word));
+				queries.add(Set.of(word, previous));
+				previous = word;
+			}
+		}
+	}
+
+	/**
+	 * Counts the postings of the index, one for each word in each source.
+	 *
+	 * @param counted the index to count
+	 * @return the number of postings
+	 */
+	private static int postings(InvertedIndex counted) {
+		int postings = 0;
+		for (String word : counted.viewWords()) {
+			postings += counted.sizeSources(word);
+		}
+		return postings;
+	}
+
+	/**
+	 * Tests storing, loading, and searching the index.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class StoreTests {
+		/** Creates a new instance of this class. */
+		public StoreTests() {}
+
+		/**
+		 * Tests a saved index loads back with the same words, positions, and
+		 * counts.
+		 *
+		 * @throws SQLException if a database error occurs
+		 */
+		@Order(1)
+		@Test
+		public void testSaveLoad() throws SQLException {
+			Assertions.assertEquals(postings(index), store.save(index));
+
+			InvertedIndex loaded = new InvertedIndex();
+			store.load(loaded);
+			Assertions.assertEquals(index.countstoJson(), loaded.countstoJson());
+			Assertions.assertEquals(index.indexToJson(), loaded.indexToJson());
+		}
+
+		/**
+		 * Tests exact searches of the stored index give the same results as the
+		 * in-memory index.
+		 *
+		 * @throws SQLException if a database error occurs
+		 */
+		@Order(2)
+		@Test
+		public void testSearchExact() throws SQLException {
+			store.save(index);
+			for (Set<String> query : queries) {
+				List<SearchResult> expected = index.searchExact(query);
+				Assertions.assertIterableEquals(expected, store.searchExact(query), query::toString);
+			}
+			Assertions.assertTrue(store.searchExact(Set.of()).isEmpty());
+			Assertions.assertTrue(store.searchExact(Set.of("zzzzmissing")).isEmpty());
+		}
+
+		/**
+		 * Tests saving replaces the stored index, including with an empty index.
+		 *
+		 * @throws SQLException if a database error occurs
+		 */
+		@Order(3)
+		@Test
+		public void testReplace() throws SQLException {
+			store.save(index);
+
+			InvertedIndex small = new InvertedIndex();
+			small.add(List.of("hello", "world", "hello"), "small.txt");
+			Assertions.assertEquals(2, store.save(small));
+			InvertedIndex loaded = new InvertedIndex();
+			store.load(loaded);
+			Assertions.assertEquals(small.indexToJson(), loaded.indexToJson());
+			Assertions.assertEquals(small.countstoJson(), loaded.countstoJson());
+
+			Assertions.assertEquals(0, store.save(new InvertedIndex()));
+			InvertedIndex empty = new InvertedIndex();
+			store.load(empty);
+			Assertions.assertEquals(0, empty.sizeWords());
+			Assertions.assertEquals(0, empty.sizeCounts());
+		}
+
+		/**
+		 * Tests saving a frozen index stores the same index as saving it before it
+		 * was frozen.
+		 *
+		 * @throws SQLException if a database error occurs
+		 */
+		@Order(4)
+		@Test
+		public void testFrozen() throws SQLException {
+			store.save(index.freeze());
+			InvertedIndex loaded = new InvertedIndex();
+			store.load(loaded);
+			Assertions.assertEquals(index.indexToJson(), loaded.indexToJson());
+		}
+	}
+}
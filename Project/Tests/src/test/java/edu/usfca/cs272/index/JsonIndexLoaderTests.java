@@ -0,0 +1,287 @@
+package edu.usfca.cs272.index;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import edu.usfca.cs272.tests.utils.ProjectPath;
+import edu.usfca.cs272.threads.WorkQueue;
+
+/**
+ * A test suite for {@link JsonIndexLoader} and {@link ConcurrentJsonIndexLoader},
+ * which must rebuild the same index from its JSON files and reject files that
+ * are not a valid index.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class JsonIndexLoaderTests {
+	/** Creates a new instance of this class. */
+	public JsonIndexLoaderTests() {}
+
+	/** The directory for JSON files. */
+	@TempDir
+	private static Path temp;
+
+	/** The index of the RFC text files, large enough to be loaded in several ranges. */
+	private static InvertedIndex index;
+
+	/**
+	 * Builds the index of the RFC text files once for all tests.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	@BeforeAll
+	public static void setup() throws IOException {
+		index = new InvertedIndex();
+		new TextFileIndexer(index).indexPath(ProjectPath.RFCS.path);
+	}
+
+	/**
+	 * Loads the index and counts files into a new index with a new concurrent
+	 * loader.
+	 *
+	 * @param indexFile the index JSON file
+	 * @param countsFile the counts JSON file, or null to only load the index
+	 * @return the loaded index
+	 * @throws IOException if an I/O error occurs or a file is not valid
+	 */
+	private static InvertedIndex loadConcurrent(Path indexFile, Path countsFile) throws IOException {
+		InvertedIndex loaded = new ThreadSafeInvertedIndex();
+		WorkQueue tasks = new WorkQueue(4);
+		try {
+			JsonIndexLoader loader = new ConcurrentJsonIndexLoader(new IndexMerger(loaded), tasks);
+			loader.loadIndex(indexFile);
+			if (countsFile != null) {
+				loader.loadCounts(countsFile);
+			}
+		}
+		finally {
+			tasks.join();
+		}
+		return loaded;
+	}
+
+	/**
+	 * Writes the JSON text to a new file.
+	 *
+	 * @param json the JSON text
+	 * @return the path of the file
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static Path write(String json) throws IOException {
+		return Files.writeString(temp.resolve("malformed.json"), json, UTF_8);
+	}
+
+	/**
+	 * Asserts the same index and counts were loaded as written.
+	 *
+	 * @param loaded the loaded index
+	 */
+	private static void assertSameIndex(InvertedIndex loaded) {
+		Assertions.assertEquals(index.countstoJson(), loaded.countstoJson());
+		Assertions.assertEquals(index.indexToJson(), loaded.indexToJson());
+	}
+
+	/**
+	 * Tests writing an index and loading it back.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class RoundTripTests {
+		/** Creates a new instance of this class. */
+		public RoundTripTests() {}
+
+		/**
+		 * Tests loading the index and counts files, with and without gzip.
+		 *
+		 * @param extension the extension of the files
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(1)
+		@ParameterizedTest
+		@ValueSource(strings = { ".json", ".json.gz" })
+		public void testLoad(String extension) throws IOException {
+			Path indexFile = temp.resolve("index" + extension);
+			Path countsFile = temp.resolve("counts" + extension);
+			index.indexToJson(indexFile);
+			index.countsToJson(countsFile);
+
+			InvertedIndex loaded = new InvertedIndex();
+			JsonIndexLoader loader = new JsonIndexLoader(loaded);
+			loader.loadIndex(indexFile);
+			loader.loadCounts(countsFile);
+			assertSameIndex(loaded);
+		}
+
+		/**
+		 * Tests loading the index and counts files in ranges of words with a work
+		 * queue, with and without gzip.
+		 *
+		 * @param extension the extension of the files
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(2)
+		@ParameterizedTest
+		@ValueSource(strings = { ".json", ".json.gz" })
+		public void testLoadConcurrent(String extension) throws IOException {
+			Path indexFile = temp.resolve("index" + extension);
+			Path countsFile = temp.resolve("counts" + extension);
+			index.indexToJson(indexFile);
+			index.countsToJson(countsFile);
+
+			assertSameIndex(loadConcurrent(indexFile, countsFile));
+		}
+
+		/**
+		 * Tests words and sources with backslashes and non-ASCII characters, which
+		 * are written without escapes.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(3)
+		@Test
+		public void testEscaped() throws IOException {
+			InvertedIndex escaped = new InvertedIndex();
+			escaped.add(List.of("back\\slash", "caf\u00e9", "\\u12"), "C:\\input\\a b.txt");
+			escaped.add(List.of("caf\u00e9"), "d\u00e9j\u00e0.txt");
+
+			Path indexFile = temp.resolve("escaped.json");
+			Path countsFile = temp.resolve("escaped-counts.json");
+			escaped.indexToJson(indexFile);
+			escaped.countsToJson(countsFile);
+
+			InvertedIndex loaded = new InvertedIndex();
+			JsonIndexLoader loader = new JsonIndexLoader(loaded);
+			loader.loadIndex(indexFile);
+			loader.loadCounts(countsFile);
+			Assertions.assertEquals(escaped.indexToJson(), loaded.indexToJson());
+			Assertions.assertEquals(escaped.countstoJson(), loaded.countstoJson());
+		}
+
+		/**
+		 * Tests loading empty files leaves the index empty.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(4)
+		@Test
+		public void testEmpty() throws IOException {
+			Path empty = write("{\n}\n");
+			InvertedIndex loaded = new InvertedIndex();
+			JsonIndexLoader loader = new JsonIndexLoader(loaded);
+			loader.loadIndex(empty);
+			loader.loadCounts(empty);
+			Assertions.assertEquals(0, loaded.sizeWords());
+			Assertions.assertEquals(0, loaded.sizeCounts());
+
+			InvertedIndex concurrent = loadConcurrent(empty, empty);
+			Assertions.assertEquals(0, concurrent.sizeWords());
+			Assertions.assertEquals(0, concurrent.sizeCounts());
+		}
+	}
+
+	/**
+	 * Tests rejecting files that are not a valid index.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class MalformedTests {
+		/** Creates a new instance of this class. */
+		public MalformedTests() {}
+
+		/**
+		 * Tests an index file that is not valid is rejected by both loaders, and
+		 * leaves the index of the serial loader unchanged.
+		 *
+		 * @param json the malformed index JSON
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(1)
+		@ParameterizedTest
+		@ValueSource(strings = { "", "[]", "{\"a\": {\"x.txt\": [1, 2,]}}", "{\"a\": {\"x.txt\": [1]},}",
+				"{\"a\": {\"x.txt\": [1]}", "{\"a\" {\"x.txt\": [1]}}", "{\"a\": {\"x.txt\": [1] \"y.txt\": [2]}}",
+				"{\"a\": {\"x.txt\": [1]}, \"b", "{\"a\": {\"x.txt\": [2147483648]}}", "{\"a\": {\"x.txt\": [0]}}",
+				"{\"a\": {\"x.txt\": [-3]}}", "{\"a\": {\"x.txt\": [\"1\"]}}", "{\"a\": {\"x.txt\": [1.5]}}",
+				"{\"a\": [\"x.txt\"]}", "{\"a\": {\"x.txt\": [1]}} {}" })
+		public void testIndex(String json) throws IOException {
+			Path path = write(json);
+
+			InvertedIndex loaded = new InvertedIndex();
+			loaded.add("kept", "kept.txt", 1);
+			String before = loaded.indexToJson();
+			Assertions.assertThrows(IOException.class, () -> new JsonIndexLoader(loaded).loadIndex(path));
+			Assertions.assertEquals(before, loaded.indexToJson());
+
+			Assertions.assertThrows(IOException.class, () -> loadConcurrent(path, null));
+		}
+
+		/**
+		 * Tests a counts file that is not valid is rejected, and leaves the index
+		 * unchanged.
+		 *
+		 * @param json the malformed counts JSON
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(2)
+		@ParameterizedTest
+		@ValueSource(strings = { "", "{\"x.txt\": -1}", "{\"x.txt\": \"3\"}", "{\"x.txt\": 3,}", "{\"x.txt\": 3",
+				"{\"x.txt\": 99999999999}", "{\"x.txt\": 3} x" })
+		public void testCounts(String json) throws IOException {
+			Path path = write(json);
+
+			InvertedIndex loaded = new InvertedIndex();
+			Assertions.assertThrows(IOException.class, () -> new JsonIndexLoader(loaded).loadCounts(path));
+			Assertions.assertEquals(0, loaded.sizeCounts());
+		}
+
+		/**
+		 * Tests a bad position in one range of a large index file fails the load
+		 * with the concurrent loader, even though the range is parsed by another
+		 * thread, and the loader can still load a valid file afterwards.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(3)
+		@Test
+		public void testBadRange() throws IOException {
+			String json = index.indexToJson();
+			int last = json.lastIndexOf("[");
+			Path path = write(json.substring(0, last + 1) + "0, " + json.substring(last + 1));
+			Assertions.assertThrows(IOException.class, () -> new JsonIndexLoader(new InvertedIndex()).loadIndex(path));
+			Assertions.assertThrows(IOException.class, () -> loadConcurrent(path, null));
+
+			Path valid = temp.resolve("valid.json");
+			index.indexToJson(valid);
+			WorkQueue tasks = new WorkQueue(4);
+			try {
+				InvertedIndex loaded = new ThreadSafeInvertedIndex();
+				ConcurrentJsonIndexLoader loader = new ConcurrentJsonIndexLoader(new IndexMerger(loaded), tasks);
+				Assertions.assertThrows(IOException.class, () -> loader.loadIndex(path));
+				loader.loadIndex(valid);
+			}
+			finally {
+				tasks.join();
+			}
+		}
+	}
+}
@@ -0,0 +1,320 @@
+package edu.usfca.cs272.index;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * A test suite for {@link PositionList}, which stores positions as
+ * variable-length deltas.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class PositionListTests {
+	/** Creates a new instance of this class. */
+	public PositionListTests() {}
+
+	/**
+	 * Creates a position list by adding the positions in the order given.
+	 *
+	 * @param positions the positions to add
+	 * @return the position list
+	 */
+	private static PositionList of(int... positions) {
+		PositionList list = new PositionList();
+		for (int position : positions) {
+			list.add(position);
+		}
+		return list;
+	}
+
+	/**
+	 * Returns the encoded bytes of the position list.
+	 *
+	 * @param list the position list
+	 * @return the encoded bytes
+	 */
+	private static byte[] encoded(PositionList list) {
+		byte[] bytes = new byte[list.encodedLength()];
+		list.copyEncodedTo(bytes, 0);
+		return bytes;
+	}
+
+	/**
+	 * Decodes a position list from the encoded bytes of another.
+	 *
+	 * @param list the position list to copy
+	 * @return the decoded position list
+	 */
+	private static PositionList decoded(PositionList list) {
+		byte[] bytes = new byte[list.encodedLength() + 2];
+		list.copyEncodedTo(bytes, 1);
+		return new PositionList(ByteBuffer.wrap(bytes), 1, list.encodedLength());
+	}
+
+	/**
+	 * Asserts the position list holds exactly the expected positions, in order.
+	 *
+	 * @param expected the expected positions
+	 * @param actual the position list
+	 */
+	private static void assertPositions(TreeSet<Integer> expected, PositionList actual) {
+		Assertions.assertIterableEquals(expected, actual);
+		Assertions.assertEquals(expected.size(), actual.size());
+		if (!expected.isEmpty()) {
+			Assertions.assertEquals(expected.first().intValue(), actual.first());
+			Assertions.assertEquals(expected.last().intValue(), actual.last());
+		}
+	}
+
+	/**
+	 * Tests the variable-length delta encoding.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class EncodingTests {
+		/** Creates a new instance of this class. */
+		public EncodingTests() {}
+
+		/**
+		 * Tests consecutive positions take a single byte each.
+		 */
+		@Order(1)
+		@Test
+		public void testDeltas() {
+			PositionList list = of(1, 2, 3, 10);
+			byte[] expected = { 1, 1, 1, 7 };
+			Assertions.assertArrayEquals(expected, encoded(list));
+		}
+
+		/**
+		 * Tests a delta that does not fit in 7 bits continues into the next byte,
+		 * low bits first.
+		 */
+		@Order(2)
+		@Test
+		public void testMultiByte() {
+			PositionList list = of(300);
+			byte[] expected = { (byte) 0xAC, 0x02 };
+			Assertions.assertArrayEquals(expected, encoded(list));
+		}
+
+		/**
+		 * Tests positions at the boundaries of each encoded length decode to the same
+		 * position.
+		 *
+		 * @param position the position to encode
+		 */
+		@Order(3)
+		@ParameterizedTest
+		@ValueSource(ints = { 1, 127, 128, 16383, 16384, 2097151, 2097152, 268435455, 268435456,
+				Integer.MAX_VALUE })
+		public void testBoundaries(int position) {
+			PositionList list = of(position);
+			int bytes = 32 - Integer.numberOfLeadingZeros(position);
+			Assertions.assertEquals(Math.max(1, (bytes + 6) / 7), list.encodedLength());
+			assertPositions(new TreeSet<>(List.of(position)), decoded(list));
+		}
+
+		/**
+		 * Tests random positions survive being encoded and decoded.
+		 */
+		@Order(4)
+		@Test
+		public void testRoundTrip() {
+			Random random = new Random(272);
+			TreeSet<Integer> expected = new TreeSet<>();
+			PositionList list = new PositionList();
+			int position = 0;
+			for (int i = 0; i < 5000; i++) {
+				position += 1 + random.nextInt(i % 10 == 0 ? 100000 : 50);
+				expected.add(position);
+				list.add(position);
+			}
+
+			assertPositions(expected, list);
+			PositionList copy = decoded(list);
+			assertPositions(expected, copy);
+			Assertions.assertArrayEquals(encoded(list), encoded(copy));
+
+			list.trim();
+			assertPositions(expected, list);
+		}
+	}
+
+	/**
+	 * Tests adding positions out of order and merging lists.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class MergeTests {
+		/** Creates a new instance of this class. */
+		public MergeTests() {}
+
+		/**
+		 * Tests positions added out of order are merged into place, and duplicates are
+		 * ignored.
+		 */
+		@Order(1)
+		@Test
+		public void testOutOfOrder() {
+			PositionList list = new PositionList();
+			Assertions.assertTrue(list.add(10));
+			Assertions.assertTrue(list.add(5));
+			Assertions.assertTrue(list.add(7));
+			Assertions.assertFalse(list.add(5));
+			Assertions.assertFalse(list.add(10));
+			Assertions.assertTrue(list.add(1));
+
+			assertPositions(new TreeSet<>(List.of(1, 5, 7, 10)), list);
+			assertPositions(new TreeSet<>(List.of(1, 5, 7, 10)), decoded(list));
+			Assertions.assertTrue(list.contains(7));
+			Assertions.assertFalse(list.contains(6));
+			Assertions.assertFalse(list.contains(11));
+		}
+
+		/**
+		 * Tests random positions added in any order match a sorted set.
+		 */
+		@Order(2)
+		@Test
+		public void testRandomOrder() {
+			Random random = new Random(272);
+			TreeSet<Integer> expected = new TreeSet<>();
+			PositionList list = new PositionList();
+			for (int i = 0; i < 2000; i++) {
+				int position = 1 + random.nextInt(i % 3 == 0 ? 100 : 100000);
+				Assertions.assertEquals(expected.add(position), list.add(position));
+			}
+			assertPositions(expected, list);
+			assertPositions(expected, decoded(list));
+		}
+
+		/**
+		 * Tests adding a list that starts after this one appends it.
+		 */
+		@Order(3)
+		@Test
+		public void testAddAllAfter() {
+			PositionList list = of(1, 3, 200);
+			list.addAll(of(201, 500, 20000));
+			assertPositions(new TreeSet<>(List.of(1, 3, 200, 201, 500, 20000)), list);
+			assertPositions(new TreeSet<>(List.of(1, 3, 200, 201, 500, 20000)), decoded(list));
+
+			PositionList empty = new PositionList();
+			empty.addAll(of(300, 301));
+			assertPositions(new TreeSet<>(List.of(300, 301)), empty);
+		}
+
+		/**
+		 * Tests adding a list that overlaps this one merges the two.
+		 */
+		@Order(4)
+		@Test
+		public void testAddAllOverlapping() {
+			PositionList list = of(2, 4, 6, 300);
+			list.addAll(of(1, 4, 5, 299, 1000));
+			assertPositions(new TreeSet<>(List.of(1, 2, 4, 5, 6, 299, 300, 1000)), list);
+			assertPositions(new TreeSet<>(List.of(1, 2, 4, 5, 6, 299, 300, 1000)), decoded(list));
+
+			list.addAll(new PositionList());
+			Assertions.assertEquals(8, list.size());
+		}
+
+		/**
+		 * Tests positions must be positive.
+		 */
+		@Order(5)
+		@Test
+		public void testInvalid() {
+			PositionList list = new PositionList();
+			Assertions.assertThrows(IllegalArgumentException.class, () -> list.add(0));
+			Assertions.assertThrows(IllegalArgumentException.class, () -> list.add(-1));
+			Assertions.assertThrows(NoSuchElementException.class, list::first);
+			Assertions.assertThrows(NoSuchElementException.class, list::last);
+			Assertions.assertThrows(NoSuchElementException.class, () -> list.iterator().next());
+		}
+	}
+
+	/**
+	 * Tests shifting every position by an offset.
+	 */
+	@Nested
+	@Order(3)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class ShiftTests {
+		/** Creates a new instance of this class. */
+		public ShiftTests() {}
+
+		/**
+		 * Tests shifting adds the offset to every position.
+		 */
+		@Order(1)
+		@Test
+		public void testShift() {
+			PositionList list = of(1, 2, 50, 51);
+			list.shift(1000);
+			assertPositions(new TreeSet<>(List.of(1001, 1002, 1050, 1051)), list);
+			assertPositions(new TreeSet<>(List.of(1001, 1002, 1050, 1051)), decoded(list));
+		}
+
+		/**
+		 * Tests only the first delta changes, even when it needs more bytes.
+		 */
+		@Order(2)
+		@Test
+		public void testFirstDelta() {
+			PositionList list = of(1, 2, 3);
+			list.shift(200);
+			byte[] expected = { (byte) 0xC9, 0x01, 1, 1 };
+			Assertions.assertArrayEquals(expected, encoded(list));
+		}
+
+		/**
+		 * Tests positions added after shifting continue from the shifted positions.
+		 */
+		@Order(3)
+		@Test
+		public void testAddAfter() {
+			PositionList list = of(5, 9);
+			list.shift(10);
+			Assertions.assertTrue(list.add(20));
+			Assertions.assertTrue(list.add(16));
+			Assertions.assertFalse(list.add(19));
+			assertPositions(new TreeSet<>(List.of(15, 16, 19, 20)), list);
+		}
+
+		/**
+		 * Tests shifting by zero or shifting an empty list changes nothing.
+		 */
+		@Order(4)
+		@Test
+		public void testNothing() {
+			PositionList list = of(3, 4);
+			list.shift(0);
+			assertPositions(new TreeSet<>(List.of(3, 4)), list);
+
+			PositionList empty = new PositionList();
+			empty.shift(10);
+			Assertions.assertEquals(0, empty.size());
+			Assertions.assertEquals(0, empty.encodedLength());
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package edu.usfca.cs272.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import edu.usfca.cs272.index.InvertedIndex.SearchResult;
+
+/**
+ * A test suite for {@link ScoreAccumulator}, which accumulates the matches of a
+ * search in arrays reused by each thread.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class ScoreAccumulatorTests {
+	/** Creates a new instance of this class. */
+	public ScoreAccumulatorTests() {}
+
+	/**
+	 * Returns the matched document ids in the order they matched.
+	 *
+	 * @param matches the accumulator
+	 * @return the matched document ids
+	 */
+	private static List<Integer> documents(ScoreAccumulator matches) {
+		List<Integer> documents = new ArrayList<>();
+		for (int i = 0; i < matches.size(); i++) {
+			documents.add(matches.document(i));
+		}
+		return documents;
+	}
+
+	/**
+	 * Returns an index where "hello" and "world" match different sources.
+	 *
+	 * @return the index
+	 */
+	private static InvertedIndex index() {
+		InvertedIndex index = new InvertedIndex();
+		index.add(List.of("hello", "hello", "world"), "a.txt");
+		index.add(List.of("hello", "there"), "b.txt");
+		index.add(List.of("world", "world"), "c.txt");
+		return index;
+	}
+
+	/**
+	 * Tests accumulating and clearing matches.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class AccumulateTests {
+		/** Creates a new instance of this class. */
+		public AccumulateTests() {}
+
+		/**
+		 * Tests that matches of the same document are summed, and that documents
+		 * are listed once in the order they first matched.
+		 */
+		@Test
+		@Order(1)
+		public void testAdd() {
+			ScoreAccumulator matches = new ScoreAccumulator();
+			matches.add(5, 2);
+			matches.add(1, 1);
+			matches.add(5, 3);
+
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(List.of(5, 1), documents(matches)),
+					() -> Assertions.assertEquals(5, matches.matches(5)),
+					() -> Assertions.assertEquals(1, matches.matches(1)),
+					() -> Assertions.assertEquals(0, matches.matches(2)),
+					() -> Assertions.assertEquals(0, matches.matches(10_000)));
+		}
+
+		/**
+		 * Tests that the arrays grow for large document ids and many documents.
+		 */
+		@Test
+		@Order(2)
+		public void testGrow() {
+			ScoreAccumulator matches = new ScoreAccumulator();
+			for (int id = 999; id >= 0; id--) {
+				matches.add(id, id + 1);
+			}
+			matches.add(100_000, 7);
+
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(1001, matches.size()),
+					() -> Assertions.assertEquals(999, matches.document(0)),
+					() -> Assertions.assertEquals(100_000, matches.document(1000)),
+					() -> Assertions.assertEquals(500, matches.matches(499)),
+					() -> Assertions.assertEquals(7, matches.matches(100_000)));
+		}
+
+		/**
+		 * Tests that clearing resets every matched document, so the next query
+		 * starts from zero without leftover matches.
+		 */
+		@Test
+		@Order(3)
+		public void testClear() {
+			ScoreAccumulator matches = new ScoreAccumulator();
+			matches.add(3, 4);
+			matches.add(200, 1);
+			matches.clear();
+
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(0, matches.size()),
+					() -> Assertions.assertEquals(0, matches.matches(3)),
+					() -> Assertions.assertEquals(0, matches.matches(200)));
+
+			matches.add(200, 2);
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(List.of(200), documents(matches)),
+					() -> Assertions.assertEquals(2, matches.matches(200)));
+		}
+	}
+
+	/**
+	 * Tests reusing the accumulator of each thread across searches.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class ReuseTests {
+		/** Creates a new instance of this class. */
+		public ReuseTests() {}
+
+		/**
+		 * Tests that the same accumulator is returned to the same thread once it is
+		 * cleared.
+		 */
+		@Test
+		@Order(1)
+		public void testLocal() {
+			ScoreAccumulator first = ScoreAccumulator.local();
+			first.add(1, 1);
+			first.clear();
+
+			ScoreAccumulator second = ScoreAccumulator.local();
+			try {
+				Assertions.assertSame(first, second);
+				Assertions.assertEquals(0, second.size());
+			}
+			finally {
+				second.clear();
+			}
+		}
+
+		/**
+		 * Tests that an accumulator still in use is not returned again to the same
+		 * thread, and that each thread has its own accumulator.
+		 *
+		 * @throws InterruptedException if interrupted while waiting for the thread
+		 */
+		@Test
+		@Order(2)
+		public void testInUse() throws InterruptedException {
+			ScoreAccumulator outer = ScoreAccumulator.local();
+			try {
+				ScoreAccumulator inner = ScoreAccumulator.local();
+				inner.clear();
+				Assertions.assertNotSame(outer, inner);
+
+				ScoreAccumulator[] other = new ScoreAccumulator[1];
+				Thread thread = new Thread(() -> {
+					other[0] = ScoreAccumulator.local();
+					other[0].clear();
+				});
+				thread.start();
+				thread.join();
+				Assertions.assertNotSame(outer, other[0]);
+			}
+			finally {
+				outer.clear();
+			}
+			Assertions.assertSame(outer, ScoreAccumulator.local());
+			outer.clear();
+		}
+
+		/**
+		 * Tests that consecutive searches of the same thread do not see the matches
+		 * of earlier searches.
+		 */
+		@Test
+		@Order(3)
+		public void testSearches() {
+			InvertedIndex index = index();
+			List<SearchResult> hello = index.searchExact(Set.of("hello"));
+			List<SearchResult> world = index.searchExact(Set.of("world"));
+
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(hello, index.searchExact(Set.of("hello"))),
+					() -> Assertions.assertEquals(world, index.searchExact(Set.of("world"))),
+					() -> Assertions.assertEquals(List.of("c.txt", "a.txt"),
+							world.stream().map(SearchResult::getSource).toList()),
+					() -> Assertions.assertEquals(2, world.get(0).getMatchCount()));
+		}
+
+		/**
+		 * Tests that a search run from the result filter of another search on the
+		 * same thread neither changes nor sees the matches of the outer search.
+		 */
+		@Test
+		@Order(4)
+		public void testNested() {
+			InvertedIndex index = index();
+			TopResults expected = index.searchExact(Set.of("hello"), 10);
+			List<SearchResult> world = index.searchExact(Set.of("world"));
+
+			List<List<SearchResult>> inner = new ArrayList<>();
+			TopResults nested = index.searchExact(Set.of("hello"), 10, source -> {
+				inner.add(index.searchExact(Set.of("world")));
+				return true;
+			}, false);
+
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(expected.getResults(), nested.getResults()),
+					() -> Assertions.assertEquals(expected.getTotalHits(), nested.getTotalHits()),
+					() -> Assertions.assertEquals(List.of(world, world), inner));
+		}
+	}
+}
@@ -0,0 +1,297 @@
+package edu.usfca.cs272.index;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import edu.usfca.cs272.threads.WorkQueue;
+
+/**
+ * A test suite for {@link SegmentedInvertedIndex}, which merges its segments
+ * in the background on a work queue.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class SegmentedInvertedIndexTests {
+	/** Creates a new instance of this class. */
+	public SegmentedInvertedIndexTests() {}
+
+	/** The segment size used by the tests, filled by four sources. */
+	private static final int SEGMENT_SIZE = 8;
+
+	/**
+	 * Returns a local index of one source, with a word shared by every source and
+	 * a word of its own, so each source adds two postings.
+	 *
+	 * @param i the number of the source
+	 * @return the local index
+	 */
+	private static InvertedIndex local(int i) {
+		InvertedIndex local = new InvertedIndex();
+		local.add(List.of("common", "word" + i), "source" + i);
+		return local;
+	}
+
+	/**
+	 * Returns a plain index of the given number of sources.
+	 *
+	 * @param sources the number of sources
+	 * @return the plain index
+	 */
+	private static InvertedIndex expected(int sources) {
+		InvertedIndex expected = new InvertedIndex();
+		for (int i = 0; i < sources; i++) {
+			expected.addAll(local(i));
+		}
+		return expected;
+	}
+
+	/**
+	 * Asserts the index has the same words, counts, and search results as the
+	 * plain index.
+	 *
+	 * @param expected the plain index
+	 * @param actual the segmented index
+	 */
+	private static void assertSame(InvertedIndex expected, SegmentedInvertedIndex actual) {
+		Assertions.assertAll(
+				() -> Assertions.assertEquals(expected.countstoJson(), actual.countstoJson()),
+				() -> Assertions.assertEquals(expected.indexToJson(), actual.indexToJson()),
+				() -> Assertions.assertEquals(expected.sizeWords(), actual.sizeWords()),
+				() -> Assertions.assertEquals(expected.searchExact(Set.of("common")),
+						actual.searchExact(Set.of("common"))));
+	}
+
+	/**
+	 * Blocks the only worker of the work queue until the returned latch is
+	 * released, so merges submitted meanwhile wait in the queue.
+	 *
+	 * @param tasks the work queue with a single worker
+	 * @return the latch releasing the worker
+	 */
+	private static CountDownLatch block(WorkQueue tasks) {
+		CountDownLatch latch = new CountDownLatch(1);
+		tasks.execute(() -> {
+			try {
+				latch.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		return latch;
+	}
+
+	/**
+	 * Tests merges scheduled on the work queue.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class ScheduleTests {
+		/** Creates a new instance of this class. */
+		public ScheduleTests() {}
+
+		/**
+		 * Tests that the small segments are not sealed until they hold enough
+		 * postings.
+		 */
+		@Test
+		@Order(1)
+		public void testUnsealed() {
+			WorkQueue tasks = new WorkQueue(2);
+			try {
+				SegmentedInvertedIndex index = new SegmentedInvertedIndex(tasks, SEGMENT_SIZE);
+				for (int i = 0; i < 3; i++) {
+					index.addAll(local(i));
+				}
+				tasks.finish();
+
+				Assertions.assertEquals(3, index.sizeSegments());
+				assertSame(expected(3), index);
+			}
+			finally {
+				tasks.shutdown();
+			}
+		}
+
+		/**
+		 * Tests that the small segments are sealed in the background once they hold
+		 * enough postings, and that the sealed segments are merged into the next
+		 * level once there are enough of them.
+		 */
+		@Test
+		@Order(2)
+		public void testLevels() {
+			WorkQueue tasks = new WorkQueue(2);
+			try {
+				SegmentedInvertedIndex index = new SegmentedInvertedIndex(tasks, SEGMENT_SIZE);
+				for (int i = 0; i < 4; i++) {
+					index.addAll(local(i));
+				}
+				tasks.finish();
+				Assertions.assertEquals(1, index.sizeSegments());
+
+				int sources = 4 * SegmentedInvertedIndex.MERGE_FACTOR;
+				for (int i = 4; i < sources; i++) {
+					index.addAll(local(i));
+				}
+				tasks.finish();
+
+				Assertions.assertEquals(1, index.sizeSegments());
+				assertSame(expected(sources), index);
+			}
+			finally {
+				tasks.shutdown();
+			}
+		}
+
+		/**
+		 * Tests that searches see every segment while a merge is still waiting in
+		 * the work queue.
+		 */
+		@Test
+		@Order(3)
+		public void testPending() {
+			WorkQueue tasks = new WorkQueue(1);
+			try {
+				SegmentedInvertedIndex index = new SegmentedInvertedIndex(tasks, SEGMENT_SIZE);
+				CountDownLatch latch = block(tasks);
+				for (int i = 0; i < 4; i++) {
+					index.addAll(local(i));
+				}
+
+				Assertions.assertEquals(4, index.sizeSegments());
+				assertSame(expected(4), index);
+
+				latch.countDown();
+				tasks.finish();
+				Assertions.assertEquals(1, index.sizeSegments());
+				assertSame(expected(4), index);
+			}
+			finally {
+				tasks.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Tests merges of segments replaced while the merge waits in the work queue.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class DiscardTests {
+		/** Creates a new instance of this class. */
+		public DiscardTests() {}
+
+		/**
+		 * Tests that a merge of segments replaced by removing a source is discarded,
+		 * so the removed source does not come back, and that the segments left are
+		 * not merged until they hold enough postings again.
+		 */
+		@Test
+		@Order(1)
+		public void testRemove() {
+			WorkQueue tasks = new WorkQueue(1);
+			try {
+				SegmentedInvertedIndex index = new SegmentedInvertedIndex(tasks, SEGMENT_SIZE);
+				CountDownLatch latch = block(tasks);
+				for (int i = 0; i < 4; i++) {
+					index.addAll(local(i));
+				}
+				Assertions.assertTrue(index.remove("source0"));
+
+				latch.countDown();
+				tasks.finish();
+
+				InvertedIndex expected = expected(4);
+				expected.remove("source0");
+				Assertions.assertEquals(3, index.sizeSegments());
+				Assertions.assertFalse(index.hasWord("word0"));
+				assertSame(expected, index);
+			}
+			finally {
+				tasks.shutdown();
+			}
+		}
+
+		/**
+		 * Tests that a merge of segments replaced by shifting positions is discarded,
+		 * so the positions are not shifted back, and that the shifted segments are
+		 * merged instead.
+		 */
+		@Test
+		@Order(2)
+		public void testShift() {
+			WorkQueue tasks = new WorkQueue(1);
+			try {
+				SegmentedInvertedIndex index = new SegmentedInvertedIndex(tasks, SEGMENT_SIZE);
+				CountDownLatch latch = block(tasks);
+				for (int i = 0; i < 4; i++) {
+					index.addAll(local(i));
+				}
+				index.shiftPositions(10);
+
+				latch.countDown();
+				tasks.finish();
+
+				InvertedIndex expected = expected(4);
+				expected.shiftPositions(10);
+				Assertions.assertEquals(1, index.sizeSegments());
+				Assertions.assertEquals(Set.of(12), index.viewPositions("word3", "source3"));
+				assertSame(expected, index);
+			}
+			finally {
+				tasks.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Tests merging after the work queue is shut down.
+	 */
+	@Nested
+	@Order(3)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class ShutdownTests {
+		/** Creates a new instance of this class. */
+		public ShutdownTests() {}
+
+		/**
+		 * Tests that segments are merged in the calling thread once the work queue
+		 * is shut down, including the merges into the next level that follow.
+		 */
+		@Test
+		@Order(1)
+		public void testShutdown() {
+			WorkQueue tasks = new WorkQueue(1);
+			tasks.join();
+
+			SegmentedInvertedIndex index = new SegmentedInvertedIndex(tasks, SEGMENT_SIZE);
+			for (int i = 0; i < 4; i++) {
+				index.addAll(local(i));
+			}
+			Assertions.assertEquals(1, index.sizeSegments());
+
+			int sources = 4 * SegmentedInvertedIndex.MERGE_FACTOR;
+			for (int i = 4; i < sources; i++) {
+				index.addAll(local(i));
+			}
+
+			Assertions.assertEquals(1, index.sizeSegments());
+			assertSame(expected(sources), index);
+		}
+	}
+}
@@ -0,0 +1,269 @@
+package edu.usfca.cs272.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+
+/**
+ * A test suite for {@link ShardedInvertedIndex}, which splits the words into
+ * shards by range and rebalances the shards as the index grows.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class ShardedInvertedIndexTests {
+	/** Creates a new instance of this class. */
+	public ShardedInvertedIndexTests() {}
+
+	/** The number of shards used by the tests. */
+	private static final int SHARDS = 4;
+
+	/**
+	 * Returns local indexes of sources whose words all start with the same
+	 * accented letter, which the initial split puts in the last shard.
+	 *
+	 * @param sources the number of sources
+	 * @param words the number of words in each source
+	 * @return the local indexes
+	 */
+	private static List<InvertedIndex> locals(int sources, int words) {
+		Random random = new Random(272);
+		List<InvertedIndex> locals = new ArrayList<>();
+		for (int i = 0; i < sources; i++) {
+			List<String> stems = new ArrayList<>();
+			for (int j = 0; j < words; j++) {
+				stems.add("\u00e9t" + Integer.toString(random.nextInt(100_000), 36));
+			}
+			InvertedIndex local = new InvertedIndex();
+			local.add(stems, "source" + i);
+			locals.add(local);
+		}
+		return locals;
+	}
+
+	/**
+	 * Returns every prefix of every word of the index, so partial searches cover
+	 * prefixes within one shard and prefixes spanning several shards.
+	 *
+	 * @param index the index to take the words from
+	 * @return the prefixes
+	 */
+	private static Set<String> prefixes(InvertedIndex index) {
+		TreeSet<String> prefixes = new TreeSet<>();
+		for (String word : index.viewWords()) {
+			for (int i = 1; i <= word.length(); i++) {
+				prefixes.add(word.substring(0, i));
+			}
+		}
+		return prefixes;
+	}
+
+	/**
+	 * Asserts the index has the same words, counts, and search results as the
+	 * plain index.
+	 *
+	 * @param expected the plain index
+	 * @param actual the sharded index
+	 */
+	private static void assertSame(InvertedIndex expected, ShardedInvertedIndex actual) {
+		Assertions.assertEquals(expected.countstoJson(), actual.countstoJson());
+		Assertions.assertEquals(expected.indexToJson(), actual.indexToJson());
+		Assertions.assertEquals(expected.sizeWords(), actual.sizeWords());
+		for (String prefix : prefixes(expected)) {
+			Assertions.assertEquals(expected.searchPartial(Set.of(prefix)), actual.searchPartial(Set.of(prefix)),
+					() -> "Partial search for " + prefix);
+		}
+	}
+
+	/**
+	 * Tests which shard each word is stored in.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class RoutingTests {
+		/** Creates a new instance of this class. */
+		public RoutingTests() {}
+
+		/**
+		 * Tests that the initial split divides the lowercase letters evenly, and that
+		 * words outside them fall in the first or last shard.
+		 */
+		@Test
+		@Order(1)
+		public void testInitialSplit() {
+			ShardedInvertedIndex index = new ShardedInvertedIndex(SHARDS);
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(0, index.shardOf("apple")),
+					() -> Assertions.assertEquals(0, index.shardOf("fzzz")),
+					() -> Assertions.assertEquals(1, index.shardOf("g")),
+					() -> Assertions.assertEquals(2, index.shardOf("night")),
+					() -> Assertions.assertEquals(3, index.shardOf("zebra")),
+					() -> Assertions.assertEquals(0, index.shardOf("2025")),
+					() -> Assertions.assertEquals(3, index.shardOf("\u00e9t\u00e9")),
+					() -> Assertions.assertEquals(3, index.shardOf("\u043c\u0438\u0440")));
+		}
+
+		/**
+		 * Tests that the words all stay in the last shard until the index grows to
+		 * the first rebalance, and are then spread evenly over the shards.
+		 */
+		@Test
+		@Order(2)
+		public void testRebalance() {
+			ShardedInvertedIndex index = new ShardedInvertedIndex(SHARDS);
+			index.addAll(locals(1, ShardedInvertedIndex.REBALANCE_WORDS / 2).get(0));
+			int[] before = index.shardSizes();
+			Assertions.assertEquals(index.sizeWords(), before[SHARDS - 1]);
+
+			for (InvertedIndex local : locals(20, 500)) {
+				index.addAll(local);
+			}
+
+			int words = index.sizeWords();
+			for (int size : index.shardSizes()) {
+				Assertions.assertTrue(size > words / SHARDS / 2 && size < words / SHARDS * 2,
+						() -> "Shard of " + size + " out of " + words + " words");
+			}
+		}
+
+		/**
+		 * Tests that a single shard is never rebalanced.
+		 */
+		@Test
+		@Order(3)
+		public void testSingleShard() {
+			ShardedInvertedIndex index = new ShardedInvertedIndex(1);
+			InvertedIndex expected = new InvertedIndex();
+			for (InvertedIndex local : locals(5, 500)) {
+				index.addAll(local);
+			}
+			for (InvertedIndex local : locals(5, 500)) {
+				expected.addAll(local);
+			}
+			Assertions.assertArrayEquals(new int[] { expected.sizeWords() }, index.shardSizes());
+			Assertions.assertEquals(expected.indexToJson(), index.indexToJson());
+		}
+	}
+
+	/**
+	 * Tests partial searches whose prefix spans several shards.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class PartialTests {
+		/** Creates a new instance of this class. */
+		public PartialTests() {}
+
+		/**
+		 * Tests partial searches with the initial split, where a prefix that is a
+		 * bound or shorter than a bound continues into the next shard.
+		 */
+		@Test
+		@Order(1)
+		public void testInitialSplit() {
+			List<String> words = List.of("f", "fox", "g", "go", "goat", "m", "mz", "n", "na", "t", "tu", "z");
+			InvertedIndex expected = new InvertedIndex();
+			expected.add(words, "a.txt");
+			ShardedInvertedIndex index = new ShardedInvertedIndex(SHARDS);
+			index.add(words, "a.txt");
+
+			assertSame(expected, index);
+		}
+
+		/**
+		 * Tests partial searches after rebalancing, where the bounds are indexed
+		 * words sharing long prefixes with the words of the neighboring shards.
+		 */
+		@Test
+		@Order(2)
+		public void testRebalanced() {
+			InvertedIndex expected = new InvertedIndex();
+			ShardedInvertedIndex index = new ShardedInvertedIndex(SHARDS);
+			for (InvertedIndex local : locals(10, 300)) {
+				index.addAll(local);
+			}
+			for (InvertedIndex local : locals(10, 300)) {
+				expected.addAll(local);
+			}
+			Assertions.assertTrue(index.shardSizes()[0] > 0);
+
+			assertSame(expected, index);
+		}
+	}
+
+	/**
+	 * Tests merging, removing, and searching from several threads while the
+	 * shards are rebalanced.
+	 */
+	@Nested
+	@Order(3)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class ThreadTests {
+		/** Creates a new instance of this class. */
+		public ThreadTests() {}
+
+		/**
+		 * Tests that merging sources from several threads while others search and
+		 * remove sources gives the same index as merging the kept sources serially.
+		 *
+		 * @throws Exception if a thread fails
+		 */
+		@Test
+		@Order(1)
+		public void testThreads() throws Exception {
+			int threads = 4;
+			List<InvertedIndex> locals = locals(40, 300);
+			ShardedInvertedIndex index = new ShardedInvertedIndex(SHARDS);
+
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<?>> futures = new ArrayList<>();
+				for (int i = 0; i < threads; i++) {
+					int thread = i;
+					futures.add(executor.submit(() -> {
+						for (int j = thread; j < locals.size(); j += threads) {
+							index.addAll(locals.get(j));
+							index.searchPartial(Set.of("\u00e9t1", "\u00e9tz"));
+							if (j % 4 == 0) {
+								Assertions.assertTrue(index.remove("source" + j));
+							}
+						}
+					}));
+				}
+				for (Future<?> future : futures) {
+					future.get();
+				}
+			}
+			finally {
+				executor.shutdown();
+			}
+
+			InvertedIndex expected = new InvertedIndex();
+			List<InvertedIndex> fresh = locals(40, 300);
+			for (int j = 0; j < fresh.size(); j++) {
+				if (j % 4 != 0) {
+					expected.addAll(fresh.get(j));
+				}
+			}
+
+			assertSame(expected, index);
+		}
+	}
+}
@@ -0,0 +1,334 @@
+package edu.usfca.cs272.index;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * A test suite for {@link TermDictionary}, which stores sorted terms with front
+ * coding.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class TermDictionaryTests {
+	/** Creates a new instance of this class. */
+	public TermDictionaryTests() {}
+
+	/**
+	 * Generates sorted terms that share many prefixes, from a small alphabet.
+	 *
+	 * @param count the number of terms to try to generate
+	 * @return the sorted terms
+	 */
+	private static List<String> terms(int count) {
+		Random random = new Random(272);
+		TreeSet<String> terms = new TreeSet<>();
+		while (terms.size() < count) {
+			StringBuilder term = new StringBuilder();
+			int length = 1 + random.nextInt(8);
+			for (int i = 0; i < length; i++) {
+				term.append("abcde".charAt(random.nextInt(5)));
+			}
+			terms.add(term.toString());
+		}
+		return new ArrayList<>(terms);
+	}
+
+	/**
+	 * Returns the range of ids of the terms starting with the prefix, by checking
+	 * every term.
+	 *
+	 * @param terms the sorted terms
+	 * @param prefix the prefix to search for
+	 * @return the first id in the range and the id after the last id in the range
+	 */
+	private static int[] expectedRange(List<String> terms, String prefix) {
+		int start = 0;
+		while (start < terms.size() && terms.get(start).compareTo(prefix) < 0) {
+			start++;
+		}
+		int end = start;
+		while (end < terms.size() && terms.get(end).startsWith(prefix)) {
+			end++;
+		}
+		return new int[] { start, end };
+	}
+
+	/**
+	 * Asserts the dictionary holds exactly the terms, in order and under the ids
+	 * of their positions.
+	 *
+	 * @param terms the sorted terms
+	 * @param dictionary the dictionary
+	 */
+	private static void assertTerms(List<String> terms, TermDictionary dictionary) {
+		Assertions.assertEquals(terms.size(), dictionary.size());
+		Assertions.assertIterableEquals(terms, dictionary);
+		for (int id = 0; id < terms.size(); id++) {
+			Assertions.assertEquals(terms.get(id), dictionary.term(id));
+			Assertions.assertEquals(id, dictionary.find(terms.get(id)));
+		}
+	}
+
+	/**
+	 * Tests looking up terms by id and by term.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class LookupTests {
+		/** Creates a new instance of this class. */
+		public LookupTests() {}
+
+		/**
+		 * Tests every term can be found, for sizes around the block size.
+		 *
+		 * @param count the number of terms
+		 */
+		@Order(1)
+		@ParameterizedTest
+		@ValueSource(ints = { 0, 1, 2, 15, 16, 17, 32, 33, 1000 })
+		public void testTerms(int count) {
+			List<String> terms = terms(count);
+			assertTerms(terms, new TermDictionary(terms));
+		}
+
+		/**
+		 * Tests terms that are not present return the same insertion point as a
+		 * binary search of the sorted terms.
+		 */
+		@Order(2)
+		@Test
+		public void testMissing() {
+			List<String> terms = terms(500);
+			TermDictionary dictionary = new TermDictionary(terms);
+			String[] sorted = terms.toArray(String[]::new);
+
+			List<String> probes = new ArrayList<>(List.of("", "0", "a", "aaaaaaaaa", "f", "zzz", "\uFFFF"));
+			for (String term : terms) {
+				probes.add(term + "a");
+				probes.add(term + "f");
+				probes.add(term.substring(0, term.length() - 1));
+			}
+
+			for (String probe : probes) {
+				int expected = Arrays.binarySearch(sorted, probe);
+				Assertions.assertEquals(expected, dictionary.find(probe), () -> "Wrong result for: " + probe);
+				Assertions.assertEquals(expected >= 0, dictionary.contains(probe));
+				Assertions.assertEquals(expected >= 0 ? expected : -expected - 1, dictionary.lowerBound(probe));
+			}
+		}
+
+		/**
+		 * Tests terms with characters that take more than one byte each.
+		 */
+		@Order(3)
+		@Test
+		public void testUnicode() {
+			List<String> terms = List.of("caf", "café", "cafés", "naïve", "σοφός", "σοφία", "日本", "日本語");
+			List<String> sorted = new ArrayList<>(new TreeSet<>(terms));
+			assertTerms(sorted, new TermDictionary(sorted));
+		}
+
+		/**
+		 * Tests shared prefixes are only stored once.
+		 */
+		@Order(4)
+		@Test
+		public void testFrontCoded() {
+			List<String> terms = List.of("international", "internationalism", "internationalist",
+					"internationalization", "internationalize");
+			int characters = terms.stream().mapToInt(String::length).sum();
+			Assertions.assertTrue(new TermDictionary(terms).encodedLength() < characters / 2);
+		}
+
+		/**
+		 * Tests the terms must be sorted without duplicates, and ids must be in
+		 * range.
+		 */
+		@Order(5)
+		@Test
+		public void testInvalid() {
+			Assertions.assertThrows(IllegalArgumentException.class, () -> new TermDictionary(List.of("b", "a")));
+			Assertions.assertThrows(IllegalArgumentException.class, () -> new TermDictionary(List.of("a", "a")));
+
+			TermDictionary dictionary = new TermDictionary(List.of("a", "b"));
+			Assertions.assertThrows(IndexOutOfBoundsException.class, () -> dictionary.term(-1));
+			Assertions.assertThrows(IndexOutOfBoundsException.class, () -> dictionary.term(2));
+
+			var iterator = dictionary.iterator();
+			iterator.next();
+			iterator.next();
+			Assertions.assertThrows(NoSuchElementException.class, iterator::next);
+		}
+	}
+
+	/**
+	 * Tests the ranges of terms starting with a prefix.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class PrefixTests {
+		/** Creates a new instance of this class. */
+		public PrefixTests() {}
+
+		/**
+		 * Tests the range of every prefix of every term matches checking each term.
+		 */
+		@Order(1)
+		@Test
+		public void testEveryPrefix() {
+			List<String> terms = terms(1000);
+			TermDictionary dictionary = new TermDictionary(terms);
+			for (String term : terms) {
+				for (int i = 0; i <= term.length(); i++) {
+					String prefix = term.substring(0, i);
+					Assertions.assertArrayEquals(expectedRange(terms, prefix), dictionary.prefixRange(prefix),
+							() -> "Wrong range for: " + prefix);
+				}
+			}
+		}
+
+		/**
+		 * Tests the range of a prefix that no term starts with is empty.
+		 */
+		@Order(2)
+		@Test
+		public void testMissing() {
+			List<String> terms = List.of("apple", "apply", "banana", "band", "bandana");
+			TermDictionary dictionary = new TermDictionary(terms);
+			Assertions.assertArrayEquals(new int[] { 2, 2 }, dictionary.prefixRange("apz"));
+			Assertions.assertArrayEquals(new int[] { 0, 0 }, dictionary.prefixRange("a0"));
+			Assertions.assertArrayEquals(new int[] { 5, 5 }, dictionary.prefixRange("c"));
+			Assertions.assertArrayEquals(new int[] { 3, 5 }, dictionary.prefixRange("band"));
+			Assertions.assertArrayEquals(new int[] { 0, 5 }, dictionary.prefixRange(""));
+		}
+
+		/**
+		 * Tests a prefix ending with the largest character, which has no successor.
+		 */
+		@Order(3)
+		@Test
+		public void testLargestCharacter() {
+			List<String> terms = new ArrayList<>(
+					new TreeSet<>(List.of("a", "a\uFFFF", "a\uFFFF\uFFFF", "a\uFFFFb", "b", "\uFFFF", "\uFFFFa")));
+			TermDictionary dictionary = new TermDictionary(terms);
+			for (String prefix : List.of("a", "a\uFFFF", "a\uFFFF\uFFFF", "\uFFFF", "\uFFFF\uFFFF")) {
+				Assertions.assertArrayEquals(expectedRange(terms, prefix), dictionary.prefixRange(prefix),
+						() -> "Wrong range for: " + prefix);
+			}
+		}
+	}
+
+	/**
+	 * Tests writing and reading the binary format.
+	 */
+	@Nested
+	@Order(3)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class BinaryTests {
+		/** Creates a new instance of this class. */
+		public BinaryTests() {}
+
+		/**
+		 * Writes the dictionary to an array of bytes.
+		 *
+		 * @param dictionary the dictionary to write
+		 * @return the written bytes
+		 * @throws IOException if an I/O error occurs
+		 */
+		private static byte[] write(TermDictionary dictionary) throws IOException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (DataOutputStream out = new DataOutputStream(bytes)) {
+				dictionary.write(out);
+			}
+			return bytes.toByteArray();
+		}
+
+		/**
+		 * Reads a dictionary from an array of bytes.
+		 *
+		 * @param bytes the bytes to read
+		 * @return the dictionary
+		 * @throws IOException if an I/O error occurs or the dictionary is corrupt
+		 */
+		private static TermDictionary read(byte[] bytes) throws IOException {
+			try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+				return TermDictionary.read(in);
+			}
+		}
+
+		/**
+		 * Tests a written dictionary reads back the same terms.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(1)
+		@Test
+		public void testRoundTrip() throws IOException {
+			List<String> terms = terms(1000);
+			TermDictionary copy = read(write(new TermDictionary(terms)));
+			assertTerms(terms, copy);
+			Assertions.assertArrayEquals(expectedRange(terms, "ab"), copy.prefixRange("ab"));
+		}
+
+		/**
+		 * Tests a dictionary with the wrong number of blocks for its size is
+		 * rejected.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(2)
+		@Test
+		public void testCorrupt() throws IOException {
+			byte[] bytes = write(new TermDictionary(terms(100)));
+
+			byte[] size = bytes.clone();
+			size[3] = (byte) 200;
+			Assertions.assertThrows(IOException.class, () -> read(size));
+
+			byte[] negative = bytes.clone();
+			negative[0] = (byte) 0x80;
+			Assertions.assertThrows(IOException.class, () -> read(negative));
+
+			byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+			Assertions.assertThrows(IOException.class, () -> read(truncated));
+		}
+
+		/**
+		 * Tests a term dictionary with a longest term longer than its encoded bytes
+		 * is rejected.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(3)
+		@Test
+		public void testLongestTerm() throws IOException {
+			byte[] corrupt = write(new TermDictionary(List.of("apple", "banana")));
+			corrupt[4] = 0x7F;
+			Assertions.assertThrows(IOException.class, () -> read(corrupt));
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package edu.usfca.cs272.index;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+
+/**
+ * A test suite for {@link ThreadSafeInvertedIndex}, which guards the index with
+ * a read and write lock.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class ThreadSafeInvertedIndexTests {
+	/** Creates a new instance of this class. */
+	public ThreadSafeInvertedIndexTests() {}
+
+	/** The number of sources merged and removed by the writer. */
+	private static final int SOURCES = 200;
+
+	/**
+	 * Returns a local index of one source, with a word shared by every source
+	 * found twice and a word of its own.
+	 *
+	 * @param i the number of the source
+	 * @return the local index
+	 */
+	private static InvertedIndex local(int i) {
+		InvertedIndex local = new InvertedIndex();
+		local.add(List.of("common", "word" + i, "common", "word" + i), "source" + i);
+		return local;
+	}
+
+	/**
+	 * Asserts every result is of a complete source, which matches half of its
+	 * words.
+	 *
+	 * @param results the search results
+	 */
+	private static void assertComplete(List<InvertedIndex.SearchResult> results) {
+		for (InvertedIndex.SearchResult result : results) {
+			Assertions.assertEquals(2, result.getMatchCount(), result::getSource);
+			Assertions.assertEquals(0.5, result.getScore(), result::getSource);
+		}
+	}
+
+	/**
+	 * Runs the search on several threads while another thread merges sources and
+	 * keeps removing and merging half of them again, and fails if any search
+	 * fails.
+	 *
+	 * @param index the index to search
+	 * @param search the search to run
+	 * @throws Exception if a search or the writer fails
+	 */
+	private static void searchWhileWriting(ThreadSafeInvertedIndex index, Runnable search) throws Exception {
+		int searchers = 3;
+		AtomicBoolean writing = new AtomicBoolean(true);
+		ExecutorService executor = Executors.newFixedThreadPool(searchers + 1);
+		try {
+			Future<?> writer = executor.submit(() -> {
+				try {
+					for (int i = 1; i < SOURCES; i += 2) {
+						index.addAll(local(i));
+					}
+					for (int round = 0; round < 5; round++) {
+						for (int i = 0; i < SOURCES; i += 2) {
+							index.addAll(local(i));
+						}
+						for (int i = 0; i < SOURCES; i += 2) {
+							index.remove("source" + i);
+						}
+					}
+				}
+				finally {
+					writing.set(false);
+				}
+			});
+
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < searchers; i++) {
+				futures.add(executor.submit(() -> {
+					while (writing.get()) {
+						search.run();
+					}
+				}));
+			}
+
+			writer.get();
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Tests searching while the index is written.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class SearchTests {
+		/** Creates a new instance of this class. */
+		public SearchTests() {}
+
+		/**
+		 * Tests the searches returning every result only see complete sources.
+		 *
+		 * @throws Exception if a thread fails
+		 */
+		@Test
+		@Order(1)
+		public void testAll() throws Exception {
+			ThreadSafeInvertedIndex index = new ThreadSafeInvertedIndex();
+			searchWhileWriting(index, () -> {
+				assertComplete(index.searchExact(Set.of("common")));
+				assertComplete(index.searchPartial(Set.of("comm")));
+			});
+		}
+
+		/**
+		 * Tests the paginated searches only see complete sources, and keep as many
+		 * results as the hits they count up to the limit.
+		 *
+		 * @throws Exception if a thread fails
+		 */
+		@Test
+		@Order(2)
+		public void testTop() throws Exception {
+			ThreadSafeInvertedIndex index = new ThreadSafeInvertedIndex();
+			searchWhileWriting(index, () -> {
+				for (TopResults top : List.of(
+						index.searchExact(Set.of("common"), 10),
+						index.searchPartial(Set.of("comm"), 10),
+						index.searchExact(Set.of("common"), 10, source -> true, true),
+						index.searchPartial(Set.of("comm"), 10, source -> !source.endsWith("7"), false))) {
+					assertComplete(top.getResults());
+					Assertions.assertEquals(Math.min(top.getTotalHits(), 10), top.getResults().size());
+				}
+			});
+		}
+	}
+
+	/**
+	 * Tests exporting the index while it is written.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class ExportTests {
+		/** Creates a new instance of this class. */
+		public ExportTests() {}
+
+		/**
+		 * Tests that writers proceed while the index JSON is being written, and
+		 * that the export only holds the words of the snapshot it was taken from.
+		 *
+		 * @throws Exception if the export fails
+		 */
+		@Test
+		@Order(1)
+		public void testWriters() throws Exception {
+			ThreadSafeInvertedIndex index = new ThreadSafeInvertedIndex();
+			index.add(List.of("hello", "world"), "a.txt");
+			String before = index.indexToJson();
+
+			CountDownLatch writing = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+			StringWriter output = new StringWriter();
+			Writer blocking = new FilterWriter(output) {
+				@Override
+				public void write(String text, int offset, int length) throws IOException {
+					writing.countDown();
+					try {
+						release.await();
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					super.write(text, offset, length);
+				}
+			};
+
+			ExecutorService executor = Executors.newSingleThreadExecutor();
+			try {
+				Future<?> export = executor.submit(() -> {
+					index.indexToJson(blocking);
+					return null;
+				});
+				Assertions.assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+				Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+					index.add(List.of("later"), "b.txt");
+					index.remove("a.txt");
+				});
+				release.countDown();
+				export.get();
+			}
+			finally {
+				release.countDown();
+				executor.shutdown();
+			}
+
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(before, output.toString()),
+					() -> Assertions.assertEquals(Set.of("later"), index.viewWords()),
+					() -> Assertions.assertTrue(index.indexToJson().contains("later")),
+					() -> Assertions.assertFalse(index.indexToJson().contains("hello")));
+		}
+	}
+}
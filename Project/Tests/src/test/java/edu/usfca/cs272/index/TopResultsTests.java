@@ -0,0 +1,263 @@
+package edu.usfca.cs272.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import edu.usfca.cs272.index.InvertedIndex.SearchResult;
+
+/**
+ * A test suite for {@link TopResults}, which selects the best results of a
+ * search with a bounded heap.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class TopResultsTests {
+	/** Creates a new instance of this class. */
+	public TopResultsTests() {}
+
+	/** The query searched by the tests. */
+	private static final Set<String> QUERY = Set.of("hello");
+
+	/** The number of sources matching the query. */
+	private static final int HITS = 24;
+
+	/**
+	 * Returns an index of sources matching the query with different scores and
+	 * match counts, several of them tied, and a source without a match.
+	 *
+	 * @return the index
+	 */
+	private static InvertedIndex index() {
+		InvertedIndex index = new InvertedIndex();
+		for (int i = 0; i < HITS; i++) {
+			List<String> words = new ArrayList<>();
+			for (int j = 0; j <= i % 3; j++) {
+				words.add("hello");
+			}
+			for (int j = 0; j < i % 4; j++) {
+				words.add("world");
+			}
+			index.add(words, (i % 2 == 0 ? "Source" : "source") + (char) ('a' + i) + ".txt");
+		}
+		index.add(List.of("world"), "other.txt");
+		return index;
+	}
+
+	/**
+	 * Returns every result of the query accepted by the filter in sorted order,
+	 * or in reverse order.
+	 *
+	 * @param index the index to search
+	 * @param filter the sources to keep
+	 * @param reverse true for reverse order
+	 * @return the sorted results
+	 */
+	private static List<SearchResult> all(InvertedIndex index, Predicate<String> filter, boolean reverse) {
+		List<SearchResult> all = new ArrayList<>();
+		for (SearchResult result : index.searchExact(QUERY)) {
+			if (filter.test(result.getSource())) {
+				all.add(result);
+			}
+		}
+		if (reverse) {
+			Collections.reverse(all);
+		}
+		return all;
+	}
+
+	/**
+	 * Asserts the top results of the query are the first results of every sorted
+	 * result up to the limit, along with the number of accepted hits.
+	 *
+	 * @param limit the maximum number of results to keep
+	 * @param filter the sources to keep
+	 * @param reverse true to keep the worst results in reverse order
+	 */
+	private static void assertTop(int limit, Predicate<String> filter, boolean reverse) {
+		InvertedIndex index = index();
+		List<SearchResult> all = all(index, filter, reverse);
+		TopResults top = index.searchExact(QUERY, limit, filter, reverse);
+
+		List<SearchResult> expected = all.subList(0, Math.max(0, Math.min(limit, all.size())));
+		Assertions.assertAll(
+				() -> Assertions.assertEquals(expected, top.getResults()),
+				() -> Assertions.assertEquals(all.size(), top.getTotalHits()));
+	}
+
+	/**
+	 * Tests the number of results kept.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class LimitTests {
+		/** Creates a new instance of this class. */
+		public LimitTests() {}
+
+		/** Tests keeping fewer results than hits. */
+		@Test
+		@Order(1)
+		public void testBound() {
+			assertTop(5, source -> true, false);
+		}
+
+		/** Tests keeping a single result. */
+		@Test
+		@Order(2)
+		public void testOne() {
+			assertTop(1, source -> true, false);
+		}
+
+		/** Tests keeping no results, which still counts every hit. */
+		@Test
+		@Order(3)
+		public void testZero() {
+			assertTop(0, source -> true, false);
+			assertTop(-1, source -> true, false);
+		}
+
+		/** Tests keeping every result when the limit is larger than the hits. */
+		@Test
+		@Order(4)
+		public void testAll() {
+			assertTop(HITS, source -> true, false);
+			assertTop(HITS * 2, source -> true, false);
+		}
+
+		/** Tests the total number of hits without any match. */
+		@Test
+		@Order(5)
+		public void testEmpty() {
+			TopResults top = index().searchExact(Set.of("missing"), 10, source -> true, false);
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(List.of(), top.getResults()),
+					() -> Assertions.assertEquals(0, top.getTotalHits()));
+		}
+
+		/** Tests that the kept results cannot be modified. */
+		@Test
+		@Order(6)
+		public void testUnmodifiable() {
+			TopResults top = index().searchExact(QUERY, 3);
+			Assertions.assertThrows(UnsupportedOperationException.class, () -> top.getResults().clear());
+		}
+	}
+
+	/**
+	 * Tests the order of the kept results.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class OrderTests {
+		/** Creates a new instance of this class. */
+		public OrderTests() {}
+
+		/**
+		 * Tests that results tied on score and match count are kept by source,
+		 * ignoring case, when the limit falls between them.
+		 */
+		@Test
+		@Order(1)
+		public void testTies() {
+			InvertedIndex index = new InvertedIndex();
+			for (String source : List.of("d.txt", "B.txt", "a.txt", "C.txt", "e.txt")) {
+				index.add(List.of("hello", "world"), source);
+			}
+			index.add(List.of("hello"), "z.txt");
+
+			TopResults top = index.searchExact(QUERY, 3, source -> true, false);
+			List<String> sources = top.getResults().stream().map(SearchResult::getSource).toList();
+			Assertions.assertEquals(List.of("z.txt", "a.txt", "B.txt"), sources);
+		}
+
+		/** Tests keeping tied results at every limit. */
+		@Test
+		@Order(2)
+		public void testEveryLimit() {
+			for (int limit = 0; limit <= HITS; limit++) {
+				assertTop(limit, source -> true, false);
+			}
+		}
+
+		/** Tests keeping the worst results in reverse order. */
+		@Test
+		@Order(3)
+		public void testReverse() {
+			assertTop(5, source -> true, true);
+			assertTop(HITS, source -> true, true);
+		}
+
+		/** Tests keeping reversed tied results at every limit. */
+		@Test
+		@Order(4)
+		public void testReverseEveryLimit() {
+			for (int limit = 0; limit <= HITS; limit++) {
+				assertTop(limit, source -> true, true);
+			}
+		}
+	}
+
+	/**
+	 * Tests filtering the results by source.
+	 */
+	@Nested
+	@Order(3)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class FilterTests {
+		/** Creates a new instance of this class. */
+		public FilterTests() {}
+
+		/** Tests that filtered sources are neither kept nor counted. */
+		@Test
+		@Order(1)
+		public void testFilter() {
+			assertTop(3, source -> source.startsWith("source"), false);
+		}
+
+		/** Tests filtering in reverse order. */
+		@Test
+		@Order(2)
+		public void testReverse() {
+			assertTop(3, source -> source.startsWith("Source"), true);
+		}
+
+		/** Tests a filter rejecting every source. */
+		@Test
+		@Order(3)
+		public void testNone() {
+			TopResults top = index().searchExact(QUERY, 5, source -> false, false);
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(List.of(), top.getResults()),
+					() -> Assertions.assertEquals(0, top.getTotalHits()));
+		}
+
+		/** Tests the paginated partial search keeps the same top results. */
+		@Test
+		@Order(4)
+		public void testPartial() {
+			InvertedIndex index = index();
+			TopResults exact = index.searchExact(QUERY, 4, source -> !source.endsWith("b.txt"), false);
+			TopResults partial = index.searchPartial(Set.of("hel"), 4, source -> !source.endsWith("b.txt"),
+					false);
+			Assertions.assertAll(
+					() -> Assertions.assertEquals(exact.getResults(), partial.getResults()),
+					() -> Assertions.assertEquals(exact.getTotalHits(), partial.getTotalHits()),
+					() -> Assertions.assertEquals(HITS - 1, partial.getTotalHits()));
+		}
+	}
+}
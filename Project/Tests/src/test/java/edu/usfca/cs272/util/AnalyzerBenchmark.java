@@ -0,0 +1,152 @@
+package edu.usfca.cs272.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM.ENGLISH;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import opennlp.tools.stemmer.Stemmer;
+import opennlp.tools.stemmer.snowball.SnowballStemmer;
+
+/**
+ * Approximates how much memory is allocated and how much time is spent stemming
+ * query lines with a new stemmer and tokenizer for every line, compared to the
+ * {@link TextAnalyzer} of the calling thread. Note: Benchmarking is difficult in
+ * Java, so treat the results as estimates. Measuring allocations requires a JVM
+ * that supports {@link com.sun.management.ThreadMXBean}.
+ *
+ * @see FileStemmer#uniqueStems(String)
+ */
+public class AnalyzerBenchmark {
+	/** Measures the memory allocated by the calling thread. */
+	private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+	/**
+	 * Stems the line with a new stemmer and tokenizer, as every query line was
+	 * stemmed before threads kept their own analyzer.
+	 *
+	 * @param line the line to stem
+	 * @return the unique stems of the line
+	 */
+	private static TreeSet<String> uniqueStemsNew(String line) {
+		Stemmer stemmer = new SnowballStemmer(ENGLISH);
+		TreeSet<String> stems = new TreeSet<>();
+		WordTokenizer words = new WordTokenizer(line);
+		while (words.next()) {
+			stems.add(stemmer.stem(words).toString());
+		}
+		return stems;
+	}
+
+	/**
+	 * Returns the total number of unique stems of every line, stemmed with a new
+	 * stemmer and tokenizer for every line.
+	 *
+	 * @param lines the lines to stem
+	 * @return the total number of stems
+	 */
+	private static long stemNew(List<String> lines) {
+		long total = 0;
+		for (String line : lines) {
+			total += uniqueStemsNew(line).size();
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the total number of unique stems of every line, stemmed with the
+	 * analyzer of the calling thread.
+	 *
+	 * @param lines the lines to stem
+	 * @return the total number of stems
+	 */
+	private static long stemReused(List<String> lines) {
+		long total = 0;
+		for (String line : lines) {
+			total += TextAnalyzer.get().uniqueStems(line).size();
+		}
+		return total;
+	}
+
+	/**
+	 * Reads every line of the text files in the directory.
+	 *
+	 * @param directory the directory of text files
+	 * @return the lines
+	 * @throws IOException if unable to read a file
+	 */
+	private static List<String> readLines(Path directory) throws IOException {
+		List<String> lines = new ArrayList<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+				if (Files.isRegularFile(file)) {
+					lines.addAll(Files.readAllLines(file, UTF_8));
+				}
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Compares the memory allocated and the time spent stemming the lines in both
+	 * ways, repeated for the given number of rounds.
+	 *
+	 * @param args the directory of query files, or input/query if not provided
+	 * @throws IOException if unable to read a file
+	 */
+	public static void main(String[] args) throws IOException {
+		int warmup = 5;
+		int runs = 10;
+
+		Path directory = Path.of(args.length > 0 ? args[0] : "input/query");
+		List<String> lines = readLines(directory);
+		if (!THREADS.isThreadAllocatedMemorySupported()) {
+			System.out.println("Measuring allocated memory is not supported.");
+			return;
+		}
+		THREADS.setThreadAllocatedMemoryEnabled(true);
+
+		long result = 0;
+		System.out.print("Warmup rounds");
+		for (int i = 0; i < warmup; i++) {
+			System.out.print(".");
+			result += stemNew(lines) + stemReused(lines);
+		}
+		System.out.println(" done.");
+
+		long created = Long.MAX_VALUE;
+		long reused = Long.MAX_VALUE;
+		long createdBytes = Long.MAX_VALUE;
+		long reusedBytes = Long.MAX_VALUE;
+		for (int i = 0; i < runs; i++) {
+			long bytes = THREADS.getCurrentThreadAllocatedBytes();
+			long start = System.nanoTime();
+			result += stemNew(lines);
+			created = Math.min(created, System.nanoTime() - start);
+			createdBytes = Math.min(createdBytes, THREADS.getCurrentThreadAllocatedBytes() - bytes);
+
+			bytes = THREADS.getCurrentThreadAllocatedBytes();
+			start = System.nanoTime();
+			result += stemReused(lines);
+			reused = Math.min(reused, System.nanoTime() - start);
+			reusedBytes = Math.min(reusedBytes, THREADS.getCurrentThreadAllocatedBytes() - bytes);
+		}
+
+		System.out.printf("Stemmed %d lines from %s (checksum %d)%n", lines.size(), directory, result);
+		System.out.printf("New per line: %.05fs, %d bytes per line%n", created / 1e9, createdBytes / lines.size());
+		System.out.printf("Per thread:   %.05fs, %d bytes per line%n", reused / 1e9, reusedBytes / lines.size());
+		System.out.printf("Allocations:  %.01f%% fewer%n", 100.0 * (createdBytes - reusedBytes) / createdBytes);
+	}
+
+	/** Prevent instantiating this class of static methods. */
+	private AnalyzerBenchmark() {
+	}
+}
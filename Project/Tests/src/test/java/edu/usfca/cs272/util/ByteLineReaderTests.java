@@ -0,0 +1,368 @@
+package edu.usfca.cs272.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.CharacterCodingException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import edu.usfca.cs272.tests.utils.ProjectPath;
+
+/**
+ * A test suite for {@link ByteLineReader}, which must split UTF-8 bytes into
+ * exactly the same lines as {@link BufferedReader#readLine()} splits the
+ * decoded text.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class ByteLineReaderTests {
+	/** Creates a new instance of this class. */
+	public ByteLineReaderTests() {}
+
+	/** The directory for files to map. */
+	@TempDir
+	private static Path temp;
+
+	/**
+	 * Reads every line of the bytes with a new reader.
+	 *
+	 * @param bytes the bytes to read
+	 * @return the lines
+	 * @throws CharacterCodingException if the bytes are not valid UTF-8
+	 */
+	private static List<String> lines(ByteBuffer bytes) throws CharacterCodingException {
+		ByteLineReader reader = new ByteLineReader(bytes);
+		List<String> lines = new ArrayList<>();
+		CharSequence line;
+		while ((line = reader.readLine()) != null) {
+			lines.add(line.toString());
+		}
+		Assertions.assertNull(reader.readLine());
+		return lines;
+	}
+
+	/**
+	 * Reads every line of the text with a buffered reader.
+	 *
+	 * @param text the text to read
+	 * @return the lines
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static List<String> expected(String text) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+			return reader.lines().toList();
+		}
+	}
+
+	/**
+	 * Asserts the bytes of the text are split into the same lines as the text.
+	 *
+	 * @param text the text to read
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static void assertSameLines(String text) throws IOException {
+		Assertions.assertIterableEquals(expected(text), lines(ByteBuffer.wrap(text.getBytes(UTF_8))),
+				() -> "Wrong lines for: " + text.replace("\r", "\\r").replace("\n", "\\n"));
+	}
+
+	/**
+	 * Asserts a mapped file is split into the same lines as reading it with a
+	 * buffered reader.
+	 *
+	 * @param file the file to read
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static void assertSameMapped(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file)) {
+			MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			Assertions.assertIterableEquals(Files.readAllLines(file, UTF_8), lines(mapped), file::toString);
+		}
+	}
+
+	/**
+	 * Tests splitting lines at line breaks.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class LineBreakTests {
+		/** Creates a new instance of this class. */
+		public LineBreakTests() {}
+
+		/**
+		 * Tests every kind of line break, including a carriage return as the last
+		 * byte.
+		 *
+		 * @param text the text to read
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(1)
+		@ParameterizedTest
+		@ValueSource(strings = { "", "a", "a\n", "a\r", "a\r\n", "\n", "\r", "\r\n", "\n\n", "\r\r", "\n\r",
+				"\r\r\n\n", "a\rb\nc\r\nd", "one\r\n\r\ntwo\r", "no break at all in this line" })
+		public void testBreaks(String text) throws IOException {
+			assertSameLines(text);
+		}
+
+		/**
+		 * Tests a line break at every position around the eight byte words scanned
+		 * at a time.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(2)
+		@Test
+		public void testEveryPosition() throws IOException {
+			for (String lineBreak : List.of("\n", "\r", "\r\n")) {
+				for (int i = 0; i <= 24; i++) {
+					String text = "x".repeat(i) + lineBreak + "y".repeat(24 - i);
+					assertSameLines(text);
+					assertSameLines(text + lineBreak);
+				}
+			}
+		}
+
+		/**
+		 * Tests lines longer than the reusable line buffers.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(3)
+		@Test
+		public void testLongLines() throws IOException {
+			String ascii = "word ".repeat(1000);
+			String other = "caf\u00e9 ".repeat(1000);
+			assertSameLines(ascii + "\r\n" + other + "\n" + ascii + "\r" + "short");
+		}
+	}
+
+	/**
+	 * Tests decoding lines that are not ASCII.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class DecodeTests {
+		/** Creates a new instance of this class. */
+		public DecodeTests() {}
+
+		/**
+		 * Tests characters of two, three, and four bytes, including at the start and
+		 * end of lines and across the eight byte words.
+		 *
+		 * @param text the text to read
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(1)
+		@ParameterizedTest
+		@ValueSource(strings = { "caf\u00e9", "\u00e9", "\u00e9\r\n\u00e9", "na\u00efve\rcaf\u00e9\n",
+				"\u65e5\u672c\u8a9e\r\n\u65e5\u672c", "smile \uD83D\uDE00 smile", "\uD83D\uDE00\n\uD83D\uDE00\r",
+				"ascii line\r\n\u03c3\u03bf\u03c6\u03cc\u03c2 line\nascii again" })
+		public void testMultiByte(String text) throws IOException {
+			assertSameLines(text);
+		}
+
+		/**
+		 * Tests random text of characters with different numbers of bytes and line
+		 * breaks.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(2)
+		@Test
+		public void testRandom() throws IOException {
+			String[] pieces = { "a", "b", " ", "\r", "\n", "\r\n", "\u00e9", "\u65e5", "\uD83D\uDE00" };
+			Random random = new Random(272);
+			for (int i = 0; i < 2000; i++) {
+				StringBuilder text = new StringBuilder();
+				int length = random.nextInt(40);
+				for (int j = 0; j < length; j++) {
+					text.append(pieces[random.nextInt(pieces.length)]);
+				}
+				assertSameLines(text.toString());
+			}
+		}
+
+		/**
+		 * Tests bytes that are not valid UTF-8 are rejected, whether or not the line
+		 * is long enough to be scanned eight bytes at a time.
+		 *
+		 * @throws CharacterCodingException if a valid line is rejected
+		 */
+		@Order(3)
+		@Test
+		public void testInvalid() throws CharacterCodingException {
+			byte[][] invalid = { { (byte) 0xC3 }, { (byte) 0xC3, 'a' }, { (byte) 0xFF }, { (byte) 0xE6, (byte) 0x97 },
+					{ (byte) 0xC0, (byte) 0xAF }, { (byte) 0xED, (byte) 0xA0, (byte) 0x80 }, { (byte) 0x80 } };
+
+			for (byte[] bytes : invalid) {
+				Assertions.assertThrows(CharacterCodingException.class, () -> lines(ByteBuffer.wrap(bytes)));
+
+				byte[] line = new byte[bytes.length + 20];
+				System.arraycopy("valid\nvalid ascii bytes ".getBytes(UTF_8), 0, line, 0, 20);
+				System.arraycopy(bytes, 0, line, 20, bytes.length);
+				ByteLineReader reader = new ByteLineReader(ByteBuffer.wrap(line));
+				Assertions.assertEquals("valid", reader.readLine().toString());
+				Assertions.assertThrows(CharacterCodingException.class, reader::readLine);
+			}
+		}
+	}
+
+	/**
+	 * Tests reading lines of ASCII bytes without decoding them.
+	 */
+	@Nested
+	@Order(3)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class AsciiTests {
+		/** Creates a new instance of this class. */
+		public AsciiTests() {}
+
+		/**
+		 * Tests ASCII lines are returned as one reusable view, and other lines are
+		 * not.
+		 *
+		 * @throws CharacterCodingException if the bytes are not valid UTF-8
+		 */
+		@Order(1)
+		@Test
+		public void testReused() throws CharacterCodingException {
+			ByteLineReader reader = new ByteLineReader(ByteBuffer.wrap("first\ncaf\u00e9\nthird".getBytes(UTF_8)));
+			CharSequence first = reader.readLine();
+			Assertions.assertInstanceOf(ByteLineReader.AsciiLine.class, first);
+			Assertions.assertEquals("first", first.toString());
+
+			CharSequence second = reader.readLine();
+			Assertions.assertFalse(second instanceof ByteLineReader.AsciiLine);
+			Assertions.assertEquals("caf\u00e9", second.toString());
+
+			Assertions.assertSame(first, reader.readLine());
+			Assertions.assertEquals("third", first.toString());
+		}
+
+		/**
+		 * Tests the characters of an ASCII line.
+		 *
+		 * @throws CharacterCodingException if the bytes are not valid UTF-8
+		 */
+		@Order(2)
+		@Test
+		public void testCharacters() throws CharacterCodingException {
+			CharSequence line = new ByteLineReader(ByteBuffer.wrap("Hello, world!".getBytes(UTF_8))).readLine();
+			Assertions.assertEquals(13, line.length());
+			Assertions.assertEquals('H', line.charAt(0));
+			Assertions.assertEquals('!', line.charAt(12));
+			Assertions.assertEquals("world", line.subSequence(7, 12).toString());
+			Assertions.assertThrows(IndexOutOfBoundsException.class, () -> line.charAt(-1));
+			Assertions.assertThrows(IndexOutOfBoundsException.class, () -> line.charAt(13));
+		}
+
+		/**
+		 * Tests an ASCII line is split into the same words as the same text as a
+		 * string.
+		 *
+		 * @param text the text to split
+		 * @throws CharacterCodingException if the bytes are not valid UTF-8
+		 */
+		@Order(3)
+		@ParameterizedTest
+		@ValueSource(strings = { "Hello, world!", "  The dogs' bowls, the cats' toys  ", "one-two_three 4five6",
+				"MIXED case WORDS", "" })
+		public void testTokenized(String text) throws CharacterCodingException {
+			CharSequence line = new ByteLineReader(ByteBuffer.wrap((text + "\n").getBytes(UTF_8))).readLine();
+			Assertions.assertInstanceOf(ByteLineReader.AsciiLine.class, line);
+
+			WordTokenizer fromLine = new WordTokenizer(line);
+			WordTokenizer fromString = new WordTokenizer(text);
+			while (fromString.next()) {
+				Assertions.assertTrue(fromLine.next());
+				Assertions.assertEquals(fromString.toString(), fromLine.toString());
+			}
+			Assertions.assertFalse(fromLine.next());
+		}
+	}
+
+	/**
+	 * Tests reading part of a buffer and memory-mapped files.
+	 */
+	@Nested
+	@Order(4)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class BufferTests {
+		/** Creates a new instance of this class. */
+		public BufferTests() {}
+
+		/**
+		 * Tests only the remaining bytes of the buffer are read, without changing
+		 * its position.
+		 *
+		 * @throws CharacterCodingException if the bytes are not valid UTF-8
+		 */
+		@Order(1)
+		@Test
+		public void testSlice() throws CharacterCodingException {
+			ByteBuffer bytes = ByteBuffer.wrap("skip\r\nfirst line\r\ncaf\u00e9\r\nskipped".getBytes(UTF_8));
+			bytes.position(6).limit(24);
+			Assertions.assertIterableEquals(List.of("first line", "caf\u00e9"), lines(bytes));
+			Assertions.assertEquals(6, bytes.position());
+
+			ByteBuffer slice = bytes.slice();
+			Assertions.assertIterableEquals(List.of("first line", "caf\u00e9"), lines(slice));
+		}
+
+		/**
+		 * Tests a mapped file with every kind of line break is read the same as
+		 * reading the file with a buffered reader.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(2)
+		@Test
+		public void testMapped() throws IOException {
+			String text = "ascii\r\ncaf\u00e9 na\u00efve\n\u65e5\u672c\u8a9e\r\r\n" + "long line ".repeat(50) + "\r";
+			Path file = Files.writeString(temp.resolve("mapped.txt"), text, UTF_8);
+			assertSameMapped(file);
+		}
+
+		/**
+		 * Tests the text files of the project are read the same as reading them with
+		 * a buffered reader.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(3)
+		@Test
+		public void testTextFiles() throws IOException {
+			try (Stream<Path> files = Files.walk(ProjectPath.TEXT.path)) {
+				for (Path file : files.filter(Files::isRegularFile).toList()) {
+					assertSameMapped(file);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,367 @@
+package edu.usfca.cs272.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import edu.usfca.cs272.functional.IOThrowingConsumer;
+
+/**
+ * A test suite for {@link JsonReader}, which must read the JSON written by
+ * {@link JsonWriter} and reject malformed JSON with an I/O exception.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class JsonReaderTests {
+	/** Creates a new instance of this class. */
+	public JsonReaderTests() {}
+
+	/**
+	 * Creates a reader of the JSON text.
+	 *
+	 * @param json the JSON text
+	 * @return the reader
+	 */
+	private static JsonReader reader(String json) {
+		return new JsonReader(new StringReader(json));
+	}
+
+	/**
+	 * Asserts reading the JSON text with the steps fails with an I/O exception.
+	 *
+	 * @param json the malformed JSON text
+	 * @param steps the steps that read the JSON text
+	 * @return the exception thrown
+	 */
+	private static IOException assertMalformed(String json, IOThrowingConsumer<JsonReader> steps) {
+		return Assertions.assertThrows(IOException.class, () -> {
+			try (JsonReader reader = reader(json)) {
+				steps.accept(reader);
+			}
+		}, () -> "Accepted: " + json);
+	}
+
+	/**
+	 * Reads every integer of an array that is the whole input.
+	 *
+	 * @param reader the reader of the array
+	 * @throws IOException if an I/O error occurs or the JSON is malformed
+	 */
+	private static void readInts(JsonReader reader) throws IOException {
+		reader.beginArray();
+		while (reader.hasNext()) {
+			reader.nextInt();
+		}
+		reader.endArray();
+		reader.endDocument();
+	}
+
+	/**
+	 * Reads every string of an array that is the whole input.
+	 *
+	 * @param reader the reader of the array
+	 * @throws IOException if an I/O error occurs or the JSON is malformed
+	 */
+	private static void readStrings(JsonReader reader) throws IOException {
+		reader.beginArray();
+		while (reader.hasNext()) {
+			reader.nextString();
+		}
+		reader.endArray();
+		reader.endDocument();
+	}
+
+	/**
+	 * Reads every integer member of an object that is the whole input.
+	 *
+	 * @param reader the reader of the object
+	 * @throws IOException if an I/O error occurs or the JSON is malformed
+	 */
+	private static void readMembers(JsonReader reader) throws IOException {
+		reader.beginObject();
+		while (reader.hasNext()) {
+			reader.nextName();
+			reader.nextInt();
+		}
+		reader.endObject();
+		reader.endDocument();
+	}
+
+	/**
+	 * Tests reading valid JSON.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class ValidTests {
+		/** Creates a new instance of this class. */
+		public ValidTests() {}
+
+		/**
+		 * Tests reading nested objects and arrays written by {@link JsonWriter}.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(1)
+		@Test
+		public void testNested() throws IOException {
+			String json = "{\n  \"a\": [\n    1,\n    -2\n  ],\n  \"b\": {},\n  \"c\": []\n}\n";
+			try (JsonReader reader = reader(json)) {
+				reader.beginObject();
+				Assertions.assertTrue(reader.hasNext());
+				Assertions.assertEquals("a", reader.nextName());
+				reader.beginArray();
+				Assertions.assertTrue(reader.hasNext());
+				Assertions.assertEquals(1, reader.nextInt());
+				Assertions.assertTrue(reader.hasNext());
+				Assertions.assertEquals(-2, reader.nextInt());
+				Assertions.assertFalse(reader.hasNext());
+				reader.endArray();
+
+				Assertions.assertTrue(reader.hasNext());
+				Assertions.assertEquals("b", reader.nextName());
+				reader.beginObject();
+				Assertions.assertFalse(reader.hasNext());
+				reader.endObject();
+
+				Assertions.assertTrue(reader.hasNext());
+				Assertions.assertEquals("c", reader.nextName());
+				reader.beginArray();
+				Assertions.assertFalse(reader.hasNext());
+				reader.endArray();
+
+				Assertions.assertFalse(reader.hasNext());
+				reader.endObject();
+				reader.endDocument();
+			}
+		}
+
+		/**
+		 * Tests the smallest and largest integers are read.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(2)
+		@Test
+		public void testIntegers() throws IOException {
+			try (JsonReader reader = reader("[0, -0, 2147483647, -2147483648]")) {
+				reader.beginArray();
+				reader.hasNext();
+				Assertions.assertEquals(0, reader.nextInt());
+				reader.hasNext();
+				Assertions.assertEquals(0, reader.nextInt());
+				reader.hasNext();
+				Assertions.assertEquals(Integer.MAX_VALUE, reader.nextInt());
+				reader.hasNext();
+				Assertions.assertEquals(Integer.MIN_VALUE, reader.nextInt());
+				Assertions.assertFalse(reader.hasNext());
+				reader.endArray();
+			}
+		}
+
+		/**
+		 * Tests every escape in a string is resolved.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(3)
+		@Test
+		public void testEscapes() throws IOException {
+			String json = "[\"q\\\"b\\\\s\\/ \\b\\f\\n\\r\\t \\u00e9\\u00E9\", \"caf\u00e9\"]";
+			try (JsonReader reader = reader(json)) {
+				reader.beginArray();
+				reader.hasNext();
+				Assertions.assertEquals("q\"b\\s/ \b\f\n\r\t \u00e9\u00e9", reader.nextString());
+				reader.hasNext();
+				Assertions.assertEquals("caf\u00e9", reader.nextString());
+				reader.endArray();
+			}
+		}
+
+		/**
+		 * Tests a backslash that does not start a valid escape is read as a plain
+		 * backslash, since {@link JsonWriter} does not escape strings.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(4)
+		@Test
+		public void testUnescaped() throws IOException {
+			String json = "[\"C:\\Users\\me.txt\", \"\\q\\x41\", \"\\u12G4 \\uD\", \"end\\u12\", \"\\\\\"]";
+			try (JsonReader reader = reader(json)) {
+				reader.beginArray();
+				for (String expected : List.of("C:\\Users\\me.txt", "\\q\\x41", "\\u12G4 \\uD", "end\\u12", "\\")) {
+					Assertions.assertTrue(reader.hasNext());
+					Assertions.assertEquals(expected, reader.nextString());
+				}
+				reader.endArray();
+			}
+		}
+
+		/**
+		 * Tests strings longer than the buffer of the reader, with and without
+		 * escapes, are read in full.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(5)
+		@Test
+		public void testLongStrings() throws IOException {
+			String plain = "a".repeat(200_000);
+			String escaped = "b".repeat(100_000) + "\\n" + "c".repeat(100_000);
+			try (JsonReader reader = reader("[\"" + plain + "\", \"" + escaped + "\"]")) {
+				reader.beginArray();
+				reader.hasNext();
+				Assertions.assertEquals(plain, reader.nextString());
+				reader.hasNext();
+				Assertions.assertEquals("b".repeat(100_000) + "\n" + "c".repeat(100_000), reader.nextString());
+				reader.endArray();
+				reader.endDocument();
+			}
+		}
+
+		/**
+		 * Tests copying a value copies its raw text, including brackets within its
+		 * strings, and leaves the reader after the value.
+		 *
+		 * @throws IOException if an I/O error occurs
+		 */
+		@Order(6)
+		@Test
+		public void testCopyValue() throws IOException {
+			String value = "{\"x\": [1, {\"y\": \"]}\\\"\"}], \"z\": 2}";
+			try (JsonReader reader = reader("{\"a\": " + value + ", \"b\": 3, \"c\": \"s\"}")) {
+				reader.beginObject();
+				reader.hasNext();
+				reader.nextName();
+				StringBuilder copied = new StringBuilder();
+				reader.copyValue(copied);
+				Assertions.assertEquals(value, copied.toString());
+
+				Assertions.assertTrue(reader.hasNext());
+				Assertions.assertEquals("b", reader.nextName());
+				copied.setLength(0);
+				reader.copyValue(copied);
+				Assertions.assertEquals("3", copied.toString());
+
+				Assertions.assertTrue(reader.hasNext());
+				Assertions.assertEquals("c", reader.nextName());
+				copied.setLength(0);
+				reader.copyValue(copied);
+				Assertions.assertEquals("\"s\"", copied.toString());
+				reader.endObject();
+				reader.endDocument();
+			}
+		}
+	}
+
+	/**
+	 * Tests rejecting malformed JSON.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class MalformedTests {
+		/** Creates a new instance of this class. */
+		public MalformedTests() {}
+
+		/**
+		 * Tests empty input is rejected.
+		 *
+		 * @param json the empty input
+		 */
+		@Order(1)
+		@ParameterizedTest
+		@ValueSource(strings = { "", " \n\t " })
+		public void testEmpty(String json) {
+			assertMalformed(json, JsonReaderTests::readMembers);
+			assertMalformed(json, reader -> reader.copyValue(new StringBuilder()));
+		}
+
+		/**
+		 * Tests a comma before the end of an object or array is rejected.
+		 */
+		@Order(2)
+		@Test
+		public void testTrailingComma() {
+			assertMalformed("[1, 2,]", JsonReaderTests::readInts);
+			assertMalformed("{\"a\": 1,}", JsonReaderTests::readMembers);
+			assertMalformed("[,]", JsonReaderTests::readInts);
+		}
+
+		/**
+		 * Tests a missing comma, colon, or closing bracket is rejected.
+		 *
+		 * @param json the malformed JSON
+		 */
+		@Order(3)
+		@ParameterizedTest
+		@ValueSource(strings = { "{\"a\": 1 \"b\": 2}", "{\"a\" 1}", "{\"a\": 1", "{\"a\": 1]", "[1", "{a: 1}",
+				"{\"a\": 1}}" })
+		public void testMissing(String json) {
+			assertMalformed(json, json.startsWith("[") ? JsonReaderTests::readInts : JsonReaderTests::readMembers);
+		}
+
+		/**
+		 * Tests a string without its closing quote is rejected.
+		 *
+		 * @param json the malformed JSON
+		 */
+		@Order(4)
+		@ParameterizedTest
+		@ValueSource(strings = { "[\"abc", "[\"abc]", "[\"abc\\\"]", "[\"abc\\", "[\"\\u00" })
+		public void testUnterminated(String json) {
+			assertMalformed(json, JsonReaderTests::readStrings);
+		}
+
+
+		/**
+		 * Tests integers that do not fit in an int, and values that are not integers,
+		 * are rejected.
+		 *
+		 * @param json the malformed JSON
+		 */
+		@Order(5)
+		@ParameterizedTest
+		@ValueSource(strings = { "[2147483648]", "[-2147483649]", "[99999999999999999999]", "[-]", "[\"1\"]",
+				"[1.5]", "[1e3]", "[true]" })
+		public void testInvalidInteger(String json) {
+			assertMalformed(json, JsonReaderTests::readInts);
+		}
+
+		/**
+		 * Tests anything but whitespace after the outermost value is rejected.
+		 *
+		 * @param json the malformed JSON
+		 */
+		@Order(6)
+		@ParameterizedTest
+		@ValueSource(strings = { "{} {}", "{}]", "{},", "{\"a\": 1} x" })
+		public void testTrailingContent(String json) {
+			assertMalformed(json, JsonReaderTests::readMembers);
+		}
+
+		/**
+		 * Tests the error describes where the JSON is malformed.
+		 */
+		@Order(7)
+		@Test
+		public void testOffset() {
+			IOException error = assertMalformed("[1, 2,]", JsonReaderTests::readInts);
+			Assertions.assertTrue(error.getMessage().contains("trailing comma at offset 6"), error::getMessage);
+		}
+	}
+}
@@ -0,0 +1,263 @@
+package edu.usfca.cs272.util;
+
+import static opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM.ENGLISH;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import opennlp.tools.stemmer.Stemmer;
+import opennlp.tools.stemmer.snowball.SnowballStemmer;
+
+/**
+ * A test suite for {@link StemCache}, including the CLOCK eviction of stems once
+ * the cache is full.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class StemCacheTests {
+	/** Creates a new instance of this class. */
+	public StemCacheTests() {}
+
+	/**
+	 * A stemmer that uppercases words and counts how many words it stemmed, so
+	 * tests can tell whether a stem came from the cache.
+	 */
+	private static class CountingStemmer implements Stemmer {
+		/** The number of words stemmed. */
+		private int calls;
+
+		/** Creates a new instance of this class. */
+		public CountingStemmer() {
+			this.calls = 0;
+		}
+
+		@Override
+		public CharSequence stem(CharSequence word) {
+			calls++;
+			return word.toString().toUpperCase();
+		}
+	}
+
+	/**
+	 * Tests looking up stems and counting hits and misses.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class LookupTests {
+		/** The cache to test. */
+		private StemCache cache;
+
+		/** The stemmer for words missing from the cache. */
+		private CountingStemmer stemmer;
+
+		/** Creates a new instance of this class. */
+		public LookupTests() {}
+
+		/**
+		 * Creates a new cache and stemmer before each test.
+		 */
+		@BeforeEach
+		public void setup() {
+			cache = new StemCache(8);
+			stemmer = new CountingStemmer();
+		}
+
+		/**
+		 * Tests a word is only stemmed the first time it is looked up.
+		 */
+		@Order(1)
+		@Test
+		public void testCached() {
+			Assertions.assertEquals("HELLO", cache.stem("hello", stemmer));
+			Assertions.assertEquals("HELLO", cache.stem("hello", stemmer));
+			Assertions.assertEquals("HELLO", cache.stem(new StringBuilder("hello"), stemmer));
+			Assertions.assertEquals(1, stemmer.calls);
+			Assertions.assertEquals(1, cache.size());
+		}
+
+		/**
+		 * Tests hits, misses, and the hit rate are counted.
+		 */
+		@Order(2)
+		@Test
+		public void testCounts() {
+			Assertions.assertEquals(0, cache.hitRate(), 0);
+			cache.stem("a", stemmer);
+			cache.stem("b", stemmer);
+			cache.stem("a", stemmer);
+			cache.stem("a", stemmer);
+
+			Assertions.assertEquals(2, cache.hits());
+			Assertions.assertEquals(2, cache.misses());
+			Assertions.assertEquals(0.5, cache.hitRate(), 0);
+		}
+
+		/**
+		 * Tests a wrapped stemmer looks up words in the cache first.
+		 */
+		@Order(3)
+		@Test
+		public void testWrap() {
+			Stemmer wrapped = cache.wrap(stemmer);
+			Assertions.assertEquals("WORD", wrapped.stem("word").toString());
+			Assertions.assertEquals("WORD", wrapped.stem("word").toString());
+			Assertions.assertEquals("WORD", cache.stem("word", new CountingStemmer()));
+			Assertions.assertEquals(1, stemmer.calls);
+		}
+
+		/**
+		 * Tests the capacity must be positive.
+		 */
+		@Order(4)
+		@Test
+		public void testCapacity() {
+			Assertions.assertThrows(IllegalArgumentException.class, () -> new StemCache(0));
+			Assertions.assertThrows(IllegalArgumentException.class, () -> new StemCache(-1));
+		}
+	}
+
+	/**
+	 * Tests evicting stems once the cache is full. The order the clock hand visits
+	 * stems is the iteration order of the cache, so these tests only rely on which
+	 * stems were used since the hand last passed them.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class EvictionTests {
+		/** The stemmer for words missing from the cache. */
+		private CountingStemmer stemmer;
+
+		/** Creates a new instance of this class. */
+		public EvictionTests() {}
+
+		/**
+		 * Creates a new stemmer before each test.
+		 */
+		@BeforeEach
+		public void setup() {
+			stemmer = new CountingStemmer();
+		}
+
+		/**
+		 * Tests the cache never holds more stems than its capacity.
+		 */
+		@Order(1)
+		@Test
+		public void testBounded() {
+			StemCache cache = new StemCache(16);
+			for (int i = 0; i < 1000; i++) {
+				Assertions.assertEquals("W" + i, cache.stem("w" + i, stemmer));
+				Assertions.assertTrue(cache.size() <= 16, () -> "Too many stems: " + cache.size());
+			}
+			Assertions.assertEquals(16, cache.size());
+		}
+
+		/**
+		 * Tests a stem used since it was cached gets a second chance, so it outlives
+		 * the stems that were never used again.
+		 */
+		@Order(2)
+		@Test
+		public void testSecondChance() {
+			StemCache cache = new StemCache(3);
+			cache.stem("a", stemmer);
+			cache.stem("b", stemmer);
+			cache.stem("c", stemmer);
+			cache.stem("a", stemmer);
+
+			cache.stem("d", stemmer);
+			Assertions.assertEquals(3, cache.size());
+			Assertions.assertEquals(4, stemmer.calls);
+
+			cache.stem("a", stemmer);
+			Assertions.assertEquals(4, stemmer.calls, "The used stem was evicted.");
+		}
+
+		/**
+		 * Tests a frequent word stays cached while a stream of words used once
+		 * passes through the cache.
+		 */
+		@Order(3)
+		@Test
+		public void testFrequentWord() {
+			StemCache cache = new StemCache(4);
+			cache.stem("the", stemmer);
+			for (int i = 0; i < 100; i++) {
+				cache.stem("the", stemmer);
+				cache.stem("w" + i, stemmer);
+			}
+
+			Assertions.assertEquals(101, stemmer.calls);
+			Assertions.assertEquals(100, cache.hits());
+		}
+
+		/**
+		 * Tests the cache still evicts a stem when every cached stem was used, by
+		 * clearing their second chances first.
+		 */
+		@Order(4)
+		@Test
+		public void testAllUsed() {
+			StemCache cache = new StemCache(3);
+			for (String word : List.of("a", "b", "c")) {
+				cache.stem(word, stemmer);
+				cache.stem(word, stemmer);
+			}
+
+			cache.stem("d", stemmer);
+			Assertions.assertEquals(3, cache.size());
+		}
+
+		/**
+		 * Tests threads stemming with their own stemmers through a shared cache get
+		 * the same stems as without the cache.
+		 *
+		 * @throws Exception if a thread fails
+		 */
+		@Order(5)
+		@Test
+		public void testConcurrent() throws Exception {
+			StemCache cache = new StemCache(64);
+			ExecutorService threads = Executors.newFixedThreadPool(4);
+			try {
+				List<Future<?>> futures = new ArrayList<>();
+				for (int t = 0; t < 4; t++) {
+					int seed = t;
+					futures.add(threads.submit(() -> {
+						Stemmer snowball = new SnowballStemmer(ENGLISH);
+						Stemmer expected = new SnowballStemmer(ENGLISH);
+						for (int i = 0; i < 5000; i++) {
+							String word = "running" + (char) ('a' + (i * 7 + seed) % 26) + "s".repeat(i % 3);
+							Assertions.assertEquals(expected.stem(word).toString(), cache.stem(word, snowball));
+						}
+					}));
+				}
+				for (Future<?> future : futures) {
+					future.get();
+				}
+			}
+			finally {
+				threads.shutdown();
+			}
+
+			Assertions.assertTrue(cache.size() <= 64, () -> "Too many stems: " + cache.size());
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package edu.usfca.cs272.util;
+
+import static opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM.ENGLISH;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import opennlp.tools.stemmer.Stemmer;
+import opennlp.tools.stemmer.snowball.SnowballStemmer;
+
+/**
+ * A test suite for {@link TextAnalyzer}, which must stem text the same way as a
+ * new stemmer and the regular expressions of {@link FileStemmer}, while keeping
+ * one analyzer per thread.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class TextAnalyzerTests {
+	/** Creates a new instance of this class. */
+	public TextAnalyzerTests() {}
+
+	/**
+	 * Stems the line with a new stemmer and the regular expressions, without any
+	 * analyzer.
+	 *
+	 * @param line the line to stem
+	 * @return the stems of every word, in order
+	 */
+	private static List<String> expected(String line) {
+		Stemmer stemmer = new SnowballStemmer(ENGLISH);
+		List<String> stems = new ArrayList<>();
+		for (String word : FileStemmer.split(FileStemmer.clean(line))) {
+			stems.add(stemmer.stem(word).toString());
+		}
+		return stems;
+	}
+
+	/**
+	 * Tests stemming lines.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class StemTests {
+		/** Creates a new instance of this class. */
+		public StemTests() {}
+
+		/**
+		 * Tests the stems of a line are the same as stemming it without an analyzer.
+		 *
+		 * @param line the line to stem
+		 */
+		@Order(1)
+		@ParameterizedTest
+		@ValueSource(strings = { "", "hello", "Running runners ran quickly!", "The dogs' bowls, the cats' toys",
+				"élan café naïve", "\u00A0leading no-break space", "relational relations related",
+				"connection connections connective connected connecting" })
+		public void testAddStems(String line) {
+			TextAnalyzer analyzer = TextAnalyzer.get();
+			List<String> actual = new ArrayList<>();
+			analyzer.addStems(line, analyzer.getStemmer(), actual);
+			Assertions.assertIterableEquals(expected(line), actual);
+		}
+
+		/**
+		 * Tests the unique stems of a line are sorted and without duplicates.
+		 */
+		@Order(2)
+		@Test
+		public void testUniqueStems() {
+			String line = "Connection connections CONNECTED; connecting the connective";
+			TreeSet<String> actual = TextAnalyzer.get().uniqueStems(line);
+			Assertions.assertIterableEquals(new TreeSet<>(expected(line)), actual);
+			Assertions.assertEquals(new TreeSet<>(List.of("connect", "the")), actual);
+		}
+
+		/**
+		 * Tests stemming with a stemmer wrapped by a cache gives the same stems.
+		 */
+		@Order(3)
+		@Test
+		public void testCachedStemmer() {
+			String line = "stemming stems stemmed stemming stems";
+			TextAnalyzer analyzer = TextAnalyzer.get();
+			StemCache cache = new StemCache();
+			List<String> actual = new ArrayList<>();
+			analyzer.addStems(line, cache.wrap(analyzer.getStemmer()), actual);
+
+			Assertions.assertIterableEquals(expected(line), actual);
+			Assertions.assertEquals(2, cache.hits());
+		}
+
+		/**
+		 * Tests stemming a line does not depend on the lines stemmed before it.
+		 */
+		@Order(4)
+		@Test
+		public void testReused() {
+			TextAnalyzer analyzer = TextAnalyzer.get();
+			WordTokenizer words = analyzer.tokenize("unread words are discarded");
+			Assertions.assertTrue(words.next());
+
+			Assertions.assertIterableEquals(expected("Fresh line"), List.copyOf(analyzer.uniqueStems("Fresh line")));
+			Assertions.assertIterableEquals(expected("Fresh line"), List.copyOf(analyzer.uniqueStems("Fresh line")));
+		}
+	}
+
+	/**
+	 * Tests the analyzer of each thread.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class ThreadTests {
+		/** Creates a new instance of this class. */
+		public ThreadTests() {}
+
+		/**
+		 * Tests a thread always gets the same analyzer, and another thread gets its
+		 * own.
+		 *
+		 * @throws Exception if the other thread fails
+		 */
+		@Order(1)
+		@Test
+		public void testPerThread() throws Exception {
+			TextAnalyzer analyzer = TextAnalyzer.get();
+			Assertions.assertSame(analyzer, TextAnalyzer.get());
+			Assertions.assertSame(analyzer.getStemmer(), TextAnalyzer.get().getStemmer());
+
+			ExecutorService threads = Executors.newSingleThreadExecutor();
+			try {
+				TextAnalyzer other = threads.submit(TextAnalyzer::get).get();
+				Assertions.assertNotSame(analyzer, other);
+				Assertions.assertNotSame(analyzer.getStemmer(), other.getStemmer());
+				Assertions.assertSame(other, threads.submit(TextAnalyzer::get).get());
+			}
+			finally {
+				threads.shutdown();
+			}
+		}
+
+		/**
+		 * Tests threads stemming at the same time with their own analyzers get the
+		 * same stems as without an analyzer.
+		 *
+		 * @throws Exception if a thread fails
+		 */
+		@Order(2)
+		@Test
+		public void testConcurrent() throws Exception {
+			List<String> lines = List.of("Running runners ran quickly", "connection connections connected",
+					"relational relations related", "The dogs' bowls, the cats' toys");
+
+			ExecutorService threads = Executors.newFixedThreadPool(4);
+			try {
+				List<Future<?>> futures = new ArrayList<>();
+				for (int t = 0; t < 4; t++) {
+					futures.add(threads.submit(() -> {
+						for (int i = 0; i < 500; i++) {
+							for (String line : lines) {
+								Assertions.assertIterableEquals(new TreeSet<>(expected(line)),
+										TextAnalyzer.get().uniqueStems(line));
+							}
+						}
+					}));
+				}
+				for (Future<?> future : futures) {
+					future.get();
+				}
+			}
+			finally {
+				threads.shutdown();
+			}
+		}
+	}
+}
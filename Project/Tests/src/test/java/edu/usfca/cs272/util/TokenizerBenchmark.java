@@ -0,0 +1,178 @@
+package edu.usfca.cs272.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Checks that {@link WordTokenizer} splits text into exactly the same words as
+ * cleaning and splitting it with the regular expressions of
+ * {@link FileStemmer}, and approximates how much faster it is. Every line of the
+ * text files in the given directory is compared, along with a few lines of
+ * unusual characters. Note: Benchmarking is difficult in Java, so treat the
+ * speedup as an estimate.
+ *
+ * @see FileStemmer#clean(String)
+ * @see FileStemmer#split(String)
+ */
+public class TokenizerBenchmark {
+	/** Lines of unusual characters compared along with the text files. */
+	private static final String[] EDGE_CASES = {
+			"", " ", "\t\n", "12 34", "élan café naïve façade", "ÀÉÎÕÜ ÇÑ", "ＡＢＣ ｆｕｌｌ", "ΟΔΥΣΣΕΥΣ σοφός",
+			"İstanbul DİJİTAL", " leading no-break space", "   after spaces", "\u0085next line",
+			"trailing no-break ", "in between", " figure narrow", "𝐁𝐨𝐥𝐝 𝔉𝔯𝔞𝔨𝔱𝔲𝔯",
+			"mixed-hyphen apostrophe's 3rd", "\uD800 lone \uDC00 surrogates", "ﬁne ﬂow Æther œuvre ß",
+			"日本語 の テキスト", "Ελληνικά ΚΕΦΑΛΑΊΑ", "́ͅypo", "x\u001Cy\u001Fz" };
+
+	/**
+	 * Splits the text with the regular expressions.
+	 *
+	 * @param text the text to split
+	 * @return the words
+	 */
+	private static String[] regex(String text) {
+		return FileStemmer.split(FileStemmer.clean(text));
+	}
+
+	/**
+	 * Splits the text with the tokenizer.
+	 *
+	 * @param tokenizer the tokenizer to reuse
+	 * @param text the text to split
+	 * @return the words
+	 */
+	private static String[] tokenize(WordTokenizer tokenizer, String text) {
+		List<String> words = new ArrayList<>();
+		tokenizer.reset(text);
+		while (tokenizer.next()) {
+			words.add(tokenizer.toString());
+		}
+		return words.toArray(FileStemmer.EMPTY);
+	}
+
+	/**
+	 * Returns the total length of the words of every line, split with the regular
+	 * expressions.
+	 *
+	 * @param lines the lines to split
+	 * @return the total length of the words
+	 */
+	private static long timeRegex(List<String> lines) {
+		long total = 0;
+		for (String line : lines) {
+			for (String word : regex(line)) {
+				total += word.length();
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the total length of the words of every line, split with the
+	 * tokenizer.
+	 *
+	 * @param lines the lines to split
+	 * @return the total length of the words
+	 */
+	private static long timeTokenizer(List<String> lines) {
+		long total = 0;
+		WordTokenizer tokenizer = new WordTokenizer();
+		for (String line : lines) {
+			tokenizer.reset(line);
+			while (tokenizer.next()) {
+				total += tokenizer.length();
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Reads every line of the text files in the directory.
+	 *
+	 * @param directory the directory of text files
+	 * @return the lines
+	 * @throws IOException if unable to read a file
+	 */
+	private static List<String> readLines(Path directory) throws IOException {
+		List<String> lines = new ArrayList<>();
+		try (Stream<Path> files = Files.walk(directory, FileVisitOption.FOLLOW_LINKS)) {
+			for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+				String name = file.getFileName().toString().toLowerCase();
+				if (Files.isRegularFile(file) && (name.endsWith(".txt") || name.endsWith(".text"))) {
+					lines.addAll(Files.readAllLines(file, UTF_8));
+				}
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Compares and times the regular expressions and the tokenizer.
+	 *
+	 * @param args the directory of text files, or input/text if not provided
+	 * @throws IOException if unable to read a file
+	 */
+	public static void main(String[] args) throws IOException {
+		int warmup = 5;
+		int runs = 10;
+
+		Path directory = Path.of(args.length > 0 ? args[0] : "input/text");
+		List<String> lines = readLines(directory);
+		lines.addAll(Arrays.asList(EDGE_CASES));
+
+		WordTokenizer tokenizer = new WordTokenizer();
+		int mismatches = 0;
+		for (String line : lines) {
+			String[] expected = regex(line);
+			String[] actual = tokenize(tokenizer, line);
+			if (!Arrays.equals(expected, actual)) {
+				if (++mismatches <= 10) {
+					System.out.printf("Mismatch for \"%s\":%n  expected %s%n  actual   %s%n", line,
+							Arrays.toString(expected), Arrays.toString(actual));
+				}
+			}
+		}
+
+		System.out.printf("Compared %d lines from %s: %d mismatches.%n", lines.size(), directory, mismatches);
+		if (mismatches > 0) {
+			return;
+		}
+
+		long result = 0;
+		System.out.print("Warmup rounds");
+		for (int i = 0; i < warmup; i++) {
+			System.out.print(".");
+			result += timeRegex(lines) + timeTokenizer(lines);
+		}
+		System.out.println(" done.");
+
+		long regex = Long.MAX_VALUE;
+		long tokenized = Long.MAX_VALUE;
+		for (int i = 0; i < runs; i++) {
+			Instant start = Instant.now();
+			result += timeRegex(lines);
+			regex = Math.min(regex, Duration.between(start, Instant.now()).toNanos());
+
+			start = Instant.now();
+			result += timeTokenizer(lines);
+			tokenized = Math.min(tokenized, Duration.between(start, Instant.now()).toNanos());
+		}
+
+		System.out.printf("Regex:     %.05fs%n", regex / 1e9);
+		System.out.printf("Tokenizer: %.05fs%n", tokenized / 1e9);
+		System.out.printf("Speedup:   %.02fx (checksum %d)%n", (double) regex / tokenized, result);
+	}
+
+	/** Prevent instantiating this class of static methods. */
+	private TokenizerBenchmark() {
+	}
+}
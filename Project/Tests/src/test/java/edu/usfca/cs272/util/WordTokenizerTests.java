@@ -0,0 +1,232 @@
+package edu.usfca.cs272.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import edu.usfca.cs272.tests.utils.ProjectPath;
+
+/**
+ * A test suite for {@link WordTokenizer}, which must split text into exactly the
+ * same words as cleaning and splitting it with the regular expressions of
+ * {@link FileStemmer}.
+ *
+ * @author CS 272 Software Development (University of San Francisco)
+ * @version Spring 2025
+ */
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class WordTokenizerTests {
+	/** Creates a new instance of this class. */
+	public WordTokenizerTests() {}
+
+	/**
+	 * Splits the text with the regular expressions.
+	 *
+	 * @param text the text to split
+	 * @return the words
+	 */
+	private static String[] regex(String text) {
+		return FileStemmer.split(FileStemmer.clean(text));
+	}
+
+	/**
+	 * Splits the text with a new tokenizer.
+	 *
+	 * @param text the text to split
+	 * @return the words
+	 */
+	private static String[] tokenize(CharSequence text) {
+		return tokenize(new WordTokenizer(), text);
+	}
+
+	/**
+	 * Splits the text with the tokenizer.
+	 *
+	 * @param tokenizer the tokenizer to reuse
+	 * @param text the text to split
+	 * @return the words
+	 */
+	private static String[] tokenize(WordTokenizer tokenizer, CharSequence text) {
+		List<String> words = new ArrayList<>();
+		tokenizer.reset(text);
+		while (tokenizer.next()) {
+			words.add(tokenizer.toString());
+		}
+		return words.toArray(FileStemmer.EMPTY);
+	}
+
+	/**
+	 * Asserts the tokenizer and the regular expressions split the text into the
+	 * same words.
+	 *
+	 * @param text the text to split
+	 */
+	private static void assertSameWords(String text) {
+		Assertions.assertArrayEquals(regex(text), tokenize(text), () -> "Words differ for: " + text);
+	}
+
+	/**
+	 * Tests lines of ASCII text.
+	 */
+	@Nested
+	@Order(1)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class AsciiTests {
+		/** Creates a new instance of this class. */
+		public AsciiTests() {}
+
+		/**
+		 * Tests the words of ASCII lines match the regular expressions.
+		 *
+		 * @param text the text to split
+		 */
+		@Order(1)
+		@ParameterizedTest
+		@ValueSource(strings = { "", " ", "\t\n", "hello", "Hello, World!", "  leading and trailing  ",
+				"12 34", "don't stop-me now", "tab\tand\u000Bvertical\u000Cfeed", "x\u001Cy\u001Fz",
+				"MiXeD CaSe 3rd", "a1b2c3 !@# d" })
+		public void testSameWords(String text) {
+			assertSameWords(text);
+		}
+
+		/**
+		 * Tests punctuation and digits are removed from inside words.
+		 */
+		@Order(2)
+		@Test
+		public void testCleaned() {
+			String[] expected = { "dont", "stopme", "now" };
+			Assertions.assertArrayEquals(expected, tokenize("Don't stop-me NOW!"));
+		}
+
+		/**
+		 * Tests text without letters has no words.
+		 */
+		@Order(3)
+		@Test
+		public void testNoWords() {
+			Assertions.assertArrayEquals(FileStemmer.EMPTY, tokenize(" 12 34 !? "));
+		}
+	}
+
+	/**
+	 * Tests lines with characters outside of ASCII.
+	 */
+	@Nested
+	@Order(2)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class UnicodeTests {
+		/** Creates a new instance of this class. */
+		public UnicodeTests() {}
+
+		/**
+		 * Tests the words of lines with unusual characters match the regular
+		 * expressions.
+		 *
+		 * @param text the text to split
+		 */
+		@Order(1)
+		@ParameterizedTest
+		@ValueSource(strings = { "élan café naïve façade", "ÀÉÎÕÜ ÇÑ", "ＡＢＣ ｆｕｌｌ", "ΟΔΥΣΣΕΥΣ σοφός",
+				"İstanbul DİJİTAL", "\u00A0leading no-break space", "\u00A0", " \u00A0x", "   after spaces",
+				"\u0085next line", "trailing no-break\u00A0", "in\u00A0between", "\u2007figure\u202Fnarrow",
+				"𝐁𝐨𝐥𝐝 𝔉𝔯𝔞𝔨𝔱𝔲𝔯", "\uD800 lone \uDC00 surrogates", "ﬁne ﬂow Æther œuvre ß",
+				"日本語 の テキスト", "Ελληνικά ΚΕΦΑΛΑΊΑ", "Привет, мир!", "\u0301\u0345ypo",
+				"line\u2028separator\u2029paragraph" })
+		public void testSameWords(String text) {
+			assertSameWords(text);
+		}
+
+		/**
+		 * Tests a leading no-break space, which is whitespace to the regular
+		 * expressions but is not stripped, produces an empty first word.
+		 */
+		@Order(2)
+		@Test
+		public void testLeadingNoBreakSpace() {
+			String[] expected = { "", "leading" };
+			Assertions.assertArrayEquals(expected, tokenize("\u00A0leading"));
+		}
+
+		/**
+		 * Tests combining marks are removed once the text is decomposed, whether the
+		 * accents are precomposed or not.
+		 */
+		@Order(3)
+		@Test
+		public void testCombiningMarks() {
+			String[] expected = { "cafe", "naive" };
+			Assertions.assertArrayEquals(expected, tokenize("café naïve"));
+			Assertions.assertArrayEquals(expected, tokenize("cafe\u0301 nai\u0308ve"));
+		}
+
+		/**
+		 * Tests letters outside of the Latin alphabet are kept and lowercased.
+		 */
+		@Order(4)
+		@Test
+		public void testNonLatin() {
+			String[] expected = { "привет", "мир" };
+			Assertions.assertArrayEquals(expected, tokenize("Привет, мир!"));
+		}
+	}
+
+	/**
+	 * Tests reusing a tokenizer and the text files of the project.
+	 */
+	@Nested
+	@Order(3)
+	@TestMethodOrder(OrderAnnotation.class)
+	public class ReuseTests {
+		/** Creates a new instance of this class. */
+		public ReuseTests() {}
+
+		/**
+		 * Tests resetting a tokenizer discards the words of the previous text.
+		 */
+		@Order(1)
+		@Test
+		public void testReset() {
+			WordTokenizer tokenizer = new WordTokenizer("first words here");
+			Assertions.assertTrue(tokenizer.next());
+			Assertions.assertEquals("first", tokenizer.toString());
+
+			String[] expected = { "elan", "second" };
+			Assertions.assertArrayEquals(expected, tokenize(tokenizer, "Élan second"));
+			Assertions.assertArrayEquals(FileStemmer.EMPTY, tokenize(tokenizer, ""));
+		}
+
+		/**
+		 * Tests every line of the text files matches the regular expressions.
+		 *
+		 * @throws IOException if unable to read a file
+		 */
+		@Order(2)
+		@Test
+		public void testTextFiles() throws IOException {
+			try (Stream<Path> paths = Files.walk(ProjectPath.TEXT.path)) {
+				for (Path file : (Iterable<Path>) paths.filter(Files::isRegularFile).sorted()::iterator) {
+					for (String line : Files.readAllLines(file, UTF_8)) {
+						assertSameWords(line);
+					}
+				}
+			}
+		}
+	}
+}